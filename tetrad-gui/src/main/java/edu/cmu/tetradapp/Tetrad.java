@@ -23,6 +23,7 @@ package edu.cmu.tetradapp;
 import edu.cmu.tetrad.util.JOptionUtils;
 import edu.cmu.tetrad.util.TetradLogger;
 import edu.cmu.tetrad.util.Version;
+import edu.cmu.tetradapp.app.SessionArchive;
 import edu.cmu.tetradapp.app.TetradDesktop;
 import edu.cmu.tetradapp.util.DesktopController;
 import edu.cmu.tetradapp.util.ImageUtils;
@@ -284,6 +285,7 @@ public final class Tetrad implements PropertyChangeListener {
 
         getFrame().setVisible(false);
         getFrame().dispose();
+        SessionArchive.awaitPendingSaves();
         TetradLogger.getInstance().removeNextOutputStream();
 
         try {
@@ -105,30 +105,36 @@ final class LoadSessionAction extends AbstractAction {
         class MyWatchedProcess extends WatchedProcess {
             public void watch() {
                 try {
-                    FileInputStream in = new FileInputStream(file);
-                    DecompressibleInputStream objIn = new DecompressibleInputStream(in);
-                    Object o = objIn.readObject();
-
                     TetradMetadata metadata = null;
                     SessionWrapper sessionWrapper = null;
 
-                    if (o instanceof TetradMetadata) {
-                        metadata = (TetradMetadata) o;
-
-                        try {
-                            sessionWrapper = (SessionWrapper) objIn.readObject();
-                        } catch (ClassNotFoundException e1) {
-
-                            throw e1;
-                        } catch (Exception e2) {
-                            e2.printStackTrace();
-                            TetradLogger.getInstance().log("Exception: " + e2.getMessage());
+                    if (SessionArchive.isArchive(file.toPath())) {
+                        SessionArchive.Contents contents = SessionArchive.read(file.toPath());
+                        metadata = (TetradMetadata) contents.getMetadata();
+                        sessionWrapper = (SessionWrapper) contents.getSession();
+                    } else {
+                        FileInputStream in = new FileInputStream(file);
+                        DecompressibleInputStream objIn = new DecompressibleInputStream(in);
+                        Object o = objIn.readObject();
+
+                        if (o instanceof TetradMetadata) {
+                            metadata = (TetradMetadata) o;
+
+                            try {
+                                sessionWrapper = (SessionWrapper) objIn.readObject();
+                            } catch (ClassNotFoundException e1) {
+
+                                throw e1;
+                            } catch (Exception e2) {
+                                e2.printStackTrace();
+                                TetradLogger.getInstance().log("Exception: " + e2.getMessage());
+                            }
+                        } else if (o instanceof SessionWrapper) {
+                            sessionWrapper = (SessionWrapper) o;
                         }
-                    } else if (o instanceof SessionWrapper) {
-                        sessionWrapper = (SessionWrapper) o;
-                    }
 
-                    in.close();
+                        in.close();
+                    }
 
                     if (metadata == null) {
                         throw new NullPointerException("Could not read metadata.");
@@ -25,13 +25,11 @@ import edu.cmu.tetradapp.model.SessionWrapper;
 import edu.cmu.tetradapp.model.TetradMetadata;
 import edu.cmu.tetradapp.util.DesktopController;
 import edu.cmu.tetradapp.util.SessionEditorIndirectRef;
-import edu.cmu.tetradapp.util.WatchedProcess;
 
 import javax.swing.*;
 import java.awt.event.ActionEvent;
 import java.io.IOException;
 import java.io.NotSerializableException;
-import java.io.ObjectOutputStream;
 import java.io.Serial;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -99,34 +97,37 @@ public final class SaveSessionAction extends AbstractAction {
             }
         }
 
-        class MyWatchedProceess extends WatchedProcess {
-
-            @Override
-            public void watch() {
-                try (ObjectOutputStream objOut = new ObjectOutputStream(Files.newOutputStream(outputFile))) {
-                    sessionWrapper.setNewSession(false);
-                    objOut.writeObject(metadata);
-                    objOut.writeObject(sessionWrapper);
-                } catch (NotSerializableException exception) {
-                    exception.printStackTrace(System.err);
-                    JOptionPane.showMessageDialog(
-                            JOptionUtils.centeringComp(),
-                            "An error occurred while attempting to save the session. The session could not be saved.");
-                } catch (IOException exception) {
-                    exception.printStackTrace(System.err);
+        try {
+            sessionWrapper.setNewSession(false);
+            SessionArchive.writeAsync(outputFile, metadata, sessionWrapper, error -> {
+                if (error != null) {
+                    error.printStackTrace(System.err);
+                    sessionWrapper.setSessionChanged(true);
                     JOptionPane.showMessageDialog(
                             JOptionUtils.centeringComp(),
                             String.format(
                                     "An error occurred while attempting to save the session as %s.",
                                     outputFile.toAbsolutePath()));
                 }
-
-                sessionWrapper.setSessionChanged(false);
-                DesktopController.getInstance().putMetadata(sessionWrapper, metadata);
-            }
+            });
+        } catch (NotSerializableException exception) {
+            exception.printStackTrace(System.err);
+            JOptionPane.showMessageDialog(
+                    JOptionUtils.centeringComp(),
+                    "An error occurred while attempting to save the session. The session could not be saved.");
+            return;
+        } catch (IOException exception) {
+            exception.printStackTrace(System.err);
+            JOptionPane.showMessageDialog(
+                    JOptionUtils.centeringComp(),
+                    String.format(
+                            "An error occurred while attempting to save the session as %s.",
+                            outputFile.toAbsolutePath()));
+            return;
         }
 
-        new MyWatchedProceess();
+        sessionWrapper.setSessionChanged(false);
+        DesktopController.getInstance().putMetadata(sessionWrapper, metadata);
     }
 
     /**
@@ -26,15 +26,12 @@ import edu.cmu.tetradapp.model.SessionWrapper;
 import edu.cmu.tetradapp.model.TetradMetadata;
 import edu.cmu.tetradapp.util.DesktopController;
 import edu.cmu.tetradapp.util.SessionEditorIndirectRef;
-import edu.cmu.tetradapp.util.WatchedProcess;
 
 import javax.swing.*;
 import java.awt.event.ActionEvent;
 import java.io.File;
 import java.io.IOException;
-import java.io.ObjectOutputStream;
 import java.io.Serial;
-import java.nio.file.Files;
 import java.util.prefs.Preferences;
 
 /**
@@ -99,32 +96,29 @@ public final class SaveSessionAsAction extends AbstractAction {
         sessionWrapper.setName(file.getName());
         sessionEditor.setName(file.getName());
 
-        class MyWatchedProcess extends WatchedProcess {
-
-            @Override
-            public void watch() {
-                try (ObjectOutputStream objOut = new ObjectOutputStream(Files.newOutputStream(file.toPath()))) {
-                    saved = false;
-                    objOut.writeObject(metadata);
-                    objOut.writeObject(sessionWrapper);
-
-                    sessionWrapper.setSessionChanged(false);
-                    sessionWrapper.setNewSession(false);
-                    saved = true;
-                } catch (IOException exception) {
-                    exception.printStackTrace(System.err);
-
+        try {
+            SessionArchive.writeAsync(file.toPath(), metadata, sessionWrapper, error -> {
+                if (error != null) {
+                    error.printStackTrace(System.err);
+                    sessionWrapper.setSessionChanged(true);
                     JOptionPane.showMessageDialog(JOptionUtils.centeringComp(),
                             "An error occurred while attempting to save the session.");
-                    saved = false;
                 }
+            });
 
-                DesktopController.getInstance().putMetadata(sessionWrapper, metadata);
-                sessionEditor.firePropertyChange("name", null, file.getName());
-            }
+            sessionWrapper.setSessionChanged(false);
+            sessionWrapper.setNewSession(false);
+            saved = true;
+        } catch (IOException exception) {
+            exception.printStackTrace(System.err);
+
+            JOptionPane.showMessageDialog(JOptionUtils.centeringComp(),
+                    "An error occurred while attempting to save the session.");
+            saved = false;
         }
 
-        new MyWatchedProcess();
+        DesktopController.getInstance().putMetadata(sessionWrapper, metadata);
+        sessionEditor.firePropertyChange("name", null, file.getName());
     }
 }
 
@@ -0,0 +1,879 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+//                                                                           //
+// Copyright (C) 2025 by Joseph Ramsey, Peter Spirtes, Clark Glymour,        //
+// and Richard Scheines.                                                     //
+//                                                                           //
+// This program is free software: you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation, either version 3 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.    //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetradapp.app;
+
+import edu.cmu.tetradapp.util.TaskService;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.zip.*;
+
+/**
+ * Reads and writes sessions in an archive format that keeps large numeric arrays, such as the columns of data sets and
+ * the entries of covariance matrices, out of the Java-serialized object graph.
+ * <p>
+ * The archive is a zip file. The metadata and the session are Java-serialized as before, except that every double[],
+ * int[], double[][] or int[][] in the session with at least {@link #MIN_BLOB_SIZE} entries is replaced by a reference
+ * to a blob. A blob is stored column by column (a one-dimensional array is one column), each column in chunks whose
+ * bytes are regrouped by significance and deflated, which compresses numeric data well. Chunks are compressed and
+ * decompressed in parallel.
+ * <p>
+ * Saving serializes the object graph on the calling thread, which is quick once the arrays are left out, and does the
+ * rest as a background job. The archive is written to a temporary file and moved into place, so an interrupted save
+ * leaves the old file intact. Each blob carries a fingerprint of its contents. An array that was loaded from, or saved
+ * to, an archive that is still on disk and whose contents still match the fingerprint is copied from that archive
+ * without being compressed again.
+ * <p>
+ * Blobs are decompressed when the session is read rather than on first use, since the data boxes take fast paths on
+ * their concrete array-backed types.
+ *
+ * @author josephramsey
+ */
+public final class SessionArchive {
+
+    /**
+     * Arrays with fewer entries than this are left in the serialized object graph.
+     */
+    public static final int MIN_BLOB_SIZE = 1024;
+
+    /**
+     * The number of array entries compressed together.
+     */
+    private static final int CHUNK_SIZE = 1 << 18;
+
+    /**
+     * The version of the archive layout.
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    private static final String FORMAT_ENTRY = "tetrad-session";
+    private static final String METADATA_ENTRY = "metadata.ser";
+    private static final String SESSION_ENTRY = "session.ser";
+    private static final String BLOB_PREFIX = "blobs/";
+
+    private static final byte DOUBLES = 1;
+    private static final byte INTS = 2;
+    private static final byte DOUBLE_COLUMNS = 3;
+    private static final byte INT_COLUMNS = 4;
+
+    /**
+     * Where each array last loaded or saved is stored, so that an unchanged array can be copied from there.
+     */
+    private static final Map<Object, BlobSource> SOURCES = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Saves that have been started but not finished.
+     */
+    private static final Set<TaskService.Job> PENDING = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Prevent instantiation.
+     */
+    private SessionArchive() {
+    }
+
+    /**
+     * Returns whether the given file is a session archive, as opposed to a session saved by plain Java serialization.
+     *
+     * @param file the file.
+     * @return true if the file is an archive.
+     * @throws IOException if the file can't be read.
+     */
+    public static boolean isArchive(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] magic = in.readNBytes(4);
+            return magic.length == 4 && magic[0] == 'P' && magic[1] == 'K' && magic[2] == 3 && magic[3] == 4;
+        }
+    }
+
+    /**
+     * Saves a session in the background. The session is serialized, and the large arrays it refers to are copied,
+     * before this method returns, so later changes to it are not saved.
+     *
+     * @param file     the file to write.
+     * @param metadata the metadata, written first.
+     * @param session  the session.
+     * @param whenDone called on the event dispatch thread when the save finishes, with null on success or the
+     *                 exception that stopped it; may be null.
+     * @return the background job.
+     * @throws IOException if the session can't be serialized.
+     */
+    public static TaskService.Job writeAsync(Path file, Serializable metadata, Serializable session,
+                                             Consumer<Throwable> whenDone) throws IOException {
+        Snapshot snapshot = Snapshot.of(metadata, session, true);
+
+        TaskService.Job job = TaskService.getInstance().submit("Save " + file.getFileName(),
+                TaskService.Priority.HIGH, j -> {
+                    Throwable error = null;
+
+                    try {
+                        snapshot.write(file);
+                    } catch (Exception e) {
+                        error = e;
+                        throw e;
+                    } finally {
+                        Throwable result = error;
+
+                        if (whenDone != null) {
+                            javax.swing.SwingUtilities.invokeLater(() -> whenDone.accept(result));
+                        }
+                    }
+                });
+
+        PENDING.removeIf(TaskService.Job::isDone);
+        PENDING.add(job);
+
+        return job;
+    }
+
+    /**
+     * Saves a session on the calling thread.
+     *
+     * @param file     the file to write.
+     * @param metadata the metadata, written first.
+     * @param session  the session.
+     * @return the number of blobs that were copied from an earlier archive rather than compressed again.
+     * @throws IOException if the session can't be written.
+     */
+    public static int write(Path file, Serializable metadata, Serializable session) throws IOException {
+        return Snapshot.of(metadata, session, false).write(file);
+    }
+
+    /**
+     * Reads a session archive.
+     *
+     * @param file the file.
+     * @return the metadata and the session.
+     * @throws IOException            if the file can't be read or is not a session archive.
+     * @throws ClassNotFoundException if a class in the session is not available.
+     */
+    public static Contents read(Path file) throws IOException, ClassNotFoundException {
+        FileTime modified = Files.getLastModifiedTime(file);
+
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            ZipEntry format = zip.getEntry(FORMAT_ENTRY);
+
+            if (format == null) {
+                throw new IOException("Not a Tetrad session archive: " + file);
+            }
+
+            try (DataInputStream in = new DataInputStream(zip.getInputStream(format))) {
+                int version = in.readInt();
+
+                if (version > FORMAT_VERSION) {
+                    throw new IOException("Session archive was written by a newer version of Tetrad (format "
+                                          + version + ").");
+                }
+            }
+
+            Object[] blobs = readBlobs(zip, file, modified);
+
+            Object metadata;
+
+            try (ObjectInputStream in = new DecompressibleInputStream(
+                    new BufferedInputStream(zip.getInputStream(requireEntry(zip, METADATA_ENTRY))))) {
+                metadata = in.readObject();
+            }
+
+            Object session;
+
+            try (ObjectInputStream in = new BlobResolvingInputStream(
+                    new BufferedInputStream(zip.getInputStream(requireEntry(zip, SESSION_ENTRY))), blobs)) {
+                session = in.readObject();
+            }
+
+            return new Contents(metadata, session);
+        }
+    }
+
+    /**
+     * Waits for all background saves to finish. Call before exiting.
+     */
+    public static void awaitPendingSaves() {
+        for (TaskService.Job job : new ArrayList<>(PENDING)) {
+            try {
+                job.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+
+        PENDING.removeIf(TaskService.Job::isDone);
+    }
+
+    private static ZipEntry requireEntry(ZipFile zip, String name) throws IOException {
+        ZipEntry entry = zip.getEntry(name);
+
+        if (entry == null) {
+            throw new IOException("Session archive is missing " + name + ".");
+        }
+
+        return entry;
+    }
+
+    /**
+     * Reads and decompresses all blobs, chunks in parallel.
+     */
+    private static Object[] readBlobs(ZipFile zip, Path file, FileTime modified) throws IOException {
+        List<BlobHeader> headers = new ArrayList<>();
+
+        for (int id = 0; ; id++) {
+            ZipEntry entry = zip.getEntry(BLOB_PREFIX + id);
+            if (entry == null) break;
+
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(zip.getInputStream(entry)))) {
+                headers.add(BlobHeader.read(in));
+            }
+        }
+
+        Object[] blobs = new Object[headers.size()];
+        List<Column> columns = new ArrayList<>();
+
+        for (int id = 0; id < headers.size(); id++) {
+            BlobHeader header = headers.get(id);
+            blobs[id] = header.allocate();
+
+            for (int c = 0; c < header.lengths.length; c++) {
+                if (header.lengths[c] >= 0) {
+                    columns.add(new Column(id, c, header.kind, columnOf(blobs[id], c)));
+                }
+            }
+        }
+
+        parallel(columns.size(), i -> {
+            Column column = columns.get(i);
+            ZipEntry entry = zip.getEntry(BLOB_PREFIX + column.blob + "/" + column.index);
+
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(zip.getInputStream(entry)))) {
+                column.decode(in);
+            } catch (IOException | NullPointerException e) {
+                throw new UncheckedIOException(new IOException("Could not read column " + column.index
+                                                               + " of blob " + column.blob + ".", e));
+            }
+        });
+
+        for (int id = 0; id < blobs.length; id++) {
+            SOURCES.put(blobs[id], new BlobSource(file, modified, id, headers.get(id).fingerprint));
+        }
+
+        return blobs;
+    }
+
+    private static Object columnOf(Object blob, int c) {
+        if (blob instanceof double[][] columns) return columns[c];
+        if (blob instanceof int[][] columns) return columns[c];
+        return blob;
+    }
+
+    /**
+     * Runs body(0), ..., body(n - 1) in parallel, rethrowing the first failure.
+     */
+    private static void parallel(int n, java.util.function.IntConsumer body) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors()));
+
+        try {
+            pool.submit(() -> IntStream.range(0, n).parallel().forEach(body)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading or writing a session archive.");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) throw ((UncheckedIOException) cause).getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new RuntimeException(cause);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static int sizeOf(Object array) {
+        if (array instanceof double[] a) return a.length;
+        if (array instanceof int[] a) return a.length;
+
+        long size = 0;
+
+        if (array instanceof double[][] a) {
+            for (double[] column : a) size += column == null ? 0 : column.length;
+        } else if (array instanceof int[][] a) {
+            for (int[] column : a) size += column == null ? 0 : column.length;
+        } else {
+            return -1;
+        }
+
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    private static byte kindOf(Object array) {
+        if (array instanceof double[]) return DOUBLES;
+        if (array instanceof int[]) return INTS;
+        if (array instanceof double[][]) return DOUBLE_COLUMNS;
+        return INT_COLUMNS;
+    }
+
+    private static int[] lengthsOf(Object array) {
+        if (array instanceof double[] a) return new int[]{a.length};
+        if (array instanceof int[] a) return new int[]{a.length};
+
+        if (array instanceof double[][] a) {
+            int[] lengths = new int[a.length];
+            for (int c = 0; c < a.length; c++) lengths[c] = a[c] == null ? -1 : a[c].length;
+            return lengths;
+        }
+
+        int[][] a = (int[][]) array;
+        int[] lengths = new int[a.length];
+        for (int c = 0; c < a.length; c++) lengths[c] = a[c] == null ? -1 : a[c].length;
+        return lengths;
+    }
+
+    /**
+     * Returns a 64-bit hash of the raw bits of a column.
+     */
+    private static long fingerprint(Object column) {
+        long h = 0x9E3779B97F4A7C15L;
+
+        if (column instanceof double[] a) {
+            for (double v : a) h = mix(h ^ Double.doubleToRawLongBits(v));
+            return mix(h ^ a.length);
+        }
+
+        int[] a = (int[]) column;
+        for (int v : a) h = mix(h ^ v);
+        return mix(h ^ a.length);
+    }
+
+    private static long mix(long h) {
+        h *= 0xBF58476D1CE4E5B9L;
+        return h ^ (h >>> 31);
+    }
+
+    /**
+     * The metadata and session read from an archive.
+     */
+    public static final class Contents {
+
+        private final Object metadata;
+        private final Object session;
+
+        private Contents(Object metadata, Object session) {
+            this.metadata = metadata;
+            this.session = session;
+        }
+
+        /**
+         * Returns the metadata.
+         *
+         * @return the metadata.
+         */
+        public Object getMetadata() {
+            return this.metadata;
+        }
+
+        /**
+         * Returns the session.
+         *
+         * @return the session.
+         */
+        public Object getSession() {
+            return this.session;
+        }
+    }
+
+    /**
+     * Stands in for a blob in the serialized object graph.
+     */
+    private static final class BlobRef implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = 23L;
+
+        private final int id;
+
+        private BlobRef(int id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * Where an array is stored in an archive on disk.
+     */
+    private record BlobSource(Path file, FileTime modified, int id, long fingerprint) {
+    }
+
+    /**
+     * The kind, column lengths and fingerprint of a blob; stored as the blob's own entry.
+     */
+    private record BlobHeader(byte kind, int[] lengths, long fingerprint) {
+
+        static BlobHeader read(DataInputStream in) throws IOException {
+            byte kind = in.readByte();
+            int[] lengths = new int[in.readInt()];
+            for (int c = 0; c < lengths.length; c++) lengths[c] = in.readInt();
+            return new BlobHeader(kind, lengths, in.readLong());
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeByte(this.kind);
+            out.writeInt(this.lengths.length);
+            for (int length : this.lengths) out.writeInt(length);
+            out.writeLong(this.fingerprint);
+        }
+
+        Object allocate() throws IOException {
+            switch (this.kind) {
+                case DOUBLES:
+                    return new double[this.lengths[0]];
+                case INTS:
+                    return new int[this.lengths[0]];
+                case DOUBLE_COLUMNS: {
+                    double[][] columns = new double[this.lengths.length][];
+                    for (int c = 0; c < columns.length; c++) {
+                        if (this.lengths[c] >= 0) columns[c] = new double[this.lengths[c]];
+                    }
+                    return columns;
+                }
+                case INT_COLUMNS: {
+                    int[][] columns = new int[this.lengths.length][];
+                    for (int c = 0; c < columns.length; c++) {
+                        if (this.lengths[c] >= 0) columns[c] = new int[this.lengths[c]];
+                    }
+                    return columns;
+                }
+                default:
+                    throw new IOException("Unknown blob kind: " + this.kind);
+            }
+        }
+    }
+
+    /**
+     * One column of a blob: a double[] or int[] and its position.
+     */
+    private record Column(int blob, int index, byte kind, Object values) {
+
+        int length() {
+            return this.values instanceof double[] a ? a.length : ((int[]) this.values).length;
+        }
+
+        int width() {
+            return this.values instanceof double[] ? 8 : 4;
+        }
+
+        /**
+         * Compresses the column, chunk by chunk, as: for each chunk, its compressed length and bytes.
+         */
+        byte[] encode() {
+            int length = length();
+            int width = width();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+            byte[] planes = new byte[Math.min(length, CHUNK_SIZE) * width];
+            byte[] buffer = new byte[planes.length + planes.length / 8 + 64];
+
+            try {
+                for (int from = 0; from < length; from += CHUNK_SIZE) {
+                    int n = Math.min(CHUNK_SIZE, length - from);
+                    shuffle(from, n, planes);
+
+                    deflater.reset();
+                    deflater.setInput(planes, 0, n * width);
+                    deflater.finish();
+
+                    ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+
+                    while (!deflater.finished()) {
+                        int count = deflater.deflate(buffer);
+                        chunk.write(buffer, 0, count);
+                    }
+
+                    out.writeInt(chunk.size());
+                    chunk.writeTo(out);
+                }
+
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                deflater.end();
+            }
+
+            return bytes.toByteArray();
+        }
+
+        void decode(DataInputStream in) throws IOException {
+            int length = length();
+            int width = width();
+            Inflater inflater = new Inflater(true);
+            byte[] planes = new byte[Math.min(length, CHUNK_SIZE) * width];
+
+            try {
+                for (int from = 0; from < length; from += CHUNK_SIZE) {
+                    int n = Math.min(CHUNK_SIZE, length - from);
+                    byte[] compressed = new byte[in.readInt()];
+                    in.readFully(compressed);
+
+                    inflater.reset();
+                    inflater.setInput(compressed);
+                    int filled = 0;
+
+                    while (filled < n * width) {
+                        int count = inflater.inflate(planes, filled, n * width - filled);
+
+                        if (count == 0 && (inflater.finished() || inflater.needsInput())) {
+                            throw new EOFException("Truncated column data.");
+                        }
+
+                        filled += count;
+                    }
+
+                    unshuffle(from, n, planes);
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupt column data.", e);
+            } finally {
+                inflater.end();
+            }
+        }
+
+        /**
+         * Writes byte p of value i to planes[p * n + i], which groups the slowly varying high-order bytes together.
+         */
+        private void shuffle(int from, int n, byte[] planes) {
+            if (this.values instanceof double[] a) {
+                for (int i = 0; i < n; i++) {
+                    long bits = Double.doubleToRawLongBits(a[from + i]);
+                    for (int p = 0; p < 8; p++) planes[p * n + i] = (byte) (bits >>> (8 * p));
+                }
+            } else {
+                int[] a = (int[]) this.values;
+                for (int i = 0; i < n; i++) {
+                    int bits = a[from + i];
+                    for (int p = 0; p < 4; p++) planes[p * n + i] = (byte) (bits >>> (8 * p));
+                }
+            }
+        }
+
+        private void unshuffle(int from, int n, byte[] planes) {
+            if (this.values instanceof double[] a) {
+                for (int i = 0; i < n; i++) {
+                    long bits = 0;
+                    for (int p = 0; p < 8; p++) bits |= (planes[p * n + i] & 0xFFL) << (8 * p);
+                    a[from + i] = Double.longBitsToDouble(bits);
+                }
+            } else {
+                int[] a = (int[]) this.values;
+                for (int i = 0; i < n; i++) {
+                    int bits = 0;
+                    for (int p = 0; p < 4; p++) bits |= (planes[p * n + i] & 0xFF) << (8 * p);
+                    a[from + i] = bits;
+                }
+            }
+        }
+    }
+
+    /**
+     * Serializes a session, replacing large arrays with blob references and collecting the arrays.
+     */
+    private static final class BlobReplacingOutputStream extends ObjectOutputStream {
+
+        private final Map<Object, BlobRef> refs = new IdentityHashMap<>();
+        private final List<Object> blobs = new ArrayList<>();
+
+        BlobReplacingOutputStream(OutputStream out) throws IOException {
+            super(out);
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) {
+            if (!(obj instanceof double[] || obj instanceof int[] || obj instanceof double[][]
+                  || obj instanceof int[][])) {
+                return obj;
+            }
+
+            BlobRef ref = this.refs.get(obj);
+
+            if (ref == null) {
+                if (sizeOf(obj) < MIN_BLOB_SIZE) {
+                    return obj;
+                }
+
+                ref = new BlobRef(this.blobs.size());
+                this.refs.put(obj, ref);
+                this.blobs.add(obj);
+            }
+
+            return ref;
+        }
+    }
+
+    /**
+     * Reads a session, putting the blobs back in place of their references.
+     */
+    private static final class BlobResolvingInputStream extends DecompressibleInputStream {
+
+        private final Object[] blobs;
+
+        BlobResolvingInputStream(InputStream in, Object[] blobs) throws IOException {
+            super(in);
+            this.blobs = blobs;
+            enableResolveObject(true);
+        }
+
+        @Override
+        protected Object resolveObject(Object obj) throws IOException {
+            if (obj instanceof BlobRef ref) {
+                if (ref.id < 0 || ref.id >= this.blobs.length) {
+                    throw new InvalidObjectException("Missing blob " + ref.id + ".");
+                }
+
+                return this.blobs[ref.id];
+            }
+
+            return obj;
+        }
+    }
+
+    /**
+     * A serialized session and the arrays it refers to, ready to be written.
+     */
+    private static final class Snapshot {
+
+        private final byte[] metadata;
+        private final byte[] session;
+        /**
+         * The arrays to write; copies of the session's arrays if the snapshot is written in the background.
+         */
+        private final List<Object> blobs;
+        /**
+         * The session's own arrays, by which earlier archives of them are looked up and this one is recorded.
+         */
+        private final List<Object> originals;
+
+        private Snapshot(byte[] metadata, byte[] session, List<Object> blobs, List<Object> originals) {
+            this.metadata = metadata;
+            this.session = session;
+            this.blobs = blobs;
+            this.originals = originals;
+        }
+
+        /**
+         * Serializes the metadata and session. If copy is true, the large arrays are copied too, so that the session
+         * may be edited while the snapshot is written.
+         */
+        static Snapshot of(Serializable metadata, Serializable session, boolean copy) throws IOException {
+            ByteArrayOutputStream metadataBytes = new ByteArrayOutputStream();
+
+            try (ObjectOutputStream out = new ObjectOutputStream(metadataBytes)) {
+                out.writeObject(metadata);
+            }
+
+            ByteArrayOutputStream sessionBytes = new ByteArrayOutputStream();
+            List<Object> blobs;
+
+            try (BlobReplacingOutputStream out = new BlobReplacingOutputStream(sessionBytes)) {
+                out.writeObject(session);
+                blobs = out.blobs;
+            }
+
+            List<Object> copies = blobs;
+
+            if (copy) {
+                copies = new ArrayList<>(blobs.size());
+                for (Object blob : blobs) copies.add(copyOf(blob));
+            }
+
+            return new Snapshot(metadataBytes.toByteArray(), sessionBytes.toByteArray(), copies, blobs);
+        }
+
+        private static Object copyOf(Object array) {
+            if (array instanceof double[] a) return a.clone();
+            if (array instanceof int[] a) return a.clone();
+
+            if (array instanceof double[][] a) {
+                double[][] copy = new double[a.length][];
+                for (int c = 0; c < a.length; c++) copy[c] = a[c] == null ? null : a[c].clone();
+                return copy;
+            }
+
+            int[][] a = (int[][]) array;
+            int[][] copy = new int[a.length][];
+            for (int c = 0; c < a.length; c++) copy[c] = a[c] == null ? null : a[c].clone();
+            return copy;
+        }
+
+        /**
+         * Writes the archive and returns the number of blobs copied from earlier archives.
+         */
+        int write(Path file) throws IOException {
+            int numBlobs = this.blobs.size();
+
+            // Gather the columns and fingerprint them in parallel.
+            List<Column> columns = new ArrayList<>();
+            int[] firstColumn = new int[numBlobs + 1];
+
+            for (int id = 0; id < numBlobs; id++) {
+                firstColumn[id] = columns.size();
+                Object blob = this.blobs.get(id);
+                byte kind = kindOf(blob);
+                int[] lengths = lengthsOf(blob);
+
+                for (int c = 0; c < lengths.length; c++) {
+                    if (lengths[c] >= 0) columns.add(new Column(id, c, kind, columnOf(blob, c)));
+                }
+            }
+
+            firstColumn[numBlobs] = columns.size();
+
+            long[] columnPrints = new long[columns.size()];
+            parallel(columns.size(), i -> columnPrints[i] = fingerprint(columns.get(i).values()));
+
+            long[] prints = new long[numBlobs];
+            BlobSource[] reused = new BlobSource[numBlobs];
+
+            for (int id = 0; id < numBlobs; id++) {
+                long h = mix(kindOf(this.blobs.get(id)) ^ Arrays.hashCode(lengthsOf(this.blobs.get(id))));
+                for (int i = firstColumn[id]; i < firstColumn[id + 1]; i++) h = mix(h ^ columnPrints[i]);
+                prints[id] = h;
+
+                BlobSource source = SOURCES.get(this.originals.get(id));
+
+                if (source != null && source.fingerprint() == h && Files.exists(source.file())
+                    && Files.getLastModifiedTime(source.file()).equals(source.modified())) {
+                    reused[id] = source;
+                }
+            }
+
+            // Compress the columns that can't be copied, in parallel.
+            byte[][] encoded = new byte[columns.size()][];
+            parallel(columns.size(), i -> {
+                if (reused[columns.get(i).blob()] == null) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new UncheckedIOException(new InterruptedIOException("Save interrupted."));
+                    }
+
+                    encoded[i] = columns.get(i).encode();
+                }
+            });
+
+            Path dir = file.toAbsolutePath().getParent();
+            Path temp = Files.createTempFile(dir, ".tetrad-save", ".tmp");
+            Map<Path, ZipFile> sources = new HashMap<>();
+            int numReused = 0;
+
+            try {
+                try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                    ByteArrayOutputStream format = new ByteArrayOutputStream();
+                    new DataOutputStream(format).writeInt(FORMAT_VERSION);
+                    putDeflated(zip, FORMAT_ENTRY, format.toByteArray());
+                    putDeflated(zip, METADATA_ENTRY, this.metadata);
+                    putDeflated(zip, SESSION_ENTRY, this.session);
+
+                    for (int id = 0; id < numBlobs; id++) {
+                        Object blob = this.blobs.get(id);
+                        ByteArrayOutputStream header = new ByteArrayOutputStream();
+                        new BlobHeader(kindOf(blob), lengthsOf(blob), prints[id]).write(new DataOutputStream(header));
+                        putStored(zip, BLOB_PREFIX + id, header.toByteArray());
+
+                        if (reused[id] != null) {
+                            ZipFile source = sources.get(reused[id].file());
+
+                            if (source == null) {
+                                source = new ZipFile(reused[id].file().toFile());
+                                sources.put(reused[id].file(), source);
+                            }
+
+                            for (int i = firstColumn[id]; i < firstColumn[id + 1]; i++) {
+                                String from = BLOB_PREFIX + reused[id].id() + "/" + columns.get(i).index();
+                                byte[] bytes;
+
+                                try (InputStream in = source.getInputStream(requireEntry(source, from))) {
+                                    bytes = in.readAllBytes();
+                                }
+
+                                putStored(zip, BLOB_PREFIX + id + "/" + columns.get(i).index(), bytes);
+                            }
+
+                            numReused++;
+                        } else {
+                            for (int i = firstColumn[id]; i < firstColumn[id + 1]; i++) {
+                                putStored(zip, BLOB_PREFIX + id + "/" + columns.get(i).index(), encoded[i]);
+                                encoded[i] = null;
+                            }
+                        }
+                    }
+                } finally {
+                    for (ZipFile source : sources.values()) {
+                        source.close();
+                    }
+                }
+
+                try {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+
+            FileTime modified = Files.getLastModifiedTime(file);
+
+            for (int id = 0; id < numBlobs; id++) {
+                SOURCES.put(this.originals.get(id), new BlobSource(file, modified, id, prints[id]));
+            }
+
+            return numReused;
+        }
+
+        private static void putDeflated(ZipOutputStream zip, String name, byte[] bytes) throws IOException {
+            zip.putNextEntry(new ZipEntry(name));
+            zip.write(bytes);
+            zip.closeEntry();
+        }
+
+        /**
+         * Stores already compressed bytes as they are.
+         */
+        private static void putStored(ZipOutputStream zip, String name, byte[] bytes) throws IOException {
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+
+            ZipEntry entry = new ZipEntry(name);
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(bytes.length);
+            entry.setCompressedSize(bytes.length);
+            entry.setCrc(crc.getValue());
+
+            zip.putNextEntry(entry);
+            zip.write(bytes);
+            zip.closeEntry();
+        }
+    }
+}
@@ -20,6 +20,8 @@
 
 package edu.cmu.tetradapp.app;
 
+import edu.cmu.tetradapp.util.TaskProgressPanel;
+
 import javax.swing.*;
 import javax.swing.event.MenuEvent;
 import javax.swing.event.MenuListener;
@@ -29,7 +31,8 @@ import java.util.*;
 
 /**
  * This listener constructs a menu on the fly consisting of all titles of the internal frames currently on the desktop.
- * When the user selects one of these titles, the corresponding internal frame is moved to the front.
+ * When the user selects one of these titles, the corresponding internal frame is moved to the front. The menu also
+ * offers a view of the background jobs.
  *
  * @author josephramsey
  * @author Chirayu Kong Wongchokprasitti chw20@pitt.edu
@@ -113,6 +116,14 @@ final class WindowMenuListener implements MenuListener, ActionListener {
 
         Collections.sort(titles);
 
+        JMenuItem jobsItem = new JMenuItem("Background Jobs...");
+        jobsItem.addActionListener(event -> TaskProgressPanel.showDialog(this.desktop));
+        this.windowMenu.add(jobsItem);
+
+        if (!titles.isEmpty()) {
+            this.windowMenu.addSeparator();
+        }
+
         for (String title1 : titles) {
             JMenuItem item = new JMenuItem(title1);
             this.windowMenu.add(item);
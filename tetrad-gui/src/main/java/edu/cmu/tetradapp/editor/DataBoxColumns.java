@@ -0,0 +1,302 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+//                                                                           //
+// Copyright (C) 2025 by Joseph Ramsey, Peter Spirtes, Clark Glymour,        //
+// and Richard Scheines.                                                     //
+//                                                                           //
+// This program is free software: you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation, either version 3 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.    //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetradapp.editor;
+
+import edu.cmu.tetrad.data.*;
+
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoublePredicate;
+
+/**
+ * Reads the cells of a data set straight from the primitive arrays of its data box, where the box keeps them that
+ * way, so that painting and sorting a large table does not box a Number for every cell read. Other boxes, and data
+ * sets that are not box data sets, are read through the data set.
+ * <p>
+ * A view is tied to the data box and dimensions it was made for; {@link #isCurrent(DataSet)} says whether it can still
+ * be used after the data set has been edited. Values written in place are seen by the view.
+ *
+ * @author josephramsey
+ */
+final class DataBoxColumns {
+
+    /**
+     * The data set.
+     */
+    private final DataSet dataSet;
+
+    /**
+     * The data box the arrays came from, or null if the data set is not a box data set.
+     */
+    private final DataBox box;
+
+    /**
+     * The number of rows when the view was made.
+     */
+    private final int numRows;
+
+    /**
+     * The number of columns when the view was made.
+     */
+    private final int numCols;
+
+    /**
+     * Continuous columns, indexed [column][row]; null if the box is not column-major, or for discrete columns.
+     */
+    private final double[][] doubleColumns;
+
+    /**
+     * Discrete columns, indexed [column][row]; null if the box is not column-major, or for continuous columns.
+     */
+    private final int[][] intColumns;
+
+    /**
+     * Rows of a row-major box, indexed [row][column]; null otherwise.
+     */
+    private final double[][] doubleRows;
+
+    private DataBoxColumns(DataSet dataSet) {
+        this.dataSet = dataSet;
+        this.numRows = dataSet.getNumRows();
+        this.numCols = dataSet.getNumColumns();
+
+        DataBox box = dataSet instanceof BoxDataSet ? ((BoxDataSet) dataSet).getDataBox() : null;
+        this.box = box;
+
+        double[][] doubleColumns = null;
+        int[][] intColumns = null;
+        double[][] doubleRows = null;
+
+        if (box instanceof VerticalDoubleDataBox) {
+            doubleColumns = ((VerticalDoubleDataBox) box).getVariableVectors();
+        } else if (box instanceof VerticalIntDataBox) {
+            intColumns = ((VerticalIntDataBox) box).getVariableVectors();
+        } else if (box instanceof MixedDataBox) {
+            doubleColumns = ((MixedDataBox) box).getContinuousData();
+            intColumns = ((MixedDataBox) box).getDiscreteData();
+        } else if (box instanceof DoubleDataBox) {
+            doubleRows = ((DoubleDataBox) box).getData();
+        }
+
+        // Only use arrays that cover the whole data set; anything else is read through the data set.
+        if (doubleColumns != null && doubleColumns.length < this.numCols) doubleColumns = null;
+        if (intColumns != null && intColumns.length < this.numCols) intColumns = null;
+        if (doubleRows != null && doubleRows.length < this.numRows) doubleRows = null;
+
+        this.doubleColumns = doubleColumns;
+        this.intColumns = intColumns;
+        this.doubleRows = doubleRows;
+    }
+
+    /**
+     * Returns a view of the given data set.
+     *
+     * @param dataSet the data set.
+     * @return the view.
+     */
+    static DataBoxColumns of(DataSet dataSet) {
+        if (dataSet == null) {
+            throw new NullPointerException("Data set must not be null.");
+        }
+
+        return new DataBoxColumns(dataSet);
+    }
+
+    /**
+     * Returns whether this view still describes the given data set, that is, whether it is the same data set with the
+     * same data box and dimensions.
+     *
+     * @param dataSet the data set.
+     * @return true if the view can still be used.
+     */
+    boolean isCurrent(DataSet dataSet) {
+        if (dataSet != this.dataSet) return false;
+        if (dataSet.getNumRows() != this.numRows || dataSet.getNumColumns() != this.numCols) return false;
+        return !(dataSet instanceof BoxDataSet) || ((BoxDataSet) dataSet).getDataBox() == this.box;
+    }
+
+    /**
+     * Returns the number of rows.
+     *
+     * @return this number.
+     */
+    int getNumRows() {
+        return this.numRows;
+    }
+
+    /**
+     * Returns the value of a cell as a double; missing values are NaN.
+     *
+     * @param row the row.
+     * @param col the column.
+     * @return the value.
+     */
+    double getDouble(int row, int col) {
+        if (this.doubleColumns != null && this.doubleColumns[col] != null && row < this.doubleColumns[col].length) {
+            return this.doubleColumns[col][row];
+        }
+
+        if (this.intColumns != null && this.intColumns[col] != null && row < this.intColumns[col].length) {
+            int value = this.intColumns[col][row];
+            return value == DiscreteVariable.MISSING_VALUE ? Double.NaN : value;
+        }
+
+        if (this.doubleRows != null && col < this.doubleRows[row].length) {
+            return this.doubleRows[row][col];
+        }
+
+        return this.dataSet.getDouble(row, col);
+    }
+
+    /**
+     * Returns the value of a cell as an int; missing values are {@link DiscreteVariable#MISSING_VALUE}.
+     *
+     * @param row the row.
+     * @param col the column.
+     * @return the value.
+     */
+    int getInt(int row, int col) {
+        if (this.intColumns != null && this.intColumns[col] != null && row < this.intColumns[col].length) {
+            return this.intColumns[col][row];
+        }
+
+        return this.dataSet.getInt(row, col);
+    }
+
+    /**
+     * Returns the value of a cell as a sort key: the value itself for continuous columns, the category index for
+     * discrete ones, and NaN if missing.
+     *
+     * @param row the row.
+     * @param col the column.
+     * @return the key.
+     */
+    double getKey(int row, int col) {
+        return key(row, col, this.dataSet.getVariable(col) instanceof DiscreteVariable);
+    }
+
+    /**
+     * Returns the given rows ordered by their values in the given column, keeping the given order among equal values.
+     * Missing values go last in either direction. Discrete columns sort by category index.
+     *
+     * @param rows      the rows to order; not modified.
+     * @param col       the column.
+     * @param ascending whether to sort smallest first.
+     * @param canceled  polled between passes; when it returns true the sort stops and null is returned.
+     * @return the ordered rows, or null if canceled.
+     */
+    int[] sort(int[] rows, int col, boolean ascending, BooleanSupplier canceled) {
+        int n = rows.length;
+        boolean discrete = this.dataSet.getVariable(col) instanceof DiscreteVariable;
+        double[] keys = new double[n];
+
+        for (int i = 0; i < n; i++) {
+            keys[i] = key(rows[i], col, discrete);
+        }
+
+        // Bottom-up merge sort of positions into rows by key; stable, and needs no boxing.
+        int[] order = new int[n];
+        int[] buffer = new int[n];
+
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+
+        for (int width = 1; width < n; width *= 2) {
+            if (canceled.getAsBoolean()) {
+                return null;
+            }
+
+            for (int lo = 0; lo < n; lo += 2 * width) {
+                int mid = Math.min(lo + width, n);
+                int hi = Math.min(lo + 2 * width, n);
+                int i = lo, j = mid, k = lo;
+
+                while (i < mid && j < hi) {
+                    buffer[k++] = compare(keys[order[j]], keys[order[i]], ascending) < 0 ? order[j++] : order[i++];
+                }
+
+                while (i < mid) buffer[k++] = order[i++];
+                while (j < hi) buffer[k++] = order[j++];
+            }
+
+            int[] swap = order;
+            order = buffer;
+            buffer = swap;
+        }
+
+        int[] sorted = new int[n];
+
+        for (int i = 0; i < n; i++) {
+            sorted[i] = rows[order[i]];
+        }
+
+        return sorted;
+    }
+
+    /**
+     * Returns the given rows whose sort key (see {@link #getKey(int, int)}) in the given column passes the given test,
+     * in the given order.
+     *
+     * @param rows     the rows to filter; not modified.
+     * @param col      the column.
+     * @param keep     the test; missing values are passed in as NaN.
+     * @param canceled polled every so often; when it returns true the filter stops and null is returned.
+     * @return the rows kept, or null if canceled.
+     */
+    int[] filter(int[] rows, int col, DoublePredicate keep, BooleanSupplier canceled) {
+        boolean discrete = this.dataSet.getVariable(col) instanceof DiscreteVariable;
+        int[] kept = new int[rows.length];
+        int numKept = 0;
+
+        for (int i = 0; i < rows.length; i++) {
+            if ((i & 0xffff) == 0 && canceled.getAsBoolean()) {
+                return null;
+            }
+
+            if (keep.test(key(rows[i], col, discrete))) {
+                kept[numKept++] = rows[i];
+            }
+        }
+
+        return Arrays.copyOf(kept, numKept);
+    }
+
+    private double key(int row, int col, boolean discrete) {
+        if (discrete) {
+            int value = getInt(row, col);
+            return value == DiscreteVariable.MISSING_VALUE ? Double.NaN : value;
+        }
+
+        return getDouble(row, col);
+    }
+
+    private static int compare(double a, double b, boolean ascending) {
+        boolean aMissing = Double.isNaN(a);
+        boolean bMissing = Double.isNaN(b);
+
+        if (aMissing || bMissing) {
+            return Boolean.compare(aMissing, bMissing);
+        }
+
+        return ascending ? Double.compare(a, b) : Double.compare(b, a);
+    }
+}
@@ -34,7 +34,8 @@ import edu.cmu.tetradapp.ui.PaddingPanel;
 import edu.cmu.tetradapp.ui.model.AlgorithmModel;
 import edu.cmu.tetradapp.util.DesktopController;
 import edu.cmu.tetradapp.util.FinalizingEditor;
-import edu.cmu.tetradapp.util.WatchedProcess;
+import edu.cmu.tetradapp.util.TaskProgressPanel;
+import edu.cmu.tetradapp.util.TaskService;
 
 import javax.swing.*;
 import java.awt.*;
@@ -109,6 +110,11 @@ public class GeneralAlgorithmEditor extends JPanel implements PropertyChangeList
     private String jsonResult;
     private BlockSpec blockSpec = null;
 
+    /**
+     * The background job for the most recent search, if any.
+     */
+    private transient TaskService.Job searchJob;
+
     /**
      * <p>Constructor for GeneralAlgorithmEditor.</p>
      *
@@ -256,37 +262,48 @@ public class GeneralAlgorithmEditor extends JPanel implements PropertyChangeList
     }
 
     private void doSearch() {
-        class MyWatchedProcess extends WatchedProcess {
-
-            @Override
-            public void watch() {
-                AlgorithmModel algoModel = GeneralAlgorithmEditor.this.algorithmCard.getSelectedAlgorithm();
-                if (algoModel != null) {
-                    try {
-                        GeneralAlgorithmEditor.this.algorithmCard.saveStates();
-                        GeneralAlgorithmEditor.this.algorithmRunner.execute();
-
-                        firePropertyChange("modelChanged", null, null);
-                        GeneralAlgorithmEditor.this.graphCard.refresh();
-
-                        if (!isInterrupted()) {
-                            showGraphCard();
-                        }
-                    } catch (Exception exception) {
-                        exception.printStackTrace(System.err);
-
-                        disposeStopDialog();
-
-                        JOptionPane.showMessageDialog(
-                                getTopLevelAncestor(),
-                                "Stopped with error:\n"
-                                + exception.getMessage());
+        AlgorithmModel algoModel = this.algorithmCard.getSelectedAlgorithm();
+        if (algoModel == null) {
+            return;
+        }
+
+        if (this.searchJob != null && !this.searchJob.isDone()) {
+            TaskProgressPanel.showDialog(this);
+            return;
+        }
+
+        this.algorithmCard.saveStates();
+        this.paramFwdBtn.setEnabled(false);
+
+        this.searchJob = TaskService.getInstance().submit(algoModel.getName(), job -> {
+            try {
+                this.algorithmRunner.execute();
+
+                SwingUtilities.invokeLater(() -> {
+                    firePropertyChange("modelChanged", null, null);
+                    this.graphCard.refresh();
+
+                    if (!job.isCanceled()) {
+                        showGraphCard();
                     }
+                });
+            } catch (Exception exception) {
+                if (job.isCanceled()) {
+                    return;
                 }
+
+                exception.printStackTrace(System.err);
+
+                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(
+                        getTopLevelAncestor(),
+                        "Stopped with error:\n"
+                        + exception.getMessage()));
+            } finally {
+                SwingUtilities.invokeLater(() -> this.paramFwdBtn.setEnabled(true));
             }
-        }
+        });
 
-        new MyWatchedProcess();
+        TaskProgressPanel.showDialog(this);
     }
 
     /**
@@ -148,6 +148,7 @@ public final class SemEstimatorEditor extends JPanel {
         optimizerCombo.addItem("EM");
         optimizerCombo.addItem("Powell");
         optimizerCombo.addItem("Random Search");
+        optimizerCombo.addItem("L-BFGS");
         optimizerCombo.addItem("RICF");
 
         optimizerCombo.addActionListener((e) -> {
@@ -365,6 +366,9 @@ public final class SemEstimatorEditor extends JPanel {
             case "Random Search":
                 optimizer = new SemOptimizerScattershot();
                 break;
+            case "L-BFGS":
+                optimizer = new SemOptimizerLbfgs();
+                break;
             case "RICF":
                 optimizer = new SemOptimizerRicf();
                 break;
@@ -22,8 +22,10 @@ package edu.cmu.tetradapp.editor;
 
 import edu.cmu.tetrad.data.DataModel;
 import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.data.DiscreteVariable;
 import edu.cmu.tetrad.data.Variable;
 import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetradapp.util.TaskService;
 
 import javax.swing.*;
 import javax.swing.event.ChangeEvent;
@@ -41,14 +43,20 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
-import java.text.NumberFormat;
 import java.util.Arrays;
 import java.util.EventObject;
 import java.util.Hashtable;
 import java.util.Map;
+import java.util.function.DoublePredicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Displays a DataSet object as a JTable.
+ * <p>
+ * Right-clicking a column header offers sorting and filtering of the rows by that column. These run in the background
+ * over the data's primitive columns and only change the order in which rows are shown, never the data set; while a
+ * sort or filter is shown, rows can be edited but not added, deleted, or pasted.
  *
  * @author josephramsey
  * @version $Id: $Id
@@ -66,6 +74,23 @@ public class TabularDataJTable extends JTable implements DataModelContainer,
      */
     private boolean editable = true;
 
+    /**
+     * Renderers, shared across cells.
+     */
+    private final TableCellRenderer rowNumberRenderer = new RowNumberRenderer();
+    private final TableCellRenderer variableNameRenderer = new VariableNameRenderer();
+    private final TableCellRenderer dataCellRenderer = new DataCellRenderer(getNumLeadingCols());
+
+    /**
+     * Counts sort and filter requests, so that only the result of the latest one is shown.
+     */
+    private int rowViewRequests;
+
+    /**
+     * A row filter: an operator followed by a value.
+     */
+    private static final Pattern FILTER = Pattern.compile("^\\s*(<=|>=|!=|<|>|==?)\\s*(\\S.*?)\\s*$");
+
     /**
      * <p>Constructor for TabularDataJTable.</p>
      *
@@ -105,6 +130,11 @@ public class TabularDataJTable extends JTable implements DataModelContainer,
                 int row = rowAtPoint(e.getPoint());
                 int col = columnAtPoint(e.getPoint());
 
+                if (e.isPopupTrigger() && row <= 1 && col >= getNumLeadingCols()) {
+                    showRowViewMenu(e, col);
+                    return;
+                }
+
                 if (row == 0) {
                     setRowSelectionAllowed(false);
                     setColumnSelectionAllowed(true);
@@ -170,6 +200,17 @@ public class TabularDataJTable extends JTable implements DataModelContainer,
             }
         });
 
+        addMouseListener(new MouseAdapter() {
+            public void mouseReleased(MouseEvent e) {
+                int row = rowAtPoint(e.getPoint());
+                int col = columnAtPoint(e.getPoint());
+
+                if (e.isPopupTrigger() && row <= 1 && col >= getNumLeadingCols()) {
+                    showRowViewMenu(e, col);
+                }
+            }
+        });
+
         setTransferHandler(new TabularDataTransferHandler());
     }
 
@@ -183,8 +224,9 @@ public class TabularDataJTable extends JTable implements DataModelContainer,
 
             Object o = getValueAt(rowIndex, vColIndex);
 
-            if (o != null) {
-                String tooltip = this.columnToTooltip.get(o.toString());
+            // Tooltips are keyed by name, so only text cells can have one.
+            if (o instanceof String && !this.columnToTooltip.isEmpty()) {
+                String tooltip = this.columnToTooltip.get(o);
                 if (tooltip != null) {
                     jc.setToolTipText(tooltip);
                 }
@@ -228,6 +270,10 @@ public class TabularDataJTable extends JTable implements DataModelContainer,
         if (row == 1) {
             return new VariableNameEditor();
         } else if (row > 1) {
+            if (getTabularDataTable().isRowViewActive() && getTabularDataTable().getDataRow(row) == -1) {
+                return new DoNothingEditor();
+            }
+
             return new DataCellEditor();
         }
 
@@ -239,13 +285,13 @@ public class TabularDataJTable extends JTable implements DataModelContainer,
      */
     public TableCellRenderer getCellRenderer(int row, int column) {
         if (column == 0) {
-            return new RowNumberRenderer();
+            return this.rowNumberRenderer;
         } else {
             if (row == 0 || row == 1) {
-                return new VariableNameRenderer();
+                return this.variableNameRenderer;
             }
 
-            return new DataCellRenderer(this, getNumLeadingCols());
+            return this.dataCellRenderer;
         }
     }
 
@@ -266,9 +312,207 @@ public class TabularDataJTable extends JTable implements DataModelContainer,
      */
     public void setDataSet(DataSet data) {
         TabularDataTable tableModelTabularData = (TabularDataTable) getModel();
+        this.rowViewRequests++;
         tableModelTabularData.setDataSet(data);
     }
 
+    /**
+     * Shows the rows sorted by the values in the given column. The sort runs in the background, starting from the rows
+     * currently shown, so sorting by one column and then another orders by the second with ties kept in the order of
+     * the first. The data set is not changed.
+     *
+     * @param col       the table column.
+     * @param ascending whether to sort smallest first.
+     */
+    public void sortRows(int col, boolean ascending) {
+        int dataCol = toDataColumn(col);
+        TabularDataTable model = getTabularDataTable();
+        DataBoxColumns columns = model.columns();
+        int[] rows = model.getShownRows();
+        String name = getDataSet().getVariable(dataCol).getName();
+
+        submitRowView("Sort by " + name, columns,
+                job -> columns.sort(rows, dataCol, ascending, job::isCanceled));
+    }
+
+    /**
+     * Shows only the rows whose values in the given column pass a test, given as an operator (=, !=, &lt;, &lt;=, &gt;,
+     * &gt;=) followed by a number, a category, or * for missing, for example "&gt; 0.5" or "!= *". The filter runs in
+     * the background over the rows currently shown. The data set is not changed.
+     *
+     * @param col        the table column.
+     * @param expression the test.
+     * @throws IllegalArgumentException if the expression can't be parsed.
+     */
+    public void filterRows(int col, String expression) {
+        int dataCol = toDataColumn(col);
+        DoublePredicate keep = parseFilter(getDataSet().getVariable(dataCol), expression);
+        TabularDataTable model = getTabularDataTable();
+        DataBoxColumns columns = model.columns();
+        int[] rows = model.getShownRows();
+        String name = getDataSet().getVariable(dataCol).getName();
+
+        submitRowView("Filter " + name + " " + expression.trim(), columns,
+                job -> columns.filter(rows, dataCol, keep, job::isCanceled));
+    }
+
+    /**
+     * Shows all rows again in data order, dropping any sort or filter.
+     */
+    public void clearRowView() {
+        this.rowViewRequests++;
+        getTabularDataTable().setRowView(null);
+    }
+
+    /**
+     * Returns whether the rows are shown sorted or filtered.
+     *
+     * @return true if so.
+     */
+    public boolean isRowViewActive() {
+        return getTabularDataTable().isRowViewActive();
+    }
+
+    /**
+     * Returns the data row shown in the given table row.
+     *
+     * @param row the table row.
+     * @return the data row, or -1 for header rows and rows past the data shown.
+     */
+    public int getDataRow(int row) {
+        return getTabularDataTable().getDataRow(row);
+    }
+
+    /**
+     * Returns the number of data rows shown.
+     *
+     * @return this number.
+     */
+    public int getNumShownRows() {
+        return getTabularDataTable().getNumShownRows();
+    }
+
+    private TabularDataTable getTabularDataTable() {
+        return (TabularDataTable) getModel();
+    }
+
+    private int toDataColumn(int col) {
+        int dataCol = col - getNumLeadingCols();
+
+        if (dataCol < 0 || dataCol >= getDataSet().getNumColumns()) {
+            throw new IllegalArgumentException("Not a data column: " + col);
+        }
+
+        return dataCol;
+    }
+
+    private void submitRowView(String name, DataBoxColumns columns, RowViewTask task) {
+        int request = ++this.rowViewRequests;
+
+        TaskService.getInstance().submit(name, job -> {
+            int[] rows = task.compute(job);
+
+            if (rows == null) {
+                return;
+            }
+
+            SwingUtilities.invokeLater(() -> {
+
+                // Drop the result if a later request was made or the data changed shape meanwhile.
+                if (request == this.rowViewRequests && columns.isCurrent(getDataSet())) {
+                    getTabularDataTable().setRowView(rows);
+                }
+            });
+        });
+    }
+
+    private void showRowViewMenu(MouseEvent e, int col) {
+        if (col - getNumLeadingCols() >= getDataSet().getNumColumns()) {
+            return;
+        }
+
+        JPopupMenu menu = new JPopupMenu();
+
+        JMenuItem ascending = new JMenuItem("Sort Ascending");
+        ascending.addActionListener(a -> sortRows(col, true));
+        menu.add(ascending);
+
+        JMenuItem descending = new JMenuItem("Sort Descending");
+        descending.addActionListener(a -> sortRows(col, false));
+        menu.add(descending);
+
+        JMenuItem filter = new JMenuItem("Filter...");
+        filter.addActionListener(a -> {
+            String name = getDataSet().getVariable(col - getNumLeadingCols()).getName();
+            String expression = JOptionPane.showInputDialog(this,
+                    "Show rows where " + name + " is (e.g. > 0, = a, != *):", "Filter Rows",
+                    JOptionPane.PLAIN_MESSAGE);
+
+            if (expression == null || expression.isBlank()) {
+                return;
+            }
+
+            try {
+                filterRows(col, expression);
+            } catch (IllegalArgumentException ex) {
+                JOptionPane.showMessageDialog(this, ex.getMessage());
+            }
+        });
+        menu.add(filter);
+
+        menu.addSeparator();
+
+        JMenuItem clear = new JMenuItem("Show All Rows");
+        clear.setEnabled(isRowViewActive());
+        clear.addActionListener(a -> clearRowView());
+        menu.add(clear);
+
+        menu.show(this, e.getX(), e.getY());
+    }
+
+    private static DoublePredicate parseFilter(Node variable, String expression) {
+        Matcher matcher = FILTER.matcher(expression == null ? "" : expression);
+
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Expecting an operator (=, !=, <, <=, >, >=) and a value: "
+                                               + expression);
+        }
+
+        String op = matcher.group(1);
+        String token = matcher.group(2);
+
+        if ("*".equals(token)) {
+            return switch (op) {
+                case "=", "==" -> Double::isNaN;
+                case "!=" -> v -> !Double.isNaN(v);
+                default -> throw new IllegalArgumentException("Missing values can only be tested with = or !=.");
+            };
+        }
+
+        double value;
+
+        if (variable instanceof DiscreteVariable discrete && discrete.getCategories().contains(token)) {
+            value = discrete.getIndex(token);
+        } else {
+            try {
+                value = Double.parseDouble(token);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Not a number or category of " + variable.getName() + ": "
+                                                   + token);
+            }
+        }
+
+        // Comparisons with NaN are false, so missing values are filtered out by every numeric test but !=.
+        return switch (op) {
+            case "=", "==" -> v -> v == value;
+            case "!=" -> v -> v != value;
+            case "<" -> v -> v < value;
+            case "<=" -> v -> v <= value;
+            case ">" -> v -> v > value;
+            default -> v -> v >= value;
+        };
+    }
+
     /**
      * <p>getDataModel.</p>
      *
@@ -279,6 +523,11 @@ public class TabularDataJTable extends JTable implements DataModelContainer,
     }
 
     public void deleteSelected() {
+        if (isRowViewActive()) {
+            Toolkit.getDefaultToolkit().beep();
+            return;
+        }
+
         DataSet dataSet = getDataSet();
 
         int[] selectedRows = getSelectedRows();
@@ -417,15 +666,13 @@ public class TabularDataJTable extends JTable implements DataModelContainer,
                         .getMissingValueMarker();
 
                 for (int j = selectedRows.length - 1; j >= 0; j--) {
-                    if (selectedRows[j] < 2) {
-                        continue;
-                    }
+                    int dataRow = model.getDataRow(selectedRows[j]);
 
-                    if (selectedRows[j] > dataSet.getNumRows() + 1) {
+                    if (dataRow < 0 || dataRow >= dataSet.getNumRows()) {
                         continue;
                     }
 
-                    dataSet.setObject(selectedRows[j] - 2, dataCol,
+                    dataSet.setObject(dataRow, dataCol,
                             missingValue);
                 }
             }
@@ -461,15 +708,13 @@ public class TabularDataJTable extends JTable implements DataModelContainer,
                         .getMissingValueMarker();
 
                 for (int j = selectedRows.length - 1; j >= 0; j--) {
-                    if (selectedRows[j] < 2) {
-                        continue;
-                    }
+                    int dataRow = model.getDataRow(selectedRows[j]);
 
-                    if (selectedRows[j] > dataSet.getNumRows() + 1) {
+                    if (dataRow < 0 || dataRow >= dataSet.getNumRows()) {
                         continue;
                     }
 
-                    dataSet.setObject(selectedRows[j] - 2, dataCol,
+                    dataSet.setObject(dataRow, dataCol,
                             missingValue);
                 }
             }
@@ -534,6 +779,17 @@ public class TabularDataJTable extends JTable implements DataModelContainer,
         firePropertyChange(evt.getPropertyName(), evt.getOldValue(), evt.getNewValue());
     }
 
+    /**
+     * Computes a row view in the background.
+     */
+    private interface RowViewTask {
+
+        /**
+         * Returns the rows to show, or null if the job was canceled.
+         */
+        int[] compute(TaskService.Job job);
+    }
+
 }
 
 class RowNumberRenderer extends DefaultTableCellRenderer {
@@ -544,7 +800,12 @@ class RowNumberRenderer extends DefaultTableCellRenderer {
                 value, isSelected, hasFocus, row, column);
 
         if (row > 1) {
-            setText(Integer.toString(row - 1));
+            TabularDataTable model = (TabularDataTable) table.getModel();
+            int dataRow = model.getDataRow(row);
+
+            // Number rows by case, so a sorted or filtered row keeps its number.
+            setText(model.isRowViewActive() ? (dataRow < 0 ? "" : Integer.toString(dataRow + 1))
+                    : Integer.toString(row - 1));
             label.setHorizontalAlignment(SwingConstants.CENTER);
             label.setFont(new Font("SansSerif", Font.BOLD, 12));
         }
@@ -638,14 +899,10 @@ class VariableNameEditor extends DefaultCellEditor {
 
 class DataCellRenderer extends DefaultTableCellRenderer {
 
-    private final NumberFormat nf;
-    private final DataSet dataSet;
     private final int numLeadingCols;
 
-    public DataCellRenderer(TabularDataJTable tableTabular, int numLeadingCols) {
-        this.dataSet = ((TabularDataTable) tableTabular.getModel()).getDataSet();
+    public DataCellRenderer(int numLeadingCols) {
         this.numLeadingCols = numLeadingCols;
-        this.nf = this.dataSet.getNumberFormat();
     }
 
     public void setValue(Object value) {
@@ -653,8 +910,6 @@ class DataCellRenderer extends DefaultTableCellRenderer {
             setText((String) value);
         } else if (value instanceof Integer) {
             setText(value.toString());
-        } else if (value instanceof Double) {
-            setText(this.nf.format((double) (Double) value));
         } else {
             setText("");
         }
@@ -668,10 +923,19 @@ class DataCellRenderer extends DefaultTableCellRenderer {
         Component c = super.getTableCellRendererComponent(table, value,
                 isSelected, hasFocus, row, col);
         DefaultTableCellRenderer renderer = (DefaultTableCellRenderer) c;
+        TabularDataTable model = (TabularDataTable) table.getModel();
+        DataSet dataSet = model.getDataSet();
 
-        if (this.dataSet.getNumColumns() > 0 && col >= getNumLeadingCols()
-            && col < this.dataSet.getNumColumns() + getNumLeadingCols()) {
+        // Doubles are formatted here, where the cell is known, so the text can be cached per cell.
+        if (value instanceof Double) {
+            renderer.setText(model.formatValue(row, col, (Double) value));
+        }
+
+        if (dataSet.getNumColumns() > 0 && col >= getNumLeadingCols()
+            && col < dataSet.getNumColumns() + getNumLeadingCols()) {
             renderer.setHorizontalAlignment(SwingConstants.RIGHT);
+        } else {
+            renderer.setHorizontalAlignment(SwingConstants.LEADING);
         }
 
         return renderer;
@@ -681,4 +945,3 @@ class DataCellRenderer extends DefaultTableCellRenderer {
         return this.numLeadingCols;
     }
 }
-
@@ -28,14 +28,22 @@ import edu.cmu.tetrad.graph.Node;
 import edu.cmu.tetrad.graph.NodeVariableType;
 import org.apache.commons.math3.util.FastMath;
 
+import javax.swing.event.TableModelEvent;
 import javax.swing.table.AbstractTableModel;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
+import java.text.NumberFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * Wraps a dataSet which is possibly smaller than the display window in a larger AbstractTableModel which will fill the
  * window.
+ * <p>
+ * Cells are read straight from the data set's primitive columns (see {@link DataBoxColumns}), and continuous values are
+ * formatted for display on demand through a small cache, so a table only pays for the cells that are actually painted.
+ * The data rows may be shown through a row view, a sorted and/or filtered list of data rows; the table rows then map
+ * to data rows through {@link #getDataRow(int)}.
  *
  * @author josephramsey
  */
@@ -60,6 +68,18 @@ class TabularDataTable extends AbstractTableModel {
      * will be at least this value.
      */
     private int minColumnCount = 31;
+    /**
+     * Reads cells from the data set's primitive columns; rebuilt when the data set's box or dimensions change.
+     */
+    private transient DataBoxColumns columns;
+    /**
+     * The data rows shown, in display order, or null to show all rows in order.
+     */
+    private int[] rowView;
+    /**
+     * Formatted continuous values for recently painted cells.
+     */
+    private final transient FormatCache formatCache = new FormatCache();
 
     /**
      * Constructs a new DisplayTableModel to wrap the given dataSet.
@@ -85,7 +105,7 @@ class TabularDataTable extends AbstractTableModel {
      * @return the number of rows in the wrapper table model. Guarantees that this number will be at least 100.
      */
     public int getRowCount() {
-        int maxRowCount = this.dataSet.getNumRows() + 3;
+        int maxRowCount = getNumShownRows() + 3;
         return FastMath.max(maxRowCount, 100);
     }
 
@@ -148,15 +168,33 @@ class TabularDataTable extends AbstractTableModel {
                 return columnHeader;
             } else if (row == 1) {
                 return this.dataSet.getVariable(columnIndex).getName();
-            } else if (rowIndex >= this.dataSet.getNumRows()) {
+            } else if (rowIndex >= getNumShownRows()) {
                 return null;
             } else {
-                if (variable instanceof DiscreteVariable) {
-                    ((DiscreteVariable) variable).setCategoryNamesDisplayed(
-                            isCategoryNamesShown());
+                int dataRow = this.rowView == null ? rowIndex : this.rowView[rowIndex];
+
+                if (dataRow >= this.dataSet.getNumRows()) {
+                    return null;
                 }
 
-                Object value = this.dataSet.getObject(rowIndex, columnIndex);
+                if (variable instanceof ContinuousVariable) {
+                    double value = columns().getDouble(dataRow, columnIndex);
+                    return Double.isNaN(value) ? "*" : (Object) value;
+                } else if (variable instanceof DiscreteVariable discrete) {
+                    if (discrete.isCategoryNamesDisplayed() != isCategoryNamesShown()) {
+                        discrete.setCategoryNamesDisplayed(isCategoryNamesShown());
+                    }
+
+                    int value = columns().getInt(dataRow, columnIndex);
+
+                    if (value == DiscreteVariable.MISSING_VALUE) {
+                        return "*";
+                    }
+
+                    return isCategoryNamesShown() ? discrete.getCategory(value) : (Object) value;
+                }
+
+                Object value = this.dataSet.getObject(dataRow, columnIndex);
 
                 if (((Variable) variable).isMissingValue(value)) {
                     return "*";
@@ -189,8 +227,17 @@ class TabularDataTable extends AbstractTableModel {
      * wrapped table model at the given coordinates is returned.
      */
     public void setValueAt(Object value, int row, int col) {
+        if (this.rowView != null && row >= getNumLeadingRows() && getDataRow(row) == -1) {
+
+            // Rows can't be added through a sorted or filtered view.
+            return;
+        }
+
         this.dataSet.ensureColumns(col - getNumLeadingCols() + 1, new ArrayList<>());
-        this.dataSet.ensureRows(row - getNumLeadingRows() + 1);
+
+        if (this.rowView == null) {
+            this.dataSet.ensureRows(row - getNumLeadingRows() + 1);
+        }
 
         if (col == 0) {
             throw new IllegalArgumentException("Bad col index: " + 0);
@@ -232,7 +279,7 @@ class TabularDataTable extends AbstractTableModel {
      * The row and column indices are JTable indices.
      */
     private void pasteIntoColumn(int row, int col, Object value) {
-        int dataRow = row - getNumLeadingRows();
+        int dataRow = getDataRow(row);
         int dataCol = col - getNumLeadingCols();
         Node variable = this.dataSet.getVariable(dataCol);
 
@@ -326,6 +373,117 @@ class TabularDataTable extends AbstractTableModel {
             throw new NullPointerException("Data set was null.");
         }
         this.dataSet = data;
+        this.columns = null;
+        this.rowView = null;
+    }
+
+    /**
+     * Returns the data row shown in the given table row.
+     *
+     * @param row a table row.
+     * @return the data row, or -1 if the table row is a header row or lies past the rows shown.
+     */
+    public int getDataRow(int row) {
+        int rowIndex = row - getNumLeadingRows();
+
+        if (rowIndex < 0) {
+            return -1;
+        }
+
+        if (this.rowView == null) {
+            return rowIndex;
+        }
+
+        return rowIndex < this.rowView.length ? this.rowView[rowIndex] : -1;
+    }
+
+    /**
+     * Returns the number of data rows shown, which is less than the number of rows in the data set if a filter is
+     * applied.
+     *
+     * @return this number.
+     */
+    public int getNumShownRows() {
+        return this.rowView == null ? this.dataSet.getNumRows() : this.rowView.length;
+    }
+
+    /**
+     * Returns the data rows shown, in display order.
+     *
+     * @return the rows.
+     */
+    public int[] getShownRows() {
+        if (this.rowView != null) {
+            return this.rowView.clone();
+        }
+
+        int[] rows = new int[this.dataSet.getNumRows()];
+        Arrays.setAll(rows, i -> i);
+        return rows;
+    }
+
+    /**
+     * Returns whether the rows are shown through a sorted or filtered view.
+     *
+     * @return true if so.
+     */
+    public boolean isRowViewActive() {
+        return this.rowView != null;
+    }
+
+    /**
+     * Shows the given data rows, in the given order; null shows all rows in data order. The data set is not changed.
+     *
+     * @param rows the data rows to show, or null.
+     */
+    public void setRowView(int[] rows) {
+        this.rowView = rows == null ? null : rows.clone();
+        fireTableDataChanged();
+    }
+
+    /**
+     * Returns the primitive column view of the data set, making a new one if the data set has been resized or its
+     * data box replaced.
+     *
+     * @return the column view.
+     */
+    DataBoxColumns columns() {
+        if (this.columns == null || !this.columns.isCurrent(this.dataSet)) {
+            this.columns = DataBoxColumns.of(this.dataSet);
+        }
+
+        return this.columns;
+    }
+
+    /**
+     * Returns the display text for a continuous value in the given table cell, reusing the text from the last time
+     * the cell was painted if the value and number format are unchanged.
+     *
+     * @param row   the table row.
+     * @param col   the table column.
+     * @param value the value in the cell.
+     * @return the formatted value.
+     */
+    public String formatValue(int row, int col, double value) {
+        NumberFormat nf = this.dataSet.getNumberFormat();
+        int dataRow = getDataRow(row);
+
+        if (dataRow < 0) {
+            return nf.format(value);
+        }
+
+        return this.formatCache.format(dataRow, col - getNumLeadingCols(), value, nf);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Drops cached display text, since any change may have touched the data.
+     */
+    @Override
+    public void fireTableChanged(TableModelEvent e) {
+        this.formatCache.clear();
+        super.fireTableChanged(e);
     }
 
     private int getNumLeadingRows() {
@@ -376,5 +534,46 @@ class TabularDataTable extends AbstractTableModel {
     public void setMinColumnCount(int minColumnCount) {
         this.minColumnCount = minColumnCount;
     }
-}
 
+    /**
+     * A direct-mapped cache of formatted values keyed by data row and column. Each entry remembers the value and
+     * format it was made from, so a stale entry is never returned; clearing it just keeps memory from pinning text
+     * for cells that are no longer painted.
+     */
+    private static final class FormatCache {
+
+        private static final int SIZE = 1 << 14;
+
+        private final long[] keys = new long[SIZE];
+        private final double[] values = new double[SIZE];
+        private final String[] texts = new String[SIZE];
+        private NumberFormat format;
+
+        String format(int row, int col, double value, NumberFormat nf) {
+            if (nf != this.format) {
+                clear();
+                this.format = nf;
+            }
+
+            long key = ((long) row << 32) | (col & 0xffffffffL);
+            int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 50);
+
+            String text = this.texts[slot];
+
+            if (text != null && this.keys[slot] == key
+                && Double.doubleToLongBits(this.values[slot]) == Double.doubleToLongBits(value)) {
+                return text;
+            }
+
+            text = nf.format(value);
+            this.keys[slot] = key;
+            this.values[slot] = value;
+            this.texts[slot] = text;
+            return text;
+        }
+
+        void clear() {
+            Arrays.fill(this.texts, null);
+        }
+    }
+}
@@ -26,6 +26,7 @@ import edu.cmu.tetrad.graph.Node;
 import edu.cmu.tetrad.util.JOptionUtils;
 
 import javax.swing.*;
+import java.awt.Toolkit;
 import java.awt.datatransfer.DataFlavor;
 import java.awt.datatransfer.StringSelection;
 import java.awt.datatransfer.Transferable;
@@ -70,7 +71,7 @@ class TabularDataTransferHandler extends TransferHandler {
 
             // Column selection.
             if (!tabularData.getRowSelectionAllowed()) {
-                int rowCount = tabularData.getDataSet().getNumRows();
+                int rowCount = tabularData.getNumShownRows();
                 rows = new int[rowCount + 1];
 
                 // Need to include the variable names.
@@ -132,7 +133,7 @@ class TabularDataTransferHandler extends TransferHandler {
 
                         buf.append(s).append("\t");
                     } else {
-                        int dataRow = displayRow - getNumLeadingRows();
+                        int dataRow = tabularData.getDataRow(displayRow);
                         int dataCol = displayCol - getNumLeadingCols();
 
                         if (dataCol < 0) {
@@ -140,7 +141,7 @@ class TabularDataTransferHandler extends TransferHandler {
                         }
 
                         if (dataCol < dataSet.getNumColumns()) {
-                            if (dataRow < dataSet.getNumRows()) {
+                            if (dataRow >= 0 && dataRow < dataSet.getNumRows()) {
                                 Object datumObj = dataSet.getObject(dataRow, dataCol);
                                 String datumString = "";
 
@@ -187,6 +188,13 @@ class TabularDataTransferHandler extends TransferHandler {
         if (c instanceof TabularDataJTable) {
             try {
                 TabularDataJTable tabularData = (TabularDataJTable) c;
+
+                // Pasting may add or shift rows, which a sorted or filtered view can't show.
+                if (tabularData.isRowViewActive()) {
+                    Toolkit.getDefaultToolkit().beep();
+                    return false;
+                }
+
                 String s = (String) t.getTransferData(DataFlavor.stringFlavor);
 
                 int selectedRow = tabularData.getSelectedRow();
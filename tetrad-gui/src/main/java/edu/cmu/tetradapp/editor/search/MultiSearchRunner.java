@@ -28,45 +28,48 @@ import edu.cmu.tetrad.graph.Graph;
 import edu.cmu.tetrad.util.Parameters;
 import edu.cmu.tetradapp.model.DataWrapper;
 import edu.cmu.tetradapp.model.GraphResultList;
-import edu.cmu.tetradapp.util.WatchedProcess;
+import edu.cmu.tetradapp.util.TaskService;
 
 public final class MultiSearchRunner {
 
     public static void run(DataWrapper dataWrapper, Algorithm algo, Parameters params, Callback cb) {
-        new WatchedProcess() {
-            @Override
-            public void watch() {
-                try {
-                    DataModelList dml = dataWrapper.getDataModelList();
-                    if (dml == null || dml.isEmpty()) {
-                        cb.onSuccess(new GraphResultList()); // nothing to do
-                        return;
-                    }
+        TaskService.getInstance().submit(algo.getClass().getSimpleName(), job -> {
+            try {
+                DataModelList dml = dataWrapper.getDataModelList();
+                if (dml == null || dml.isEmpty()) {
+                    cb.onSuccess(new GraphResultList()); // nothing to do
+                    return;
+                }
 
-                    if (algo instanceof MultiDataSetAlgorithm mds) {
-                        // Single graph from many datasets
-                        Graph g = mds.search(java.util.List.copyOf(dml.getModelList()), params);
-                        GraphResultList out = new GraphResultList();
-                        out.add(g, "Combined");
-                        cb.onSuccess(out);
-                    } else {
-                        // One graph per dataset
-                        GraphResultList out = new GraphResultList();
-                        int idx = 1;
-                        for (DataModel dm : dml) {
-                            Graph g = algo.search(dm, params); // Algorithm.search(DataModel, Parameters)
-                            String name = (dm == null || dm.getName() == null || dm.getName().isBlank())
-                                    ? ("Dataset " + idx) : dm.getName();
-                            out.add(g, name);
-                            idx++;
+                if (algo instanceof MultiDataSetAlgorithm mds) {
+                    // Single graph from many datasets
+                    Graph g = mds.search(java.util.List.copyOf(dml.getModelList()), params);
+                    GraphResultList out = new GraphResultList();
+                    out.add(g, "Combined");
+                    cb.onSuccess(out);
+                } else {
+                    // One graph per dataset
+                    GraphResultList out = new GraphResultList();
+                    int idx = 1;
+                    for (DataModel dm : dml) {
+                        if (job.isCanceled()) {
+                            throw new InterruptedException("Search canceled.");
                         }
-                        cb.onSuccess(out);
+
+                        job.setMessage("Dataset " + idx + " of " + dml.size());
+                        job.setProgress((idx - 1) / (double) dml.size());
+                        Graph g = algo.search(dm, params); // Algorithm.search(DataModel, Parameters)
+                        String name = (dm == null || dm.getName() == null || dm.getName().isBlank())
+                                ? ("Dataset " + idx) : dm.getName();
+                        out.add(g, name);
+                        idx++;
                     }
-                } catch (Exception ex) {
-                    cb.onError(ex);
+                    cb.onSuccess(out);
                 }
+            } catch (Exception ex) {
+                cb.onError(ex);
             }
-        };
+        });
     }
 
     public interface Callback {
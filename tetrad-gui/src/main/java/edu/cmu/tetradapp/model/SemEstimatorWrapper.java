@@ -324,6 +324,8 @@ public class SemEstimatorWrapper implements SessionModel {
             optimizer = new SemOptimizerPowell();
         } else if ("Random Search".equals(type)) {
             optimizer = new SemOptimizerScattershot();
+        } else if ("L-BFGS".equals(type)) {
+            optimizer = new SemOptimizerLbfgs();
         } else if ("RICF".equals(type)) {
             optimizer = new SemOptimizerRicf();
         } else {
@@ -354,6 +356,8 @@ public class SemEstimatorWrapper implements SessionModel {
             _type = "Powell";
         } else if (optimizer instanceof SemOptimizerScattershot) {
             _type = "Random Search";
+        } else if (optimizer instanceof SemOptimizerLbfgs) {
+            _type = "L-BFGS";
         } else if (optimizer instanceof SemOptimizerRicf) {
             _type = "RICF";
         }
@@ -418,7 +422,7 @@ public class SemEstimatorWrapper implements SessionModel {
         SemOptimizer optimizer;
 
         if (containsFixedParam(this.semPm) || this.semPm.getGraph().paths().existsDirectedCycle() || SemEstimatorWrapper.containsCovarParam(this.semPm)) {
-            optimizer = new SemOptimizerPowell();
+            optimizer = new SemOptimizerLbfgs();
         } else if (containsLatent) {
             optimizer = new SemOptimizerEm();
         } else {
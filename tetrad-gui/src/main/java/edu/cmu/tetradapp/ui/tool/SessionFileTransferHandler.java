@@ -24,6 +24,7 @@ import edu.cmu.tetrad.util.JOptionUtils;
 import edu.cmu.tetrad.util.TetradLogger;
 import edu.cmu.tetrad.util.Version;
 import edu.cmu.tetradapp.app.DecompressibleInputStream;
+import edu.cmu.tetradapp.app.SessionArchive;
 import edu.cmu.tetradapp.app.SessionEditor;
 import edu.cmu.tetradapp.app.SessionEditorWorkbench;
 import edu.cmu.tetradapp.model.SessionWrapper;
@@ -99,29 +100,35 @@ public class SessionFileTransferHandler extends TransferHandler {
                     }
                 }
 
-                try (InputStream in = Files.newInputStream(file.toPath())) {
-                    DecompressibleInputStream objIn = new DecompressibleInputStream(in);
-                    Object o = objIn.readObject();
-
+                try {
                     TetradMetadata metadata = null;
                     SessionWrapper sessionWrapper = null;
 
-                    if (o instanceof TetradMetadata) {
-                        metadata = (TetradMetadata) o;
-
-                        try {
-                            sessionWrapper = (SessionWrapper) objIn.readObject();
-                        } catch (ClassNotFoundException e1) {
-                            throw e1;
-                        } catch (Exception e2) {
-                            e2.printStackTrace();
+                    if (SessionArchive.isArchive(file.toPath())) {
+                        SessionArchive.Contents contents = SessionArchive.read(file.toPath());
+                        metadata = (TetradMetadata) contents.getMetadata();
+                        sessionWrapper = (SessionWrapper) contents.getSession();
+                    } else {
+                        try (InputStream in = Files.newInputStream(file.toPath())) {
+                            DecompressibleInputStream objIn = new DecompressibleInputStream(in);
+                            Object o = objIn.readObject();
+
+                            if (o instanceof TetradMetadata) {
+                                metadata = (TetradMetadata) o;
+
+                                try {
+                                    sessionWrapper = (SessionWrapper) objIn.readObject();
+                                } catch (ClassNotFoundException e1) {
+                                    throw e1;
+                                } catch (Exception e2) {
+                                    e2.printStackTrace();
+                                }
+                            } else if (o instanceof SessionWrapper) {
+                                sessionWrapper = (SessionWrapper) o;
+                            }
                         }
-                    } else if (o instanceof SessionWrapper) {
-                        sessionWrapper = (SessionWrapper) o;
                     }
 
-                    in.close();
-
                     if (metadata == null) {
                         throw new NullPointerException("Could not read metadata.");
                     }
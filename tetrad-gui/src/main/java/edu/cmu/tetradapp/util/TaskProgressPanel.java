@@ -0,0 +1,280 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+//                                                                           //
+// Copyright (C) 2025 by Joseph Ramsey, Peter Spirtes, Clark Glymour,        //
+// and Richard Scheines.                                                     //
+//                                                                           //
+// This program is free software: you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation, either version 3 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.    //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetradapp.util;
+
+import javax.swing.*;
+import javax.swing.event.ChangeListener;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lists the jobs of a {@link TaskService} with their state, elapsed time, and latest progress message, and lets the
+ * user cancel them and set how many run at once. The table refreshes itself while the panel is showing.
+ *
+ * @author josephramsey
+ */
+public class TaskProgressPanel extends JPanel {
+
+    @Serial
+    private static final long serialVersionUID = -3072264817718385730L;
+
+    /**
+     * How often the table is refreshed, in milliseconds.
+     */
+    private static final int REFRESH_MILLIS = 500;
+
+    /**
+     * The dialog shown by {@link #showDialog(Component)}, if it has been created.
+     */
+    private static JDialog dialog;
+
+    /**
+     * The service whose jobs are shown.
+     */
+    private final transient TaskService service;
+
+    /**
+     * The table model.
+     */
+    private final JobTableModel model = new JobTableModel();
+
+    /**
+     * The table.
+     */
+    private final JTable table = new JTable(this.model);
+
+    /**
+     * Refreshes the table while the panel is showing.
+     */
+    private final Timer timer = new Timer(REFRESH_MILLIS, e -> refresh());
+
+    /**
+     * Refreshes the table as soon as a job changes state.
+     */
+    private final transient ChangeListener listener = e -> refresh();
+
+    /**
+     * Constructs a panel for the shared task service.
+     */
+    public TaskProgressPanel() {
+        this(TaskService.getInstance());
+    }
+
+    /**
+     * Constructs a panel for the given task service.
+     *
+     * @param service the service.
+     */
+    public TaskProgressPanel(TaskService service) {
+        if (service == null) {
+            throw new NullPointerException("Service must not be null.");
+        }
+
+        this.service = service;
+
+        this.table.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        this.table.getColumnModel().getColumn(0).setPreferredWidth(150);
+        this.table.getColumnModel().getColumn(1).setPreferredWidth(60);
+        this.table.getColumnModel().getColumn(2).setPreferredWidth(70);
+        this.table.getColumnModel().getColumn(3).setPreferredWidth(60);
+        this.table.getColumnModel().getColumn(4).setPreferredWidth(300);
+
+        JButton cancel = new JButton("Cancel");
+        cancel.addActionListener(e -> {
+            for (int row : this.table.getSelectedRows()) {
+                this.model.getJob(this.table.convertRowIndexToModel(row)).cancel();
+            }
+        });
+
+        JButton cancelAll = new JButton("Cancel All");
+        cancelAll.addActionListener(e -> this.service.cancelAll());
+
+        JButton clearFinished = new JButton("Clear Finished");
+        clearFinished.addActionListener(e -> this.service.clearFinished());
+
+        JSpinner maxJobs = new JSpinner(new SpinnerNumberModel(this.service.getMaxParallelJobs(), 1,
+                Math.max(this.service.getMaxParallelJobs(), Runtime.getRuntime().availableProcessors()), 1));
+        maxJobs.setMaximumSize(maxJobs.getPreferredSize());
+        maxJobs.addChangeListener(e -> this.service.setMaxParallelJobs((Integer) maxJobs.getValue()));
+
+        Box buttons = Box.createHorizontalBox();
+        buttons.add(new JLabel("Max parallel jobs: "));
+        buttons.add(maxJobs);
+        buttons.add(Box.createHorizontalGlue());
+        buttons.add(cancel);
+        buttons.add(cancelAll);
+        buttons.add(clearFinished);
+
+        setLayout(new BorderLayout());
+        add(new JScrollPane(this.table), BorderLayout.CENTER);
+        add(buttons, BorderLayout.SOUTH);
+        setPreferredSize(new Dimension(650, 250));
+
+        refresh();
+    }
+
+    /**
+     * Shows the jobs of the shared task service in a non-modal dialog, creating the dialog the first time.
+     *
+     * @param parent a component in the window that should own the dialog.
+     */
+    public static void showDialog(Component parent) {
+        if (dialog == null) {
+            Window owner = parent == null ? null : SwingUtilities.getWindowAncestor(parent);
+            dialog = new JDialog(owner, "Background Jobs", Dialog.ModalityType.MODELESS);
+            dialog.setDefaultCloseOperation(WindowConstants.HIDE_ON_CLOSE);
+            dialog.getContentPane().add(new TaskProgressPanel());
+            dialog.pack();
+            dialog.setLocationRelativeTo(owner);
+        }
+
+        dialog.setVisible(true);
+        dialog.toFront();
+    }
+
+    private static String formatElapsed(long millis) {
+        long seconds = millis / 1000;
+
+        if (seconds < 60) {
+            return String.format("%.1f s", millis / 1000.0);
+        }
+
+        return String.format("%d:%02d", seconds / 60, seconds % 60);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Starts refreshing when the panel is added to a showing hierarchy.
+     */
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        this.service.addChangeListener(this.listener);
+        this.timer.start();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Stops refreshing when the panel is removed.
+     */
+    @Override
+    public void removeNotify() {
+        this.timer.stop();
+        this.service.removeChangeListener(this.listener);
+        super.removeNotify();
+    }
+
+    private void refresh() {
+        List<TaskService.Job> selected = new ArrayList<>();
+
+        for (int row : this.table.getSelectedRows()) {
+            selected.add(this.model.getJob(this.table.convertRowIndexToModel(row)));
+        }
+
+        this.model.setJobs(this.service.getJobs());
+
+        for (TaskService.Job job : selected) {
+            int index = this.model.indexOf(job);
+
+            if (index >= 0) {
+                int row = this.table.convertRowIndexToView(index);
+                this.table.addRowSelectionInterval(row, row);
+            }
+        }
+    }
+
+    /**
+     * A read-only view of a snapshot of the jobs.
+     */
+    private static final class JobTableModel extends AbstractTableModel {
+
+        @Serial
+        private static final long serialVersionUID = 5127437726893950312L;
+
+        private static final String[] COLUMNS = {"Job", "Priority", "Status", "Elapsed", "Progress"};
+
+        private transient List<TaskService.Job> jobs = new ArrayList<>();
+
+        void setJobs(List<TaskService.Job> jobs) {
+            this.jobs = jobs;
+            fireTableDataChanged();
+        }
+
+        TaskService.Job getJob(int row) {
+            return this.jobs.get(row);
+        }
+
+        int indexOf(TaskService.Job job) {
+            return this.jobs.indexOf(job);
+        }
+
+        @Override
+        public int getRowCount() {
+            return this.jobs.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            TaskService.Job job = this.jobs.get(row);
+
+            switch (column) {
+                case 0:
+                    return job.getName();
+                case 1:
+                    return job.getPriority();
+                case 2:
+                    return job.getState();
+                case 3:
+                    return job.getState() == TaskService.State.QUEUED ? "" : formatElapsed(job.getElapsedMillis());
+                case 4:
+                    if (job.getState() == TaskService.State.FAILED && job.getError() != null) {
+                        return "Error: " + job.getError().getMessage();
+                    }
+
+                    double progress = job.getProgress();
+                    String message = job.getMessage();
+
+                    if (progress >= 0) {
+                        return String.format("%d%% %s", Math.round(100 * progress), message);
+                    }
+
+                    return message;
+                default:
+                    throw new IllegalArgumentException("Unknown column: " + column);
+            }
+        }
+    }
+}
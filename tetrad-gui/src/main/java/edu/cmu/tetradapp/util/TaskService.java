@@ -0,0 +1,655 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+//                                                                           //
+// Copyright (C) 2025 by Joseph Ramsey, Peter Spirtes, Clark Glymour,        //
+// and Richard Scheines.                                                     //
+//                                                                           //
+// This program is free software: you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation, either version 3 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.    //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetradapp.util;
+
+import edu.cmu.tetrad.util.TetradLogger;
+
+import javax.swing.*;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.prefs.Preferences;
+
+/**
+ * A shared background executor for long-running GUI work such as searches. Jobs are queued by priority (and, within a
+ * priority, in submission order) and run off the event dispatch thread with at most a fixed number running at a time,
+ * so that starting several searches from a session neither blocks the interface nor oversubscribes the cores; the
+ * searches themselves are usually multithreaded, so the default number of parallel jobs is small.
+ * <p>
+ * Cancellation is cooperative. Canceling a queued job removes it from the queue; canceling a running job interrupts its
+ * thread, which searches such as Fas and Fges check between steps. Tasks may also poll {@link Job#isCanceled()}.
+ * <p>
+ * Each job carries a status message and an optional progress fraction for display in a {@link TaskProgressPanel}. A
+ * task may set these directly; in addition, any line a job's thread logs through {@link TetradLogger} becomes that
+ * job's status message, so searches report progress without having to know about this class.
+ * <p>
+ * Example usage:
+ * <pre>
+ * TaskService.getInstance().submit("FGES", job -&gt; {
+ *     Graph graph = fges.search();
+ *     SwingUtilities.invokeLater(() -&gt; showGraph(graph));
+ * });
+ * </pre>
+ *
+ * @author josephramsey
+ */
+public final class TaskService {
+
+    /**
+     * The preference key for the maximum number of jobs that run at once.
+     */
+    private static final String MAX_PARALLEL_JOBS_KEY = "maxParallelJobs";
+
+    /**
+     * The number of finished jobs kept for display before the oldest are dropped.
+     */
+    private static final int MAX_FINISHED_JOBS = 50;
+
+    /**
+     * The job whose task is running on the current thread, if any.
+     */
+    private static final ThreadLocal<Job> CURRENT = new ThreadLocal<>();
+
+    /**
+     * The singleton instance.
+     */
+    private static final TaskService INSTANCE;
+
+    static {
+        int defaultJobs = Math.max(1, Runtime.getRuntime().availableProcessors() / 4);
+        INSTANCE = new TaskService(Preferences.userRoot().getInt(MAX_PARALLEL_JOBS_KEY, defaultJobs));
+        TetradLogger.getInstance().addOutputStream(new JobLogStream());
+    }
+
+    /**
+     * The executor; its queue orders jobs by priority.
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Jobs in submission order, both pending and recently finished.
+     */
+    private final List<Job> jobs = new CopyOnWriteArrayList<>();
+
+    /**
+     * Listeners notified on the event dispatch thread when a job is submitted or changes state.
+     */
+    private final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Numbers jobs in submission order.
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Constructs a separate service that runs at most the given number of jobs at once. GUI code should normally use
+     * the shared instance instead.
+     *
+     * @param maxParallelJobs the maximum number of jobs that run at once; must be at least 1.
+     * @see #getInstance()
+     */
+    public TaskService(int maxParallelJobs) {
+        if (maxParallelJobs < 1) {
+            throw new IllegalArgumentException("Max parallel jobs must be at least 1: " + maxParallelJobs);
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+
+        this.executor = new ThreadPoolExecutor(maxParallelJobs, maxParallelJobs, 30, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "Tetrad task " + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Returns the shared instance.
+     *
+     * @return the shared instance.
+     */
+    public static TaskService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the job running on the current thread, or null if the current thread is not running a job.
+     *
+     * @return the current job, or null.
+     */
+    public static Job currentJob() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Queues a task with normal priority.
+     *
+     * @param name the name of the job, for display.
+     * @param task the task.
+     * @return the job.
+     */
+    public Job submit(String name, Task task) {
+        return submit(name, Priority.NORMAL, task);
+    }
+
+    /**
+     * Queues a task with the given priority.
+     *
+     * @param name     the name of the job, for display.
+     * @param priority the priority; higher-priority jobs are started first.
+     * @param task     the task.
+     * @return the job.
+     */
+    public Job submit(String name, Priority priority, Task task) {
+        if (name == null) throw new NullPointerException("Name must not be null.");
+        if (priority == null) throw new NullPointerException("Priority must not be null.");
+        if (task == null) throw new NullPointerException("Task must not be null.");
+
+        Job job = new Job(name, priority, this.sequence.getAndIncrement(), task);
+        this.jobs.add(job);
+        trimFinished();
+        fireChanged(job);
+        this.executor.execute(job);
+        return job;
+    }
+
+    /**
+     * Returns the pending and recently finished jobs, in submission order.
+     *
+     * @return the jobs.
+     */
+    public List<Job> getJobs() {
+        return new ArrayList<>(this.jobs);
+    }
+
+    /**
+     * Cancels every queued and running job.
+     */
+    public void cancelAll() {
+        for (Job job : this.jobs) {
+            job.cancel();
+        }
+    }
+
+    /**
+     * Removes finished jobs from the list returned by {@link #getJobs()}.
+     */
+    public void clearFinished() {
+        this.jobs.removeIf(Job::isDone);
+        fireChanged(null);
+    }
+
+    /**
+     * Returns the maximum number of jobs that run at once.
+     *
+     * @return this number.
+     */
+    public int getMaxParallelJobs() {
+        return this.executor.getMaximumPoolSize();
+    }
+
+    /**
+     * Sets the maximum number of jobs that run at once and remembers it in the user's preferences. Running jobs are not
+     * affected if the number is lowered.
+     *
+     * @param maxParallelJobs the maximum number; must be at least 1.
+     */
+    public void setMaxParallelJobs(int maxParallelJobs) {
+        if (maxParallelJobs < 1) {
+            throw new IllegalArgumentException("Max parallel jobs must be at least 1: " + maxParallelJobs);
+        }
+
+        synchronized (this.executor) {
+            if (maxParallelJobs > this.executor.getMaximumPoolSize()) {
+                this.executor.setMaximumPoolSize(maxParallelJobs);
+                this.executor.setCorePoolSize(maxParallelJobs);
+            } else {
+                this.executor.setCorePoolSize(maxParallelJobs);
+                this.executor.setMaximumPoolSize(maxParallelJobs);
+            }
+        }
+
+        if (this == INSTANCE) {
+            Preferences.userRoot().putInt(MAX_PARALLEL_JOBS_KEY, maxParallelJobs);
+        }
+    }
+
+    /**
+     * Adds a listener that is notified on the event dispatch thread when a job is submitted, changes state, or is
+     * cleared. Changes to a job's message or progress are not reported this way; displays should poll for those.
+     *
+     * @param listener the listener.
+     */
+    public void addChangeListener(ChangeListener listener) {
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener.
+     *
+     * @param listener the listener.
+     */
+    public void removeChangeListener(ChangeListener listener) {
+        this.listeners.remove(listener);
+    }
+
+    /**
+     * Cancels all jobs and stops the service's threads. The shared instance should not be shut down.
+     */
+    public void shutdown() {
+        cancelAll();
+        this.executor.shutdownNow();
+    }
+
+    private void trimFinished() {
+        int finished = 0;
+
+        for (int i = this.jobs.size() - 1; i >= 0; i--) {
+            Job job = this.jobs.get(i);
+
+            if (job.isDone() && ++finished > MAX_FINISHED_JOBS) {
+                this.jobs.remove(job);
+            }
+        }
+    }
+
+    private void fireChanged(Job job) {
+        if (this.listeners.isEmpty()) return;
+
+        SwingUtilities.invokeLater(() -> {
+            ChangeEvent event = new ChangeEvent(job == null ? this : job);
+
+            for (ChangeListener listener : this.listeners) {
+                listener.stateChanged(event);
+            }
+        });
+    }
+
+    /**
+     * The priority of a job.
+     */
+    public enum Priority {
+
+        /**
+         * Started before normal and low-priority jobs.
+         */
+        HIGH,
+
+        /**
+         * The default.
+         */
+        NORMAL,
+
+        /**
+         * Started only when no other jobs are waiting.
+         */
+        LOW
+    }
+
+    /**
+     * The state of a job.
+     */
+    public enum State {
+
+        /**
+         * Waiting for a thread.
+         */
+        QUEUED,
+
+        /**
+         * Running.
+         */
+        RUNNING,
+
+        /**
+         * Finished normally.
+         */
+        DONE,
+
+        /**
+         * Finished by throwing an exception.
+         */
+        FAILED,
+
+        /**
+         * Canceled, either while queued or while running.
+         */
+        CANCELED
+    }
+
+    /**
+     * A unit of background work.
+     */
+    public interface Task {
+
+        /**
+         * Does the work. Implementations should stop promptly, by returning or throwing InterruptedException, once the
+         * thread is interrupted or the job is canceled, and should hand any changes to Swing components to the event
+         * dispatch thread.
+         *
+         * @param job the job running this task, for reporting progress and checking for cancellation.
+         * @throws Exception if the work fails.
+         */
+        void run(Job job) throws Exception;
+    }
+
+    /**
+     * Writes each line logged on a job's thread into that job's status message. Lines logged on other threads are
+     * ignored.
+     */
+    private static final class JobLogStream extends OutputStream {
+
+        private final ThreadLocal<ByteArrayOutputStream> lines = ThreadLocal.withInitial(ByteArrayOutputStream::new);
+
+        @Override
+        public void write(int b) {
+            Job job = CURRENT.get();
+            if (job == null) return;
+
+            ByteArrayOutputStream line = this.lines.get();
+
+            if (b == '\n') {
+                String message = line.toString(StandardCharsets.UTF_8).trim();
+                line.reset();
+
+                if (!message.isEmpty()) {
+                    job.setMessage(message);
+                }
+            } else {
+                line.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            if (CURRENT.get() == null) return;
+
+            for (int i = off; i < off + len; i++) {
+                write(b[i]);
+            }
+        }
+    }
+
+    /**
+     * A queued, running, or finished task.
+     */
+    public final class Job implements Runnable, Comparable<Job> {
+
+        private final String name;
+        private final Priority priority;
+        private final long sequence;
+        private final Task task;
+        private final CountDownLatch finished = new CountDownLatch(1);
+
+        private volatile State state = State.QUEUED;
+        private volatile boolean canceled;
+        private volatile String message = "";
+        private volatile double progress = -1;
+        private volatile long startTime;
+        private volatile long endTime;
+        private volatile Throwable error;
+        private Thread thread;
+
+        private Job(String name, Priority priority, long sequence, Task task) {
+            this.name = name;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.task = task;
+        }
+
+        /**
+         * Runs the task; called by the executor.
+         */
+        @Override
+        public void run() {
+            synchronized (this) {
+                if (this.state != State.QUEUED) return;
+                this.state = State.RUNNING;
+                this.thread = Thread.currentThread();
+                this.startTime = System.currentTimeMillis();
+            }
+
+            fireChanged(this);
+            CURRENT.set(this);
+            State outcome;
+
+            try {
+                this.task.run(this);
+                outcome = this.canceled ? State.CANCELED : State.DONE;
+            } catch (InterruptedException e) {
+                outcome = State.CANCELED;
+            } catch (Throwable e) {
+                if (this.canceled) {
+                    outcome = State.CANCELED;
+                } else {
+                    outcome = State.FAILED;
+                    this.error = e;
+                    TetradLogger.getInstance().log("Exception in background job '" + this.name
+                                                   + "'; see console for stack trace.");
+                    e.printStackTrace();
+                }
+            } finally {
+                CURRENT.remove();
+
+                synchronized (this) {
+                    this.thread = null;
+                }
+
+                // Clear any interrupt meant for this job before the thread takes the next one.
+                Thread.interrupted();
+            }
+
+            finish(outcome);
+        }
+
+        /**
+         * Cancels the job. A queued job is removed from the queue; a running job is interrupted and is expected to stop
+         * at its next check. Has no effect on a finished job.
+         */
+        public void cancel() {
+            boolean removed = false;
+
+            synchronized (this) {
+                if (isDone()) return;
+
+                this.canceled = true;
+
+                if (this.state == State.QUEUED) {
+                    this.state = State.CANCELED;
+                    removed = true;
+                } else if (this.thread != null) {
+                    this.thread.interrupt();
+                }
+            }
+
+            if (removed) {
+                TaskService.this.executor.remove(this);
+                this.finished.countDown();
+                fireChanged(this);
+            }
+        }
+
+        /**
+         * Waits for the job to finish.
+         *
+         * @throws InterruptedException if the waiting thread is interrupted.
+         */
+        public void await() throws InterruptedException {
+            this.finished.await();
+        }
+
+        /**
+         * Waits at most the given time for the job to finish.
+         *
+         * @param timeout the time to wait.
+         * @param unit    the unit of the timeout.
+         * @return true if the job finished.
+         * @throws InterruptedException if the waiting thread is interrupted.
+         */
+        public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+            return this.finished.await(timeout, unit);
+        }
+
+        /**
+         * Returns the name of the job.
+         *
+         * @return the name.
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * Returns the priority of the job.
+         *
+         * @return the priority.
+         */
+        public Priority getPriority() {
+            return this.priority;
+        }
+
+        /**
+         * Returns the state of the job.
+         *
+         * @return the state.
+         */
+        public State getState() {
+            return this.state;
+        }
+
+        /**
+         * Returns whether the job has finished, whether normally, by failing, or by being canceled.
+         *
+         * @return true if finished.
+         */
+        public boolean isDone() {
+            State state = this.state;
+            return state == State.DONE || state == State.FAILED || state == State.CANCELED;
+        }
+
+        /**
+         * Returns whether the job has been canceled. Tasks may poll this in addition to checking for interruption.
+         *
+         * @return true if canceled.
+         */
+        public boolean isCanceled() {
+            return this.canceled;
+        }
+
+        /**
+         * Returns the status message.
+         *
+         * @return the message; empty if none has been set.
+         */
+        public String getMessage() {
+            return this.message;
+        }
+
+        /**
+         * Sets the status message.
+         *
+         * @param message the message.
+         */
+        public void setMessage(String message) {
+            this.message = message == null ? "" : message;
+        }
+
+        /**
+         * Returns the fraction of the work done, or -1 if unknown.
+         *
+         * @return the progress.
+         */
+        public double getProgress() {
+            return this.progress;
+        }
+
+        /**
+         * Sets the fraction of the work done, clamped to [0, 1]; a negative value means unknown.
+         *
+         * @param progress the progress.
+         */
+        public void setProgress(double progress) {
+            this.progress = progress < 0 ? -1 : Math.min(progress, 1.0);
+        }
+
+        /**
+         * Returns the time the job has been running, or ran, in milliseconds; 0 if it has not started.
+         *
+         * @return the elapsed time.
+         */
+        public long getElapsedMillis() {
+            long start = this.startTime;
+            if (start == 0) return 0;
+            long end = this.endTime;
+            return (end == 0 ? System.currentTimeMillis() : end) - start;
+        }
+
+        /**
+         * Returns the exception the task threw, if the job failed.
+         *
+         * @return the exception, or null.
+         */
+        public Throwable getError() {
+            return this.error;
+        }
+
+        /**
+         * Orders jobs by priority and then by submission order.
+         *
+         * @param other the other job.
+         * @return the comparison.
+         */
+        @Override
+        public int compareTo(Job other) {
+            int c = this.priority.compareTo(other.priority);
+            return c != 0 ? c : Long.compare(this.sequence, other.sequence);
+        }
+
+        /**
+         * Returns the name and state of the job.
+         *
+         * @return this string.
+         */
+        @Override
+        public String toString() {
+            return this.name + " (" + this.state + ")";
+        }
+
+        private void finish(State outcome) {
+            synchronized (this) {
+                this.endTime = System.currentTimeMillis();
+                this.state = outcome;
+            }
+
+            this.finished.countDown();
+            fireChanged(this);
+        }
+    }
+}
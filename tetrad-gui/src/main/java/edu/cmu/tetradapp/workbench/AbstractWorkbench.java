@@ -38,6 +38,9 @@ import org.apache.commons.math3.util.FastMath;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.geom.Line2D;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.io.IOException;
@@ -75,6 +78,10 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
      * The mode in which the user is permitted to select workbench items or move nodes.
      */
     public static final int ADD_EDGE = 2;
+    /**
+     * Graphs with more nodes than this are drawn in canvas mode by default.
+     */
+    public static final int DEFAULT_CANVAS_NODE_THRESHOLD = 500;
     @Serial
     private static final long serialVersionUID = 6718395673225983249L;
 
@@ -207,6 +214,30 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
      * The knowledge.
      */
     private Knowledge knowledge = new Knowledge();
+    /**
+     * Whether canvas mode has been requested regardless of graph size.
+     */
+    private transient boolean canvasMode = false;
+    /**
+     * Graphs with more nodes than this are drawn in canvas mode. Not serialized; reset to the default on reading.
+     */
+    private transient int canvasNodeThreshold = AbstractWorkbench.DEFAULT_CANVAS_NODE_THRESHOLD;
+    /**
+     * Draws the graph when in canvas mode, in which case no display components are created; null otherwise.
+     */
+    private transient GraphCanvasRenderer canvas;
+    /**
+     * In canvas mode, the model point at which the mouse was pressed, or null if no button is down.
+     */
+    private transient Point2D canvasPressPoint;
+    /**
+     * In canvas mode, the original centers of the nodes being dragged, or null if no nodes are being dragged.
+     */
+    private transient Map<Node, Point> canvasDragOrigins;
+    /**
+     * In canvas mode, the node from which a new edge is being drawn, or null if none.
+     */
+    private transient Node canvasEdgeSource;
 
     // ==============================CONSTRUCTOR============================//
 
@@ -219,6 +250,7 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
         setGraph(graph);
         addMouseListener(this.mouseHandler);
         addMouseMotionListener(this.mouseMotionHandler);
+        addMouseWheelListener(this::handleMouseWheel);
         // setCursor(new Cursor(Cursor.DEFAULT_CURSOR));
         setBackground(new Color(254, 254, 255));
         setFocusable(true);
@@ -267,6 +299,11 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
      * process.
      */
     public final void deleteSelectedObjects() {
+        if (this.canvas != null) {
+            deleteCanvasSelection();
+            return;
+        }
+
         Component[] components = getComponents();
         List<DisplayNode> graphNodes = new ArrayList<>();
         List<IDisplayEdge> graphEdges = new ArrayList<>();
@@ -310,6 +347,13 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
      * Deselects all edges and nodes in the workbench.
      */
     public final void deselectAll() {
+        if (this.canvas != null) {
+            this.canvas.clearSelection();
+            repaint();
+            firePropertyChange("BackgroundClicked", null, null);
+            return;
+        }
+
         Component[] components = getComponents();
 
         for (Component comp : components) {
@@ -454,12 +498,24 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
     }
 
     /**
-     * Returns the currently selected nodes as a list.
+     * Returns the currently selected nodes as a list. In canvas mode these are display nodes created on demand for the
+     * selected model nodes; they are not part of the workbench.
      *
      * @return the currently selected nodes as a list.
      */
     public final List<DisplayNode> getSelectedNodes() {
         List<DisplayNode> selectedNodes = new ArrayList<>();
+
+        if (this.canvas != null) {
+            for (Node node : this.canvas.getSelectedNodes()) {
+                DisplayNode displayNode = getNewDisplayNode(node);
+                displayNode.setSelected(true);
+                selectedNodes.add(displayNode);
+            }
+
+            return selectedNodes;
+        }
+
         Component[] components = getComponents();
 
         for (Component comp : components) {
@@ -488,11 +544,19 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
 
     /**
      * <p>getSelectedComponents.</p>
+     * <p>
+     * In canvas mode, only the selected nodes are returned, as in {@link #getSelectedNodes()}.
      *
      * @return the currently selected nodes as a vector.
      */
     public final List<Component> getSelectedComponents() {
         List<Component> selectedComponents = new ArrayList<>();
+
+        if (this.canvas != null) {
+            selectedComponents.addAll(getSelectedNodes());
+            return selectedComponents;
+        }
+
         Component[] components = getComponents();
 
         for (Component comp : components) {
@@ -627,7 +691,7 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
 
     /**
      * Sets the label for an edge to a particular JComponent. The label will be displayed halfway along the edge
-     * slightly off to the side.
+     * slightly off to the side. Ignored in canvas mode.
      *
      * @param modelEdge the edge for the label.
      * @param label     the label for the component.
@@ -635,6 +699,8 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
     public final void setEdgeLabel(Edge modelEdge, JComponent label) {
         if (modelEdge == null) {
             throw new NullPointerException("Attempt to set a label on a " + "null model edge: " + null);
+        } else if (this.canvas != null) {
+            return;
         } else if (!getModelEdgesToDisplay().containsKey(modelEdge)) {
             throw new IllegalArgumentException("Attempt to set a label on " + "a model edge that's not " + "in the editor: " + modelEdge);
         }
@@ -661,7 +727,7 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
     }
 
     /**
-     * Node tooltip to show the node attributes.
+     * Node tooltip to show the node attributes. Ignored in canvas mode.
      *
      * @param modelNode   a {@link edu.cmu.tetrad.graph.Node} object
      * @param toolTipText a {@link java.lang.String} object
@@ -669,6 +735,8 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
     public final void setNodeToolTip(Node modelNode, String toolTipText) {
         if (modelNode == null) {
             throw new NullPointerException("Attempt to set a label on a " + "null model node: " + null);
+        } else if (this.canvas != null) {
+            return;
         } else if (!getModelNodesToDisplay().containsKey(modelNode)) {
             throw new IllegalArgumentException("Attempt to set a label on " + "a model node that's not " + "in the editor: " + modelNode);
         }
@@ -679,7 +747,7 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
     }
 
     /**
-     * Edge tooltip to show the edge type and probabilities - Added by Zhou
+     * Edge tooltip to show the edge type and probabilities - Added by Zhou. Ignored in canvas mode.
      *
      * @param modelEdge   a {@link edu.cmu.tetrad.graph.Edge} object
      * @param toolTipText a {@link java.lang.String} object
@@ -687,6 +755,8 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
     public final void setEdgeToolTip(Edge modelEdge, String toolTipText) {
         if (modelEdge == null) {
             throw new NullPointerException("Attempt to set a label on a " + "null model edge: " + null);
+        } else if (this.canvas != null) {
+            return;
         } else if (!getModelEdgesToDisplay().containsKey(modelEdge)) {
             throw new IllegalArgumentException("Attempt to set a label on " + "a model edge that's not " + "in the editor: " + modelEdge);
         }
@@ -741,7 +811,10 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
      */
     public final void setStrokeWidth(Edge edge, float width) {
         IDisplayEdge displayEdge = (IDisplayEdge) getModelEdgesToDisplay().get(edge);
-        displayEdge.setStrokeWidth(width);
+
+        if (displayEdge != null) {
+            displayEdge.setStrokeWidth(width);
+        }
     }
 
     private void setEdgeLabel(IDisplayEdge displayEdge, GraphEdgeLabel edgeLabel) {
@@ -809,6 +882,15 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
             return;
         }
 
+        if (this.canvas != null) {
+            if (this.graph.containsNode(modelNode)) {
+                this.canvas.getSelectedNodes().add(modelNode);
+                repaint();
+            }
+
+            return;
+        }
+
         DisplayNode graphNode = (DisplayNode) getModelNodesToDisplay().get(modelNode);
 
         if (graphNode != null) {
@@ -822,6 +904,15 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
      * @param modelEdge a {@link edu.cmu.tetrad.graph.Edge} object
      */
     public final void selectEdge(Edge modelEdge) {
+        if (this.canvas != null) {
+            if (this.graph.containsEdge(modelEdge)) {
+                this.canvas.getSelectedEdges().add(modelEdge);
+                repaint();
+            }
+
+            return;
+        }
+
         IDisplayEdge graphEdge = (IDisplayEdge) getModelEdgesToDisplay().get(modelEdge);
         graphEdge.setSelected(true);
     }
@@ -835,6 +926,12 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
             return;
         }
 
+        if (this.canvas != null) {
+            this.canvas.selectEdgesAmong(this.canvas.getSelectedNodes());
+            repaint();
+            return;
+        }
+
         Component[] components = getComponents();
 
         for (Component comp : components) {
@@ -893,12 +990,47 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
         super.paint(g);
     }
 
+    /**
+     * Paints the graph itself when in canvas mode; otherwise the display components paint themselves.
+     *
+     * @param g the Graphics context in which to paint
+     */
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+
+        if (this.canvas != null) {
+            Rectangle clip = g.getClipBounds();
+
+            if (clip == null) {
+                clip = new Rectangle(0, 0, getWidth(), getHeight());
+            }
+
+            if (isOpaque()) {
+                g.setColor(getBackground());
+                g.fillRect(clip.x, clip.y, clip.width, clip.height);
+            }
+
+            this.canvas.paint((Graphics2D) g, clip);
+        }
+    }
+
     /**
      * Scrolls the workbench image so that the given node is in view, then selects that node.
      *
      * @param modelNode the model node to show.
      */
     public final void scrollWorkbenchToNode(Node modelNode) {
+        if (this.canvas != null) {
+            if (this.graph.containsNode(modelNode)) {
+                scrollRectToVisible(this.canvas.toView(this.canvas.nodeBounds(modelNode)));
+                deselectAll();
+                selectNode(modelNode);
+            }
+
+            return;
+        }
+
         Object o = getModelNodesToDisplay().get(modelNode);
         DisplayNode displayNode = (DisplayNode) o;
 
@@ -940,6 +1072,13 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
     public void layoutByGraph(Graph layoutGraph) {
         LayoutUtil.arrangeBySourceGraph(this.graph, layoutGraph);
 
+        if (this.canvas != null) {
+            this.canvas.rebuild();
+            adjustPreferredSize();
+            repaint();
+            return;
+        }
+
         for (Node modelNode : this.graph.getNodes()) {
             DisplayNode displayNode = (DisplayNode) getModelNodesToDisplay().get(modelNode);
 
@@ -991,6 +1130,12 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
      */
     public void layoutByKnowledge() {
         GraphSearchUtils.arrangeByKnowledgeTiers(this.graph, getKnowledge());
+
+        if (this.canvas != null) {
+            this.canvas.rebuild();
+            adjustPreferredSize();
+        }
+
         revalidate();
         repaint();
     }
@@ -1007,6 +1152,10 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
             return new Rectangle();
         }
 
+        if (this.canvas != null) {
+            return this.canvas.toView(this.canvas.getExtent()).union(super.getVisibleRect());
+        }
+
         DisplayNode displayNode = (DisplayNode) getModelNodesToDisplay().get(nodes.getFirst());
         Rectangle rect = displayNode.getBounds();
 
@@ -1032,6 +1181,18 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
             return;
         }
 
+        if (this.canvas != null) {
+            Rectangle2D bounds = this.canvas.nodeBounds(nodes.getFirst());
+
+            for (int i = 1; i < nodes.size(); i++) {
+                bounds.add(this.canvas.nodeBounds(nodes.get(i)));
+            }
+
+            adjustPreferredSize();
+            scrollRectToVisible(this.canvas.toView(bounds));
+            return;
+        }
+
         DisplayNode displayNode = (DisplayNode) getModelNodesToDisplay().get(nodes.getFirst());
         Rectangle rect = displayNode.getBounds();
 
@@ -1149,6 +1310,19 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
         removeAll();
         graph.addPropertyChangeListener(this.propChangeHandler);
 
+        if (this.canvasMode || graph.getNumNodes() > this.canvasNodeThreshold) {
+            double scale = this.canvas != null ? this.canvas.getScale() : 1.0;
+            this.canvas = new GraphCanvasRenderer(graph, getFontMetrics(DisplayNodeUtils.getFont()));
+            this.canvas.setScale(scale);
+            this.canvas.setPagEdgeSpecializationMarked(this.pagEdgeSpecializationMarked);
+            adjustPreferredSize();
+            revalidate();
+            repaint();
+            return;
+        }
+
+        this.canvas = null;
+
         // extract the current contents from the model...
         List<Node> nodes = graph.getNodes();
         for (Node node : nodes) {
@@ -1228,6 +1402,10 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
         Component[] components = getComponents();
         Rectangle r = new Rectangle(0, 0, 400, 400);
 
+        if (this.canvas != null) {
+            r = r.union(this.canvas.toView(this.canvas.getExtent()));
+        }
+
         for (Component component1 : components) {
             r = r.union(component1.getBounds());
         }
@@ -1268,6 +1446,13 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
      * @param modelNode the model node.
      */
     private void addNode(Node modelNode) {
+        if (this.canvas != null) {
+            this.canvas.nodeAdded(modelNode);
+            adjustPreferredSize();
+            repaint();
+            return;
+        }
+
         if (getModelNodesToDisplay().containsKey(modelNode)) {
             return;
         }
@@ -1400,6 +1585,12 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
             return;
         }
 
+        if (this.canvas != null) {
+            this.canvas.edgeAdded(modelEdge);
+            repaint();
+            return;
+        }
+
         if (getModelEdgesToDisplay().containsKey(modelEdge)) {
             return;
         }
@@ -1574,26 +1765,9 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
 
         // Edges to self are not supported.
         if (comp1 != comp2) {
-
-            // Construct the model edge
-            try {
-                Node node1 = (Node) (getDisplayToModel().get(comp1));
-                Node node2 = (Node) (getDisplayToModel().get(comp2));
-                Edge modelEdge = getNewModelEdge(node1, node2);
-
-                // Add model edge to model; this will result in an event fired
-                // back from the model to add a display edge, so we can remove
-                // the tracked edge and forget about it.
-                this.graph.addEdge(modelEdge);
-                setGraph(this.graph);
-                firePropertyChange("modelChanged", null, null);
-            } catch (Exception e) {
-                e.printStackTrace();
-
-                if (isNodeEdgeErrorsReported()) {
-                    JOptionPane.showMessageDialog(JOptionUtils.centeringComp(), e.getMessage());
-                }
-            }
+            Node node1 = (Node) (getDisplayToModel().get(comp1));
+            Node node2 = (Node) (getDisplayToModel().get(comp2));
+            addNewModelEdge(node1, node2);
         }
 
         remove((Component) getTrackedEdge());
@@ -1604,6 +1778,34 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
         this.trackedEdge = null;
     }
 
+    /**
+     * Adds a new model edge of the current type between the two given nodes, reporting any failure to the user if
+     * errors are reported.
+     *
+     * @param node1 the first node.
+     * @param node2 the second node.
+     */
+    private void addNewModelEdge(Node node1, Node node2) {
+
+        // Construct the model edge
+        try {
+            Edge modelEdge = getNewModelEdge(node1, node2);
+
+            // Add model edge to model; this will result in an event fired
+            // back from the model to add a display edge, so we can remove
+            // the tracked edge and forget about it.
+            this.graph.addEdge(modelEdge);
+            setGraph(this.graph);
+            firePropertyChange("modelChanged", null, null);
+        } catch (Exception e) {
+            e.printStackTrace();
+
+            if (isNodeEdgeErrorsReported()) {
+                JOptionPane.showMessageDialog(JOptionUtils.centeringComp(), e.getMessage());
+            }
+        }
+    }
+
     /**
      * Fires a property change event, property name = "selectedNodes", with the new node selection as its new value (a
      * List).
@@ -1612,6 +1814,10 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
         Component[] components = getComponents();
         List<Node> selection = new LinkedList<>();
 
+        if (this.canvas != null) {
+            selection.addAll(this.canvas.getSelectedNodes());
+        }
+
         for (Component component : components) {
             if (component instanceof DisplayNode displayNode) {
 
@@ -1657,6 +1863,10 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
                     }
                 }
 
+                if (workbench.canvas != null) {
+                    numEdges = workbench.canvas.getSelectedEdges().size();
+                }
+
                 StringBuilder buf = new StringBuilder();
 
                 if (isDeleteVariablesAllowed()) {
@@ -1725,6 +1935,12 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
             throw new NullPointerException("Attempt to remove a null model node.");
         }
 
+        if (this.canvas != null) {
+            this.canvas.nodeRemoved(modelNode);
+            repaint();
+            return;
+        }
+
         DisplayNode displayNode = (DisplayNode) (getModelNodesToDisplay().get(modelNode));
 
         if (displayNode == null) {
@@ -1782,6 +1998,12 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
             return;
         }
 
+        if (this.canvas != null) {
+            this.canvas.edgeRemoved(modelEdge);
+            repaint();
+            return;
+        }
+
         IDisplayEdge displayEdge = (IDisplayEdge) (getModelEdgesToDisplay().get(modelEdge));
 
         if (displayEdge == null) {
@@ -1952,6 +2174,11 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
             return;
         }
 
+        if (this.canvas != null) {
+            canvasMouseClicked(e);
+            return;
+        }
+
         if (source instanceof DisplayNode) {
             nodeClicked(source, e);
         } else if (source instanceof IDisplayEdge) {
@@ -2031,10 +2258,10 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
 
         if (e.isShiftDown()) {
             if (AbstractWorkbench.distance(point, pointA) < endpointRadius) {
-                toggleEndpoint(graphEdge, 1);
+                toggleEndpoint(graphEdge.getModelEdge(), 1);
                 fireModelChanged();
             } else if (AbstractWorkbench.distance(point, pointB) < endpointRadius) {
-                toggleEndpoint(graphEdge, 2);
+                toggleEndpoint(graphEdge.getModelEdge(), 2);
                 firePropertyChange("modelChanged", null, null);
             }
         } else {
@@ -2063,6 +2290,11 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
             return;
         }
 
+        if (this.canvas != null) {
+            canvasMousePressed(e);
+            return;
+        }
+
         switch (this.workbenchMode) {
             case AbstractWorkbench.SELECT_MOVE:
                 if (source == this) {
@@ -2125,6 +2357,11 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
     private void handleMouseReleased(MouseEvent e) {
         Object source = e.getSource();
 
+        if (this.canvas != null) {
+            canvasMouseReleased(e);
+            return;
+        }
+
         switch (this.workbenchMode) {
             case AbstractWorkbench.SELECT_MOVE:
                 if (source == this) {
@@ -2163,6 +2400,11 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
         Object source = e.getSource();
         Point newPoint = e.getPoint();
 
+        if (this.canvas != null) {
+            canvasMouseDragged(e);
+            return;
+        }
+
         switch (this.workbenchMode) {
             case AbstractWorkbench.SELECT_MOVE:
                 dragNodes(source, newPoint, e.isShiftDown());
@@ -2425,6 +2667,16 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
             throw new IllegalStateException("Graph edge without model edge: " + graphEdge);
         }
 
+        directEdge(edge, endpoint);
+    }
+
+    /**
+     * Directs the given model edge toward endpoint 1 or endpoint 2.
+     *
+     * @param edge     the model edge.
+     * @param endpoint 1 for endpoint 1, 2 for endpoint 2.
+     */
+    private void directEdge(Edge edge, int endpoint) {
         Edge newEdge;
 
         if (endpoint == 1) {
@@ -2460,8 +2712,7 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
         repaint();
     }
 
-    private void toggleEndpoint(IDisplayEdge graphEdge, int endpointNumber) {
-        Edge edge = graphEdge.getModelEdge();
+    private void toggleEndpoint(Edge edge, int endpointNumber) {
         Edge newEdge;
 
         if (endpointNumber == 1) {
@@ -2520,6 +2771,328 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
         repaint();
     }
 
+    /**
+     * Zooms the canvas about the mouse location when the control or meta key is down; otherwise passes the event on
+     * so that an enclosing scroll pane still scrolls.
+     */
+    private void handleMouseWheel(MouseWheelEvent e) {
+        if (this.canvas == null || !(e.isControlDown() || e.isMetaDown())) {
+            if (getParent() != null) {
+                getParent().dispatchEvent(SwingUtilities.convertMouseEvent(this, e, getParent()));
+            }
+
+            return;
+        }
+
+        Point2D anchor = this.canvas.toModel(e.getPoint());
+        Point offset = e.getPoint();
+
+        if (getParent() instanceof JViewport viewport) {
+            Point viewPosition = viewport.getViewPosition();
+            offset = new Point(offset.x - viewPosition.x, offset.y - viewPosition.y);
+        }
+
+        setCanvasScale(this.canvas.getScale() * FastMath.pow(1.1, -e.getPreciseWheelRotation()));
+
+        // Keep the model point under the mouse in place.
+        if (getParent() instanceof JViewport viewport) {
+            double scale = this.canvas.getScale();
+            int x = (int) FastMath.max(0, FastMath.round(anchor.getX() * scale) - offset.x);
+            int y = (int) FastMath.max(0, FastMath.round(anchor.getY() * scale) - offset.y);
+            viewport.setViewPosition(new Point(x, y));
+        }
+    }
+
+    private void canvasMousePressed(MouseEvent e) {
+        Point2D p = this.canvas.toModel(e.getPoint());
+        this.canvasPressPoint = p;
+        this.canvasDragOrigins = null;
+        this.canvasEdgeSource = null;
+
+        switch (this.workbenchMode) {
+            case AbstractWorkbench.SELECT_MOVE:
+                Node node = this.canvas.nodeAt(p);
+
+                if (node == null) {
+                    if (isAllowNodeEdgeSelection() && isAllowMultipleNodeSelection()) {
+                        this.canvas.setRubberband(new Rectangle2D.Double(p.getX(), p.getY(), 0, 0));
+                    }
+                } else if (isAllowNodeDragging()) {
+
+                    // As with display nodes, an unselected node is dragged on its own.
+                    Collection<Node> moving = this.canvas.getSelectedNodes().contains(node)
+                            ? this.canvas.getSelectedNodes() : Collections.singleton(node);
+                    this.canvasDragOrigins = new HashMap<>();
+
+                    for (Node n : moving) {
+                        this.canvasDragOrigins.put(n, new Point(n.getCenterX(), n.getCenterY()));
+                    }
+                }
+
+                break;
+
+            case AbstractWorkbench.ADD_NODE:
+                if (isAllowDoubleClickActions() && this.canvas.nodeAt(p) == null) {
+                    addNode(new Point((int) FastMath.round(p.getX()), (int) FastMath.round(p.getY())));
+                }
+
+                break;
+
+            case AbstractWorkbench.ADD_EDGE:
+                Node nearest = this.canvas.nearestNode(p);
+
+                if (nearest != null) {
+                    deselectAll();
+                    this.canvasEdgeSource = nearest;
+                    this.canvas.setTrackingLine(new Line2D.Double(nearest.getCenterX(), nearest.getCenterY(),
+                            p.getX(), p.getY()));
+                }
+
+                break;
+        }
+
+        repaint();
+    }
+
+    private void canvasMouseDragged(MouseEvent e) {
+        if (this.canvasPressPoint == null) {
+            return;
+        }
+
+        Point2D p = this.canvas.toModel(e.getPoint());
+
+        if (this.workbenchMode == AbstractWorkbench.ADD_EDGE) {
+            if (this.canvasEdgeSource != null) {
+                this.canvas.setTrackingLine(new Line2D.Double(this.canvasEdgeSource.getCenterX(),
+                        this.canvasEdgeSource.getCenterY(), p.getX(), p.getY()));
+            }
+        } else if (this.canvasDragOrigins != null) {
+            int dx = (int) FastMath.round(p.getX() - this.canvasPressPoint.getX());
+            int dy = (int) FastMath.round(p.getY() - this.canvasPressPoint.getY());
+
+            for (Map.Entry<Node, Point> entry : this.canvasDragOrigins.entrySet()) {
+                Node node = entry.getKey();
+                node.setCenterX(entry.getValue().x + dx);
+                node.setCenterY(entry.getValue().y + dy);
+                this.canvas.nodeMoved(node);
+            }
+        } else if (this.canvas.getRubberband() != null) {
+            Rectangle2D band = new Rectangle2D.Double(this.canvasPressPoint.getX(), this.canvasPressPoint.getY(), 0, 0);
+            band.add(p);
+            this.canvas.setRubberband(band);
+        }
+
+        repaint();
+    }
+
+    private void canvasMouseReleased(MouseEvent e) {
+        Point2D p = this.canvas.toModel(e.getPoint());
+        Rectangle2D band = this.canvas.getRubberband();
+
+        if (this.workbenchMode == AbstractWorkbench.ADD_EDGE) {
+            Node source = this.canvasEdgeSource;
+            this.canvasEdgeSource = null;
+            this.canvas.setTrackingLine(null);
+
+            if (source != null) {
+                Node target = this.canvas.nearestNode(p);
+
+                // Edges to self are not supported.
+                if (target != null && target != source) {
+                    addNewModelEdge(source, target);
+                }
+            }
+        } else if (this.canvasDragOrigins != null) {
+            finishCanvasDrag();
+        } else if (band != null) {
+            if (band.getWidth() > 0 || band.getHeight() > 0) {
+                selectAllInCanvasRubberband(band, e.isShiftDown());
+            }
+        }
+
+        this.canvas.setRubberband(null);
+        this.canvasPressPoint = null;
+        this.canvasDragOrigins = null;
+        repaint();
+    }
+
+    /**
+     * Snaps a single dragged node to the grid, or shifts a dragged group back onto the workbench if any of it went
+     * off the top or left edge.
+     */
+    private void finishCanvasDrag() {
+        Set<Node> moved = this.canvasDragOrigins.keySet();
+        Rectangle2D bounds = null;
+
+        for (Node node : moved) {
+            Rectangle2D b = this.canvas.nodeBounds(node);
+
+            if (bounds == null) {
+                bounds = b;
+            } else {
+                bounds.add(b);
+            }
+        }
+
+        if (bounds == null) {
+            return;
+        }
+
+        int shiftX = (int) FastMath.ceil(FastMath.max(0, -bounds.getMinX()));
+        int shiftY = (int) FastMath.ceil(FastMath.max(0, -bounds.getMinY()));
+        final int gridSize = 20;
+
+        for (Node node : moved) {
+            int x = node.getCenterX() + shiftX;
+            int y = node.getCenterY() + shiftY;
+
+            if (moved.size() == 1) {
+                x = FastMath.max(gridSize, gridSize * ((x + gridSize / 2) / gridSize));
+                y = FastMath.max(gridSize, gridSize * ((y + gridSize / 2) / gridSize));
+            }
+
+            node.setCenterX(x);
+            node.setCenterY(y);
+            this.canvas.nodeMoved(node);
+        }
+
+        adjustPreferredSize();
+        revalidate();
+    }
+
+    private void selectAllInCanvasRubberband(Rectangle2D band, boolean edgesOnly) {
+        if (!isAllowNodeEdgeSelection()) {
+            return;
+        }
+
+        List<Node> inBand = this.canvas.nodesIn(band);
+
+        if (edgesOnly) {
+            this.canvas.selectEdgesAmong(inBand);
+        } else {
+            this.canvas.clearSelection();
+            this.canvas.getSelectedNodes().addAll(inBand);
+            this.canvas.selectEdgesAmong(inBand);
+            fireNodeSelection();
+        }
+    }
+
+    private void canvasMouseClicked(MouseEvent e) {
+        Point2D p = this.canvas.toModel(e.getPoint());
+        Node node = this.canvas.nodeAt(p);
+
+        if (node != null) {
+            if (e.getClickCount() == 2) {
+                if (isAllowDoubleClickActions()) {
+                    doDoubleClickAction(getNewDisplayNode(node));
+
+                    // The action may rename the node, which changes its hash code.
+                    this.canvas.rebuild();
+                }
+            } else {
+                Set<Node> selected = this.canvas.getSelectedNodes();
+
+                if (selected.contains(node)) {
+                    selected.remove(node);
+                } else {
+                    if (!e.isShiftDown()) {
+                        this.canvas.clearSelection();
+                    }
+
+                    selected.add(node);
+                }
+
+                this.canvas.selectEdgesAmong(selected);
+                fireNodeSelection();
+            }
+
+            repaint();
+            return;
+        }
+
+        Edge edge = this.canvas.edgeAt(p);
+
+        if (edge == null) {
+            deselectAll();
+            return;
+        }
+
+        if (e.getClickCount() == 1) {
+            if (isAllowEdgeReorientation()) {
+                reorientCanvasEdge(edge, p, e.isShiftDown());
+            }
+
+            Set<Edge> selected = this.canvas.getSelectedEdges();
+
+            if (selected.contains(edge)) {
+                selected.remove(edge);
+            } else {
+                if (!e.isShiftDown()) {
+                    this.canvas.clearSelection();
+                }
+
+                selected.add(edge);
+            }
+        }
+
+        repaint();
+    }
+
+    private void reorientCanvasEdge(Edge edge, Point2D point, boolean toggle) {
+        Point2D[] ends = this.canvas.endpoints(edge);
+        double endpointRadius = FastMath.min(20.0, ends[0].distance(ends[1]) / 3.0);
+        int endpoint;
+
+        if (point.distance(ends[0]) < endpointRadius) {
+            endpoint = 1;
+        } else if (point.distance(ends[1]) < endpointRadius) {
+            endpoint = 2;
+        } else {
+            return;
+        }
+
+        if (toggle) {
+            toggleEndpoint(edge, endpoint);
+        } else {
+            directEdge(edge, endpoint);
+        }
+
+        fireModelChanged();
+    }
+
+    /**
+     * Removes the selected nodes (unless deleting variables is disallowed) and the selected edges from the graph.
+     */
+    private void deleteCanvasSelection() {
+        List<Node> nodes = isDeleteVariablesAllowed() ? new ArrayList<>(this.canvas.getSelectedNodes())
+                : new ArrayList<>();
+        List<Edge> edges = new ArrayList<>(this.canvas.getSelectedEdges());
+
+        for (Node node : nodes) {
+
+            // Error nodes cannot be removed explicitly; they must be removed by
+            // removing the nodes they are attached to.
+            if (node.getNodeType() != NodeType.ERROR) {
+                getGraph().removeNode(node);
+            }
+        }
+
+        for (Edge edge : edges) {
+            try {
+                getGraph().removeEdge(edge);
+            } catch (Exception e) {
+                if (isNodeEdgeErrorsReported()) {
+                    JOptionPane.showMessageDialog(JOptionUtils.centeringComp(), e.getMessage());
+                }
+            }
+        }
+
+        this.canvas.clearSelection();
+        adjustPreferredSize();
+        repaint();
+        firePropertyChange("modelChanged", null, null);
+    }
+
 //    private void setMouseDragging() {
 //        /**
 //         * TEMPORARY bug fix added 4/15/2005. The bug is that in JDK 1.5.0_02
@@ -2611,6 +3184,78 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
         repaint();
     }
 
+    /**
+     * Returns true if the graph is drawn on a single canvas rather than with one component per node and edge. This is
+     * the case when canvas mode has been requested or the graph has more nodes than the canvas node threshold. In
+     * canvas mode, node and edge labels and tooltips are not shown, and the display maps are empty.
+     *
+     * @return true if in canvas mode.
+     */
+    public final boolean isCanvasMode() {
+        return this.canvas != null;
+    }
+
+    /**
+     * Requests that the graph be drawn on a single canvas regardless of its size. If false, canvas mode is still used
+     * for graphs with more nodes than the canvas node threshold.
+     *
+     * @param canvasMode true to always use canvas mode.
+     */
+    public final void setCanvasMode(boolean canvasMode) {
+        this.canvasMode = canvasMode;
+        setGraph(this.graph);
+    }
+
+    /**
+     * Returns the number of nodes above which the graph is drawn in canvas mode.
+     *
+     * @return the threshold.
+     */
+    public final int getCanvasNodeThreshold() {
+        return this.canvasNodeThreshold;
+    }
+
+    /**
+     * Sets the number of nodes above which the graph is drawn in canvas mode.
+     *
+     * @param canvasNodeThreshold the threshold; must be nonnegative.
+     * @throws IllegalArgumentException if the threshold is negative.
+     */
+    public final void setCanvasNodeThreshold(int canvasNodeThreshold) {
+        if (canvasNodeThreshold < 0) {
+            throw new IllegalArgumentException("Canvas node threshold must be nonnegative: " + canvasNodeThreshold);
+        }
+
+        this.canvasNodeThreshold = canvasNodeThreshold;
+        setGraph(this.graph);
+    }
+
+    /**
+     * Returns the zoom of the canvas; 1.0 when not in canvas mode.
+     *
+     * @return the zoom.
+     */
+    public final double getCanvasScale() {
+        return this.canvas == null ? 1.0 : this.canvas.getScale();
+    }
+
+    /**
+     * Sets the zoom of the canvas. Ignored when not in canvas mode. The zoom can also be changed with the mouse wheel
+     * while holding down the control or meta key.
+     *
+     * @param scale the zoom, clamped to [0.02, 4].
+     */
+    public final void setCanvasScale(double scale) {
+        if (this.canvas == null) {
+            return;
+        }
+
+        this.canvas.setScale(scale);
+        adjustPreferredSize();
+        revalidate();
+        repaint();
+    }
+
     private void doDoubleClickAction(DisplayNode node) {
         deselectAll();
         node.doDoubleClickAction(getGraph());
@@ -2691,6 +3336,12 @@ public abstract class AbstractWorkbench extends JComponent implements WorkbenchM
     private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
         try {
             in.defaultReadObject();
+            this.canvasNodeThreshold = AbstractWorkbench.DEFAULT_CANVAS_NODE_THRESHOLD;
+
+            if (this.graph != null && this.graph.getNumNodes() > this.canvasNodeThreshold
+                && getComponentCount() == 0) {
+                this.canvas = new GraphCanvasRenderer(this.graph, getFontMetrics(DisplayNodeUtils.getFont()));
+            }
         } catch (IOException e) {
             TetradLogger.getInstance().log("Failed to deserialize object: " + getClass().getCanonicalName()
                                            + ", " + e.getMessage());
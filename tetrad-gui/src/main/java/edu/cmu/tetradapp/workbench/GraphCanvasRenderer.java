@@ -0,0 +1,680 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+//                                                                           //
+// Copyright (C) 2025 by Joseph Ramsey, Peter Spirtes, Clark Glymour,        //
+// and Richard Scheines.                                                     //
+//                                                                           //
+// This program is free software: you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation, either version 3 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.    //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetradapp.workbench;
+
+import edu.cmu.tetrad.graph.*;
+
+import java.awt.*;
+import java.awt.geom.*;
+import java.util.*;
+import java.util.List;
+
+/**
+ * Draws a graph onto a single canvas, for graphs too large to display with one Swing component per node and edge.
+ * Node and edge bounds are kept in quadtrees, so painting only touches elements that intersect the clip, and hit
+ * tests and rubberband selection are answered from the index rather than by scanning the graph. Positions are read
+ * from the model nodes' center coordinates.
+ * <p>
+ * Rendering is simplified as the view is zoomed out: below {@link #LABEL_SCALE} node names and edge endpoint marks
+ * are dropped; below {@link #DOT_SCALE} nodes are drawn as fixed-size dots and edges are batched into one path per
+ * color, with edges shorter than a pixel skipped.
+ * <p>
+ * Selection state for canvas mode is held here rather than in display components.
+ *
+ * @author josephramsey
+ * @see AbstractWorkbench#setCanvasMode(boolean)
+ */
+final class GraphCanvasRenderer {
+
+    /**
+     * The scale below which node labels and endpoint marks are not drawn.
+     */
+    static final double LABEL_SCALE = 0.6;
+
+    /**
+     * The scale below which nodes are drawn as dots and edges as a single batched path.
+     */
+    static final double DOT_SCALE = 0.25;
+
+    /**
+     * The minimum and maximum zoom.
+     */
+    static final double MIN_SCALE = 0.02;
+    static final double MAX_SCALE = 4.0;
+
+    private static final Color EDGE_COLOR = new Color(26, 113, 169);
+    private static final Color EDGE_SELECTED_COLOR = new Color(244, 0, 20);
+    private static final Color EDGE_HIGHLIGHTED_COLOR = new Color(238, 180, 34);
+    private static final Stroke DASHED = new BasicStroke(1.0f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER,
+            10.0f, new float[]{5.0f}, 0.0f);
+
+    /**
+     * The length of arrowhead strokes, in model units.
+     */
+    private static final double ARROW_LENGTH = 10.0;
+
+    /**
+     * The radius of circle endpoints, in model units.
+     */
+    private static final double CIRCLE_RADIUS = 4.0;
+
+    /**
+     * The size of a node dot, in pixels.
+     */
+    private static final double DOT_SIZE = 4.0;
+
+    private final Graph graph;
+    private final FontMetrics metrics;
+    private final QuadTree<Node> nodeIndex;
+    private final QuadTree<Edge> edgeIndex;
+    private final Set<Node> selectedNodes = new LinkedHashSet<>();
+    private final Set<Edge> selectedEdges = new LinkedHashSet<>();
+    private double scale = 1.0;
+    private boolean pagEdgeSpecializationMarked;
+    private Rectangle2D rubberband;
+    private Line2D trackingLine;
+
+    /**
+     * Constructs a renderer for the given graph and indexes its nodes and edges.
+     *
+     * @param graph   the graph.
+     * @param metrics metrics for the node font, used to size nodes.
+     */
+    GraphCanvasRenderer(Graph graph, FontMetrics metrics) {
+        if (graph == null) {
+            throw new NullPointerException("Graph must not be null.");
+        }
+
+        if (metrics == null) {
+            throw new NullPointerException("Font metrics must not be null.");
+        }
+
+        this.graph = graph;
+        this.metrics = metrics;
+        this.nodeIndex = new QuadTree<>(initialExtent(graph));
+        this.edgeIndex = new QuadTree<>(initialExtent(graph));
+        rebuild();
+    }
+
+    private static Rectangle2D initialExtent(Graph graph) {
+        Rectangle2D extent = new Rectangle2D.Double(0, 0, 400, 400);
+
+        for (Node node : graph.getNodes()) {
+            extent.add(node.getCenterX(), node.getCenterY());
+        }
+
+        return new Rectangle2D.Double(extent.getX() - 100, extent.getY() - 100, extent.getWidth() + 200,
+                extent.getHeight() + 200);
+    }
+
+    /**
+     * Returns the point at which a ray from the center of the given bounds toward (x, y) leaves the node shape.
+     */
+    private static Point2D boundaryPoint(Rectangle2D b, boolean ellipse, double x, double y) {
+        double cx = b.getCenterX();
+        double cy = b.getCenterY();
+        double dx = x - cx;
+        double dy = y - cy;
+
+        if (dx == 0 && dy == 0) {
+            return new Point2D.Double(cx, cy);
+        }
+
+        double hw = b.getWidth() / 2;
+        double hh = b.getHeight() / 2;
+        double t;
+
+        if (ellipse) {
+            t = 1.0 / Math.sqrt((dx * dx) / (hw * hw) + (dy * dy) / (hh * hh));
+        } else {
+            t = Math.min(dx == 0 ? Double.POSITIVE_INFINITY : hw / Math.abs(dx),
+                    dy == 0 ? Double.POSITIVE_INFINITY : hh / Math.abs(dy));
+        }
+
+        t = Math.min(t, 1.0);
+        return new Point2D.Double(cx + t * dx, cy + t * dy);
+    }
+
+    private static boolean isEllipse(Node node) {
+        return node.getNodeType() != NodeType.MEASURED;
+    }
+
+    /**
+     * Re-indexes every node and edge in the graph. Needed after bulk changes such as layouts, or after a node is
+     * renamed, since node hash codes depend on names.
+     */
+    void rebuild() {
+        this.nodeIndex.clear();
+        this.edgeIndex.clear();
+
+        for (Node node : this.graph.getNodes()) {
+            this.nodeIndex.put(node, nodeBounds(node));
+        }
+
+        for (Edge edge : this.graph.getEdges()) {
+            indexEdge(edge);
+        }
+
+        this.selectedNodes.retainAll(this.graph.getNodes());
+        this.selectedEdges.removeIf(edge -> !this.graph.containsEdge(edge));
+    }
+
+    /**
+     * Indexes a node added to the graph.
+     *
+     * @param node the node.
+     */
+    void nodeAdded(Node node) {
+        this.nodeIndex.put(node, nodeBounds(node));
+    }
+
+    /**
+     * Drops a node removed from the graph, along with any edges of it still in the index.
+     *
+     * @param node the node.
+     */
+    void nodeRemoved(Node node) {
+        this.nodeIndex.remove(node);
+        this.selectedNodes.remove(node);
+
+        Rectangle2D b = nodeBounds(node);
+        for (Edge edge : this.edgeIndex.query(b)) {
+            if (edge.getNode1() == node || edge.getNode2() == node) {
+                edgeRemoved(edge);
+            }
+        }
+    }
+
+    /**
+     * Indexes an edge added to the graph.
+     *
+     * @param edge the edge.
+     */
+    void edgeAdded(Edge edge) {
+        indexEdge(edge);
+    }
+
+    /**
+     * Drops an edge removed from the graph.
+     *
+     * @param edge the edge.
+     */
+    void edgeRemoved(Edge edge) {
+        this.edgeIndex.remove(edge);
+        this.selectedEdges.remove(edge);
+    }
+
+    /**
+     * Re-indexes a node whose center has moved, together with its edges.
+     *
+     * @param node the node.
+     */
+    void nodeMoved(Node node) {
+        this.nodeIndex.put(node, nodeBounds(node));
+
+        if (this.graph.containsNode(node)) {
+            for (Edge edge : this.graph.getEdges(node)) {
+                indexEdge(edge);
+            }
+        }
+    }
+
+    private void indexEdge(Edge edge) {
+        if (edge.getNode1() == edge.getNode2() || !this.nodeIndex.contains(edge.getNode1())
+            || !this.nodeIndex.contains(edge.getNode2())) {
+            return;
+        }
+
+        Rectangle2D b = new Rectangle2D.Double(edge.getNode1().getCenterX(), edge.getNode1().getCenterY(), 0, 0);
+        b.add(edge.getNode2().getCenterX(), edge.getNode2().getCenterY());
+        this.edgeIndex.put(edge, b);
+    }
+
+    /**
+     * Returns the bounds of the given node, sized as the corresponding display node would be.
+     *
+     * @param node the node.
+     * @return its bounds in model coordinates.
+     */
+    Rectangle2D nodeBounds(Node node) {
+        int textWidth = this.metrics.stringWidth(node.getName());
+        int width = Math.max(60, textWidth + this.metrics.getMaxAdvance() + (isEllipse(node) ? 5 : 0));
+        int height = 2 * DisplayNodeUtils.getPixelGap() + this.metrics.getAscent() + (isEllipse(node) ? 5 : 3);
+        return new Rectangle2D.Double(node.getCenterX() - width / 2.0, node.getCenterY() - height / 2.0, width,
+                height);
+    }
+
+    /**
+     * Returns the union of the bounds of all nodes, or an empty rectangle at the origin if there are none.
+     *
+     * @return the extent of the drawing in model coordinates.
+     */
+    Rectangle2D getExtent() {
+        Rectangle2D extent = this.nodeIndex.getItemExtent();
+        return extent == null ? new Rectangle2D.Double() : extent;
+    }
+
+    /**
+     * Returns the topmost node whose shape contains the given point, or null.
+     *
+     * @param p a point in model coordinates.
+     * @return the node, or null.
+     */
+    Node nodeAt(Point2D p) {
+        Node hit = null;
+        double best = Double.POSITIVE_INFINITY;
+
+        for (Node node : this.nodeIndex.query(new Rectangle2D.Double(p.getX(), p.getY(), 0, 0))) {
+            Rectangle2D b = nodeBounds(node);
+            Shape shape = isEllipse(node) ? new Ellipse2D.Double(b.getX(), b.getY(), b.getWidth(), b.getHeight()) : b;
+
+            if (shape.contains(p)) {
+                double d = p.distance(b.getCenterX(), b.getCenterY());
+
+                if (d < best) {
+                    best = d;
+                    hit = node;
+                }
+            }
+        }
+
+        return hit;
+    }
+
+    /**
+     * Returns the edge nearest the given point within a few pixels at the current scale, or null.
+     *
+     * @param p a point in model coordinates.
+     * @return the edge, or null.
+     */
+    Edge edgeAt(Point2D p) {
+        double tolerance = 4.0 / this.scale;
+        Rectangle2D region = new Rectangle2D.Double(p.getX() - tolerance, p.getY() - tolerance, 2 * tolerance,
+                2 * tolerance);
+        Edge hit = null;
+        double best = tolerance;
+
+        for (Edge edge : this.edgeIndex.query(region)) {
+            Node n1 = edge.getNode1();
+            Node n2 = edge.getNode2();
+            double d = Line2D.ptSegDist(n1.getCenterX(), n1.getCenterY(), n2.getCenterX(), n2.getCenterY(),
+                    p.getX(), p.getY());
+
+            if (d <= best) {
+                best = d;
+                hit = edge;
+            }
+        }
+
+        return hit;
+    }
+
+    /**
+     * Returns the node whose center is nearest the given point, or null if the graph has no nodes.
+     *
+     * @param p a point in model coordinates.
+     * @return the nearest node, or null.
+     */
+    Node nearestNode(Point2D p) {
+        if (this.nodeIndex.size() == 0) {
+            return null;
+        }
+
+        Rectangle2D extent = getExtent();
+        double limit = Math.max(extent.getWidth(), extent.getHeight()) + p.distance(extent.getCenterX(),
+                extent.getCenterY()) + 1;
+
+        // Grow a square around p until it holds a node; the nearest node is then within the square's circumradius.
+        for (double r = 50; ; r *= 2) {
+            List<Node> found = this.nodeIndex.query(square(p, r));
+
+            if (!found.isEmpty() || r > limit) {
+                List<Node> candidates = this.nodeIndex.query(square(p, r * Math.sqrt(2)));
+                Node nearest = null;
+                double best = Double.POSITIVE_INFINITY;
+
+                for (Node node : candidates) {
+                    double d = p.distance(node.getCenterX(), node.getCenterY());
+
+                    if (d < best) {
+                        best = d;
+                        nearest = node;
+                    }
+                }
+
+                return nearest;
+            }
+        }
+    }
+
+    private static Rectangle2D square(Point2D p, double r) {
+        return new Rectangle2D.Double(p.getX() - r, p.getY() - r, 2 * r, 2 * r);
+    }
+
+    /**
+     * Returns the nodes whose bounds intersect the given region.
+     *
+     * @param region a region in model coordinates.
+     * @return the nodes.
+     */
+    List<Node> nodesIn(Rectangle2D region) {
+        return this.nodeIndex.query(region);
+    }
+
+    Set<Node> getSelectedNodes() {
+        return this.selectedNodes;
+    }
+
+    Set<Edge> getSelectedEdges() {
+        return this.selectedEdges;
+    }
+
+    /**
+     * Selects exactly those edges both of whose nodes are among the given nodes.
+     *
+     * @param nodes the nodes.
+     */
+    void selectEdgesAmong(Collection<Node> nodes) {
+        Set<Node> among = new HashSet<>(nodes);
+        this.selectedEdges.clear();
+
+        for (Node node : among) {
+            if (!this.graph.containsNode(node)) {
+                continue;
+            }
+
+            for (Edge edge : this.graph.getEdges(node)) {
+                if (among.contains(edge.getDistalNode(node))) {
+                    this.selectedEdges.add(edge);
+                }
+            }
+        }
+    }
+
+    void clearSelection() {
+        this.selectedNodes.clear();
+        this.selectedEdges.clear();
+    }
+
+    double getScale() {
+        return this.scale;
+    }
+
+    void setScale(double scale) {
+        this.scale = Math.max(MIN_SCALE, Math.min(MAX_SCALE, scale));
+    }
+
+    void setPagEdgeSpecializationMarked(boolean pagEdgeSpecializationMarked) {
+        this.pagEdgeSpecializationMarked = pagEdgeSpecializationMarked;
+    }
+
+    Rectangle2D getRubberband() {
+        return this.rubberband;
+    }
+
+    /**
+     * Sets the rubberband rectangle to draw, in model coordinates, or null for none.
+     */
+    void setRubberband(Rectangle2D rubberband) {
+        this.rubberband = rubberband;
+    }
+
+    /**
+     * Sets the line to draw for an edge being added, in model coordinates, or null for none.
+     */
+    void setTrackingLine(Line2D trackingLine) {
+        this.trackingLine = trackingLine;
+    }
+
+    /**
+     * Converts a point in component coordinates to model coordinates.
+     *
+     * @param p a point in component coordinates.
+     * @return the point in model coordinates.
+     */
+    Point2D toModel(Point p) {
+        return new Point2D.Double(p.x / this.scale, p.y / this.scale);
+    }
+
+    /**
+     * Converts a rectangle in model coordinates to component coordinates.
+     *
+     * @param r a rectangle in model coordinates.
+     * @return the enclosing rectangle in component coordinates.
+     */
+    Rectangle toView(Rectangle2D r) {
+        return new Rectangle2D.Double(r.getX() * this.scale, r.getY() * this.scale, r.getWidth() * this.scale,
+                r.getHeight() * this.scale).getBounds();
+    }
+
+    /**
+     * Paints the part of the graph that intersects the given clip.
+     *
+     * @param g    the graphics context, in component coordinates.
+     * @param clip the region to paint, in component coordinates.
+     */
+    void paint(Graphics2D g, Rectangle clip) {
+        Graphics2D g2 = (Graphics2D) g.create();
+
+        try {
+            double s = this.scale;
+            boolean dots = s < DOT_SCALE;
+            boolean labels = s >= LABEL_SCALE;
+
+            // Pad the clip so that arrowheads and labels of elements just outside it are still drawn.
+            double pad = ARROW_LENGTH + 2;
+            Rectangle2D region = new Rectangle2D.Double(clip.x / s - pad, clip.y / s - pad, clip.width / s + 2 * pad,
+                    clip.height / s + 2 * pad);
+
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                    dots ? RenderingHints.VALUE_ANTIALIAS_OFF : RenderingHints.VALUE_ANTIALIAS_ON);
+            g2.scale(s, s);
+
+            if (dots) {
+                paintEdgesBatched(g2, region);
+                paintNodeDots(g2, region);
+            } else {
+                paintEdges(g2, region, labels);
+                paintNodes(g2, region, labels);
+            }
+
+            g2.setStroke(new BasicStroke((float) (1.0 / s)));
+
+            if (this.trackingLine != null) {
+                g2.setColor(EDGE_COLOR);
+                g2.draw(this.trackingLine);
+            }
+
+            if (this.rubberband != null) {
+                g2.setStroke(new BasicStroke((float) (1.0 / s), BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10.0f,
+                        new float[]{(float) (3.0 / s)}, 0.0f));
+                g2.setColor(Color.black);
+                g2.draw(this.rubberband);
+            }
+        } finally {
+            g2.dispose();
+        }
+    }
+
+    /**
+     * Returns the points where the given edge meets the boundaries of its first and second nodes.
+     *
+     * @param edge the edge.
+     * @return the two points, in model coordinates.
+     */
+    Point2D[] endpoints(Edge edge) {
+        Node n1 = edge.getNode1();
+        Node n2 = edge.getNode2();
+        Rectangle2D b1 = nodeBounds(n1);
+        Rectangle2D b2 = nodeBounds(n2);
+        return new Point2D[]{boundaryPoint(b1, isEllipse(n1), b2.getCenterX(), b2.getCenterY()),
+                boundaryPoint(b2, isEllipse(n2), b1.getCenterX(), b1.getCenterY())};
+    }
+
+    private void paintEdges(Graphics2D g2, Rectangle2D region, boolean marks) {
+        for (Edge edge : this.edgeIndex.query(region)) {
+            Point2D[] ends = endpoints(edge);
+            Point2D p1 = ends[0];
+            Point2D p2 = ends[1];
+
+            g2.setColor(edgeColor(edge));
+            g2.setStroke(edgeStroke(edge));
+            g2.draw(new Line2D.Double(p1, p2));
+
+            if (marks) {
+                g2.setStroke(new BasicStroke(1.0f));
+                paintEndpoint(g2, edge.getEndpoint1(), p1, p2);
+                paintEndpoint(g2, edge.getEndpoint2(), p2, p1);
+            }
+        }
+    }
+
+    private void paintEdgesBatched(Graphics2D g2, Rectangle2D region) {
+        double minLength = 1.0 / this.scale;
+        Map<Color, Path2D> paths = new LinkedHashMap<>();
+
+        this.edgeIndex.query(region, edge -> {
+            Node n1 = edge.getNode1();
+            Node n2 = edge.getNode2();
+
+            if (Math.abs(n1.getCenterX() - n2.getCenterX()) < minLength
+                && Math.abs(n1.getCenterY() - n2.getCenterY()) < minLength) {
+                return;
+            }
+
+            Path2D path = paths.computeIfAbsent(edgeColor(edge), c -> new Path2D.Float());
+            path.moveTo(n1.getCenterX(), n1.getCenterY());
+            path.lineTo(n2.getCenterX(), n2.getCenterY());
+        });
+
+        g2.setStroke(new BasicStroke((float) (1.0 / this.scale)));
+
+        for (Map.Entry<Color, Path2D> entry : paths.entrySet()) {
+            g2.setColor(entry.getKey());
+            g2.draw(entry.getValue());
+        }
+    }
+
+    private void paintNodes(Graphics2D g2, Rectangle2D region, boolean labels) {
+        g2.setStroke(new BasicStroke(1.0f));
+        g2.setFont(DisplayNodeUtils.getFont());
+
+        for (Node node : this.nodeIndex.query(region)) {
+            Rectangle2D b = nodeBounds(node);
+            Shape shape = isEllipse(node)
+                    ? new Ellipse2D.Double(b.getX(), b.getY(), b.getWidth() - 1, b.getHeight() - 1)
+                    : new RoundRectangle2D.Double(b.getX(), b.getY(), b.getWidth() - 1, b.getHeight() - 1, 4, 3);
+            boolean selected = this.selectedNodes.contains(node);
+
+            g2.setColor(selected ? DisplayNodeUtils.getNodeSelectedFillColor() : DisplayNodeUtils.getNodeFillColor());
+            g2.fill(shape);
+            g2.setColor(selected ? DisplayNodeUtils.getNodeSelectedEdgeColor() : DisplayNodeUtils.getNodeEdgeColor());
+            g2.draw(shape);
+
+            if (labels) {
+                String name = node.getName();
+                float x = (float) (b.getCenterX() - this.metrics.stringWidth(name) / 2.0);
+                float y = (float) (b.getY() + this.metrics.getAscent() + DisplayNodeUtils.getPixelGap());
+                g2.setColor(DisplayNodeUtils.getNodeTextColor());
+                g2.drawString(name, x, y);
+            }
+        }
+    }
+
+    private void paintNodeDots(Graphics2D g2, Rectangle2D region) {
+        double size = DOT_SIZE / this.scale;
+        Path2D plain = new Path2D.Float();
+        Path2D selected = new Path2D.Float();
+
+        this.nodeIndex.query(region, node -> {
+            Path2D path = this.selectedNodes.contains(node) ? selected : plain;
+            path.append(new Rectangle2D.Double(node.getCenterX() - size / 2, node.getCenterY() - size / 2, size,
+                    size), false);
+        });
+
+        g2.setColor(DisplayNodeUtils.getNodeFillColor().darker());
+        g2.fill(plain);
+        g2.setColor(DisplayNodeUtils.getNodeSelectedEdgeColor());
+        g2.fill(selected);
+    }
+
+    private void paintEndpoint(Graphics2D g2, Endpoint endpoint, Point2D at, Point2D from) {
+        double dx = at.getX() - from.getX();
+        double dy = at.getY() - from.getY();
+        double length = Math.hypot(dx, dy);
+
+        if (length == 0) {
+            return;
+        }
+
+        double ux = dx / length;
+        double uy = dy / length;
+
+        if (endpoint == Endpoint.ARROW) {
+            double angle = Math.toRadians(25);
+            double cos = Math.cos(angle);
+            double sin = Math.sin(angle);
+            Path2D head = new Path2D.Double();
+            head.moveTo(at.getX() - ARROW_LENGTH * (ux * cos - uy * sin), at.getY() - ARROW_LENGTH * (uy * cos + ux * sin));
+            head.lineTo(at.getX(), at.getY());
+            head.lineTo(at.getX() - ARROW_LENGTH * (ux * cos + uy * sin), at.getY() - ARROW_LENGTH * (uy * cos - ux * sin));
+            g2.draw(head);
+        } else if (endpoint == Endpoint.CIRCLE) {
+            double cx = at.getX() - CIRCLE_RADIUS * ux;
+            double cy = at.getY() - CIRCLE_RADIUS * uy;
+            Shape circle = new Ellipse2D.Double(cx - CIRCLE_RADIUS, cy - CIRCLE_RADIUS, 2 * CIRCLE_RADIUS,
+                    2 * CIRCLE_RADIUS);
+            Color color = g2.getColor();
+            g2.setColor(Color.white);
+            g2.fill(circle);
+            g2.setColor(color);
+            g2.draw(circle);
+        }
+    }
+
+    private Color edgeColor(Edge edge) {
+        if (this.selectedEdges.contains(edge)) {
+            return EDGE_SELECTED_COLOR;
+        } else if (edge.isHighlighted()) {
+            return EDGE_HIGHLIGHTED_COLOR;
+        } else if (edge.getLineColor() != null) {
+            return edge.getLineColor();
+        } else {
+            return EDGE_COLOR;
+        }
+    }
+
+    private Stroke edgeStroke(Edge edge) {
+        if (!this.pagEdgeSpecializationMarked) {
+            return new BasicStroke(1.0f);
+        }
+
+        boolean dashed = edge.getProperties().contains(Edge.Property.pl);
+        boolean thick = edge.getProperties().contains(Edge.Property.dd);
+
+        if (dashed) {
+            return thick ? new BasicStroke(2.0f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10.0f,
+                    new float[]{5.0f}, 0.0f) : DASHED;
+        }
+
+        return new BasicStroke(thick ? 2.0f : 1.0f);
+    }
+}
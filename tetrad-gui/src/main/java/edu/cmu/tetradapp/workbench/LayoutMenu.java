@@ -153,6 +153,19 @@ public class LayoutMenu extends JMenu {
             LayoutMenu.this.getCopyLayoutAction().actionPerformed(null);
         });
 
+        JMenuItem barnesHut = new JMenuItem("Fruchterman-Reingold (Barnes-Hut)");
+        this.add(barnesHut);
+
+        // Runs in the background; the layout is copied to the clipboard once it finishes.
+        barnesHut.addActionListener(e -> LayoutUtils.barnesHutLayout(LayoutMenu.this.getLayoutEditable(), false,
+                () -> LayoutMenu.this.getCopyLayoutAction().actionPerformed(null)));
+
+        JMenuItem multilevel = new JMenuItem("Fruchterman-Reingold (Multilevel, 10k+ nodes)");
+        this.add(multilevel);
+
+        multilevel.addActionListener(e -> LayoutUtils.barnesHutLayout(LayoutMenu.this.getLayoutEditable(), true,
+                () -> LayoutMenu.this.getCopyLayoutAction().actionPerformed(null)));
+
         JMenuItem kamadaKawai = new JMenuItem("Kamada-Kawai");
         this.add(kamadaKawai);
 
@@ -23,6 +23,7 @@ package edu.cmu.tetradapp.workbench;
 import edu.cmu.tetrad.graph.*;
 import edu.cmu.tetrad.search.utils.GraphSearchUtils;
 import edu.cmu.tetrad.util.JOptionUtils;
+import edu.cmu.tetrad.util.PointXy;
 import edu.cmu.tetradapp.util.GraphEditorUtils;
 import edu.cmu.tetradapp.util.LayoutEditable;
 import org.apache.commons.math3.util.FastMath;
@@ -32,6 +33,8 @@ import java.awt.*;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.prefs.Preferences;
 
 /**
@@ -43,6 +46,11 @@ import java.util.prefs.Preferences;
 public class LayoutUtils {
     static Layout layout = Layout.topToBottom;
 
+    /**
+     * The thread running the latest Barnes-Hut layout, or null if none is running.
+     */
+    private static final AtomicReference<Thread> barnesHutThread = new AtomicReference<>();
+
     /**
      * <p>Getter for the field <code>layout</code>.</p>
      *
@@ -663,6 +671,93 @@ public class LayoutUtils {
         LayoutUtils.layout = Layout.fruchtermReingold;
     }
 
+    /**
+     * Lays out the graph with the Barnes-Hut accelerated Fruchterman-Reingold layout on a background thread, showing
+     * intermediate positions as they are computed. A layout still running from an earlier call is cancelled, and its
+     * positions are not applied.
+     *
+     * @param layoutEditable a {@link edu.cmu.tetradapp.util.LayoutEditable} object
+     * @param multilevel     whether to coarsen the graph first; recommended for 10,000 or more nodes.
+     * @param whenDone       run on the event thread once the layout has finished, even if it was cancelled or failed;
+     *                       may be null.
+     * @see LayoutUtil.BarnesHutLayout
+     */
+    public static void barnesHutLayout(LayoutEditable layoutEditable, boolean multilevel, Runnable whenDone) {
+        Graph graph = layoutEditable.getGraph();
+
+        for (Node node : new ArrayList<>(graph.getNodes())) {
+            if (node.getNodeType() == NodeType.ERROR) {
+                ((SemGraph) graph).setShowErrorTerms(false);
+            }
+        }
+
+        LayoutUtil.BarnesHutLayout layout = new LayoutUtil.BarnesHutLayout(graph);
+        layout.setMultilevel(multilevel);
+
+        // Only the latest snapshot is shown; one arriving while another is waiting for the event thread replaces it.
+        AtomicReference<Map<Node, PointXy>> pending = new AtomicReference<>();
+
+        Thread thread = new Thread(() -> {
+            Thread self = Thread.currentThread();
+            Map<Node, PointXy> positions = null;
+
+            try {
+                positions = layout.computeLayout();
+            } finally {
+                Map<Node, PointXy> _positions = positions;
+
+                SwingUtilities.invokeLater(() -> {
+                    try {
+                        pending.set(null);
+
+                        // A layout that was cancelled, or that failed, leaves the nodes where they are.
+                        if (LayoutUtils.barnesHutThread.compareAndSet(self, null)) {
+                            LayoutUtils.applyPositions(layoutEditable, _positions);
+                        }
+                    } finally {
+                        if (whenDone != null) {
+                            whenDone.run();
+                        }
+                    }
+                });
+            }
+        }, "Barnes-Hut layout");
+
+        layout.setPositionListener(positions -> {
+            if (pending.getAndSet(positions) == null) {
+                SwingUtilities.invokeLater(() -> {
+                    Map<Node, PointXy> snapshot = pending.getAndSet(null);
+
+                    if (LayoutUtils.barnesHutThread.get() == thread) {
+                        LayoutUtils.applyPositions(layoutEditable, snapshot);
+                    }
+                });
+            }
+        }, 10);
+
+        Thread previous = LayoutUtils.barnesHutThread.getAndSet(thread);
+
+        if (previous != null) {
+            previous.interrupt();
+        }
+
+        thread.start();
+
+        LayoutUtils.layout = multilevel ? Layout.barnesHutMultilevel : Layout.barnesHut;
+    }
+
+    private static void applyPositions(LayoutEditable layoutEditable, Map<Node, PointXy> positions) {
+        if (positions == null) {
+            return;
+        }
+
+        for (Map.Entry<Node, PointXy> entry : positions.entrySet()) {
+            entry.getKey().setCenter(entry.getValue().getX(), entry.getValue().getY());
+        }
+
+        layoutEditable.layoutByGraph(layoutEditable.getGraph());
+    }
+
     /**
      * <p>distanceFromSelectedLayout.</p>
      *
@@ -732,6 +827,12 @@ public class LayoutUtils {
             case fruchtermReingold:
                 LayoutUtils.fruchtermanReingoldLayout(layoutEditable);
                 break;
+            case barnesHut:
+                LayoutUtils.barnesHutLayout(layoutEditable, false, null);
+                break;
+            case barnesHutMultilevel:
+                LayoutUtils.barnesHutLayout(layoutEditable, true, null);
+                break;
             default:
         }
     }
@@ -831,6 +932,16 @@ public class LayoutUtils {
          */
         fruchtermReingold,
 
+        /**
+         * barnesHut
+         */
+        barnesHut,
+
+        /**
+         * barnesHutMultilevel
+         */
+        barnesHutMultilevel,
+
         /**
          * distanceFromSelected
          */
@@ -0,0 +1,360 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+//                                                                           //
+// Copyright (C) 2025 by Joseph Ramsey, Peter Spirtes, Clark Glymour,        //
+// and Richard Scheines.                                                     //
+//                                                                           //
+// This program is free software: you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation, either version 3 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.    //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetradapp.workbench;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A region quadtree over axis-aligned bounding boxes, used by the canvas renderer for culling and hit-testing. Each
+ * item is stored in the deepest cell whose extent fully contains its bounds, so items straddling a cell boundary stay
+ * in the parent. Items that fall outside the root extent are kept in the root and always examined; when too many
+ * accumulate, the tree is rebuilt over the union of all bounds.
+ *
+ * @param <T> the type of the items.
+ * @author josephramsey
+ */
+public final class QuadTree<T> {
+
+    /**
+     * The number of items a leaf holds before it is split.
+     */
+    private static final int MAX_ITEMS = 16;
+
+    /**
+     * The maximum depth of the tree.
+     */
+    private static final int MAX_DEPTH = 16;
+
+    /**
+     * The bounds of each item, keyed by item.
+     */
+    private final Map<T, Rectangle2D> bounds = new HashMap<>();
+
+    /**
+     * The root cell.
+     */
+    private Cell<T> root;
+
+    /**
+     * The number of items in the root that lie outside the root extent.
+     */
+    private int numOutside;
+
+    /**
+     * Constructs an empty quadtree over the given extent. Items outside the extent may still be inserted.
+     *
+     * @param extent the initial extent of the root cell.
+     */
+    public QuadTree(Rectangle2D extent) {
+        if (extent == null) {
+            throw new NullPointerException("Extent must not be null.");
+        }
+
+        this.root = new Cell<>(copy(extent), 0);
+    }
+
+    private static Rectangle2D copy(Rectangle2D r) {
+        return new Rectangle2D.Double(r.getX(), r.getY(), r.getWidth(), r.getHeight());
+    }
+
+    /**
+     * Inclusive intersection test, so that degenerate (zero width or height) boxes are handled.
+     */
+    private static boolean intersects(Rectangle2D a, Rectangle2D b) {
+        return a.getMinX() <= b.getMaxX() && b.getMinX() <= a.getMaxX()
+               && a.getMinY() <= b.getMaxY() && b.getMinY() <= a.getMaxY();
+    }
+
+    private static boolean contains(Rectangle2D outer, Rectangle2D inner) {
+        return outer.getMinX() <= inner.getMinX() && inner.getMaxX() <= outer.getMaxX()
+               && outer.getMinY() <= inner.getMinY() && inner.getMaxY() <= outer.getMaxY();
+    }
+
+    /**
+     * Inserts the given item with the given bounds, replacing its previous bounds if it is already present.
+     *
+     * @param item       the item.
+     * @param itemBounds the bounds of the item.
+     */
+    public void put(T item, Rectangle2D itemBounds) {
+        if (item == null) {
+            throw new NullPointerException("Item must not be null.");
+        }
+
+        if (itemBounds == null) {
+            throw new NullPointerException("Bounds must not be null.");
+        }
+
+        remove(item);
+
+        Rectangle2D b = copy(itemBounds);
+        this.bounds.put(item, b);
+
+        if (contains(this.root.extent, b)) {
+            insert(this.root, item, b);
+        } else {
+            this.root.items.add(item);
+            this.numOutside++;
+
+            if (this.numOutside > Math.max(4 * MAX_ITEMS, this.bounds.size() / 4)) {
+                rebuild();
+            }
+        }
+    }
+
+    /**
+     * Removes the given item.
+     *
+     * @param item the item.
+     * @return true if the item was present.
+     */
+    public boolean remove(T item) {
+        Rectangle2D b = this.bounds.remove(item);
+
+        if (b == null) {
+            return false;
+        }
+
+        if (!contains(this.root.extent, b)) {
+            this.root.items.remove(item);
+            this.numOutside--;
+            return true;
+        }
+
+        Cell<T> cell = this.root;
+
+        while (cell != null) {
+            if (cell.items.remove(item)) {
+                return true;
+            }
+
+            cell = cell.childContaining(b);
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the bounds of the given item, or null if it is not present.
+     *
+     * @param item the item.
+     * @return a copy of its bounds, or null.
+     */
+    public Rectangle2D getBounds(T item) {
+        Rectangle2D b = this.bounds.get(item);
+        return b == null ? null : copy(b);
+    }
+
+    /**
+     * Returns whether the given item is present.
+     *
+     * @param item the item.
+     * @return true if present.
+     */
+    public boolean contains(T item) {
+        return this.bounds.containsKey(item);
+    }
+
+    /**
+     * Returns the number of items.
+     *
+     * @return the number of items.
+     */
+    public int size() {
+        return this.bounds.size();
+    }
+
+    /**
+     * Removes all items, keeping the current extent.
+     */
+    public void clear() {
+        this.bounds.clear();
+        this.root = new Cell<>(this.root.extent, 0);
+        this.numOutside = 0;
+    }
+
+    /**
+     * Returns the union of the bounds of all items, or null if there are none.
+     *
+     * @return the union of all item bounds.
+     */
+    public Rectangle2D getItemExtent() {
+        Rectangle2D union = null;
+
+        for (Rectangle2D b : this.bounds.values()) {
+            if (union == null) {
+                union = copy(b);
+            } else {
+                union.add(b);
+            }
+        }
+
+        return union;
+    }
+
+    /**
+     * Returns the items whose bounds intersect the given region.
+     *
+     * @param region the query region.
+     * @return the intersecting items, in no particular order.
+     */
+    public List<T> query(Rectangle2D region) {
+        List<T> result = new ArrayList<>();
+        query(region, result::add);
+        return result;
+    }
+
+    /**
+     * Visits the items whose bounds intersect the given region.
+     *
+     * @param region  the query region.
+     * @param visitor the visitor.
+     */
+    public void query(Rectangle2D region, Consumer<? super T> visitor) {
+        if (region == null) {
+            throw new NullPointerException("Region must not be null.");
+        }
+
+        // The root is always scanned, since it holds the items outside its extent.
+        visit(this.root, region, visitor);
+    }
+
+    private void visit(Cell<T> cell, Rectangle2D region, Consumer<? super T> visitor) {
+        for (T item : cell.items) {
+            if (intersects(this.bounds.get(item), region)) {
+                visitor.accept(item);
+            }
+        }
+
+        if (cell.children != null) {
+            for (Cell<T> child : cell.children) {
+                if (intersects(child.extent, region)) {
+                    visit(child, region, visitor);
+                }
+            }
+        }
+    }
+
+    private void insert(Cell<T> cell, T item, Rectangle2D b) {
+        while (true) {
+            Cell<T> child = cell.childContaining(b);
+
+            if (child == null) {
+                break;
+            }
+
+            cell = child;
+        }
+
+        cell.items.add(item);
+
+        if (cell.children == null && cell.items.size() > MAX_ITEMS && cell.depth < MAX_DEPTH) {
+            split(cell);
+        }
+    }
+
+    private void split(Cell<T> cell) {
+        cell.split();
+
+        List<T> items = new ArrayList<>(cell.items);
+        cell.items.clear();
+
+        for (T item : items) {
+            Rectangle2D b = this.bounds.get(item);
+            Cell<T> child = cell.childContaining(b);
+
+            if (child == null) {
+                cell.items.add(item);
+            } else {
+                insert(child, item, b);
+            }
+        }
+    }
+
+    private void rebuild() {
+        Rectangle2D extent = getItemExtent();
+
+        if (extent == null) {
+            return;
+        }
+
+        extent.add(this.root.extent);
+        double pad = Math.max(extent.getWidth(), extent.getHeight()) * 0.25 + 1;
+        extent.setRect(extent.getX() - pad, extent.getY() - pad, extent.getWidth() + 2 * pad,
+                extent.getHeight() + 2 * pad);
+
+        this.root = new Cell<>(extent, 0);
+        this.numOutside = 0;
+
+        for (Map.Entry<T, Rectangle2D> entry : this.bounds.entrySet()) {
+            insert(this.root, entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * A cell of the tree.
+     */
+    private static final class Cell<T> {
+        private final Rectangle2D extent;
+        private final int depth;
+        private final List<T> items = new ArrayList<>();
+        private Cell<T>[] children;
+
+        Cell(Rectangle2D extent, int depth) {
+            this.extent = extent;
+            this.depth = depth;
+        }
+
+        @SuppressWarnings("unchecked")
+        void split() {
+            double x = this.extent.getX();
+            double y = this.extent.getY();
+            double w = this.extent.getWidth() / 2;
+            double h = this.extent.getHeight() / 2;
+
+            this.children = new Cell[]{
+                    new Cell<>(new Rectangle2D.Double(x, y, w, h), this.depth + 1),
+                    new Cell<>(new Rectangle2D.Double(x + w, y, w, h), this.depth + 1),
+                    new Cell<>(new Rectangle2D.Double(x, y + h, w, h), this.depth + 1),
+                    new Cell<>(new Rectangle2D.Double(x + w, y + h, w, h), this.depth + 1)
+            };
+        }
+
+        Cell<T> childContaining(Rectangle2D b) {
+            if (this.children == null) {
+                return null;
+            }
+
+            for (Cell<T> child : this.children) {
+                if (QuadTree.contains(child.extent, b)) {
+                    return child;
+                }
+            }
+
+            return null;
+        }
+    }
+}
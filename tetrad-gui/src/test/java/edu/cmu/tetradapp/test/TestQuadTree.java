@@ -0,0 +1,99 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+//                                                                           //
+// Copyright (C) 2025 by Joseph Ramsey, Peter Spirtes, Clark Glymour,        //
+// and Richard Scheines.                                                     //
+//                                                                           //
+// This program is free software: you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation, either version 3 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.    //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetradapp.test;
+
+import edu.cmu.tetradapp.workbench.QuadTree;
+import org.junit.Test;
+
+import java.awt.geom.Rectangle2D;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the QuadTree used by the canvas graph renderer.
+ *
+ * @author josephramsey
+ */
+public class TestQuadTree {
+
+    @Test
+    public void testQueryMatchesScan() {
+        Random random = new Random(42);
+        QuadTree<Integer> tree = new QuadTree<>(new Rectangle2D.Double(0, 0, 1000, 1000));
+        Map<Integer, Rectangle2D> bounds = new HashMap<>();
+
+        // Some items lie outside the initial extent, forcing the tree to grow.
+        for (int i = 0; i < 2000; i++) {
+            Rectangle2D b = new Rectangle2D.Double(random.nextDouble() * 1500 - 250, random.nextDouble() * 1500 - 250,
+                    random.nextDouble() * 40, random.nextDouble() * 40);
+            tree.put(i, b);
+            bounds.put(i, b);
+        }
+
+        // Move some and remove some.
+        for (int i = 0; i < 500; i++) {
+            Rectangle2D b = new Rectangle2D.Double(random.nextDouble() * 1000, random.nextDouble() * 1000, 0, 10);
+            tree.put(i, b);
+            bounds.put(i, b);
+        }
+
+        for (int i = 500; i < 800; i++) {
+            assertTrue(tree.remove(i));
+            bounds.remove(i);
+        }
+
+        assertFalse(tree.remove(600));
+        assertEquals(bounds.size(), tree.size());
+
+        for (int q = 0; q < 200; q++) {
+            Rectangle2D region = new Rectangle2D.Double(random.nextDouble() * 1500 - 250,
+                    random.nextDouble() * 1500 - 250, random.nextDouble() * 300, random.nextDouble() * 300);
+
+            Set<Integer> expected = new HashSet<>();
+
+            for (Map.Entry<Integer, Rectangle2D> entry : bounds.entrySet()) {
+                Rectangle2D b = entry.getValue();
+
+                if (b.getMinX() <= region.getMaxX() && region.getMinX() <= b.getMaxX()
+                    && b.getMinY() <= region.getMaxY() && region.getMinY() <= b.getMaxY()) {
+                    expected.add(entry.getKey());
+                }
+            }
+
+            List<Integer> found = tree.query(region);
+            assertEquals(expected, new HashSet<>(found));
+            assertEquals(expected.size(), found.size());
+        }
+    }
+
+    @Test
+    public void testPointQuery() {
+        QuadTree<String> tree = new QuadTree<>(new Rectangle2D.Double(0, 0, 100, 100));
+        tree.put("a", new Rectangle2D.Double(10, 10, 20, 20));
+        tree.put("b", new Rectangle2D.Double(50, 50, 0, 0));
+
+        assertEquals(List.of("a"), tree.query(new Rectangle2D.Double(15, 15, 0, 0)));
+        assertEquals(List.of("b"), tree.query(new Rectangle2D.Double(50, 50, 0, 0)));
+        assertTrue(tree.query(new Rectangle2D.Double(40, 40, 5, 5)).isEmpty());
+        assertEquals(new Rectangle2D.Double(10, 10, 20, 20), tree.getBounds("a"));
+    }
+}
@@ -0,0 +1,169 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+//                                                                           //
+// Copyright (C) 2025 by Joseph Ramsey, Peter Spirtes, Clark Glymour,        //
+// and Richard Scheines.                                                     //
+//                                                                           //
+// This program is free software: you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation, either version 3 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.    //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetradapp.test;
+
+import edu.cmu.tetradapp.app.SessionArchive;
+import edu.cmu.tetradapp.util.TaskService;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the session archive format.
+ *
+ * @author josephramsey
+ */
+public final class TestSessionArchive {
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Path dir = Files.createTempDirectory("session-archive");
+        Path file = dir.resolve("session.tet");
+
+        try {
+            HashMap<String, Object> session = makeSession();
+            SessionArchive.write(file, "metadata", session);
+
+            assertTrue(SessionArchive.isArchive(file));
+
+            SessionArchive.Contents contents = SessionArchive.read(file);
+            assertEquals("metadata", contents.getMetadata());
+            assertEquals(session.keySet(), ((HashMap<?, ?>) contents.getSession()).keySet());
+
+            HashMap<?, ?> read = (HashMap<?, ?>) contents.getSession();
+            assertArrayEquals((double[][]) session.get("data"), (double[][]) read.get("data"));
+            assertArrayEquals((int[][]) session.get("discrete"), (int[][]) read.get("discrete"));
+            assertArrayEquals((double[]) session.get("covariances"), (double[]) read.get("covariances"), 0.0);
+            assertArrayEquals((double[]) session.get("small"), (double[]) read.get("small"), 0.0);
+            assertSame(read.get("data"), read.get("sameData"));
+        } finally {
+            deleteAll(dir);
+        }
+    }
+
+    @Test
+    public void testUnchangedBlobsAreReused() throws Exception {
+        Path dir = Files.createTempDirectory("session-archive");
+        Path first = dir.resolve("first.tet");
+        Path second = dir.resolve("second.tet");
+
+        try {
+            SessionArchive.write(first, "metadata", makeSession());
+
+            HashMap<?, ?> session = (HashMap<?, ?>) SessionArchive.read(first).getSession();
+            assertEquals(3, SessionArchive.write(second, "metadata", session));
+
+            ((double[]) session.get("covariances"))[17] = -1.0;
+            assertEquals(2, SessionArchive.write(second, "metadata", session));
+
+            HashMap<?, ?> read = (HashMap<?, ?>) SessionArchive.read(second).getSession();
+            assertEquals(-1.0, ((double[]) read.get("covariances"))[17], 0.0);
+            assertArrayEquals((double[][]) session.get("data"), (double[][]) read.get("data"));
+        } finally {
+            deleteAll(dir);
+        }
+    }
+
+    @Test
+    public void testAsyncSaveIgnoresLaterEdits() throws Exception {
+        Path dir = Files.createTempDirectory("session-archive");
+        Path file = dir.resolve("session.tet");
+
+        try {
+            HashMap<String, Object> session = makeSession();
+            double[] covariances = (double[]) session.get("covariances");
+            double before = covariances[17];
+
+            TaskService.Job job = SessionArchive.writeAsync(file, "metadata", session, null);
+            covariances[17] = -1.0;
+            ((double[][]) session.get("data"))[0][5] = -1.0;
+            job.await();
+            assertNull(job.getError());
+
+            HashMap<?, ?> read = (HashMap<?, ?>) SessionArchive.read(file).getSession();
+            assertEquals(before, ((double[]) read.get("covariances"))[17], 0.0);
+            assertNotEquals(-1.0, ((double[][]) read.get("data"))[0][5], 0.0);
+
+            // The edited arrays no longer match the archive, so only the unedited one is copied from it.
+            assertEquals(1, SessionArchive.write(dir.resolve("second.tet"), "metadata", session));
+        } finally {
+            deleteAll(dir);
+        }
+    }
+
+    @Test
+    public void testOldFormatIsNotAnArchive() throws Exception {
+        Path file = Files.createTempFile("session", ".tet");
+
+        try {
+            try (ObjectOutputStream out = new ObjectOutputStream(Files.newOutputStream(file))) {
+                out.writeObject("metadata");
+                out.writeObject(makeSession());
+            }
+
+            assertFalse(SessionArchive.isArchive(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static HashMap<String, Object> makeSession() {
+        Random random = new Random(42);
+
+        double[][] data = new double[6][];
+        for (int c = 0; c < data.length; c++) {
+            if (c == 2) continue;
+            data[c] = new double[3000];
+            for (int r = 0; r < data[c].length; r++) data[c][r] = random.nextGaussian();
+        }
+
+        int[][] discrete = new int[3][2000];
+        for (int[] column : discrete) {
+            for (int r = 0; r < column.length; r++) column[r] = random.nextInt(4);
+        }
+
+        double[] covariances = new double[40 * 40];
+        for (int i = 0; i < covariances.length; i++) covariances[i] = random.nextDouble();
+
+        HashMap<String, Object> session = new HashMap<>();
+        session.put("data", data);
+        session.put("sameData", data);
+        session.put("discrete", discrete);
+        session.put("covariances", covariances);
+        session.put("small", new double[]{1.0, 2.0, Double.NaN});
+        return session;
+    }
+
+    private static void deleteAll(Path dir) throws IOException {
+        try (var files = Files.list(dir)) {
+            for (Path file : files.toList()) Files.delete(file);
+        }
+
+        Files.delete(dir);
+    }
+}
@@ -0,0 +1,146 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+//                                                                           //
+// Copyright (C) 2025 by Joseph Ramsey, Peter Spirtes, Clark Glymour,        //
+// and Richard Scheines.                                                     //
+//                                                                           //
+// This program is free software: you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation, either version 3 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.    //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetradapp.test;
+
+import edu.cmu.tetradapp.util.TaskService;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the background task service.
+ *
+ * @author josephramsey
+ */
+public final class TestTaskService {
+
+    @Test
+    public void testPriorityOrder() throws Exception {
+        TaskService service = new TaskService(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> order = new CopyOnWriteArrayList<>();
+
+        try {
+            TaskService.Job blocker = service.submit("blocker", job -> release.await());
+            TaskService.Job low = service.submit("low", TaskService.Priority.LOW, job -> order.add("low"));
+            TaskService.Job normal = service.submit("normal", job -> order.add("normal"));
+            TaskService.Job high = service.submit("high", TaskService.Priority.HIGH, job -> order.add("high"));
+
+            assertEquals(TaskService.State.QUEUED, low.getState());
+
+            release.countDown();
+
+            assertTrue(low.await(10, TimeUnit.SECONDS));
+            assertEquals(List.of("high", "normal", "low"), order);
+            assertEquals(TaskService.State.DONE, blocker.getState());
+            assertEquals(TaskService.State.DONE, normal.getState());
+            assertEquals(TaskService.State.DONE, high.getState());
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    public void testBoundedParallelism() throws Exception {
+        TaskService service = new TaskService(2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        try {
+            TaskService.Job last = null;
+
+            for (int i = 0; i < 8; i++) {
+                last = service.submit("job " + i, job -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    Thread.sleep(20);
+                    running.decrementAndGet();
+                });
+            }
+
+            assertTrue(last.await(10, TimeUnit.SECONDS));
+            assertTrue(maxRunning.get() <= 2);
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        TaskService service = new TaskService(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        try {
+            TaskService.Job running = service.submit("running", job -> {
+                started.countDown();
+
+                while (!Thread.currentThread().isInterrupted()) {
+                    Thread.onSpinWait();
+                }
+            });
+
+            TaskService.Job queued = service.submit("queued", job -> fail("Canceled job should not run."));
+
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+
+            queued.cancel();
+            assertEquals(TaskService.State.CANCELED, queued.getState());
+
+            running.cancel();
+            assertTrue(running.await(10, TimeUnit.SECONDS));
+            assertEquals(TaskService.State.CANCELED, running.getState());
+
+            // The thread is reused without a stale interrupt.
+            TaskService.Job next = service.submit("next", job -> {
+                assertFalse(Thread.currentThread().isInterrupted());
+                job.setMessage("ok");
+            });
+
+            assertTrue(next.await(10, TimeUnit.SECONDS));
+            assertEquals(TaskService.State.DONE, next.getState());
+            assertEquals("ok", next.getMessage());
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        TaskService service = new TaskService(1);
+
+        try {
+            TaskService.Job job = service.submit("failing", j -> {
+                throw new IllegalStateException("boom");
+            });
+
+            assertTrue(job.await(10, TimeUnit.SECONDS));
+            assertEquals(TaskService.State.FAILED, job.getState());
+            assertEquals("boom", job.getError().getMessage());
+        } finally {
+            service.shutdown();
+        }
+    }
+}
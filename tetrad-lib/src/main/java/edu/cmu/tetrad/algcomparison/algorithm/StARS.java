@@ -21,24 +21,31 @@
 package edu.cmu.tetrad.algcomparison.algorithm;
 
 import edu.cmu.tetrad.data.BootstrapSampler;
+import edu.cmu.tetrad.data.CovarianceMatrix;
 import edu.cmu.tetrad.data.DataModel;
 import edu.cmu.tetrad.data.DataSet;
 import edu.cmu.tetrad.data.DataType;
+import edu.cmu.tetrad.graph.Edge;
 import edu.cmu.tetrad.graph.Graph;
-import edu.cmu.tetrad.graph.GraphUtils;
 import edu.cmu.tetrad.graph.Node;
 import edu.cmu.tetrad.util.Parameters;
 import org.apache.commons.math3.util.FastMath;
 
 import java.io.Serial;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ForkJoinPool;
-import java.util.concurrent.RecursiveAction;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
 
 /**
- * StARS
+ * StARS. Searches a grid of values for a parameter, running the wrapped algorithm on subsamples of the data at each
+ * value and choosing the value whose edge instability is largest while still below the StARS cutoff. Instability is
+ * accumulated in shared per-pair adjacency counters as the subsample searches finish.
  *
  * @author josephramsey
  * @version $Id: $Id
@@ -68,6 +75,26 @@ public class StARS implements Algorithm {
      */
     private final Algorithm algorithm;
 
+    /**
+     * Whether to run in path mode.
+     */
+    private boolean pathMode = false;
+
+    /**
+     * The number of threads used to search the subsamples.
+     */
+    private int numThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The instability at each value on the grid, in grid order, from the last search.
+     */
+    private Map<Double, Double> instabilities = new LinkedHashMap<>();
+
+    /**
+     * The parameter value chosen by the last search, or NaN if none has been run.
+     */
+    private double selectedValue = Double.NaN;
+
     /**
      * <p>Constructor for StARS.</p>
      *
@@ -86,96 +113,124 @@ public class StARS implements Algorithm {
         this.parameter = parameter;
     }
 
-    private static double getD(Parameters params, String paramName, double paramValue, List<DataSet> samples,
-                               Algorithm algorithm) {
-        params.set(paramName, paramValue);
-
-        List<Graph> graphs = new ArrayList<>();
+    private static double getD(Parameters params, String paramName, double paramValue, List<DataModel> samples,
+                               Algorithm algorithm, Graph[] warmStarts, int numThreads) {
+        Parameters _params = new Parameters(params);
+        _params.set(paramName, paramValue);
 
-        int parallelism = Runtime.getRuntime().availableProcessors();
-        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        List<Node> nodes = samples.getFirst().getVariables();
+        int p = nodes.size();
 
-        class StabilityAction extends RecursiveAction {
+        Map<String, Integer> indices = new HashMap<>();
+        for (int i = 0; i < p; i++) {
+            indices.put(nodes.get(i).getName(), i);
+        }
 
-            private final int chunk;
-            private final int from;
-            private final int to;
+        // Adjacency counts for each unordered pair of variables, updated by the subsample searches as they finish, so
+        // that no graphs need to be kept around.
+        AtomicIntegerArray counts = new AtomicIntegerArray(p * (p - 1) / 2);
 
-            private StabilityAction(int chunk, int from, int to) {
-                this.chunk = chunk;
-                this.from = from;
-                this.to = to;
-            }
+        ForkJoinPool pool = new ForkJoinPool(numThreads);
 
-            @Override
-            protected void compute() {
-                if (this.to - this.from <= this.chunk) {
-                    for (int s = this.from; s < this.to; s++) {
-                        Graph e = null;
-                        try {
-                            e = algorithm.search(samples.get(s), params);
-                        } catch (InterruptedException ex) {
-                            throw new RuntimeException(ex);
-                        }
-                        e = GraphUtils.replaceNodes(e, samples.getFirst().getVariables());
-                        graphs.add(e);
+        try {
+            pool.submit(() -> IntStream.range(0, samples.size()).parallel().forEach(s -> {
+                Graph graph;
+
+                try {
+                    if (warmStarts != null) {
+                        graph = ((TakesInitialGraph) algorithm).searchFrom(samples.get(s), _params, warmStarts[s]);
+                        warmStarts[s] = graph;
+                    } else {
+                        graph = algorithm.search(samples.get(s), _params);
                     }
-                } else {
-                    int mid = (this.to + this.from) / 2;
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
 
-                    StabilityAction left = new StabilityAction(this.chunk, this.from, mid);
-                    StabilityAction right = new StabilityAction(this.chunk, mid, this.to);
+                for (Edge edge : graph.getEdges()) {
+                    Integer i = indices.get(edge.getNode1().getName());
+                    Integer j = indices.get(edge.getNode2().getName());
 
-                    left.fork();
-                    right.compute();
-                    left.join();
+                    if (i != null && j != null && !i.equals(j)) {
+                        counts.incrementAndGet(StARS.pairIndex(i, j, p));
+                    }
                 }
-            }
+            })).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            pool.shutdown();
         }
 
-        final int chunk = 1;
+        double D = 0.0;
 
-        try {
-            pool.invoke(new StabilityAction(chunk, 0, samples.size()));
-        } catch (Exception e) {
-            Thread.currentThread().interrupt();
-            throw e;
+        for (int k = 0; k < counts.length(); k++) {
+            double theta = Math.min(counts.get(k), samples.size()) / (double) samples.size();
+            D += 2 * theta * (1.0 - theta);
         }
 
-        if (!pool.awaitQuiescence(1, TimeUnit.DAYS)) {
-            throw new IllegalStateException("Pool timed out");
+        return counts.length() == 0 ? 0.0 : D / counts.length();
+    }
+
+    /**
+     * Returns the index of the unordered pair {i, j}, i != j, in a packed upper triangle over p variables.
+     */
+    private static int pairIndex(int i, int j, int p) {
+        if (i > j) {
+            int t = i;
+            i = j;
+            j = t;
         }
 
-        int p = samples.getFirst().getNumColumns();
-        List<Node> nodes = graphs.getFirst().getNodes();
+        return i * (2 * p - i - 1) / 2 + (j - i - 1);
+    }
 
-        double D = 0.0;
-        int count = 0;
+    /**
+     * Sets whether to run in path mode. In path mode the subsample covariance matrices are computed once up front if
+     * the wrapped algorithm takes a covariance matrix, and if the wrapped algorithm can start from a given graph, the
+     * search on each subsample is warm-started from that subsample's graph at the previous parameter value on the
+     * path. Warm starts can change the result of a greedy search slightly relative to a cold start; the default is
+     * false.
+     *
+     * @param pathMode True for path mode.
+     */
+    public void setPathMode(boolean pathMode) {
+        this.pathMode = pathMode;
+    }
 
-        for (int i = 0; i < p; i++) {
-            for (int j = i + 1; j < p; j++) {
-                double theta = 0.0;
-                Node x = nodes.get(i);
-                Node y = nodes.get(j);
-
-                for (Graph graph : graphs) {
-                    if (graph.isAdjacentTo(x, y)) {
-                        theta += 1.0;
-                    }
-                }
+    /**
+     * Sets the number of threads used to search the subsamples.
+     *
+     * @param numThreads The number of threads; must be at least 1.
+     */
+    public void setNumThreads(int numThreads) {
+        if (numThreads < 1) {
+            throw new IllegalArgumentException("Number of threads must be at least 1: " + numThreads);
+        }
 
-                theta /= graphs.size();
-                double xsi = 2 * theta * (1.0 - theta);
+        this.numThreads = numThreads;
+    }
 
-//                if (xsi != 0){
-                D += xsi;
-                count++;
-//                }
-            }
-        }
+    /**
+     * Returns the instability of the subsample graphs at each value on the grid, in grid order, from the last search.
+     * Values are on the grid's scale, before any log scaling.
+     *
+     * @return The instabilities, keyed by grid value.
+     */
+    public Map<Double, Double> getInstabilities() {
+        return new LinkedHashMap<>(this.instabilities);
+    }
 
-        D /= count;
-        return D;
+    /**
+     * Returns the parameter value chosen by the last search, or NaN if no search has been run.
+     *
+     * @return The chosen value.
+     */
+    public double getSelectedValue() {
+        return this.selectedValue;
     }
 
     private static double getValue(double value, Parameters parameters) {
@@ -203,20 +258,34 @@ public class StARS implements Algorithm {
 
         Parameters _parameters = new Parameters(parameters);
 
-        List<DataSet> samples = new ArrayList<>();
+        List<DataModel> samples = new ArrayList<>();
 
         for (int i = 0; i < numSubsamples; i++) {
             BootstrapSampler sampler = new BootstrapSampler();
             sampler.setWithReplacement(true);
-            samples.add(sampler.sample(_dataSet, (int) (percentageB * _dataSet.getNumRows())));
+            DataSet sample = sampler.sample(_dataSet, (int) (percentageB * _dataSet.getNumRows()));
+
+            // In path mode, compute each subsample's covariance matrix once here rather than once per parameter
+            // value inside the wrapped algorithm.
+            if (this.pathMode && this.algorithm instanceof TakesCovarianceMatrix && sample.isContinuous()) {
+                samples.add(new CovarianceMatrix(sample));
+            } else {
+                samples.add(sample);
+            }
         }
 
+        Graph[] warmStarts = this.pathMode && this.algorithm instanceof TakesInitialGraph
+                ? new Graph[numSubsamples] : null;
+
         double maxD = Double.NEGATIVE_INFINITY;
         double _lambda = Double.NaN;
+        Map<Double, Double> instabilities = new LinkedHashMap<>();
 
         for (double lambda = this.low; lambda <= this.high; lambda += 0.5) {
-            double D = StARS.getD(parameters, this.parameter, lambda, samples, this.algorithm);
+            double D = StARS.getD(parameters, this.parameter, lambda, samples, this.algorithm, warmStarts,
+                    this.numThreads);
             System.out.println("lambda = " + lambda + " D = " + D);
+            instabilities.put(lambda, D);
 
             if (D > maxD && D < beta) {
                 maxD = D;
@@ -226,8 +295,11 @@ public class StARS implements Algorithm {
 
         System.out.println("FINAL: lambda = " + _lambda + " D = " + maxD);
 
-        System.out.println(this.parameter + " = " + StARS.getValue(_lambda, parameters));
-        _parameters.set(this.parameter, StARS.getValue(_lambda, parameters));
+        this.instabilities = instabilities;
+        this.selectedValue = StARS.getValue(_lambda, parameters);
+
+        System.out.println(this.parameter + " = " + this.selectedValue);
+        _parameters.set(this.parameter, this.selectedValue);
 
         return this.algorithm.search(dataSet, _parameters);
     }
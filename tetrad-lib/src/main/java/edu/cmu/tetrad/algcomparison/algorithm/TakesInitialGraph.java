@@ -0,0 +1,47 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+//                                                                           //
+// Copyright (C) 2025 by Joseph Ramsey, Peter Spirtes, Clark Glymour,        //
+// and Richard Scheines.                                                     //
+//                                                                           //
+// This program is free software: you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation, either version 3 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.    //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.algcomparison.algorithm;
+
+import edu.cmu.tetrad.data.DataModel;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.util.Parameters;
+
+/**
+ * Tags algorithm comparison wrappers whose search can be started from a given graph rather than from scratch. This
+ * lets callers that run the same algorithm for a sequence of nearby parameter values, such as StARS along a penalty
+ * path, warm-start each run from the graph found for the previous value.
+ *
+ * @author josephramsey
+ */
+public interface TakesInitialGraph {
+
+    /**
+     * Runs a single search (without bootstrapping) starting from the given graph. The initial graph is matched to the
+     * variables of the data by name.
+     *
+     * @param dataModel    the data.
+     * @param parameters   the parameters.
+     * @param initialGraph the graph to start from, or null to start from scratch.
+     * @return the estimated graph.
+     * @throws InterruptedException if the search is interrupted.
+     */
+    Graph searchFrom(DataModel dataModel, Parameters parameters, Graph initialGraph) throws InterruptedException;
+}
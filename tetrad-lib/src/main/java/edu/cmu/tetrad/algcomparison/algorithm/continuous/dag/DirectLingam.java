@@ -99,6 +99,9 @@ public class DirectLingam extends AbstractBootstrapAlgorithm implements Algorith
         Score score = this.score.getScore(dataModel, parameters);
 
         edu.cmu.tetrad.search.DirectLingam search = new edu.cmu.tetrad.search.DirectLingam(data, score);
+        if (parameters.getInt(Params.NUM_THREADS) > 0) {
+            search.setNumThreads(parameters.getInt(Params.NUM_THREADS));
+        }
         Graph graph = search.search();
         TetradLogger.getInstance().log(graph.toString());
         LogUtilsSearch.stampWithBic(graph, dataModel);
@@ -143,6 +146,7 @@ public class DirectLingam extends AbstractBootstrapAlgorithm implements Algorith
     @Override
     public List<String> getParameters() {
         List<String> parameters = new ArrayList<>();
+        parameters.add(Params.NUM_THREADS);
         parameters.add(Params.VERBOSE);
         return parameters;
     }
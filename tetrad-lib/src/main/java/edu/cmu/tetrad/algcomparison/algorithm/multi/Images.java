@@ -108,7 +108,7 @@ public class Images implements MultiDataSetAlgorithm, HasKnowledge, TakesScoreWr
 
         if (parameters.getInt(Params.TIME_LAG) > 0) {
             for (DataModel dataSet : dataSets) {
-                DataSet timeSeries = TsUtils.createLagData((DataSet) dataSet, parameters.getInt(Params.TIME_LAG));
+                DataSet timeSeries = TsUtils.createLagDataView((DataSet) dataSet, parameters.getInt(Params.TIME_LAG));
                 if (dataSet.getName() != null) {
                     timeSeries.setName(dataSet.getName());
                 }
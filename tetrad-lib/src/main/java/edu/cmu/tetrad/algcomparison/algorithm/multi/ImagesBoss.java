@@ -103,7 +103,7 @@ public class ImagesBoss implements MultiDataSetAlgorithm, HasKnowledge, TakesSco
 
         if (parameters.getInt(Params.TIME_LAG) > 0) {
             for (DataModel dataSet : dataSets) {
-                DataSet timeSeries = TsUtils.createLagData((DataSet) dataSet, parameters.getInt(Params.TIME_LAG));
+                DataSet timeSeries = TsUtils.createLagDataView((DataSet) dataSet, parameters.getInt(Params.TIME_LAG));
                 if (dataSet.getName() != null) {
                     timeSeries.setName(dataSet.getName());
                 }
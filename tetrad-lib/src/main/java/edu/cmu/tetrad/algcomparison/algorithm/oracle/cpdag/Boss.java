@@ -102,7 +102,7 @@ public class Boss extends AbstractBootstrapAlgorithm implements Algorithm, Takes
                 throw new IllegalArgumentException("Expecting a dataset for time lagging.");
             }
 
-            DataSet timeSeries = TsUtils.createLagData(dataSet, parameters.getInt(Params.TIME_LAG));
+            DataSet timeSeries = TsUtils.createLagDataView(dataSet, parameters.getInt(Params.TIME_LAG));
             if (dataModel.getName() != null) {
                 timeSeries.setName(dataModel.getName());
             }
@@ -120,6 +120,7 @@ public class Boss extends AbstractBootstrapAlgorithm implements Algorithm, Takes
         boss.setUseDataOrder(parameters.getBoolean(Params.USE_DATA_ORDER));
         boss.setVerbose(parameters.getBoolean(Params.VERBOSE));
         PermutationSearch permutationSearch = new PermutationSearch(boss);
+        permutationSearch.setUseConcurrentTrees(parameters.getInt(Params.NUM_THREADS) > 1);
         permutationSearch.setKnowledge(this.knowledge);
         permutationSearch.setSeed(seed);
         permutationSearch.setReplicatingGraph(parameters.getBoolean(Params.TIME_LAG_REPLICATING_GRAPH));
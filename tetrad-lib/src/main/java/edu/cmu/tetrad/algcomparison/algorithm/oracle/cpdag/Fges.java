@@ -32,6 +32,7 @@ import edu.cmu.tetrad.data.DataType;
 import edu.cmu.tetrad.data.Knowledge;
 import edu.cmu.tetrad.graph.EdgeListGraph;
 import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.GraphUtils;
 import edu.cmu.tetrad.search.score.Score;
 import edu.cmu.tetrad.search.utils.LogUtilsSearch;
 import edu.cmu.tetrad.search.utils.TsUtils;
@@ -55,7 +56,8 @@ import java.util.List;
 )
 @Bootstrapping
 public class Fges extends AbstractBootstrapAlgorithm implements Algorithm, HasKnowledge,
-        TakesScoreWrapper, ReturnsBootstrapGraphs, TakesCovarianceMatrix, LatentStructureAlgorithm {
+        TakesScoreWrapper, ReturnsBootstrapGraphs, TakesCovarianceMatrix, TakesInitialGraph,
+        LatentStructureAlgorithm {
 
     @Serial
     private static final long serialVersionUID = 23L;
@@ -88,12 +90,24 @@ public class Fges extends AbstractBootstrapAlgorithm implements Algorithm, HasKn
 
     @Override
     protected Graph runSearch(DataModel dataModel, Parameters parameters) {
+        return runSearch(dataModel, parameters, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Graph searchFrom(DataModel dataModel, Parameters parameters, Graph initialGraph) {
+        return runSearch(dataModel, parameters, initialGraph);
+    }
+
+    private Graph runSearch(DataModel dataModel, Parameters parameters, Graph initialGraph) {
         if (parameters.getInt(Params.TIME_LAG) > 0) {
             if (!(dataModel instanceof DataSet dataSet)) {
                 throw new IllegalArgumentException("Expecting a dataset for time lagging.");
             }
 
-            DataSet timeSeries = TsUtils.createLagData(dataSet, parameters.getInt(Params.TIME_LAG));
+            DataSet timeSeries = TsUtils.createLagDataView(dataSet, parameters.getInt(Params.TIME_LAG));
             if (dataSet.getName() != null) {
                 timeSeries.setName(dataSet.getName());
             }
@@ -114,6 +128,11 @@ public class Fges extends AbstractBootstrapAlgorithm implements Algorithm, HasKn
         search.setNumThreads(parameters.getInt(Params.NUM_THREADS));
         search.setOut(System.out);
         search.setVerbose(parameters.getBoolean(Params.VERBOSE));
+
+        if (initialGraph != null) {
+            search.setInitialGraph(GraphUtils.replaceNodes(initialGraph, myScore.getVariables()));
+        }
+
         try {
             graph = search.search();
         } catch (InterruptedException e) {
@@ -103,7 +103,7 @@ public class Grasp extends AbstractBootstrapAlgorithm implements Algorithm, Take
                 throw new IllegalArgumentException("Expecting a dataset for time lagging.");
             }
 
-            DataSet timeSeries = TsUtils.createLagData(dataSet, parameters.getInt(Params.TIME_LAG));
+            DataSet timeSeries = TsUtils.createLagDataView(dataSet, parameters.getInt(Params.TIME_LAG));
             if (dataSet.getName() != null) {
                 timeSeries.setName(dataSet.getName());
             }
@@ -129,6 +129,11 @@ public class Grasp extends AbstractBootstrapAlgorithm implements Algorithm, Take
         grasp.setVerbose(parameters.getBoolean(Params.VERBOSE));
 
         grasp.setNumStarts(parameters.getInt(Params.NUM_STARTS));
+
+        if (parameters.getInt(Params.NUM_THREADS) > 0) {
+            grasp.setNumThreads(parameters.getInt(Params.NUM_THREADS));
+        }
+
         grasp.setKnowledge(this.knowledge);
         grasp.bestOrder(myScore.getVariables());
         Graph graph = grasp.getGraph(parameters.getBoolean(Params.OUTPUT_CPDAG),
@@ -185,6 +190,7 @@ public class Grasp extends AbstractBootstrapAlgorithm implements Algorithm, Take
         params.add(Params.SEED);
         params.add(Params.VERBOSE);
         params.add(Params.NUM_STARTS);
+        params.add(Params.NUM_THREADS);
 
         return params;
     }
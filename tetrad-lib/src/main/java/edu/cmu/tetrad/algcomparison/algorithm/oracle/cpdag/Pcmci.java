@@ -23,7 +23,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
- * PCMCI wrapper for algcomparison. NOTE: Knowledge comes from TsUtils.createLagData(...) and is used inside Pcmci.
+ * PCMCI wrapper for algcomparison. NOTE: Knowledge comes from TsUtils.createLagDataView(...) and is used inside Pcmci.
  */
 @edu.cmu.tetrad.annotation.Algorithm(
         name = "PCMCI",
@@ -99,7 +99,7 @@ public class Pcmci implements Algorithm, TakesIndependenceWrapper, HasKnowledge
         final boolean verbose = parameters.getBoolean(Params.VERBOSE, false);
 
         // Build lagged dataset (this also constructs consistent Knowledge for the lagged space).
-        DataSet lagged = TsUtils.createLagData(raw, maxLag);
+        DataSet lagged = TsUtils.createLagDataView(raw, maxLag);
 
         // Build the test over the LAGGED variables.
         IndependenceTest indTest = getIndependenceWrapper().getTest(lagged, parameters);
@@ -111,6 +111,7 @@ public class Pcmci implements Algorithm, TakesIndependenceWrapper, HasKnowledge
                 .alpha(alpha)
                 .verbose(verbose)
                 .collapseToLag0(false)
+                .numThreads(Math.max(1, parameters.getInt(Params.NUM_THREADS)))
                 .build();
 
         return search.search();
@@ -164,6 +165,7 @@ public class Pcmci implements Algorithm, TakesIndependenceWrapper, HasKnowledge
         params.add(Params.TIME_LAG);   // -> maxLag
         params.add(Params.DEPTH);      // -> maxCondSize
         params.add(Params.ALPHA);
+        params.add(Params.NUM_THREADS);
         params.add(Params.VERBOSE);
         return params;
     }
@@ -127,7 +127,7 @@ public class FciCyclicPw extends AbstractBootstrapAlgorithm implements Algorithm
             if (!(dataModel instanceof DataSet dataSet)) {
                 throw new IllegalArgumentException("Expecting a data set for time lagging.");
             }
-            DataSet timeSeries = TsUtils.createLagData(dataSet, parameters.getInt(Params.TIME_LAG));
+            DataSet timeSeries = TsUtils.createLagDataView(dataSet, parameters.getInt(Params.TIME_LAG));
             if (dataSet.getName() != null) timeSeries.setName(dataSet.getName());
             dataModel = timeSeries;
         }
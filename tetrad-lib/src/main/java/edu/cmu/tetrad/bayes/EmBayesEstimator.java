@@ -28,11 +28,9 @@ import edu.cmu.tetrad.graph.Dag;
 import edu.cmu.tetrad.graph.Graph;
 import edu.cmu.tetrad.graph.Node;
 import edu.cmu.tetrad.graph.NodeType;
+import edu.cmu.tetrad.util.ParallelEm;
 
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.*;
 
 /**
  * Estimates parameters of the given Bayes net from the given data using maximum likelihood method.
@@ -42,6 +40,17 @@ import java.util.List;
  */
 public final class EmBayesEstimator {
 
+    /**
+     * The code for a latent or missing value in mixedData.
+     */
+    private static final int MISSING = -99;
+
+    /**
+     * The largest number of joint values of the missing variables of a single row that the expectation step will
+     * enumerate.
+     */
+    private static final long MAX_CONFIGURATIONS = 1L << 20;
+
     /**
      * The Bayes PM whose graph contains latent and observed variables.
      */
@@ -88,29 +97,36 @@ public final class EmBayesEstimator {
     private BayesIm estimatedIm;
 
     /**
-     * The main data structure of this class is the double[][][] array estimatedCounts; it stores the values of all the
-     * estimated counts for the Bayes net.  The first dimension is the node index, in the order of 'nodes'.  The second
-     * dimension is the row index for the table of parameters associated with node; the third dimension is the column
-     * index. The row index is calculated by the function getRowIndex(int[] values) where 'values' is an array of
-     * numerical indices for each of the parent values; the order of the values in this array is the same as the order
-     * of nodes in 'parents'; the value indices are obtained from the Bayes PM for each node.  The column is the index
-     * of the value of N, where this index is obtained from the Bayes PM.
+     * The distinct rows of mixedData, in the node order of the estimated IM, with latent and missing values coded as
+     * -99. EM only ever needs a row's pattern of values, so identical rows are visited once and weighted by their
+     * multiplicity.
+     */
+    private int[][] patterns;
+
+    /**
+     * The number of rows of mixedData having each pattern.
+     */
+    private double[] patternWeights;
+
+    /**
+     * The number of threads used for the expectation step.
      */
-    private double[][][] estimatedCounts;
+    private int numThreads = Runtime.getRuntime().availableProcessors();
 
     /**
-     * For each row of the conditional probability table for each node, this is the estimated count of the number of
-     * occurrences of the corresponding set of values of parents in the dataset.  The first dimension is the node index
-     * and the second is the row number. Hence, the conditional probabilities are computed by dividing
-     * estimatedCounts[node][row][column] by estimateCountsDenom[node][row].
+     * The maximum number of EM iterations.
      */
-    private double[][] estimatedCountsDenom;
+    private int maxIterations = 1000;
 
     /**
-     * The conditional proabilities are stored in this array.  As above, the dimensions are node, row and column
-     * respectively.
+     * The number of EM iterations run by the last call to maximization.
      */
-    private double[][][] condProbs;
+    private int numIterations;
+
+    /**
+     * The log-likelihood of the observed data at the start of the last EM iteration.
+     */
+    private double logLikelihood = Double.NaN;
 
     /**
      * Provides methods for estimating a Bayes IM from an existing BayesIM and a discrete dataset using EM (Expectation
@@ -210,7 +226,7 @@ public final class EmBayesEstimator {
         for (int j = 0; j < this.nodes.length; j++) {
             if (this.nodes[j].getNodeType() == NodeType.LATENT) {
                 for (int i = 0; i < numFullCases; i++) {
-                    dsMixed.setInt(i, j, -99);
+                    dsMixed.setInt(i, j, MISSING);
                 }
             } else {
                 String name = this.bayesPm.getVariable(this.nodes[j]).getName();
@@ -232,203 +248,209 @@ public final class EmBayesEstimator {
         //not possible.
         estimateIM(this.bayesPm, this.mixedData);
 
-        this.estimatedCounts = new double[this.nodes.length][][];
-        this.estimatedCountsDenom = new double[this.nodes.length][];
-        this.condProbs = new double[this.nodes.length][][];
+        compressPatterns();
+    }
 
-        for (int i = 0; i < this.nodes.length; i++) {
-            //int numRows = bayesImMixed.getNumRows(i);
-            int numRows = this.estimatedIm.getNumRows(i);
-            this.estimatedCounts[i] = new double[numRows][];
-            this.estimatedCountsDenom[i] = new double[numRows];
-            this.condProbs[i] = new double[numRows][];
-            //for(int j = 0; j < bayesImMixed.getNumRows(i); j++) {
-            for (int j = 0; j < this.estimatedIm.getNumRows(i); j++) {
-                //int numCols = bayesImMixed.getNumColumns(i);
-                int numCols = this.estimatedIm.getNumColumns(i);
-                this.estimatedCounts[i][j] = new double[numCols];
-                this.condProbs[i][j] = new double[numCols];
+    /**
+     * Groups the rows of mixedData into distinct patterns of values, in the node order of the estimated IM.
+     */
+    private void compressPatterns() {
+        int numNodes = this.estimatedIm.getNumNodes();
+        int[] columns = new int[numNodes];
+
+        for (int i = 0; i < numNodes; i++) {
+            Node node = this.estimatedIm.getNode(i);
+            columns[i] = this.mixedData.getColumn(this.mixedData.getVariable(node.getName()));
+        }
+
+        int numRows = this.mixedData.getNumRows();
+        Map<Pattern, Integer> index = new HashMap<>();
+        List<int[]> distinct = new ArrayList<>();
+        double[] weights = new double[numRows];
+
+        for (int r = 0; r < numRows; r++) {
+            int[] values = new int[numNodes];
+
+            for (int i = 0; i < numNodes; i++) {
+                int value = this.mixedData.getInt(r, columns[i]);
+                values[i] = value < 0 ? MISSING : value;
+            }
+
+            Integer k = index.get(new Pattern(values));
+
+            if (k == null) {
+                k = distinct.size();
+                index.put(new Pattern(values), k);
+                distinct.add(values);
             }
+
+            weights[k]++;
         }
+
+        this.patterns = distinct.toArray(new int[0][]);
+        this.patternWeights = Arrays.copyOf(weights, this.patterns.length);
     }
 
     /**
-     * This method takes an instantiated Bayes net (BayesIm) whose graph include all the variables (observed and latent)
-     * and computes estimated counts using the data in the DataSet mixedData. The counts that are estimated correspond
-     * to cells in the conditional probability tables of the Bayes net.  The outermost loop (indexed by j) is over the
-     * set of variables.  If the variable has no parents, each case in the dataset is examined and the count for the
-     * observed value of the variables is increased by 1.0; if the value of the variable is missing the marginal
-     * probabilities its values given the values of the variables that are available for that case are used to increment
-     * the corresponding estimated counts. If a variable has parents then there is a loop which steps through all
-     * possible sets of values of its parents.  This loop is indexed by the variable "row".  Each case in the dataset is
-     * examined.  It the variable and all its parents have values in the case the corresponding estimated counts are
-     * incremented by 1.0.  If the variable or any of its parents have missing values, the joint marginal is computed
-     * for the variable and the set of values of its parents corresponding to "row" and the corresponding estimated
-     * counts are incremented by the appropriate probability. The estimated counts are stored in the double[][][] array
-     * estimatedCounts.  The count (possibly fractional) of the number of times each combination of parent values occurs
-     * is stored in the double[][] array estimatedCountsDenom.  These two arrays are used to compute the estimated
-     * conditional probabilities of the output Bayes net.
-     */
-    private void expectation(BayesIm inputBayesIm) {
-        int numCases = this.mixedData.getNumRows();
-        int numVariables = this.allVariables.size();
-        RowSummingExactUpdater rseu = new RowSummingExactUpdater(inputBayesIm);
-
-        for (int j = 0; j < numVariables; j++) {
-            DiscreteVariable var = (DiscreteVariable) this.allVariables.get(j);
-            String varName = var.getName();
-            Node varNode = this.graph.getNode(varName);
-            int varIndex = inputBayesIm.getNodeIndex(varNode);
-            int[] parentVarIndices = inputBayesIm.getParents(varIndex);
-
-            //This segment is for variables with no parents:
-            if (parentVarIndices.length == 0) {
-                //System.out.println("No parents");
-                for (int col = 0; col < var.getNumCategories(); col++) {
-                    this.estimatedCounts[j][0][col] = 0.0;
-                }
+     * The expectation step. For each pattern, every completion of its missing values is weighted by its posterior
+     * probability under the current parameters, and the weighted counts are added to the cells of the conditional
+     * probability tables. Nodes whose family is fully observed in a pattern do not depend on the completion and are
+     * counted once. Patterns are processed in blocks, each block accumulating into its own counts, so the pass can be
+     * split across threads.
+     */
+    private ParallelEm.Pass<ExpectedCounts> expectation(double[][][] theta) {
+        BayesIm im = this.estimatedIm;
+        int numNodes = im.getNumNodes();
+        int[][] parents = new int[numNodes][];
+        int[][] parentDims = new int[numNodes][];
+        int[] numCategories = new int[numNodes];
+
+        for (int i = 0; i < numNodes; i++) {
+            parents[i] = im.getParents(i);
+            parentDims[i] = im.getParentDims(i);
+            numCategories[i] = im.getNumColumns(i);
+        }
 
-                for (int i = 0; i < numCases; i++) {
-                    //System.out.println("Case " + i);
-                    //If this case has a value for ar
-                    if (this.mixedData.getInt(i, j) != -99) {
-                        this.estimatedCounts[j][0][this.mixedData.getInt(i, j)] += 1.0;
-                    } else {
-                        //find marginal probability, given obs data in this case, p(v=0)
-                        Evidence evidenceThisCase = Evidence.tautology(inputBayesIm);
-                        boolean existsEvidence = false;
-
-                        //Define evidence for updating by using the values of the other vars.
-                        for (int k = 0; k < numVariables; k++) {
-                            if (k == j) {
-                                continue;
-                            }
-                            Node otherVar = this.allVariables.get(k);
-                            if (this.mixedData.getInt(i, k) == -99) {
-                                continue;
-                            }
-                            existsEvidence = true;
-                            String otherVarName = otherVar.getName();
-                            Node otherNode = this.graph.getNode(otherVarName);
-                            int otherIndex =
-                                    inputBayesIm.getNodeIndex(otherNode);
-
-                            evidenceThisCase.getProposition().setCategory(
-                                    otherIndex, this.mixedData.getInt(i, k));
-                        }
+        return new ParallelEm.Pass<ExpectedCounts>() {
+            @Override
+            public ExpectedCounts newStatistics() {
+                return new ExpectedCounts(theta);
+            }
 
-                        if (!existsEvidence) {
-                            continue; //No other variable contained useful data
-                        }
+            @Override
+            public void accumulate(int from, int to, ExpectedCounts statistics) {
+                double[][][] counts = statistics.counts;
+                int[] values = new int[numNodes];
+                int[] missing = new int[numNodes];
+                int[] affected = new int[numNodes];
+                double[] probs = new double[16];
 
-                        rseu.setEvidence(evidenceThisCase);
+                for (int p = from; p < to; p++) {
+                    int[] pattern = EmBayesEstimator.this.patterns[p];
+                    double weight = EmBayesEstimator.this.patternWeights[p];
+                    System.arraycopy(pattern, 0, values, 0, numNodes);
 
-                        for (int m = 0; m < var.getNumCategories(); m++) {
-                            this.estimatedCounts[j][0][m] +=
-                                    rseu.getMarginal(varIndex, m);
-                        }
-                    }
-                }
+                    int numMissing = 0;
 
-                //Print estimated counts:
-                //System.out.println("Estimated counts:  ");
-
-                //Print counts for each value of this variable with no parents.
-            } else {    //For variables with parents:
-                int numRows = inputBayesIm.getNumRows(varIndex);
-                for (int row = 0; row < numRows; row++) {
-                    int[] parValues =
-                            inputBayesIm.getParentValues(varIndex, row);
-                    this.estimatedCountsDenom[varIndex][row] = 0.0;
-                    for (int col = 0; col < var.getNumCategories(); col++) {
-                        this.estimatedCounts[varIndex][row][col] = 0.0;
+                    for (int i = 0; i < numNodes; i++) {
+                        if (pattern[i] == MISSING) missing[numMissing++] = i;
                     }
 
-                    for (int i = 0; i < numCases; i++) {
-                        //for a case where the parent values = parValues increment the estCount
+                    // Families with no missing member contribute a fixed count.
+                    int numAffected = 0;
 
-                        boolean parentMatch = true;
+                    for (int i = 0; i < numNodes; i++) {
+                        boolean isAffected = pattern[i] == MISSING;
 
-                        for (int p = 0; p < parentVarIndices.length; p++) {
-                            if (parValues[p] !=
-                                this.mixedData.getInt(i, parentVarIndices[p]) &&
-                                this.mixedData.getInt(i, parentVarIndices[p]) !=
-                                -99) {
-                                parentMatch = false;
-                                break;
-                            }
+                        for (int k = 0; k < parents[i].length && !isAffected; k++) {
+                            isAffected = pattern[parents[i][k]] == MISSING;
                         }
 
-                        if (!parentMatch) {
-                            continue;  //Not a matching case; go to next.
+                        if (isAffected) {
+                            affected[numAffected++] = i;
+                        } else {
+                            int row = rowIndex(parents[i], parentDims[i], values);
+                            counts[i][row][values[i]] += weight;
+                            statistics.logLikelihood += weight * Math.log(theta[i][row][values[i]]);
                         }
+                    }
 
-                        boolean parentMissing = false;
-                        for (int parentVarIndice : parentVarIndices) {
-                            if (this.mixedData.getInt(i, parentVarIndice) == -99) {
-                                parentMissing = true;
-                                break;
-                            }
-                        }
+                    if (numMissing == 0) {
+                        continue;
+                    }
 
+                    long numConfigs = 1;
 
-                        if (this.mixedData.getInt(i, j) != -99 && !parentMissing) {
-                            this.estimatedCounts[j][row][this.mixedData.getInt(i, j)] +=
-                                    1.0;
-                            this.estimatedCountsDenom[j][row] += 1.0;
-                            continue;    //Next case
-                        }
+                    for (int m = 0; m < numMissing; m++) {
+                        numConfigs *= numCategories[missing[m]];
 
-                        Evidence.tautology(inputBayesIm);
+                        if (numConfigs > MAX_CONFIGURATIONS) {
+                            throw new IllegalStateException("Too many joint values of missing variables in a row "
+                                                            + "for exact expectation: more than " + MAX_CONFIGURATIONS);
+                        }
                     }
-                }
-
 
-            }
-        }
+                    if (probs.length < numConfigs) {
+                        probs = new double[(int) numConfigs];
+                    }
 
-        BayesIm outputBayesIm = new MlBayesIm(this.bayesPm);
+                    double total = 0.0;
 
-        for (int j = 0; j < this.nodes.length; j++) {
+                    for (int c = 0; c < numConfigs; c++) {
+                        setConfiguration(c, missing, numMissing, numCategories, values);
+                        double prob = 1.0;
 
-            DiscreteVariable var = (DiscreteVariable) this.allVariables.get(j);
-            String varName = var.getName();
-            Node varNode = this.graph.getNode(varName);
-            int varIndex = inputBayesIm.getNodeIndex(varNode);
-//            int[] parentVarIndices = inputBayesIm.getParents(varIndex);
+                        for (int a = 0; a < numAffected; a++) {
+                            int i = affected[a];
+                            prob *= theta[i][rowIndex(parents[i], parentDims[i], values)][values[i]];
+                        }
 
-            int numRows = inputBayesIm.getNumRows(j);
-            //System.out.println("Conditional probabilities for variable " + varName);
+                        probs[c] = prob;
+                        total += prob;
+                    }
 
-            int numCols = inputBayesIm.getNumColumns(j);
-            if (numRows == 1) {
-                double sum = 0.0;
-                for (int m = 0; m < numCols; m++) {
-                    sum += this.estimatedCounts[j][0][m];
-                }
+                    if (!(total > 0.0)) {
+                        continue;
+                    }
 
-                for (int m = 0; m < numCols; m++) {
-                    this.condProbs[j][0][m] = this.estimatedCounts[j][0][m] / sum;
-                    outputBayesIm.setProbability(varIndex, 0, m,
-                            this.condProbs[j][0][m]);
-                }
-            } else {
+                    statistics.logLikelihood += weight * Math.log(total);
 
-                for (int row = 0; row < numRows; row++) {
+                    for (int c = 0; c < numConfigs; c++) {
+                        if (probs[c] == 0.0) continue;
+                        double q = weight * probs[c] / total;
+                        setConfiguration(c, missing, numMissing, numCategories, values);
 
-                    for (int m = 0; m < numCols; m++) {
-                        if (this.estimatedCountsDenom[j][row] != 0.0) {
-                            this.condProbs[j][row][m] = this.estimatedCounts[j][row][m] /
-                                                        this.estimatedCountsDenom[j][row];
-                        } else {
-                            this.condProbs[j][row][m] = Double.NaN;
+                        for (int a = 0; a < numAffected; a++) {
+                            int i = affected[a];
+                            counts[i][rowIndex(parents[i], parentDims[i], values)][values[i]] += q;
                         }
-                        outputBayesIm.setProbability(varIndex, row, m,
-                                this.condProbs[j][row][m]);
                     }
                 }
             }
+        };
+    }
+
+    /**
+     * The maximization step. Replaces each row of theta with its normalized expected counts, leaving rows with no
+     * expected count unchanged, and returns the Euclidean distance between the old and new parameters. The distance
+     * is the one computed by BayesImDistanceFunction, but is obtained in place without copying the IM.
+     */
+    private static double maximize(double[][][] theta, double[][][] counts) {
+        double sumSquares = 0.0;
+
+        for (int i = 0; i < theta.length; i++) {
+            for (int row = 0; row < theta[i].length; row++) {
+                double total = 0.0;
+                for (double count : counts[i][row]) total += count;
+                if (!(total > 0.0)) continue;
+
+                for (int col = 0; col < theta[i][row].length; col++) {
+                    double p = counts[i][row][col] / total;
+                    double diff = p - theta[i][row][col];
+                    sumSquares += diff * diff;
+                    theta[i][row][col] = p;
+                }
+            }
+        }
+
+        return Math.sqrt(sumSquares);
+    }
+
+    private static int rowIndex(int[] parents, int[] dims, int[] values) {
+        int row = 0;
+
+        for (int k = 0; k < parents.length; k++) {
+            row = row * dims[k] + values[parents[k]];
+        }
 
+        return row;
+    }
+
+    private static void setConfiguration(int config, int[] missing, int numMissing, int[] numCategories, int[] values) {
+        for (int m = numMissing - 1; m >= 0; m--) {
+            int i = missing[m];
+            values[i] = config % numCategories[i];
+            config /= numCategories[i];
         }
     }
 
@@ -439,24 +461,52 @@ public final class EmBayesEstimator {
      * parameter sets and when the change is less than the threshhold, the process is considered to have converged.  The
      * distance between successive Bayes nets is the Euclidean distance between vectors of sequences of their
      * parameters.  See the BayesImDistanceFunction class for details.
+     * <p>
+     * The parameters are updated in place; the loop also stops after maxIterations iterations.
      *
      * @param threshhold a double
      * @return a {@link edu.cmu.tetrad.bayes.BayesIm} object
      */
     public BayesIm maximization(double threshhold) {
-        double distance = Double.MAX_VALUE;
-        BayesIm oldBayesIm = this.estimatedIm;
-        BayesIm newBayesIm = null;
+        BayesIm im = this.estimatedIm;
+        double[][][] theta = new double[im.getNumNodes()][][];
+
+        for (int i = 0; i < theta.length; i++) {
+            theta[i] = new double[im.getNumRows(i)][im.getNumColumns(i)];
+
+            for (int row = 0; row < theta[i].length; row++) {
+                for (int col = 0; col < theta[i][row].length; col++) {
+                    theta[i][row][col] = im.getProbability(i, row, col);
+                }
+            }
+        }
+
+        this.numIterations = 0;
 
-        while (Double.isNaN(distance) || distance > threshhold) {
-            expectation(oldBayesIm);
-            newBayesIm = getEstimatedIm();
+        try (ParallelEm em = new ParallelEm(this.numThreads)) {
+            ParallelEm.Pass<ExpectedCounts> expectation = expectation(theta);
 
-            distance = BayesImDistanceFunction.distance(newBayesIm, oldBayesIm);
+            while (this.numIterations < this.maxIterations) {
+                ExpectedCounts counts = em.run(this.patterns.length, expectation);
+                this.logLikelihood = counts.logLikelihood;
+                double distance = maximize(theta, counts.counts);
+                this.numIterations++;
 
-            oldBayesIm = newBayesIm;
+                if (!(distance > threshhold)) {
+                    break;
+                }
+            }
+        }
+
+        for (int i = 0; i < theta.length; i++) {
+            for (int row = 0; row < theta[i].length; row++) {
+                for (int col = 0; col < theta[i][row].length; col++) {
+                    im.setProbability(i, row, col, theta[i][row][col]);
+                }
+            }
         }
-        return newBayesIm;
+
+        return im;
     }
 
     private void findBayesNetObserved() {
@@ -546,11 +596,93 @@ public final class EmBayesEstimator {
         return this.estimatedIm;
     }
 
+    /**
+     * Sets the number of threads used for the expectation step.
+     *
+     * @param numThreads the number of threads; must be at least 1.
+     */
+    public void setNumThreads(int numThreads) {
+        if (numThreads < 1) {
+            throw new IllegalArgumentException("Number of threads must be at least 1: " + numThreads);
+        }
 
-}
+        this.numThreads = numThreads;
+    }
+
+    /**
+     * Sets the maximum number of EM iterations.
+     *
+     * @param maxIterations the maximum number of iterations; must be at least 1.
+     */
+    public void setMaxIterations(int maxIterations) {
+        if (maxIterations < 1) {
+            throw new IllegalArgumentException("Max iterations must be at least 1: " + maxIterations);
+        }
 
+        this.maxIterations = maxIterations;
+    }
 
+    /**
+     * Returns the number of EM iterations run by the last call to maximization.
+     *
+     * @return the number of iterations.
+     */
+    public int getNumIterations() {
+        return this.numIterations;
+    }
 
+    /**
+     * Returns the log-likelihood of the observed data at the start of the last EM iteration, or NaN if maximization
+     * has not been called.
+     *
+     * @return the log-likelihood.
+     */
+    public double getLogLikelihood() {
+        return this.logLikelihood;
+    }
 
+    /**
+     * A row pattern, compared by value.
+     */
+    private record Pattern(int[] values) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Pattern other && Arrays.equals(this.values, other.values);
+        }
 
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(this.values);
+        }
+    }
+
+    /**
+     * Expected counts for the cells of each conditional probability table, plus the observed-data log-likelihood,
+     * accumulated over a block of patterns.
+     */
+    private static final class ExpectedCounts implements ParallelEm.Statistics<ExpectedCounts> {
+        private final double[][][] counts;
+        private double logLikelihood;
+
+        ExpectedCounts(double[][][] shape) {
+            this.counts = new double[shape.length][][];
 
+            for (int i = 0; i < shape.length; i++) {
+                this.counts[i] = new double[shape[i].length][shape[i].length == 0 ? 0 : shape[i][0].length];
+            }
+        }
+
+        @Override
+        public void merge(ExpectedCounts other) {
+            this.logLikelihood += other.logLikelihood;
+
+            for (int i = 0; i < this.counts.length; i++) {
+                for (int row = 0; row < this.counts[i].length; row++) {
+                    double[] c = this.counts[i][row];
+                    double[] o = other.counts[i][row];
+                    for (int col = 0; col < c.length; col++) c[col] += o[col];
+                }
+            }
+        }
+    }
+}
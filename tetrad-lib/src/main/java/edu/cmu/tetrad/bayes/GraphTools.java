@@ -162,6 +162,86 @@ public final class GraphTools {
         }
     }
 
+    /**
+     * Triangulates a moral graph by greedy elimination. At each step, the node that adds the fewest fill-in edges among
+     * its remaining neighbors is eliminated (min-fill), or, if minWeight is true, the node whose clique table--the
+     * product of the numbers of categories of the node and its remaining neighbors--is smallest (min-weight). Ties are
+     * broken by the other criterion and then by the order of the nodes in the graph. The fill-in edges are added to
+     * the graph.
+     *
+     * @param graph         moral graph
+     * @param numCategories the number of categories of each node
+     * @param minWeight     true for min-weight, false for min-fill
+     */
+    public static void greedyFillIn(Graph graph, Map<Node, Integer> numCategories, boolean minWeight) {
+        List<Node> nodes = graph.getNodes();
+        int numOfNodes = nodes.size();
+
+        Map<Node, Integer> index = new HashMap<>();
+        for (int i = 0; i < numOfNodes; i++) {
+            index.put(nodes.get(i), i);
+        }
+
+        List<Set<Integer>> adj = new ArrayList<>();
+        double[] logCategories = new double[numOfNodes];
+        for (int i = 0; i < numOfNodes; i++) {
+            Set<Integer> neighbors = new HashSet<>();
+            graph.getAdjacentNodes(nodes.get(i)).forEach(w -> neighbors.add(index.get(w)));
+            adj.add(neighbors);
+            logCategories[i] = Math.log(numCategories.get(nodes.get(i)));
+        }
+
+        boolean[] eliminated = new boolean[numOfNodes];
+        for (int step = 0; step < numOfNodes; step++) {
+            int best = -1;
+            long bestFill = Long.MAX_VALUE;
+            double bestWeight = Double.POSITIVE_INFINITY;
+
+            for (int v = 0; v < numOfNodes; v++) {
+                if (eliminated[v]) {
+                    continue;
+                }
+
+                long fill = 0;
+                double weight = logCategories[v];
+                Integer[] neighbors = adj.get(v).toArray(new Integer[0]);
+                for (int j = 0; j < neighbors.length; j++) {
+                    weight += logCategories[neighbors[j]];
+                    for (int k = j + 1; k < neighbors.length; k++) {
+                        if (!adj.get(neighbors[j]).contains(neighbors[k])) {
+                            fill++;
+                        }
+                    }
+                }
+
+                boolean better = minWeight
+                        ? weight < bestWeight || (weight == bestWeight && fill < bestFill)
+                        : fill < bestFill || (fill == bestFill && weight < bestWeight);
+
+                if (better) {
+                    best = v;
+                    bestFill = fill;
+                    bestWeight = weight;
+                }
+            }
+
+            // connect the remaining neighbors of the eliminated node and remove it
+            Integer[] neighbors = adj.get(best).toArray(new Integer[0]);
+            for (int j = 0; j < neighbors.length; j++) {
+                for (int k = j + 1; k < neighbors.length; k++) {
+                    if (adj.get(neighbors[j]).add(neighbors[k])) {
+                        adj.get(neighbors[k]).add(neighbors[j]);
+                        graph.addUndirectedEdge(nodes.get(neighbors[j]), nodes.get(neighbors[k])); // fill in edge
+                    }
+                }
+            }
+            for (int w : neighbors) {
+                adj.get(w).remove(best);
+            }
+            eliminated[best] = true;
+        }
+    }
+
     /**
      * Perform Tarjan and Yannakakis (1984) maximum cardinality search (MCS) to get the maximum cardinality ordering.
      *
@@ -32,7 +32,10 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serial;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Junction Tree Algorithm.
@@ -85,6 +88,17 @@ public class JunctionTreeAlgorithm implements TetradSerializable {
      */
     private final Map<Node, TreeNode> treeNodes;
 
+    /**
+     * The number of threads used by the batch methods.
+     */
+    private int numThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Immutable copies of the calibrated clique and separator potentials, used by the batch methods. Made in the
+     * constructor from the evidence-free calibration, so evidence set later does not affect the batch methods.
+     */
+    private final CalibratedTree calibratedTree;
+
     /**
      * <p>Constructor for JunctionTreeAlgorithm.</p>
      *
@@ -100,9 +114,10 @@ public class JunctionTreeAlgorithm implements TetradSerializable {
         this.graphNodes = this.bayesIm.getDag().getNodes().toArray(new Node[numOfNodes]);
         this.margins = new double[numOfNodes][];
         this.maxCardOrdering = new Node[numOfNodes];
-        this.root = buildJunctionTree();
+        this.root = buildJunctionTree(Triangulation.MAXIMUM_CARDINALITY);
 
         initialize();
+        this.calibratedTree = new CalibratedTree();
     }
 
     /**
@@ -111,6 +126,21 @@ public class JunctionTreeAlgorithm implements TetradSerializable {
      * @param bayesIm a {@link edu.cmu.tetrad.bayes.BayesIm} object
      */
     public JunctionTreeAlgorithm(BayesIm bayesIm) {
+        this(bayesIm, Triangulation.MAXIMUM_CARDINALITY);
+    }
+
+    /**
+     * Constructor for JunctionTreeAlgorithm, triangulating the moral graph with the given heuristic.
+     *
+     * @param bayesIm       a {@link edu.cmu.tetrad.bayes.BayesIm} object
+     * @param triangulation the triangulation heuristic
+     * @see Triangulation
+     */
+    public JunctionTreeAlgorithm(BayesIm bayesIm, Triangulation triangulation) {
+        if (triangulation == null) {
+            throw new NullPointerException("Triangulation cannot be null.");
+        }
+
         this.bayesPm = bayesIm.getBayesPm();
         this.bayesIm = bayesIm;
         this.treeNodes = new HashMap<>();
@@ -119,9 +149,10 @@ public class JunctionTreeAlgorithm implements TetradSerializable {
         this.graphNodes = bayesIm.getDag().getNodes().toArray(new Node[numOfNodes]);
         this.margins = new double[numOfNodes][];
         this.maxCardOrdering = new Node[numOfNodes];
-        this.root = buildJunctionTree();
+        this.root = buildJunctionTree(triangulation);
 
         initialize();
+        this.calibratedTree = new CalibratedTree();
     }
 
     private void initialize() {
@@ -144,13 +175,19 @@ public class JunctionTreeAlgorithm implements TetradSerializable {
      *
      * @return the root of the junction tree
      */
-    private TreeNode buildJunctionTree() {
+    private TreeNode buildJunctionTree(Triangulation triangulation) {
         // moralize dag
         Graph undirectedGraph = GraphTools.moralize(this.bayesIm.getDag());
 
         // triangulate
-        computeMaximumCardinalityOrdering(undirectedGraph, this.maxCardOrdering);
-        GraphTools.fillIn(undirectedGraph, this.maxCardOrdering);
+        if (triangulation == Triangulation.MAXIMUM_CARDINALITY) {
+            computeMaximumCardinalityOrdering(undirectedGraph, this.maxCardOrdering);
+            GraphTools.fillIn(undirectedGraph, this.maxCardOrdering);
+        } else {
+            Map<Node, Integer> numCategories = new HashMap<>();
+            undirectedGraph.getNodes().forEach(node -> numCategories.put(node, this.bayesPm.getNumCategories(node)));
+            GraphTools.greedyFillIn(undirectedGraph, numCategories, triangulation == Triangulation.MIN_WEIGHT);
+        }
 
         // get set of cliques
         computeMaximumCardinalityOrdering(undirectedGraph, this.maxCardOrdering);
@@ -191,6 +228,15 @@ public class JunctionTreeAlgorithm implements TetradSerializable {
         return rootNode;
     }
 
+    /**
+     * Returns the number of entries in the largest clique table, a measure of the cost of inference with this tree.
+     *
+     * @return this number
+     */
+    public int getMaxCliqueTableSize() {
+        return this.treeNodes.values().stream().mapToInt(treeNode -> treeNode.cardinality).max().orElse(0);
+    }
+
     private void computeMaximumCardinalityOrdering(Graph graph, Node[] nodes) {
         Set<Node> numbered = new HashSet<>();
         for (int i = 0; i < nodes.length; i++) {
@@ -594,6 +640,110 @@ public class JunctionTreeAlgorithm implements TetradSerializable {
         }
     }
 
+    /**
+     * Batch version of {@link #getConditionalProbabilities(int, int[], int[])}: for each case c, returns the
+     * distribution of the node given that parents[i] = parentValues[c][i] for all i. The parents may be any nodes.
+     * <p>
+     * Unlike the single-case methods, this does not set evidence on the tree. Each case is propagated from an
+     * immutable copy of the calibrated potentials over only the cliques that connect the cliques of the given nodes,
+     * with scratch buffers for each thread, and cases are run in parallel. It may be called from several threads at
+     * once.
+     *
+     * @param iNode        the node
+     * @param parents      the evidence nodes, the same for all cases
+     * @param parentValues the values of the evidence nodes, one row per case
+     * @return the conditional distributions, one row per case
+     * @see #setNumThreads(int)
+     */
+    public double[][] getConditionalProbabilities(int iNode, int[] parents, int[][] parentValues) {
+        validate(iNode);
+        validate(parents);
+
+        CalibratedTree tree = this.calibratedTree;
+        CalibratedTree.Propagation propagation = tree.new Propagation(parents, iNode);
+
+        double[][] condProbs = new double[parentValues.length][];
+        runCases(parentValues.length, tree, (c, scratch) -> {
+            validate(parents, parentValues[c]);
+            condProbs[c] = propagation.conditional(parentValues[c], scratch);
+        });
+
+        return condProbs;
+    }
+
+    /**
+     * Batch version of {@link #getJointProbability(int[], int[])}: for each case c, returns the probability that
+     * nodes[i] = values[c][i] for all i. See {@link #getConditionalProbabilities(int, int[], int[][])} for how cases
+     * are propagated.
+     *
+     * @param nodes  the nodes, the same for all cases
+     * @param values the values of the nodes, one row per case
+     * @return the joint probabilities, one per case
+     */
+    public double[] getJointProbabilities(int[] nodes, int[][] values) {
+        validate(nodes);
+
+        CalibratedTree tree = this.calibratedTree;
+        CalibratedTree.Propagation propagation = tree.new Propagation(nodes, -1);
+
+        double[] probs = new double[values.length];
+        runCases(values.length, tree, (c, scratch) -> {
+            validate(nodes, values[c]);
+            probs[c] = propagation.joint(values[c], scratch);
+        });
+
+        return probs;
+    }
+
+    /**
+     * Sets the number of threads used by the batch methods. Results do not depend on this.
+     *
+     * @param numThreads the number of threads, at least 1
+     */
+    public void setNumThreads(int numThreads) {
+        if (numThreads < 1) {
+            throw new IllegalArgumentException("Number of threads must be at least 1: " + numThreads);
+        }
+
+        this.numThreads = numThreads;
+    }
+
+    private void runCases(int numCases, CalibratedTree tree, CaseTask task) {
+        int numThreads = Math.max(1, this.numThreads);
+
+        if (numThreads == 1 || numCases < 2) {
+            CalibratedTree.Scratch scratch = tree.new Scratch();
+            for (int c = 0; c < numCases; c++) {
+                task.run(c, scratch);
+            }
+            return;
+        }
+
+        int numChunks = Math.min(numCases, 4 * numThreads);
+        ForkJoinPool pool = new ForkJoinPool(numThreads);
+
+        try {
+            pool.submit(() -> IntStream.range(0, numChunks).parallel().forEach(k -> {
+                CalibratedTree.Scratch scratch = tree.new Scratch();
+                int from = (int) ((long) numCases * k / numChunks);
+                int to = (int) ((long) numCases * (k + 1) / numChunks);
+                for (int c = from; c < to; c++) {
+                    task.run(c, scratch);
+                }
+            })).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
     /**
      * <p>getMarginalProbability.</p>
      *
@@ -1033,5 +1183,468 @@ public class JunctionTreeAlgorithm implements TetradSerializable {
         }
 
     }
-}
 
+    /**
+     * The heuristic used to triangulate the moral graph. Smaller cliques make smaller tables and faster inference.
+     */
+    public enum Triangulation {
+
+        /**
+         * Fill in along a maximum cardinality ordering. This is the default.
+         */
+        MAXIMUM_CARDINALITY,
+
+        /**
+         * Greedily eliminate the node that adds the fewest fill-in edges.
+         */
+        MIN_FILL,
+
+        /**
+         * Greedily eliminate the node with the smallest clique table.
+         */
+        MIN_WEIGHT
+    }
+
+    private interface CaseTask {
+        void run(int c, CalibratedTree.Scratch scratch);
+    }
+
+    /**
+     * Copies of the calibrated clique and separator potentials, indexed by clique, with the index maps needed to pass
+     * messages between neighboring cliques. Since the potentials are calibrated, the product of the clique potentials
+     * over any connected set of cliques, divided by the product of the separator potentials between them, is the joint
+     * distribution of the nodes in those cliques, so evidence only needs to be propagated over the cliques that
+     * connect the cliques containing the nodes of a query.
+     */
+    private final class CalibratedTree implements TetradSerializable {
+
+        private static final long serialVersionUID = 23L;
+
+        private final int numCliques;
+        private final int[][] cliqueNodes;
+        private final int[][] cliqueDims;
+        private final int[][] cliqueStrides;
+        private final double[][] cliqueProbs;
+        private final int[] parent;
+        private final int[] depth;
+        private final int[][] children;
+
+        /**
+         * For a non-root clique c, the potentials of the separator between c and its parent, and maps from the entries
+         * of c and of its parent to the entries of the separator.
+         */
+        private final double[][] separatorProbs;
+        private final int[][] childToSeparator;
+        private final int[][] parentToSeparator;
+
+        /**
+         * For each node, a clique containing it.
+         */
+        private final int[] host;
+
+        CalibratedTree() {
+            List<TreeNode> cliques = new ArrayList<>();
+            for (Node node : JunctionTreeAlgorithm.this.maxCardOrdering) {
+                TreeNode treeNode = JunctionTreeAlgorithm.this.treeNodes.get(node);
+                if (treeNode != null) {
+                    cliques.add(treeNode);
+                }
+            }
+
+            Map<TreeNode, Integer> cliqueIndex = new HashMap<>();
+            for (int i = 0; i < cliques.size(); i++) {
+                cliqueIndex.put(cliques.get(i), i);
+            }
+
+            this.numCliques = cliques.size();
+            this.cliqueNodes = new int[this.numCliques][];
+            this.cliqueDims = new int[this.numCliques][];
+            this.cliqueStrides = new int[this.numCliques][];
+            this.cliqueProbs = new double[this.numCliques][];
+            this.parent = new int[this.numCliques];
+            this.depth = new int[this.numCliques];
+            this.separatorProbs = new double[this.numCliques][];
+            this.childToSeparator = new int[this.numCliques][];
+            this.parentToSeparator = new int[this.numCliques][];
+            this.host = new int[JunctionTreeAlgorithm.this.graphNodes.length];
+            Arrays.fill(this.host, -1);
+
+            for (int i = 0; i < this.numCliques; i++) {
+                TreeNode treeNode = cliques.get(i);
+                int size = treeNode.nodes.length;
+
+                this.cliqueNodes[i] = new int[size];
+                this.cliqueDims[i] = new int[size];
+                this.cliqueStrides[i] = new int[size];
+                int stride = 1;
+                for (int j = size - 1; j >= 0; j--) {
+                    int nodeIndex = JunctionTreeAlgorithm.this.bayesIm.getNodeIndex(treeNode.nodes[j]);
+                    this.cliqueNodes[i][j] = nodeIndex;
+                    this.cliqueDims[i][j] = JunctionTreeAlgorithm.this.bayesPm.getNumCategories(treeNode.nodes[j]);
+                    this.cliqueStrides[i][j] = stride;
+                    stride *= this.cliqueDims[i][j];
+
+                    if (this.host[nodeIndex] == -1) {
+                        this.host[nodeIndex] = i;
+                    }
+                }
+
+                this.cliqueProbs[i] = treeNode.prob.clone();
+
+                TreeSeparator separator = treeNode.parentSeparator;
+                if (separator == null) {
+                    this.parent[i] = -1;
+                } else {
+                    this.parent[i] = cliqueIndex.get(separator.parentNode);
+                    this.separatorProbs[i] = separator.childPotentials.clone();
+                    this.childToSeparator[i] = separatorIndices(separator, treeNode);
+                    this.parentToSeparator[i] = separatorIndices(separator, separator.parentNode);
+                }
+            }
+
+            List<List<Integer>> children = new ArrayList<>();
+            for (int i = 0; i < this.numCliques; i++) {
+                children.add(new ArrayList<>());
+            }
+            for (int i = 0; i < this.numCliques; i++) {
+                if (this.parent[i] != -1) {
+                    children.get(this.parent[i]).add(i);
+                }
+            }
+            this.children = new int[this.numCliques][];
+            for (int i = 0; i < this.numCliques; i++) {
+                this.children[i] = children.get(i).stream().mapToInt(Integer::intValue).toArray();
+            }
+
+            for (int i = 0; i < this.numCliques; i++) {
+                int d = 0;
+                for (int j = this.parent[i]; j != -1; j = this.parent[j]) {
+                    d++;
+                }
+                this.depth[i] = d;
+            }
+        }
+
+        private int[] separatorIndices(TreeSeparator separator, TreeNode treeNode) {
+            int size = treeNode.nodes.length;
+            int[] values = new int[size];
+            int[] indices = new int[treeNode.cardinality];
+            for (int i = 0; i < treeNode.cardinality; i++) {
+                indices[getIndexOfCPT(treeNode.nodes, values)] = getIndexOfCPT(separator.nodes, values, treeNode.nodes);
+                updateValues(size, values, treeNode.nodes);
+            }
+
+            return indices;
+        }
+
+        /**
+         * Per-thread buffers for the clique tables and messages.
+         */
+        private final class Scratch {
+            private final double[][] work = new double[numCliques][];
+            private final double[][] messages = new double[numCliques][];
+
+            double[] work(int i) {
+                if (this.work[i] == null) {
+                    this.work[i] = new double[cliqueProbs[i].length];
+                }
+                return this.work[i];
+            }
+
+            double[] message(int i) {
+                if (this.messages[i] == null) {
+                    this.messages[i] = new double[separatorProbs[i].length];
+                }
+                return this.messages[i];
+            }
+        }
+
+        /**
+         * The propagation of cases with a fixed set of evidence nodes and, optionally, a target node. The tree may be a
+         * forest; each of its trees that is needed is handled by a subtree.
+         */
+        private final class Propagation {
+            private final Subtree[] subtrees;
+            private final int targetPosition;
+
+            Propagation(int[] evidence, int target) {
+                Map<Integer, Set<Integer>> hostsByTree = new LinkedHashMap<>();
+                for (int node : evidence) {
+                    int h = nodeHost(node);
+                    hostsByTree.computeIfAbsent(treeRoot(h), k -> new LinkedHashSet<>()).add(h);
+                }
+
+                if (target >= 0) {
+
+                    // Evidence in other trees is independent of the target.
+                    int h = nodeHost(target);
+                    Set<Integer> hosts = hostsByTree.getOrDefault(treeRoot(h), new LinkedHashSet<>());
+                    hosts.add(h);
+                    this.subtrees = new Subtree[]{new Subtree(evidence, hosts, h)};
+                    this.targetPosition = positionIn(h, target);
+                } else {
+                    this.subtrees = hostsByTree.values().stream()
+                            .map(hosts -> new Subtree(evidence, hosts, -1))
+                            .toArray(Subtree[]::new);
+                    this.targetPosition = -1;
+                }
+            }
+
+            /**
+             * Returns the distribution of the target given the evidence values.
+             */
+            double[] conditional(int[] values, Scratch scratch) {
+                Subtree subtree = this.subtrees[0];
+                double[] w = subtree.collect(values, scratch);
+                int i = subtree.order[subtree.order.length - 1];
+                int stride = cliqueStrides[i][this.targetPosition];
+                int dim = cliqueDims[i][this.targetPosition];
+
+                double[] condProbs = new double[dim];
+                for (int e = 0; e < w.length; e++) {
+                    condProbs[(e / stride) % dim] += w[e];
+                }
+                normalize(condProbs);
+
+                return condProbs;
+            }
+
+            /**
+             * Returns the probability of the evidence values.
+             */
+            double joint(int[] values, Scratch scratch) {
+                double prob = 1;
+                for (Subtree subtree : this.subtrees) {
+                    double sum = 0;
+                    for (double p : subtree.collect(values, scratch)) {
+                        sum += p;
+                    }
+                    prob *= sum;
+                }
+
+                return prob;
+            }
+        }
+
+        /**
+         * The cliques connecting some host cliques in one tree, ordered so that messages can be collected toward a
+         * root clique among them.
+         */
+        private final class Subtree {
+
+            /**
+             * The cliques, leaves first; the last is the root.
+             */
+            private final int[] order;
+
+            /**
+             * For each clique in the order but the last, the edge (named by its child clique) to the next clique toward
+             * the root, and whether the clique is the child on that edge.
+             */
+            private final int[] outEdge;
+            private final boolean[] outIsChild;
+
+            /**
+             * For each clique in the order, the edges its incoming messages arrive on, and whether it is the child on
+             * each.
+             */
+            private final int[][] inEdges;
+            private final boolean[][] inIsChild;
+
+            /**
+             * For each clique in the order, the evidence it hosts, as indices into the evidence array and positions in
+             * the clique.
+             */
+            private final int[][] evidenceIndex;
+            private final int[][] evidencePosition;
+
+            /**
+             * @param evidence the evidence nodes
+             * @param hosts    the host cliques to connect, all in the same tree
+             * @param root     the root, one of the hosts, or -1 to use their lowest common ancestor
+             */
+            Subtree(int[] evidence, Set<Integer> hosts, int root) {
+
+                // The cliques on the paths from the hosts to their lowest common ancestor.
+                int top = -1;
+                for (int h : hosts) {
+                    top = top == -1 ? h : commonAncestor(top, h);
+                }
+                Set<Integer> cliques = new HashSet<>();
+                for (int h : hosts) {
+                    for (int i = h; ; i = parent[i]) {
+                        cliques.add(i);
+                        if (i == top) break;
+                    }
+                }
+                if (root == -1) {
+                    root = top;
+                }
+
+                // Breadth-first from the root over these cliques.
+                List<Integer> bfs = new ArrayList<>();
+                Map<Integer, Integer> edgeToRoot = new HashMap<>();
+                Map<Integer, Boolean> isChildToRoot = new HashMap<>();
+                bfs.add(root);
+                for (int k = 0; k < bfs.size(); k++) {
+                    int i = bfs.get(k);
+                    int p = parent[i];
+                    if (p != -1 && p != root && cliques.contains(p) && !edgeToRoot.containsKey(p)) {
+                        bfs.add(p);
+                        edgeToRoot.put(p, i);
+                        isChildToRoot.put(p, false);
+                    }
+                    for (int j : children[i]) {
+                        if (j != root && cliques.contains(j) && !edgeToRoot.containsKey(j)) {
+                            bfs.add(j);
+                            edgeToRoot.put(j, j);
+                            isChildToRoot.put(j, true);
+                        }
+                    }
+                }
+
+                int n = bfs.size();
+                this.order = new int[n];
+                this.outEdge = new int[n];
+                this.outIsChild = new boolean[n];
+                Map<Integer, Integer> position = new HashMap<>();
+                for (int k = 0; k < n; k++) {
+                    int i = bfs.get(n - 1 - k);
+                    this.order[k] = i;
+                    position.put(i, k);
+                    if (i != root) {
+                        this.outEdge[k] = edgeToRoot.get(i);
+                        this.outIsChild[k] = isChildToRoot.get(i);
+                    }
+                }
+
+                List<List<Integer>> inEdges = new ArrayList<>();
+                List<List<Boolean>> inIsChild = new ArrayList<>();
+                for (int k = 0; k < n; k++) {
+                    inEdges.add(new ArrayList<>());
+                    inIsChild.add(new ArrayList<>());
+                }
+                for (int k = 0; k < n - 1; k++) {
+                    int edge = this.outEdge[k];
+                    int receiver = this.outIsChild[k] ? parent[edge] : edge;
+                    int r = position.get(receiver);
+                    inEdges.get(r).add(edge);
+                    inIsChild.get(r).add(!this.outIsChild[k]);
+                }
+                this.inEdges = new int[n][];
+                this.inIsChild = new boolean[n][];
+                for (int k = 0; k < n; k++) {
+                    this.inEdges[k] = inEdges.get(k).stream().mapToInt(Integer::intValue).toArray();
+                    this.inIsChild[k] = new boolean[this.inEdges[k].length];
+                    for (int j = 0; j < this.inEdges[k].length; j++) {
+                        this.inIsChild[k][j] = inIsChild.get(k).get(j);
+                    }
+                }
+
+                this.evidenceIndex = new int[n][];
+                this.evidencePosition = new int[n][];
+                for (int k = 0; k < n; k++) {
+                    List<Integer> indices = new ArrayList<>();
+                    List<Integer> positions = new ArrayList<>();
+                    for (int e = 0; e < evidence.length; e++) {
+                        if (nodeHost(evidence[e]) == this.order[k]) {
+                            indices.add(e);
+                            positions.add(positionIn(this.order[k], evidence[e]));
+                        }
+                    }
+                    this.evidenceIndex[k] = indices.stream().mapToInt(Integer::intValue).toArray();
+                    this.evidencePosition[k] = positions.stream().mapToInt(Integer::intValue).toArray();
+                }
+            }
+
+            /**
+             * Collects messages toward the root and returns its table, which is then the joint distribution of its
+             * nodes and the evidence in this subtree.
+             */
+            double[] collect(int[] values, Scratch scratch) {
+                double[] w = null;
+
+                for (int k = 0; k < this.order.length; k++) {
+                    int i = this.order[k];
+                    w = scratch.work(i);
+                    System.arraycopy(cliqueProbs[i], 0, w, 0, w.length);
+
+                    for (int j = 0; j < this.evidenceIndex[k].length; j++) {
+                        int pos = this.evidencePosition[k][j];
+                        int stride = cliqueStrides[i][pos];
+                        int dim = cliqueDims[i][pos];
+                        int value = values[this.evidenceIndex[k][j]];
+                        for (int e = 0; e < w.length; e++) {
+                            if ((e / stride) % dim != value) {
+                                w[e] = 0;
+                            }
+                        }
+                    }
+
+                    for (int j = 0; j < this.inEdges[k].length; j++) {
+                        int edge = this.inEdges[k][j];
+                        int[] map = this.inIsChild[k][j] ? childToSeparator[edge] : parentToSeparator[edge];
+                        double[] message = scratch.message(edge);
+                        for (int e = 0; e < w.length; e++) {
+                            w[e] *= message[map[e]];
+                        }
+                    }
+
+                    if (k < this.order.length - 1) {
+                        int edge = this.outEdge[k];
+                        int[] map = this.outIsChild[k] ? childToSeparator[edge] : parentToSeparator[edge];
+                        double[] message = scratch.message(edge);
+                        double[] separator = separatorProbs[edge];
+                        Arrays.fill(message, 0);
+                        for (int e = 0; e < w.length; e++) {
+                            message[map[e]] += w[e];
+                        }
+                        for (int s = 0; s < message.length; s++) {
+                            message[s] = separator[s] > 0 ? message[s] / separator[s] : 0;
+                        }
+                    }
+                }
+
+                return w;
+            }
+        }
+
+        private int treeRoot(int clique) {
+            int i = clique;
+            while (this.parent[i] != -1) i = this.parent[i];
+            return i;
+        }
+
+        private int nodeHost(int node) {
+            int i = this.host[node];
+            if (i == -1) {
+                String msg = String.format("Node %s is not in junction tree.", JunctionTreeAlgorithm.this.graphNodes[node].getName());
+                throw new IllegalArgumentException(msg);
+            }
+
+            return i;
+        }
+
+        private int positionIn(int clique, int node) {
+            int[] nodes = this.cliqueNodes[clique];
+            for (int j = 0; j < nodes.length; j++) {
+                if (nodes[j] == node) {
+                    return j;
+                }
+            }
+
+            throw new IllegalStateException("Node not in its host clique.");
+        }
+
+        private int commonAncestor(int a, int b) {
+            while (this.depth[a] > this.depth[b]) a = this.parent[a];
+            while (this.depth[b] > this.depth[a]) b = this.parent[b];
+            while (a != b) {
+                a = this.parent[a];
+                b = this.parent[b];
+            }
+
+            return a;
+        }
+    }
+}
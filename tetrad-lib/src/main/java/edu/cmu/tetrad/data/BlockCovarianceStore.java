@@ -0,0 +1,867 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+//                                                                           //
+// Copyright (C) 2025 by Joseph Ramsey, Peter Spirtes, Clark Glymour,        //
+// and Richard Scheines.                                                     //
+//                                                                           //
+// This program is free software: you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation, either version 3 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.    //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.data;
+
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.util.Matrix;
+import edu.cmu.tetrad.util.NumberFormatUtil;
+import edu.cmu.tetrad.util.TetradLogger;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serial;
+import java.text.NumberFormat;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * A covariance matrix over a data set whose columns are grouped into blocks, for instance the embedded columns of the
+ * variables of a mixed data set (see {@code Embedding}), where each discrete variable becomes a block of 0/1 indicator
+ * columns. Covariances are stored by block: each block's own covariance matrix is computed up front, and the cross
+ * covariances of pairs of blocks are computed lazily (in parallel when a selection needs several of them) and kept for
+ * reuse. Selections are assembled directly from the stored blocks.
+ * <p>
+ * Blocks of indicator columns (every value 0 or 1, at most one 1 per row) are stored as a single code per row rather
+ * than as columns, and their covariances are computed from category counts and per-category sums, which costs one pass
+ * over the rows per block pair instead of one per column pair.
+ * <p>
+ * The number of cached covariance entries is capped; once the cap is reached, further blocks are computed on the fly
+ * for each request and not stored.
+ * <p>
+ * The covariances are unbiased (divided by N - 1). The data may not contain missing values.
+ *
+ * @author josephramsey
+ * @version $Id: $Id
+ * @see CovarianceMatrixOnTheFly
+ */
+public class BlockCovarianceStore implements ICovarianceMatrix {
+    @Serial
+    private static final long serialVersionUID = 23L;
+
+    /**
+     * The default maximum number of covariance entries to cache.
+     */
+    public static final long DEFAULT_MAX_CACHED_ENTRIES = 25_000_000L;
+
+    /**
+     * The variables (columns), in order.
+     */
+    private List<Node> variables;
+    /**
+     * The sample size reported to callers; may be set to an effective sample size.
+     */
+    private int sampleSize;
+    /**
+     * The number of data rows the covariances are computed over.
+     */
+    private final int numRows;
+    /**
+     * The name of the covariance matrix.
+     */
+    private String name;
+    /**
+     * The knowledge for this data.
+     */
+    private Knowledge knowledge = new Knowledge();
+    /**
+     * The list of selected variables.
+     */
+    private final Set<Node> selectedVariables = new HashSet<>();
+    /**
+     * The columns of each block.
+     */
+    private final int[][] blocks;
+    /**
+     * The block of each column.
+     */
+    private final int[] blockOf;
+    /**
+     * The position of each column in its block.
+     */
+    private final int[] posInBlock;
+    /**
+     * Mean-centered values of each column in a dense block; null for columns in indicator blocks.
+     */
+    private final double[][] centered;
+    /**
+     * For each indicator block, the position of the column that is 1 in each row, or -1 if none is; null for dense
+     * blocks.
+     */
+    private final int[][] codes;
+    /**
+     * For each indicator block, the number of rows for which each column is 1; null for dense blocks.
+     */
+    private final int[][] counts;
+    /**
+     * The maximum number of covariance entries to cache.
+     */
+    private final long maxCachedEntries;
+    /**
+     * Cached blocks, keyed by block pair (a, b) with a &lt;= b.
+     */
+    private transient Map<Long, double[][]> cache;
+    /**
+     * The number of covariance entries currently cached.
+     */
+    private transient AtomicLong numCachedEntries;
+
+    /**
+     * Constructs a store for the given continuous data set and blocks, with the default cap on cached entries.
+     *
+     * @param dataSet The data set; must be continuous with no missing values.
+     * @param blocks  The column indices of each block. Every column must be in exactly one block.
+     */
+    public BlockCovarianceStore(DataSet dataSet, List<List<Integer>> blocks) {
+        this(dataSet, blocks, DEFAULT_MAX_CACHED_ENTRIES);
+    }
+
+    /**
+     * Constructs a store for the given continuous data set and blocks. Each block's own covariance matrix is computed
+     * here, in parallel.
+     *
+     * @param dataSet          The data set; must be continuous with no missing values.
+     * @param blocks           The column indices of each block. Every column must be in exactly one block.
+     * @param maxCachedEntries The maximum number of covariance entries to cache; blocks beyond this are computed on
+     *                         the fly.
+     */
+    public BlockCovarianceStore(DataSet dataSet, List<List<Integer>> blocks, long maxCachedEntries) {
+        if (dataSet == null) throw new NullPointerException("Data set must not be null.");
+        if (blocks == null) throw new NullPointerException("Blocks must not be null.");
+        if (!dataSet.isContinuous()) throw new IllegalArgumentException("Not a continuous data set.");
+        if (dataSet.existsMissingValue()) throw new IllegalArgumentException("Missing values are not supported.");
+        if (maxCachedEntries < 0) throw new IllegalArgumentException("Max cached entries must be >= 0.");
+
+        int n = dataSet.getNumRows();
+        int p = dataSet.getNumColumns();
+
+        this.variables = Collections.unmodifiableList(dataSet.getVariables());
+        this.sampleSize = n;
+        this.numRows = n;
+        this.maxCachedEntries = maxCachedEntries;
+
+        this.blocks = new int[blocks.size()][];
+        this.blockOf = new int[p];
+        this.posInBlock = new int[p];
+        Arrays.fill(this.blockOf, -1);
+
+        for (int b = 0; b < blocks.size(); b++) {
+            List<Integer> block = blocks.get(b);
+            this.blocks[b] = new int[block.size()];
+
+            for (int k = 0; k < block.size(); k++) {
+                int col = block.get(k);
+
+                if (col < 0 || col >= p) {
+                    throw new IllegalArgumentException("Block " + b + " references column " + col + " outside data width " + p);
+                }
+
+                if (this.blockOf[col] != -1) {
+                    throw new IllegalArgumentException("Column " + col + " is in more than one block.");
+                }
+
+                this.blocks[b][k] = col;
+                this.blockOf[col] = b;
+                this.posInBlock[col] = k;
+            }
+        }
+
+        for (int col = 0; col < p; col++) {
+            if (this.blockOf[col] == -1) throw new IllegalArgumentException("Column " + col + " is not in any block.");
+        }
+
+        this.centered = new double[p][];
+        this.codes = new int[this.blocks.length][];
+        this.counts = new int[this.blocks.length][];
+
+        IntStream.range(0, this.blocks.length).parallel().forEach(b -> {
+            int[] indicatorCodes = indicatorCodes(dataSet, this.blocks[b]);
+
+            if (indicatorCodes != null) {
+                int[] c = new int[this.blocks[b].length];
+                for (int code : indicatorCodes) if (code >= 0) c[code]++;
+                this.codes[b] = indicatorCodes;
+                this.counts[b] = c;
+            } else {
+                for (int col : this.blocks[b]) {
+                    double[] x = new double[n];
+                    double mean = 0.0;
+
+                    for (int i = 0; i < n; i++) {
+                        x[i] = dataSet.getDouble(i, col);
+                        mean += x[i];
+                    }
+
+                    mean /= n;
+                    for (int i = 0; i < n; i++) x[i] -= mean;
+                    this.centered[col] = x;
+                }
+            }
+        });
+
+        initCache();
+
+        // Each variable's own block is precomputed.
+        IntStream.range(0, this.blocks.length).parallel().forEach(b -> getBlock(b, b));
+    }
+
+    /**
+     * Constructs a copy of the given store. The data and computed blocks, which are never modified, are shared; the
+     * variables, sample size, name, knowledge and selection are the copy's own.
+     *
+     * @param store The store to copy.
+     */
+    private BlockCovarianceStore(BlockCovarianceStore store) {
+        this.variables = store.variables;
+        this.sampleSize = store.sampleSize;
+        this.numRows = store.numRows;
+        this.name = store.name;
+        this.knowledge = store.knowledge.copy();
+        this.selectedVariables.addAll(store.selectedVariables);
+        this.blocks = store.blocks;
+        this.blockOf = store.blockOf;
+        this.posInBlock = store.posInBlock;
+        this.centered = store.centered;
+        this.codes = store.codes;
+        this.counts = store.counts;
+        this.maxCachedEntries = store.maxCachedEntries;
+
+        initCache();
+        this.cache.putAll(store.cache);
+        this.numCachedEntries.set(store.numCachedEntries.get());
+    }
+
+    /**
+     * Generates a simple exemplar of this class to test serialization.
+     *
+     * @return a {@link BlockCovarianceStore} object
+     */
+    public static BlockCovarianceStore serializableInstance() {
+        List<Node> variables = new ArrayList<>();
+        variables.add(new ContinuousVariable("X"));
+        DataSet dataSet = new BoxDataSet(new DoubleDataBox(new double[][]{{1.0}, {2.0}}), variables);
+        return new BlockCovarianceStore(dataSet, List.of(List.of(0)));
+    }
+
+    // Returns the indicator code for each row if the block's columns are 0/1 with at most one 1 per row, else null.
+    private static int[] indicatorCodes(DataSet dataSet, int[] block) {
+        int n = dataSet.getNumRows();
+        int[] codes = new int[n];
+        Arrays.fill(codes, -1);
+
+        for (int k = 0; k < block.length; k++) {
+            for (int i = 0; i < n; i++) {
+                double v = dataSet.getDouble(i, block[k]);
+
+                if (v == 1.0) {
+                    if (codes[i] != -1) return null;
+                    codes[i] = k;
+                } else if (v != 0.0) {
+                    return null;
+                }
+            }
+        }
+
+        return codes;
+    }
+
+    /**
+     * Computes and caches the cross covariances of all pairs of blocks, in parallel, up to the cap on cached entries.
+     */
+    public void precomputeAll() {
+        int numBlocks = this.blocks.length;
+
+        IntStream.range(0, numBlocks).parallel().forEach(a -> {
+            for (int b = a; b < numBlocks; b++) {
+                if (this.numCachedEntries.get() >= this.maxCachedEntries) return;
+                getBlock(a, b);
+            }
+        });
+    }
+
+    /**
+     * Returns the number of covariance entries currently cached.
+     *
+     * @return This number.
+     */
+    public long getNumCachedEntries() {
+        return this.numCachedEntries.get();
+    }
+
+    /**
+     * Returns the covariance block for the given pair of blocks, as a (size of a) x (size of b) array. The array is
+     * shared with the cache and must not be modified.
+     *
+     * @param a The first block.
+     * @param b The second block.
+     * @return The block of covariances.
+     */
+    public double[][] getBlock(int a, int b) {
+        if (a > b) return transpose(getBlock(b, a));
+
+        long key = key(a, b);
+        double[][] block = this.cache.get(key);
+        if (block != null) return block;
+
+        block = computeBlock(a, b);
+        long size = (long) this.blocks[a].length * this.blocks[b].length;
+
+        if (this.numCachedEntries.addAndGet(size) <= this.maxCachedEntries) {
+            double[][] existing = this.cache.putIfAbsent(key, block);
+
+            if (existing != null) {
+                this.numCachedEntries.addAndGet(-size);
+                return existing;
+            }
+        } else {
+            this.numCachedEntries.addAndGet(-size);
+        }
+
+        return block;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Matrix getSelection(int[] rows, int[] cols) {
+        Map<Long, double[][]> blocks = collectBlocks(rows, cols);
+        Matrix m = new Matrix(rows.length, cols.length);
+        boolean symmetric = Arrays.equals(rows, cols);
+
+        for (int i = 0; i < rows.length; i++) {
+            for (int j = symmetric ? i : 0; j < cols.length; j++) {
+                double value = lookup(blocks, rows[i], cols[j]);
+                m.set(i, j, value);
+                if (symmetric) m.set(j, i, value);
+            }
+        }
+
+        return m;
+    }
+
+    // Gathers the blocks needed for a selection, computing missing ones in parallel if there are several.
+    private Map<Long, double[][]> collectBlocks(int[] rows, int[] cols) {
+        Set<Long> needed = new HashSet<>();
+
+        for (int r : rows) {
+            for (int c : cols) {
+                int a = this.blockOf[r];
+                int b = this.blockOf[c];
+                needed.add(key(Math.min(a, b), Math.max(a, b)));
+            }
+        }
+
+        Map<Long, double[][]> blocks = new ConcurrentHashMap<>();
+        List<Long> missing = new ArrayList<>();
+
+        for (long key : needed) {
+            double[][] block = this.cache.get(key);
+            if (block != null) blocks.put(key, block);
+            else missing.add(key);
+        }
+
+        if (missing.size() > 1) {
+            missing.parallelStream().forEach(key -> blocks.put(key, getBlock(first(key), second(key))));
+        } else {
+            for (long key : missing) blocks.put(key, getBlock(first(key), second(key)));
+        }
+
+        return blocks;
+    }
+
+    private double lookup(Map<Long, double[][]> blocks, int i, int j) {
+        int a = this.blockOf[i];
+        int b = this.blockOf[j];
+
+        if (a <= b) {
+            return blocks.get(key(a, b))[this.posInBlock[i]][this.posInBlock[j]];
+        } else {
+            return blocks.get(key(b, a))[this.posInBlock[j]][this.posInBlock[i]];
+        }
+    }
+
+    private double[][] computeBlock(int a, int b) {
+        int n = this.numRows;
+        int[] colsA = this.blocks[a];
+        int[] colsB = this.blocks[b];
+        double[][] cov;
+
+        if (this.codes[a] != null && this.codes[b] != null) {
+            cov = indicatorIndicator(a, b);
+        } else if (this.codes[a] != null) {
+            cov = indicatorDense(a, colsB);
+        } else if (this.codes[b] != null) {
+            cov = transpose(indicatorDense(b, colsA));
+        } else {
+            cov = new double[colsA.length][colsB.length];
+
+            for (int i = 0; i < colsA.length; i++) {
+                for (int j = (a == b ? i : 0); j < colsB.length; j++) {
+                    double[] x = this.centered[colsA[i]];
+                    double[] y = this.centered[colsB[j]];
+                    double sum = 0.0;
+                    for (int k = 0; k < n; k++) sum += x[k] * y[k];
+                    cov[i][j] = sum / (n - 1);
+                    if (a == b) cov[j][i] = cov[i][j];
+                }
+            }
+        }
+
+        return cov;
+    }
+
+    // cov(I_c, y) = sum_{rows in c} (y - mean(y)) / (N - 1).
+    private double[][] indicatorDense(int a, int[] denseCols) {
+        int n = this.numRows;
+        int[] code = this.codes[a];
+        double[][] cov = new double[this.blocks[a].length][denseCols.length];
+
+        for (int j = 0; j < denseCols.length; j++) {
+            double[] y = this.centered[denseCols[j]];
+
+            for (int k = 0; k < n; k++) {
+                if (code[k] >= 0) cov[code[k]][j] += y[k];
+            }
+        }
+
+        for (double[] row : cov) {
+            for (int j = 0; j < row.length; j++) row[j] /= n - 1;
+        }
+
+        return cov;
+    }
+
+    // cov(I_c, I_d) = (N_cd - N_c N_d / N) / (N - 1).
+    private double[][] indicatorIndicator(int a, int b) {
+        int n = this.numRows;
+        int[] countsA = this.counts[a];
+        int[] countsB = this.counts[b];
+        double[][] cov = new double[countsA.length][countsB.length];
+
+        if (a == b) {
+            for (int c = 0; c < countsA.length; c++) cov[c][c] = countsA[c];
+        } else {
+            int[] codeA = this.codes[a];
+            int[] codeB = this.codes[b];
+
+            for (int k = 0; k < n; k++) {
+                if (codeA[k] >= 0 && codeB[k] >= 0) cov[codeA[k]][codeB[k]]++;
+            }
+        }
+
+        for (int c = 0; c < countsA.length; c++) {
+            for (int d = 0; d < countsB.length; d++) {
+                cov[c][d] = (cov[c][d] - (double) countsA[c] * countsB[d] / n) / (n - 1);
+            }
+        }
+
+        return cov;
+    }
+
+    private static double[][] transpose(double[][] m) {
+        int rows = m.length;
+        int cols = rows == 0 ? 0 : m[0].length;
+        double[][] t = new double[cols][rows];
+
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) t[j][i] = m[i][j];
+        }
+
+        return t;
+    }
+
+    private long key(int a, int b) {
+        return (long) a * this.blocks.length + b;
+    }
+
+    private int first(long key) {
+        return (int) (key / this.blocks.length);
+    }
+
+    private int second(long key) {
+        return (int) (key % this.blocks.length);
+    }
+
+    private void initCache() {
+        this.cache = new ConcurrentHashMap<>();
+        this.numCachedEntries = new AtomicLong();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final double getValue(int i, int j) {
+        int a = this.blockOf[i];
+        int b = this.blockOf[j];
+
+        if (a <= b) {
+            return getBlock(a, b)[this.posInBlock[i]][this.posInBlock[j]];
+        } else {
+            return getBlock(b, a)[this.posInBlock[j]][this.posInBlock[i]];
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final List<Node> getVariables() {
+        return this.variables;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setVariables(List<Node> variables) {
+        if (variables.size() != this.variables.size()) throw new IllegalArgumentException("Wrong # of variables.");
+        this.variables = variables;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final List<String> getVariableNames() {
+        List<String> names = new ArrayList<>();
+        for (Node variable : getVariables()) names.add(variable.getName());
+        return names;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final String getVariableName(int index) {
+        if (index >= getVariables().size()) {
+            throw new IllegalArgumentException("Index out of range: " + index);
+        }
+
+        return getVariables().get(index).getName();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final int getDimension() {
+        return this.variables.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final int getSampleSize() {
+        return this.sampleSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void setSampleSize(int sampleSize) {
+        if (sampleSize <= 0) {
+            throw new IllegalArgumentException("Sample size must be > 0.");
+        }
+
+        this.sampleSize = sampleSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final String getName() {
+        return this.name;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final Knowledge getKnowledge() {
+        return this.knowledge.copy();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void setKnowledge(Knowledge knowledge) {
+        if (knowledge == null) throw new NullPointerException();
+        this.knowledge = knowledge.copy();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final ICovarianceMatrix getSubmatrix(int[] indices) {
+        List<Node> submatrixVars = new ArrayList<>();
+        for (int index : indices) submatrixVars.add(this.variables.get(index));
+        return new CovarianceMatrix(submatrixVars, getSelection(indices, indices), getSampleSize());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final ICovarianceMatrix getSubmatrix(List<String> submatrixVarNames) {
+        return getSubmatrix(submatrixVarNames.toArray(new String[0]));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final ICovarianceMatrix getSubmatrix(String[] submatrixVarNames) {
+        List<String> names = getVariableNames();
+        int[] indices = new int[submatrixVarNames.length];
+
+        for (int i = 0; i < submatrixVarNames.length; i++) {
+            indices[i] = names.indexOf(submatrixVarNames[i]);
+
+            if (indices[i] == -1) {
+                throw new IllegalArgumentException("Variable " + submatrixVarNames[i] + " is not in this matrix.");
+            }
+        }
+
+        return getSubmatrix(indices);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final int getSize() {
+        return getVariables().size();
+    }
+
+    /**
+     * Returns the full covariance matrix, assembled from the blocks. This computes every block.
+     *
+     * @return a copy of the covariance matrix.
+     */
+    @Override
+    public final Matrix getMatrix() {
+        int[] all = new int[getDimension()];
+        for (int i = 0; i < all.length; i++) all[i] = i;
+        return getSelection(all, all);
+    }
+
+    /**
+     * The blocks are computed from the data and may not be set.
+     *
+     * @param matrix Ignored.
+     * @throws UnsupportedOperationException Always.
+     */
+    @Override
+    public void setMatrix(Matrix matrix) {
+        throw new UnsupportedOperationException("The covariances of a block store are computed from data.");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void select(Node variable) {
+        if (this.variables.contains(variable)) {
+            this.selectedVariables.add(variable);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void clearSelection() {
+        this.selectedVariables.clear();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final boolean isSelected(Node variable) {
+        if (variable == null) {
+            throw new NullPointerException("Null variable. Try again.");
+        }
+
+        return this.selectedVariables.contains(variable);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final List<String> getSelectedVariableNames() {
+        List<String> selectedVariableNames = new LinkedList<>();
+        for (Node variable : this.selectedVariables) selectedVariableNames.add(variable.getName());
+        return selectedVariableNames;
+    }
+
+    /**
+     * Prints out the matrix.
+     *
+     * @return a {@link java.lang.String} object
+     */
+    @Override
+    public final String toString() {
+        NumberFormat nf = NumberFormatUtil.getInstance().getNumberFormat();
+        StringBuilder buf = new StringBuilder();
+        int numVars = getVariableNames().size();
+
+        buf.append(getSampleSize()).append("\n");
+
+        for (int i = 0; i < numVars; i++) {
+            buf.append(getVariableNames().get(i)).append("\t");
+        }
+
+        buf.append("\n");
+
+        for (int j = 0; j < numVars; j++) {
+            for (int i = 0; i <= j; i++) {
+                buf.append(nf.format(getValue(i, j))).append("\t");
+            }
+
+            buf.append("\n");
+        }
+
+        return buf.toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Node getVariable(String name) {
+        for (Node variable : getVariables()) {
+            if (name.equals(variable.getName())) {
+                return variable;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DataModel copy() {
+        return new BlockCovarianceStore(this);
+    }
+
+    /**
+     * The covariances of a block store are computed from data and may not be set.
+     *
+     * @param i Ignored.
+     * @param j Ignored.
+     * @param v Ignored.
+     */
+    @Override
+    public void setValue(int i, int j, double v) {
+        throw new IllegalArgumentException();
+    }
+
+    /**
+     * Not supported; take a submatrix instead.
+     *
+     * @param remaining Ignored.
+     */
+    @Override
+    public void removeVariables(List<String> remaining) {
+        throw new UnsupportedOperationException("Take a submatrix of a block store instead.");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isContinuous() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isDiscrete() {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isMixed() {
+        return false;
+    }
+
+    /**
+     * Writes the object to the specified ObjectOutputStream.
+     *
+     * @param out The ObjectOutputStream to write the object to.
+     * @throws IOException If an I/O error occurs.
+     */
+    @Serial
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        try {
+            out.defaultWriteObject();
+        } catch (IOException e) {
+            TetradLogger.getInstance().log("Failed to serialize object: " + getClass().getCanonicalName()
+                                           + ", " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the object from the specified ObjectInputStream. The block cache is not serialized and is rebuilt lazily.
+     *
+     * @param in The ObjectInputStream to read the object from.
+     * @throws IOException            If an I/O error occurs.
+     * @throws ClassNotFoundException If the class of the serialized object cannot be found.
+     */
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        try {
+            in.defaultReadObject();
+            initCache();
+        } catch (IOException e) {
+            TetradLogger.getInstance().log("Failed to deserialize object: " + getClass().getCanonicalName()
+                                           + ", " + e.getMessage());
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+//                                                                           //
+// Copyright (C) 2025 by Joseph Ramsey, Peter Spirtes, Clark Glymour,        //
+// and Richard Scheines.                                                     //
+//                                                                           //
+// This program is free software: you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation, either version 3 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.    //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.data;
+
+import edu.cmu.tetrad.graph.Node;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A read-through view of several data sets stacked vertically. Rows are numbered consecutively across the data sets,
+ * in list order; columns are the given variables, looked up by name in each data set. No data is copied, so a
+ * concatenation of many large data sets costs only the per-set column maps. Setting a value writes through to the
+ * underlying data set.
+ * <p>
+ * The row counts of the data sets are fixed when the view is constructed.
+ *
+ * @author josephramsey
+ * @see DataTransforms#concatenateView(List)
+ */
+public class ConcatenatedDataBox implements DataBox {
+
+    @Serial
+    private static final long serialVersionUID = 23L;
+
+    /**
+     * The stacked data sets.
+     */
+    private final List<DataSet> dataSets;
+
+    /**
+     * The variables of the view.
+     */
+    private final List<Node> variables;
+
+    /**
+     * For each data set, the column in that data set of each variable of the view.
+     */
+    private final int[][] columns;
+
+    /**
+     * offsets[s] is the first row of data set s; offsets[dataSets.size()] is the total number of rows.
+     */
+    private final int[] offsets;
+
+    /**
+     * Constructs a view of the given data sets, which must each contain a variable with the name of each given
+     * variable.
+     *
+     * @param dataSets  the data sets, in stacking order.
+     * @param variables the variables of the view.
+     * @throws IllegalArgumentException if some data set is missing one of the variables.
+     */
+    public ConcatenatedDataBox(List<DataSet> dataSets, List<Node> variables) {
+        if (dataSets == null) {
+            throw new NullPointerException("Data sets must not be null.");
+        }
+
+        if (variables == null) {
+            throw new NullPointerException("Variables must not be null.");
+        }
+
+        this.dataSets = new ArrayList<>(dataSets);
+        this.variables = new ArrayList<>(variables);
+        this.columns = new int[this.dataSets.size()][variables.size()];
+        this.offsets = new int[this.dataSets.size() + 1];
+
+        for (int s = 0; s < this.dataSets.size(); s++) {
+            DataSet dataSet = this.dataSets.get(s);
+
+            for (int j = 0; j < variables.size(); j++) {
+                Node variable = dataSet.getVariable(variables.get(j).getName());
+
+                if (variable == null) {
+                    throw new IllegalArgumentException("Variable " + variables.get(j).getName()
+                                                       + " is not in data set " + s + ".");
+                }
+
+                this.columns[s][j] = dataSet.getColumn(variable);
+            }
+
+            this.offsets[s + 1] = this.offsets[s] + dataSet.getNumRows();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int numRows() {
+        return this.offsets[this.dataSets.size()];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int numCols() {
+        return this.variables.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void set(int row, int col, Number value) throws IllegalArgumentException {
+        int s = dataSetIndex(row);
+        DataSet dataSet = this.dataSets.get(s);
+        int r = row - this.offsets[s];
+        int c = this.columns[s][col];
+
+        if (this.variables.get(col) instanceof DiscreteVariable) {
+            dataSet.setInt(r, c, value == null ? -99 : value.intValue());
+        } else {
+            dataSet.setDouble(r, c, value == null ? Double.NaN : value.doubleValue());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Number get(int row, int col) {
+        int s = dataSetIndex(row);
+        DataSet dataSet = this.dataSets.get(s);
+        int r = row - this.offsets[s];
+        int c = this.columns[s][col];
+
+        if (this.variables.get(col) instanceof DiscreteVariable) {
+            int v = dataSet.getInt(r, c);
+            return v == -99 ? null : v;
+        } else {
+            double v = dataSet.getDouble(r, c);
+            return Double.isNaN(v) ? null : v;
+        }
+    }
+
+    /**
+     * Returns a materialized copy of this view.
+     *
+     * @return a copy of the data.
+     */
+    @Override
+    public DataBox copy() {
+        int[] rows = new int[numRows()];
+        int[] cols = new int[numCols()];
+
+        for (int i = 0; i < rows.length; i++) rows[i] = i;
+        for (int j = 0; j < cols.length; j++) cols[j] = j;
+
+        return viewSelection(rows, cols);
+    }
+
+    /**
+     * Returns a materialized copy of the given rows and columns of this view.
+     *
+     * @param rows the row indices.
+     * @param cols the column indices.
+     * @return the selected data.
+     */
+    @Override
+    public DataBox viewSelection(int[] rows, int[] cols) {
+        List<Node> selected = new ArrayList<>();
+        for (int col : cols) selected.add(this.variables.get(col));
+
+        DataBox box = new MixedDataBox(selected, rows.length);
+
+        for (int i = 0; i < rows.length; i++) {
+            for (int j = 0; j < cols.length; j++) {
+                box.set(i, j, get(rows[i], cols[j]));
+            }
+        }
+
+        return box;
+    }
+
+    /**
+     * Returns an empty data box with the dimensions and variable types of this view.
+     *
+     * @return a new data box.
+     */
+    @Override
+    public DataBox like() {
+        return new MixedDataBox(this.variables, numRows());
+    }
+
+    /**
+     * Returns the number of stacked data sets.
+     *
+     * @return the number of data sets.
+     */
+    public int getNumDataSets() {
+        return this.dataSets.size();
+    }
+
+    /**
+     * Returns the index of the data set holding the given row, skipping empty data sets.
+     */
+    private int dataSetIndex(int row) {
+        if (row < 0 || row >= numRows()) {
+            throw new IllegalArgumentException("Row out of range: " + row);
+        }
+
+        int lo = 0;
+        int hi = this.dataSets.size() - 1;
+
+        // Largest s with offsets[s] <= row.
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+
+            if (this.offsets[mid] <= row) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+
+        return lo;
+    }
+}
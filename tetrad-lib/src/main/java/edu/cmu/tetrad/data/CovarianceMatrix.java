@@ -92,9 +92,17 @@ public class CovarianceMatrix implements ICovarianceMatrix {
             throw new IllegalArgumentException("Not a continuous data set.");
         }
 
-        CovariancesDoubleForkJoin covariances = new CovariancesDoubleForkJoin(dataSet.getDoubleData().toArray(), biasCorrected);
         this.variables = Collections.unmodifiableList(dataSet.getVariables());
         this.sampleSize = dataSet.getNumRows();
+
+        // A lagged view's covariances come from the series' autocovariances, without materializing the lags.
+        if (dataSet instanceof BoxDataSet box && box.getDataBox() instanceof LaggedDataBox lagged
+            && lagged.isCovarianceAvailable()) {
+            this._covariancesMatrix = new Matrix(lagged.getCovariances(biasCorrected));
+            return;
+        }
+
+        CovariancesDoubleForkJoin covariances = new CovariancesDoubleForkJoin(dataSet.getDoubleData().toArray(), biasCorrected);
         this._covariancesMatrix = new Matrix(covariances.getMatrix());
     }
 
@@ -329,6 +329,23 @@ public class DataTransforms {
         return new BoxDataSet(new VerticalDoubleDataBox(allData.transpose().toArray()), dataSets.getFirst().getVariables());
     }
 
+    /**
+     * Returns a view of the given data sets stacked vertically, over the variables of the first. Unlike concatenate,
+     * no data is copied; see ConcatenatedDataBox. For pooled covariances over many data sets, see PooledCovariances,
+     * which avoids reading the view row by row.
+     *
+     * @param dataSets the data sets; each must contain the variables of the first, by name.
+     * @return the concatenated view.
+     */
+    public static DataSet concatenateView(List<DataSet> dataSets) {
+        if (dataSets == null || dataSets.isEmpty()) {
+            throw new IllegalArgumentException("Need at least one data set.");
+        }
+
+        List<Node> variables = new ArrayList<>(dataSets.getFirst().getVariables());
+        return new BoxDataSet(new ConcatenatedDataBox(dataSets, variables), variables);
+    }
+
     /**
      * <p>restrictToMeasured.</p>
      *
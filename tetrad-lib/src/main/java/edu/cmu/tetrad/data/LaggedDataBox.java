@@ -0,0 +1,326 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+//                                                                           //
+// Copyright (C) 2025 by Joseph Ramsey, Peter Spirtes, Clark Glymour,        //
+// and Richard Scheines.                                                     //
+//                                                                           //
+// This program is free software: you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation, either version 3 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.    //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.data;
+
+import edu.cmu.tetrad.graph.Node;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * A read-through view of a time series with lagged copies of its columns, laid out as in TsUtils.createLagData: column
+ * lag * p + j holds variable j at the given lag, and row r of the view is time r + numLags of the series. No data is
+ * copied, so the view costs nothing beyond the series itself, however many lags are taken. Setting a value writes
+ * through to the series, which changes the same observation in every lagged column that shows it.
+ * <p>
+ * Covariances over the view are assembled from the lagged autocovariances of the series (a block-Toeplitz structure),
+ * computed once per lag, rather than from the (numLags + 1) * p lagged columns; see {@link #getCovariances(boolean)}.
+ * CovarianceMatrix uses this automatically for data sets backed by this box.
+ *
+ * @author josephramsey
+ * @see edu.cmu.tetrad.search.utils.TsUtils#createLagDataView(DataSet, int)
+ */
+public class LaggedDataBox implements DataBox {
+
+    @Serial
+    private static final long serialVersionUID = 23L;
+
+    /**
+     * The time series.
+     */
+    private final DataSet series;
+
+    /**
+     * The number of lags.
+     */
+    private final int numLags;
+
+    /**
+     * The lagged variables, numLags + 1 blocks of the series' columns.
+     */
+    private final List<Node> variables;
+
+    /**
+     * Constructs a view of the given series with the given number of lags.
+     *
+     * @param series    the time series.
+     * @param numLags   the number of lags; must be nonnegative and less than the number of rows of the series.
+     * @param variables the lagged variables, (numLags + 1) * p of them, lag by lag, where p is the number of columns
+     *                  of the series.
+     * @throws IllegalArgumentException if the number of lags or the number of variables is wrong.
+     */
+    public LaggedDataBox(DataSet series, int numLags, List<Node> variables) {
+        if (series == null) {
+            throw new NullPointerException("Series must not be null.");
+        }
+
+        if (variables == null) {
+            throw new NullPointerException("Variables must not be null.");
+        }
+
+        if (numLags < 0 || numLags >= series.getNumRows()) {
+            throw new IllegalArgumentException("Number of lags must be in [0, " + series.getNumRows() + "): "
+                                               + numLags);
+        }
+
+        if (variables.size() != (numLags + 1) * series.getNumColumns()) {
+            throw new IllegalArgumentException("Expecting " + (numLags + 1) * series.getNumColumns()
+                                               + " lagged variables: " + variables.size());
+        }
+
+        this.series = series;
+        this.numLags = numLags;
+        this.variables = new ArrayList<>(variables);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int numRows() {
+        return this.series.getNumRows() - this.numLags;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int numCols() {
+        return this.variables.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void set(int row, int col, Number value) throws IllegalArgumentException {
+        int r = seriesRow(row, col);
+        int c = col % this.series.getNumColumns();
+
+        if (this.variables.get(col) instanceof DiscreteVariable) {
+            this.series.setInt(r, c, value == null ? -99 : value.intValue());
+        } else {
+            this.series.setDouble(r, c, value == null ? Double.NaN : value.doubleValue());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Number get(int row, int col) {
+        int r = seriesRow(row, col);
+        int c = col % this.series.getNumColumns();
+
+        if (this.variables.get(col) instanceof DiscreteVariable) {
+            int v = this.series.getInt(r, c);
+            return v == -99 ? null : v;
+        } else {
+            double v = this.series.getDouble(r, c);
+            return Double.isNaN(v) ? null : v;
+        }
+    }
+
+    /**
+     * Returns a materialized copy of this view.
+     *
+     * @return a copy of the data.
+     */
+    @Override
+    public DataBox copy() {
+        int[] rows = new int[numRows()];
+        int[] cols = new int[numCols()];
+
+        for (int i = 0; i < rows.length; i++) rows[i] = i;
+        for (int j = 0; j < cols.length; j++) cols[j] = j;
+
+        return viewSelection(rows, cols);
+    }
+
+    /**
+     * Returns a materialized copy of the given rows and columns of this view.
+     *
+     * @param rows the row indices.
+     * @param cols the column indices.
+     * @return the selected data.
+     */
+    @Override
+    public DataBox viewSelection(int[] rows, int[] cols) {
+        List<Node> selected = new ArrayList<>();
+        for (int col : cols) selected.add(this.variables.get(col));
+
+        DataBox box = new MixedDataBox(selected, rows.length);
+
+        for (int i = 0; i < rows.length; i++) {
+            for (int j = 0; j < cols.length; j++) {
+                box.set(i, j, get(rows[i], cols[j]));
+            }
+        }
+
+        return box;
+    }
+
+    /**
+     * Returns an empty data box with the dimensions and variable types of this view.
+     *
+     * @return a new data box.
+     */
+    @Override
+    public DataBox like() {
+        return new MixedDataBox(this.variables, numRows());
+    }
+
+    /**
+     * Returns the number of lags.
+     *
+     * @return the number of lags.
+     */
+    public int getNumLags() {
+        return this.numLags;
+    }
+
+    /**
+     * Returns the time series this is a view of.
+     *
+     * @return the series.
+     */
+    public DataSet getSeries() {
+        return this.series;
+    }
+
+    /**
+     * Returns true if the series is continuous and has no missing values, in which case getCovariances may be called.
+     *
+     * @return true if covariances can be computed from the series.
+     */
+    public boolean isCovarianceAvailable() {
+        if (!this.series.isContinuous()) {
+            return false;
+        }
+
+        for (int t = 0; t < this.series.getNumRows(); t++) {
+            for (int j = 0; j < this.series.getNumColumns(); j++) {
+                if (Double.isNaN(this.series.getDouble(t, j))) return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the covariance matrix of the columns of this view, equal (up to rounding) to the covariance matrix of the
+     * materialized lagged data. Column (l, a) of the view at row r is x_a(r + L - l), so the cross-product of columns
+     * (l, a) and (m, b), l &lt;= m, is a window of the lag-(m - l) cross-product of series a and b. The full-series
+     * cross-products are computed once for each lag 0..L, in O(n p^2 L) time for n rows and p variables, and each
+     * window is then obtained by subtracting at most L edge terms. The series is centered on its own means first for
+     * accuracy.
+     *
+     * @param biasCorrected true to divide by N - 1 rather than N, where N is the number of rows of the view.
+     * @return the covariance matrix, (L + 1) p square.
+     * @throws IllegalStateException if the series is not continuous or has missing values.
+     */
+    public double[][] getCovariances(boolean biasCorrected) {
+        if (!isCovarianceAvailable()) {
+            throw new IllegalStateException("Lagged covariances need a continuous series without missing values.");
+        }
+
+        int n = this.series.getNumRows();
+        int p = this.series.getNumColumns();
+        int L = this.numLags;
+        int N = n - L;
+
+        double[][] x = new double[p][n];
+
+        for (int a = 0; a < p; a++) {
+            double mean = 0.0;
+            for (int t = 0; t < n; t++) mean += this.series.getDouble(t, a);
+            mean /= n;
+
+            for (int t = 0; t < n; t++) x[a][t] = this.series.getDouble(t, a) - mean;
+        }
+
+        // s[k][a][b] = sum over t = k..n-1 of x_a(t) x_b(t - k).
+        double[][][] s = new double[L + 1][p][p];
+
+        IntStream.range(0, (L + 1) * p).parallel().forEach(ka -> {
+            int k = ka / p;
+            int a = ka % p;
+            double[] xa = x[a];
+
+            for (int b = 0; b < p; b++) {
+                double[] xb = x[b];
+                double sum = 0.0;
+                for (int t = k; t < n; t++) sum += xa[t] * xb[t - k];
+                s[k][a][b] = sum;
+            }
+        });
+
+        // w[l][a] = sum of column (l, a) of the view = sum over t = L-l..n-1-l of x_a(t).
+        double[][] w = new double[L + 1][p];
+
+        for (int a = 0; a < p; a++) {
+            double[] prefix = new double[n + 1];
+            for (int t = 0; t < n; t++) prefix[t + 1] = prefix[t] + x[a][t];
+            for (int l = 0; l <= L; l++) w[l][a] = prefix[n - l] - prefix[L - l];
+        }
+
+        double denominator = biasCorrected ? N - 1 : N;
+        double[][] cov = new double[(L + 1) * p][(L + 1) * p];
+
+        for (int l = 0; l <= L; l++) {
+            for (int m = l; m <= L; m++) {
+                int k = m - l;
+
+                for (int a = 0; a < p; a++) {
+                    for (int b = 0; b < p; b++) {
+                        if (m == l && b < a) continue;
+
+                        double sum = s[k][a][b];
+
+                        // Remove t = k..L-l-1 and t = n-l..n-1 from the lag-k sum.
+                        for (int t = k; t < L - l; t++) sum -= x[a][t] * x[b][t - k];
+                        for (int t = n - l; t < n; t++) sum -= x[a][t] * x[b][t - k];
+
+                        double c = (sum - w[l][a] * w[m][b] / N) / denominator;
+
+                        cov[l * p + a][m * p + b] = c;
+                        cov[m * p + b][l * p + a] = c;
+                    }
+                }
+            }
+        }
+
+        return cov;
+    }
+
+    /**
+     * Returns the row of the series shown at the given row and column of the view.
+     */
+    private int seriesRow(int row, int col) {
+        if (row < 0 || row >= numRows()) {
+            throw new IllegalArgumentException("Row out of range: " + row);
+        }
+
+        return row + this.numLags - col / this.series.getNumColumns();
+    }
+}
@@ -0,0 +1,373 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+//                                                                           //
+// Copyright (C) 2025 by Joseph Ramsey, Peter Spirtes, Clark Glymour,        //
+// and Richard Scheines.                                                     //
+//                                                                           //
+// This program is free software: you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation, either version 3 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.    //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.data;
+
+import edu.cmu.tetrad.graph.Node;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Pools the covariances of several continuous data sets (sites) without concatenating them. Each site is summarized
+ * once by its sample size, means and centered scatter matrix; the pooled covariance matrix is then combined from these
+ * summaries, so adding or removing a site touches only that site's rows, and the data sets are never copied.
+ * <p>
+ * Three kinds of pooling are supported, each matching the covariance matrix of a concatenated data set:
+ * <ul>
+ *     <li>CONCATENATED: the sites as given, as with DataTransforms.concatenate.</li>
+ *     <li>CENTERED: each site centered first, as with DataTransforms.center followed by concatenate.</li>
+ *     <li>STANDARDIZED: each site standardized first, as with DataTransforms.standardizeData followed by
+ *     concatenate.</li>
+ * </ul>
+ * All three use the unbiased (N - 1) denominator, where N is the total number of rows.
+ *
+ * @author josephramsey
+ * @see ConcatenatedDataBox
+ */
+public final class PooledCovariances {
+
+    /**
+     * The variables, in the order of the pooled matrix.
+     */
+    private final List<Node> variables;
+
+    /**
+     * How the sites are pooled.
+     */
+    private final Pooling pooling;
+
+    /**
+     * The site summaries, in the order added.
+     */
+    private final List<Site> sites = new ArrayList<>();
+
+    /**
+     * The pooled covariance matrix, or null if a site has been added or removed since it was last computed.
+     */
+    private CovarianceMatrix cached;
+
+    /**
+     * The number of threads used to summarize several sites at once.
+     */
+    private int numThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Constructs an empty pool over the given variables.
+     *
+     * @param variables the variables; each site must contain a continuous variable with each of their names.
+     * @param pooling   how the sites are pooled.
+     */
+    public PooledCovariances(List<Node> variables, Pooling pooling) {
+        if (variables == null) {
+            throw new NullPointerException("Variables must not be null.");
+        }
+
+        if (pooling == null) {
+            throw new NullPointerException("Pooling must not be null.");
+        }
+
+        this.variables = Collections.unmodifiableList(new ArrayList<>(variables));
+        this.pooling = pooling;
+    }
+
+    /**
+     * Returns a pool of the given data sets over the variables of the first.
+     *
+     * @param dataSets the data sets; there must be at least one.
+     * @param pooling  how the sites are pooled.
+     * @return the pool.
+     */
+    public static PooledCovariances fromDataSets(List<DataSet> dataSets, Pooling pooling) {
+        if (dataSets == null || dataSets.isEmpty()) {
+            throw new IllegalArgumentException("Need at least one data set.");
+        }
+
+        PooledCovariances pooled = new PooledCovariances(dataSets.getFirst().getVariables(), pooling);
+        pooled.addDataSets(dataSets);
+        return pooled;
+    }
+
+    /**
+     * Adds a site. Only the rows of the new site are read.
+     *
+     * @param dataSet the data set.
+     */
+    public void addDataSet(DataSet dataSet) {
+        this.sites.add(summarize(dataSet));
+        this.cached = null;
+    }
+
+    /**
+     * Adds several sites, summarizing them in parallel.
+     *
+     * @param dataSets the data sets.
+     */
+    public void addDataSets(List<DataSet> dataSets) {
+        List<DataSet> _dataSets = new ArrayList<>(dataSets);
+        Site[] summaries = new Site[_dataSets.size()];
+
+        if (this.numThreads == 1 || _dataSets.size() < 2) {
+            for (int s = 0; s < summaries.length; s++) {
+                summaries[s] = summarize(_dataSets.get(s));
+            }
+        } else {
+            ForkJoinPool pool = new ForkJoinPool(Math.min(this.numThreads, _dataSets.size()));
+
+            try {
+                pool.submit(() -> IntStream.range(0, summaries.length).parallel()
+                        .forEach(s -> summaries[s] = summarize(_dataSets.get(s)))).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        Collections.addAll(this.sites, summaries);
+        this.cached = null;
+    }
+
+    /**
+     * Removes a site, identified by the data set object it was added as. The other sites are not re-read.
+     *
+     * @param dataSet the data set.
+     * @return true if the data set was in the pool.
+     */
+    public boolean removeDataSet(DataSet dataSet) {
+        for (int s = 0; s < this.sites.size(); s++) {
+            if (this.sites.get(s).dataSet == dataSet) {
+                this.sites.remove(s);
+                this.cached = null;
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the number of sites in the pool.
+     *
+     * @return the number of sites.
+     */
+    public int getNumDataSets() {
+        return this.sites.size();
+    }
+
+    /**
+     * Returns the total number of rows over all sites.
+     *
+     * @return the sample size.
+     */
+    public int getSampleSize() {
+        int n = 0;
+        for (Site site : this.sites) n += site.n;
+        return n;
+    }
+
+    /**
+     * Returns the pooled covariance matrix. It is cached until a site is added or removed.
+     *
+     * @return the pooled covariance matrix, with sample size equal to the total number of rows.
+     * @throws IllegalStateException if the pool has fewer than two rows.
+     */
+    public ICovarianceMatrix getCovarianceMatrix() {
+        if (this.cached != null) {
+            return this.cached;
+        }
+
+        int N = getSampleSize();
+
+        if (N < 2) {
+            throw new IllegalStateException("Need at least two rows to pool covariances: " + N);
+        }
+
+        int p = this.variables.size();
+        double[][] scatter = new double[p][p];
+
+        // Grand mean, used only for CONCATENATED pooling.
+        double[] mean = new double[p];
+
+        if (this.pooling == Pooling.CONCATENATED) {
+            for (Site site : this.sites) {
+                for (int a = 0; a < p; a++) mean[a] += site.n * site.means[a];
+            }
+
+            for (int a = 0; a < p; a++) mean[a] /= N;
+        }
+
+        for (Site site : this.sites) {
+            if (site.n == 0) continue;
+
+            double[][] m2 = site.scatter;
+
+            switch (this.pooling) {
+                case CONCATENATED:
+                    // Within-site scatter plus the between-site term n_s (m_s - m)(m_s - m)'.
+                    for (int a = 0; a < p; a++) {
+                        double da = site.means[a] - mean[a];
+                        for (int b = 0; b <= a; b++) {
+                            scatter[a][b] += m2[a][b] + site.n * da * (site.means[b] - mean[b]);
+                        }
+                    }
+                    break;
+                case CENTERED:
+                    for (int a = 0; a < p; a++) {
+                        for (int b = 0; b <= a; b++) scatter[a][b] += m2[a][b];
+                    }
+                    break;
+                case STANDARDIZED:
+                    // A standardized site has scatter (n_s - 1) times its correlation matrix.
+                    for (int a = 0; a < p; a++) {
+                        for (int b = 0; b <= a; b++) {
+                            scatter[a][b] += (site.n - 1) * m2[a][b] / Math.sqrt(m2[a][a] * m2[b][b]);
+                        }
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Unexpected pooling: " + this.pooling);
+            }
+        }
+
+        for (int a = 0; a < p; a++) {
+            for (int b = 0; b <= a; b++) {
+                double c = scatter[a][b] / (N - 1);
+                scatter[a][b] = c;
+                scatter[b][a] = c;
+            }
+        }
+
+        this.cached = new CovarianceMatrix(this.variables, scatter, N);
+        return this.cached;
+    }
+
+    /**
+     * Returns the variables of the pooled matrix.
+     *
+     * @return the variables.
+     */
+    public List<Node> getVariables() {
+        return this.variables;
+    }
+
+    /**
+     * Sets the number of threads used to summarize several sites at once.
+     *
+     * @param numThreads the number of threads; must be at least 1.
+     */
+    public void setNumThreads(int numThreads) {
+        if (numThreads < 1) {
+            throw new IllegalArgumentException("Number of threads must be at least 1: " + numThreads);
+        }
+
+        this.numThreads = numThreads;
+    }
+
+    /**
+     * Computes the sample size, means and centered scatter of one site, in two passes over its rows.
+     */
+    private Site summarize(DataSet dataSet) {
+        if (dataSet == null) {
+            throw new NullPointerException("Data set must not be null.");
+        }
+
+        int p = this.variables.size();
+        int[] columns = new int[p];
+
+        for (int j = 0; j < p; j++) {
+            Node variable = dataSet.getVariable(this.variables.get(j).getName());
+
+            if (!(variable instanceof ContinuousVariable)) {
+                throw new IllegalArgumentException("Expecting a continuous variable named "
+                                                   + this.variables.get(j).getName() + " in " + dataSet.getName());
+            }
+
+            columns[j] = dataSet.getColumn(variable);
+        }
+
+        int n = dataSet.getNumRows();
+        double[] means = new double[p];
+
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < p; j++) means[j] += dataSet.getDouble(i, columns[j]);
+        }
+
+        for (int j = 0; j < p; j++) means[j] /= Math.max(n, 1);
+
+        double[][] scatter = new double[p][p];
+        double[] z = new double[p];
+
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < p; j++) z[j] = dataSet.getDouble(i, columns[j]) - means[j];
+
+            for (int a = 0; a < p; a++) {
+                double za = z[a];
+                double[] row = scatter[a];
+                for (int b = 0; b <= a; b++) row[b] += za * z[b];
+            }
+        }
+
+        for (int a = 0; a < p; a++) {
+            for (int b = 0; b < a; b++) scatter[b][a] = scatter[a][b];
+        }
+
+        return new Site(dataSet, n, means, scatter);
+    }
+
+    /**
+     * How the sites are pooled; see the class documentation.
+     */
+    public enum Pooling {
+
+        /**
+         * Pool the sites as given.
+         */
+        CONCATENATED,
+
+        /**
+         * Center each site before pooling.
+         */
+        CENTERED,
+
+        /**
+         * Standardize each site before pooling.
+         */
+        STANDARDIZED
+    }
+
+    /**
+     * The summary of one site.
+     *
+     * @param dataSet the data set the summary was computed from.
+     * @param n       the number of rows.
+     * @param means   the column means.
+     * @param scatter the centered scatter matrix.
+     */
+    private record Site(DataSet dataSet, int n, double[] means, double[][] scatter) {
+    }
+}
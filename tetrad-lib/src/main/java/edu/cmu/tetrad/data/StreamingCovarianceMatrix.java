@@ -0,0 +1,741 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+//                                                                           //
+// Copyright (C) 2025 by Joseph Ramsey, Peter Spirtes, Clark Glymour,        //
+// and Richard Scheines.                                                     //
+//                                                                           //
+// This program is free software: you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation, either version 3 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.    //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.data;
+
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.util.Matrix;
+import edu.cmu.tetrad.util.NumberFormatUtil;
+import edu.cmu.tetrad.util.ParallelEm;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.text.NumberFormat;
+import java.util.*;
+
+/**
+ * A covariance matrix kept as mergeable sufficient statistics--row count, means and centered co-moments--so that
+ * batches of rows can be added or removed without recomputing from the full data. Single rows are added with
+ * Welford's update; batches are summarized in parallel blocks and combined with Chan et al.'s pairwise merge, which is
+ * also used to merge two of these objects (say, statistics collected on different machines) and, run backwards, to
+ * remove a batch that was added earlier.
+ * <p>
+ * The covariance matrix itself is computed on demand, with the unbiased (n - 1) denominator, and cached until the
+ * statistics change. Scores and tests built on this object can pick up new rows with their refresh methods; see
+ * SemBicScore.refresh() and IndTestFisherZ.refresh().
+ *
+ * @author josephramsey
+ * @see CovarianceMatrix
+ */
+public final class StreamingCovarianceMatrix implements ICovarianceMatrix {
+
+    @Serial
+    private static final long serialVersionUID = 23L;
+
+    /**
+     * The sufficient statistics of all rows added so far.
+     */
+    private final Moments moments;
+
+    /**
+     * The set of selected variables.
+     */
+    private final Set<Node> selectedVariables = new HashSet<>();
+
+    /**
+     * The variables, in order.
+     */
+    private List<Node> variables;
+
+    /**
+     * The name of the covariance matrix.
+     */
+    private String name;
+
+    /**
+     * The knowledge for this data.
+     */
+    private Knowledge knowledge = new Knowledge();
+
+    /**
+     * The covariance matrix, or null if the statistics have changed since it was last computed.
+     */
+    private transient Matrix cached;
+
+    /**
+     * The number of threads used to summarize a batch of rows.
+     */
+    private int numThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Constructs an empty set of statistics over the given continuous variables.
+     *
+     * @param variables the variables.
+     */
+    public StreamingCovarianceMatrix(List<Node> variables) {
+        if (variables == null) {
+            throw new NullPointerException("Variables must not be null.");
+        }
+
+        for (Node variable : variables) {
+            if (!(variable instanceof ContinuousVariable)) {
+                throw new IllegalArgumentException("Expecting continuous variables: " + variable);
+            }
+        }
+
+        this.variables = Collections.unmodifiableList(new ArrayList<>(variables));
+        this.moments = new Moments(variables.size());
+    }
+
+    /**
+     * Constructs the statistics of the given continuous data set.
+     *
+     * @param dataSet the data set.
+     */
+    public StreamingCovarianceMatrix(DataSet dataSet) {
+        this(dataSet.getVariables());
+        addRows(dataSet);
+    }
+
+    /**
+     * Copy constructor.
+     *
+     * @param other the statistics to copy.
+     */
+    public StreamingCovarianceMatrix(StreamingCovarianceMatrix other) {
+        synchronized (other) {
+            this.variables = other.variables;
+            this.moments = other.moments.copy();
+            this.name = other.name;
+            this.knowledge = other.knowledge.copy();
+            this.numThreads = other.numThreads;
+        }
+    }
+
+    /**
+     * Adds one row, with values in the order of the variables.
+     *
+     * @param row the row.
+     */
+    public synchronized void addRow(double[] row) {
+        if (row.length != this.variables.size()) {
+            throw new IllegalArgumentException("Expecting " + this.variables.size() + " values: " + row.length);
+        }
+
+        this.moments.add(row);
+        this.cached = null;
+    }
+
+    /**
+     * Adds the rows of the given data set, whose columns are matched to the variables by name.
+     *
+     * @param dataSet the rows to add.
+     */
+    public void addRows(DataSet dataSet) {
+        Moments batch = summarize(dataSet);
+
+        synchronized (this) {
+            this.moments.merge(batch);
+            this.cached = null;
+        }
+    }
+
+    /**
+     * Removes the rows of the given data set, which must have been added earlier. Only the statistics of these rows
+     * are computed; the remaining rows are not needed.
+     *
+     * @param dataSet the rows to remove.
+     * @throws IllegalArgumentException if more rows are removed than have been added.
+     */
+    public void removeRows(DataSet dataSet) {
+        Moments batch = summarize(dataSet);
+
+        synchronized (this) {
+            this.moments.unmerge(batch);
+            this.cached = null;
+        }
+    }
+
+    /**
+     * Adds the statistics of another object over the same variables, in the same order.
+     *
+     * @param other the statistics to merge in; not modified.
+     */
+    public void merge(StreamingCovarianceMatrix other) {
+        if (!other.getVariableNames().equals(getVariableNames())) {
+            throw new IllegalArgumentException("Can only merge statistics over the same variables, in order.");
+        }
+
+        Moments batch;
+
+        synchronized (other) {
+            batch = other.moments.copy();
+        }
+
+        synchronized (this) {
+            this.moments.merge(batch);
+            this.cached = null;
+        }
+    }
+
+    /**
+     * Returns the means of the rows added so far.
+     *
+     * @return a copy of the means.
+     */
+    public synchronized double[] getMeans() {
+        return this.moments.mean.clone();
+    }
+
+    /**
+     * Sets the number of threads used to summarize a batch of rows.
+     *
+     * @param numThreads the number of threads; must be at least 1.
+     */
+    public void setNumThreads(int numThreads) {
+        if (numThreads < 1) {
+            throw new IllegalArgumentException("Number of threads must be at least 1: " + numThreads);
+        }
+
+        this.numThreads = numThreads;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Node> getVariables() {
+        return this.variables;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setVariables(List<Node> variables) {
+        if (variables.size() != this.variables.size()) {
+            throw new IllegalArgumentException("Wrong # of variables.");
+        }
+
+        for (int i = 0; i < variables.size(); i++) {
+            if (!variables.get(i).getName().equals(this.variables.get(i).getName())) {
+                throw new IllegalArgumentException("Variable in index " + (i + 1) + " does not have the same name "
+                                                   + "as the variable being substituted for it.");
+            }
+        }
+
+        this.variables = Collections.unmodifiableList(new ArrayList<>(variables));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> getVariableNames() {
+        List<String> names = new ArrayList<>();
+        for (Node variable : this.variables) names.add(variable.getName());
+        return names;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getVariableName(int index) {
+        if (index >= this.variables.size()) {
+            throw new IllegalArgumentException("Index out of range: " + index);
+        }
+
+        return this.variables.get(index).getName();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getDimension() {
+        return this.variables.size();
+    }
+
+    /**
+     * Returns the number of rows added so far.
+     *
+     * @return the sample size.
+     */
+    @Override
+    public synchronized int getSampleSize() {
+        return (int) this.moments.n;
+    }
+
+    /**
+     * Not supported; the sample size is the number of rows added.
+     *
+     * @param sampleSize ignored.
+     * @throws UnsupportedOperationException always.
+     */
+    @Override
+    public void setSampleSize(int sampleSize) {
+        throw new UnsupportedOperationException("The sample size is the number of rows added.");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Knowledge getKnowledge() {
+        return this.knowledge;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setKnowledge(Knowledge knowledge) {
+        if (knowledge == null) {
+            throw new NullPointerException();
+        }
+
+        this.knowledge = knowledge.copy();
+    }
+
+    /**
+     * Returns a snapshot of the covariances of the given variables.
+     *
+     * @param indices the variable indices.
+     * @return the submatrix, as a CovarianceMatrix.
+     */
+    @Override
+    public ICovarianceMatrix getSubmatrix(int[] indices) {
+        List<Node> submatrixVars = new ArrayList<>();
+        for (int index : indices) submatrixVars.add(this.variables.get(index));
+        return new CovarianceMatrix(submatrixVars, getMatrix().view(indices, indices).mat(), getSampleSize());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ICovarianceMatrix getSubmatrix(List<String> submatrixVarNames) {
+        return getSubmatrix(submatrixVarNames.toArray(new String[0]));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ICovarianceMatrix getSubmatrix(String[] submatrixVarNames) {
+        int[] indices = new int[submatrixVarNames.length];
+
+        for (int i = 0; i < submatrixVarNames.length; i++) {
+            indices[i] = getVariableNames().indexOf(submatrixVarNames[i]);
+
+            if (indices[i] == -1) {
+                throw new IllegalArgumentException("Variable " + submatrixVarNames[i] + " is not in the matrix.");
+            }
+        }
+
+        return getSubmatrix(indices);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getValue(int i, int j) {
+        return getMatrix().get(i, j);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getSize() {
+        return this.variables.size();
+    }
+
+    /**
+     * Returns the covariance matrix of the rows added so far. The matrix is cached until rows are added, removed or
+     * merged, and must not be modified.
+     *
+     * @return the covariance matrix.
+     */
+    @Override
+    public synchronized Matrix getMatrix() {
+        if (this.cached == null) {
+            int p = this.variables.size();
+            Matrix cov = new Matrix(p, p);
+            double denom = this.moments.n - 1;
+
+            for (int a = 0; a < p; a++) {
+                for (int b = 0; b <= a; b++) {
+                    double c = this.moments.m2[a][b] / denom;
+                    cov.set(a, b, c);
+                    cov.set(b, a, c);
+                }
+            }
+
+            this.cached = cov;
+        }
+
+        return this.cached;
+    }
+
+    /**
+     * Not supported; the matrix is determined by the rows added.
+     *
+     * @param matrix ignored.
+     */
+    @Override
+    public void setMatrix(Matrix matrix) {
+        throw new IllegalStateException();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void select(Node variable) {
+        if (this.variables.contains(variable)) {
+            this.selectedVariables.add(variable);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clearSelection() {
+        this.selectedVariables.clear();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isSelected(Node variable) {
+        if (variable == null) {
+            throw new NullPointerException("Null variable. Try again.");
+        }
+
+        return this.selectedVariables.contains(variable);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> getSelectedVariableNames() {
+        List<String> selectedVariableNames = new LinkedList<>();
+
+        for (Node variable : this.variables) {
+            if (this.selectedVariables.contains(variable)) {
+                selectedVariableNames.add(variable.getName());
+            }
+        }
+
+        return selectedVariableNames;
+    }
+
+    /**
+     * Prints out the matrix in the same format as CovarianceMatrix.
+     *
+     * @return a {@link java.lang.String} object
+     */
+    @Override
+    public String toString() {
+        NumberFormat nf = NumberFormatUtil.getInstance().getNumberFormat();
+
+        StringBuilder buf = new StringBuilder();
+        buf.append(getSampleSize()).append("\n");
+        buf.append(String.join("\t", getVariableNames()));
+        buf.append("\n");
+
+        for (int j = 0; j < getSize(); j++) {
+            for (int i = 0; i <= j; i++) {
+                buf.append(nf.format(getValue(i, j)));
+
+                if (i < j) {
+                    buf.append("\t");
+                }
+            }
+            buf.append("\n");
+        }
+
+        return buf.toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Node getVariable(String name) {
+        for (Node variable : this.variables) {
+            if (name.equals(variable.getName())) {
+                return variable;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Not supported; the values are determined by the rows added.
+     *
+     * @param i ignored.
+     * @param j ignored.
+     * @param v ignored.
+     */
+    @Override
+    public void setValue(int i, int j, double v) {
+        throw new UnsupportedOperationException("Covariances are determined by the rows added.");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeVariables(List<String> remaining) {
+        throw new IllegalStateException();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Matrix getSelection(int[] rows, int[] cols) {
+        return getMatrix().view(rows, cols).mat();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isContinuous() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isDiscrete() {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isMixed() {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DataModel copy() {
+        return new StreamingCovarianceMatrix(this);
+    }
+
+    /**
+     * Computes the statistics of a batch of rows, in parallel blocks merged in order.
+     */
+    private Moments summarize(DataSet dataSet) {
+        int p = this.variables.size();
+        int[] columns = new int[p];
+
+        for (int j = 0; j < p; j++) {
+            Node variable = dataSet.getVariable(this.variables.get(j).getName());
+
+            if (!(variable instanceof ContinuousVariable)) {
+                throw new IllegalArgumentException("Expecting a continuous variable named "
+                                                   + this.variables.get(j).getName());
+            }
+
+            columns[j] = dataSet.getColumn(variable);
+        }
+
+        try (ParallelEm blocks = new ParallelEm(this.numThreads)) {
+            return blocks.run(dataSet.getNumRows(), new ParallelEm.Pass<Moments>() {
+                @Override
+                public Moments newStatistics() {
+                    return new Moments(p);
+                }
+
+                @Override
+                public void accumulate(int from, int to, Moments statistics) {
+                    statistics.addBlock(dataSet, columns, from, to);
+                }
+            });
+        }
+    }
+
+    /**
+     * Row count, means and the lower triangle of the centered co-moment (scatter) matrix.
+     */
+    private static final class Moments implements ParallelEm.Statistics<Moments>, Serializable {
+
+        @Serial
+        private static final long serialVersionUID = 23L;
+
+        private final double[] mean;
+        private final double[][] m2;
+        private long n;
+
+        Moments(int p) {
+            this.mean = new double[p];
+            this.m2 = new double[p][];
+            for (int a = 0; a < p; a++) this.m2[a] = new double[a + 1];
+        }
+
+        Moments copy() {
+            Moments copy = new Moments(this.mean.length);
+            copy.n = this.n;
+            System.arraycopy(this.mean, 0, copy.mean, 0, this.mean.length);
+            for (int a = 0; a < this.m2.length; a++) System.arraycopy(this.m2[a], 0, copy.m2[a], 0, a + 1);
+            return copy;
+        }
+
+        /**
+         * Welford's update for one row.
+         */
+        void add(double[] x) {
+            this.n++;
+            int p = this.mean.length;
+            double[] delta = new double[p];
+
+            for (int a = 0; a < p; a++) {
+                delta[a] = x[a] - this.mean[a];
+                this.mean[a] += delta[a] / this.n;
+            }
+
+            double f = (this.n - 1) / (double) this.n;
+
+            for (int a = 0; a < p; a++) {
+                double da = delta[a] * f;
+                for (int b = 0; b <= a; b++) this.m2[a][b] += da * delta[b];
+            }
+        }
+
+        /**
+         * Two-pass statistics of rows from..to-1, which must be the first rows added to this object.
+         */
+        void addBlock(DataSet dataSet, int[] columns, int from, int to) {
+            int p = this.mean.length;
+            this.n = to - from;
+            if (this.n == 0) return;
+
+            for (int i = from; i < to; i++) {
+                for (int a = 0; a < p; a++) this.mean[a] += dataSet.getDouble(i, columns[a]);
+            }
+
+            for (int a = 0; a < p; a++) this.mean[a] /= this.n;
+
+            double[] z = new double[p];
+
+            for (int i = from; i < to; i++) {
+                for (int a = 0; a < p; a++) z[a] = dataSet.getDouble(i, columns[a]) - this.mean[a];
+
+                for (int a = 0; a < p; a++) {
+                    double za = z[a];
+                    double[] row = this.m2[a];
+                    for (int b = 0; b <= a; b++) row[b] += za * z[b];
+                }
+            }
+        }
+
+        /**
+         * Chan et al.'s pairwise merge.
+         */
+        @Override
+        public void merge(Moments other) {
+            if (other.n == 0) return;
+            long total = this.n + other.n;
+            double f = (double) this.n * other.n / total;
+            int p = this.mean.length;
+            double[] delta = new double[p];
+
+            for (int a = 0; a < p; a++) delta[a] = other.mean[a] - this.mean[a];
+
+            for (int a = 0; a < p; a++) {
+                double da = delta[a] * f;
+                for (int b = 0; b <= a; b++) this.m2[a][b] += other.m2[a][b] + da * delta[b];
+            }
+
+            for (int a = 0; a < p; a++) this.mean[a] += delta[a] * other.n / total;
+            this.n = total;
+        }
+
+        /**
+         * The inverse of merge: removes a batch that was merged in earlier.
+         */
+        void unmerge(Moments other) {
+            if (other.n > this.n) {
+                throw new IllegalArgumentException("Cannot remove " + other.n + " rows from " + this.n + ".");
+            }
+
+            if (other.n == 0) return;
+            int p = this.mean.length;
+
+            if (other.n == this.n) {
+                this.n = 0;
+                Arrays.fill(this.mean, 0.0);
+                for (double[] row : this.m2) Arrays.fill(row, 0.0);
+                return;
+            }
+
+            long rest = this.n - other.n;
+            double[] restMean = new double[p];
+            double[] delta = new double[p];
+
+            for (int a = 0; a < p; a++) {
+                restMean[a] = (this.n * this.mean[a] - other.n * other.mean[a]) / rest;
+                delta[a] = other.mean[a] - restMean[a];
+            }
+
+            double f = (double) rest * other.n / this.n;
+
+            for (int a = 0; a < p; a++) {
+                double da = delta[a] * f;
+                for (int b = 0; b <= a; b++) this.m2[a][b] -= other.m2[a][b] + da * delta[b];
+            }
+
+            System.arraycopy(restMean, 0, this.mean, 0, p);
+            this.n = rest;
+        }
+    }
+}
@@ -29,6 +29,10 @@ import org.apache.commons.math3.util.FastMath;
 import javax.swing.*;
 import java.text.NumberFormat;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 /**
  * <p>LayoutUtil class.</p>
@@ -72,6 +76,19 @@ public class LayoutUtil {
         layout.doLayout();
     }
 
+    /**
+     * Lays out the graph with the Barnes-Hut accelerated Fruchterman-Reingold layout.
+     *
+     * @param graph      the graph to lay out.
+     * @param multilevel whether to coarsen the graph first; recommended for 10,000 or more nodes.
+     * @see BarnesHutLayout
+     */
+    public static void barnesHutLayout(Graph graph, boolean multilevel) {
+        BarnesHutLayout layout = new BarnesHutLayout(graph);
+        layout.setMultilevel(multilevel);
+        layout.doLayout();
+    }
+
     /**
      * <p>arrangeByLayout.</p>
      *
@@ -1166,5 +1183,722 @@ public class LayoutUtil {
             this.temperature = 5.0;
         }
     }
-}
 
+    /**
+     * Fruchterman-Reingold layout with Barnes-Hut approximation of the repulsive forces, for large graphs. Each
+     * iteration builds a quadtree over the node positions and approximates the repulsion from any cell that is far
+     * enough away (cell width / distance &lt; theta) by its total mass at its center of mass, so an iteration costs
+     * O(n log n + e) rather than O(n<sup>2</sup>). Forces on different nodes are accumulated in parallel; each node
+     * sums its own repulsive and attractive forces, so the result does not depend on the number of threads.
+     * <p>
+     * In multilevel mode, each connected component is repeatedly coarsened by collapsing a maximal matching of its
+     * edges; the coarsest graph is laid out from scratch and each finer level starts from the positions of the level
+     * above and is only refined. This is the mode to use for graphs with 10,000 or more nodes.
+     * <p>
+     * The layout may be run off the event thread: {@link #computeLayout()} only reads node positions, and a
+     * {@link PositionListener} may be set to receive snapshots of the positions while the layout runs. The layout
+     * stops early if the running thread is interrupted.
+     *
+     * @author josephramsey
+     */
+    public static final class BarnesHutLayout {
+
+        /**
+         * Components at or below this size are not coarsened further.
+         */
+        private static final int COARSEST_SIZE = 50;
+
+        /**
+         * The graph being laid out.
+         */
+        private final Graph graph;
+
+        /**
+         * The number of threads used to accumulate forces.
+         */
+        private int numThreads = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * The Barnes-Hut opening criterion; smaller is more accurate and slower.
+         */
+        private double theta = 0.9;
+
+        /**
+         * The number of iterations for a full layout; refinement of finer levels in multilevel mode uses a quarter of
+         * this.
+         */
+        private int numIterations = 300;
+
+        /**
+         * Whether to use multilevel coarsening.
+         */
+        private boolean multilevel = false;
+
+        /**
+         * The number of iterations between position snapshots.
+         */
+        private int updateInterval = 10;
+
+        /**
+         * Receives position snapshots, or null.
+         */
+        private PositionListener positionListener;
+
+        /**
+         * Leftmost x position to help layout components left to right.
+         */
+        private double leftmostX = -50.;
+
+        /**
+         * Constructs a new BarnesHutLayout for the given graph.
+         *
+         * @param graph the graph to be laid out.
+         */
+        public BarnesHutLayout(Graph graph) {
+            if (graph == null) {
+                throw new NullPointerException("Graph must not be null.");
+            }
+
+            // A copy, so that the layout can run off the event thread while the graph is edited. The copy shares the
+            // graph's nodes, so the computed positions are keyed by them.
+            this.graph = new EdgeListGraph(graph);
+        }
+
+        /**
+         * Lays out the graph, setting the center of each node.
+         */
+        public void doLayout() {
+            for (Map.Entry<Node, PointXy> entry : computeLayout().entrySet()) {
+                entry.getKey().setCenter(entry.getValue().getX(), entry.getValue().getY());
+            }
+        }
+
+        /**
+         * Computes the layout without moving any nodes. Components are placed left to right, largest first, as in
+         * {@link FruchtermanReingoldLayout}.
+         *
+         * @return the new center of each node.
+         */
+        public Map<Node, PointXy> computeLayout() {
+            this.leftmostX = -50.;
+            Map<Node, PointXy> result = new HashMap<>();
+
+            List<List<Node>> components = this.graph.paths().connectedComponents();
+            components.sort((o1, o2) -> Integer.compare(o2.size(), o1.size()));
+
+            double avgDegree = this.graph.getNumNodes() == 0 ? 0
+                    : 2 * this.graph.getNumEdges() / (double) this.graph.getNumNodes();
+            double k = 20.0 + 20.0 * avgDegree;
+
+            ForkJoinPool pool = this.numThreads > 1 ? new ForkJoinPool(this.numThreads) : null;
+
+            try {
+                for (List<Node> component : components) {
+                    Collections.sort(component);
+                    layoutComponent(component, k, pool, result);
+
+                    if (Thread.currentThread().isInterrupted()) {
+                        break;
+                    }
+                }
+            } finally {
+                if (pool != null) {
+                    pool.shutdown();
+                }
+            }
+
+            return result;
+        }
+
+        /**
+         * Sets the number of threads used to accumulate forces.
+         *
+         * @param numThreads the number of threads; must be at least 1.
+         */
+        public void setNumThreads(int numThreads) {
+            if (numThreads < 1) {
+                throw new IllegalArgumentException("Number of threads must be at least 1: " + numThreads);
+            }
+
+            this.numThreads = numThreads;
+        }
+
+        /**
+         * Sets the Barnes-Hut opening criterion.
+         *
+         * @param theta the criterion; must be nonnegative. 0 computes all pairwise forces exactly.
+         */
+        public void setTheta(double theta) {
+            if (theta < 0) {
+                throw new IllegalArgumentException("Theta must be nonnegative: " + theta);
+            }
+
+            this.theta = theta;
+        }
+
+        /**
+         * Sets the number of iterations.
+         *
+         * @param numIterations the number of iterations; must be at least 1.
+         */
+        public void setNumIterations(int numIterations) {
+            if (numIterations < 1) {
+                throw new IllegalArgumentException("Number of iterations must be at least 1: " + numIterations);
+            }
+
+            this.numIterations = numIterations;
+        }
+
+        /**
+         * Sets whether to use multilevel coarsening.
+         *
+         * @param multilevel true to coarsen.
+         */
+        public void setMultilevel(boolean multilevel) {
+            this.multilevel = multilevel;
+        }
+
+        /**
+         * Sets the listener for position snapshots and how often it is called.
+         *
+         * @param positionListener the listener, or null for none.
+         * @param updateInterval   the number of iterations between snapshots; must be at least 1.
+         */
+        public void setPositionListener(PositionListener positionListener, int updateInterval) {
+            if (updateInterval < 1) {
+                throw new IllegalArgumentException("Update interval must be at least 1: " + updateInterval);
+            }
+
+            this.positionListener = positionListener;
+            this.updateInterval = updateInterval;
+        }
+
+        private void layoutComponent(List<Node> nodes, double k, ForkJoinPool pool, Map<Node, PointXy> result) {
+            int n = nodes.size();
+            Map<Node, Integer> index = new HashMap<>();
+
+            for (int i = 0; i < n; i++) {
+                index.put(nodes.get(i), i);
+            }
+
+            int[][] adjacency = new int[n][];
+
+            for (int i = 0; i < n; i++) {
+                adjacency[i] = this.graph.getAdjacentNodes(nodes.get(i)).stream()
+                        .map(index::get).filter(Objects::nonNull).mapToInt(Integer::intValue).distinct().toArray();
+            }
+
+            double[] x = new double[n];
+            double[] y = new double[n];
+            initialPositions(nodes, k, x, y);
+
+            if (n == 1) {
+                place(nodes, x, y, result);
+                return;
+            }
+
+            if (!this.multilevel || n <= COARSEST_SIZE) {
+                double t0 = FastMath.max(k, FastMath.sqrt(n) * k / 10.0);
+                run(adjacency, x, y, k, this.numIterations, t0, pool, nodes, result);
+                place(nodes, x, y, result);
+                return;
+            }
+
+            // Coarsen until small enough or until matching stops making progress.
+            List<int[][]> levels = new ArrayList<>();
+            List<int[]> parents = new ArrayList<>();
+            levels.add(adjacency);
+
+            while (levels.getLast().length > COARSEST_SIZE) {
+                int[][] fine = levels.getLast();
+                int[] parent = new int[fine.length];
+                int[][] coarse = coarsen(fine, parent);
+
+                if (coarse.length > 0.9 * fine.length) {
+                    break;
+                }
+
+                parents.add(parent);
+                levels.add(coarse);
+            }
+
+            // Coarse positions start at the centroid of their members.
+            List<double[][]> positions = new ArrayList<>();
+            positions.add(new double[][]{x, y});
+
+            for (int l = 1; l < levels.size(); l++) {
+                double[][] fine = positions.get(l - 1);
+                int[] parent = parents.get(l - 1);
+                int m = levels.get(l).length;
+                double[] cx = new double[m];
+                double[] cy = new double[m];
+                int[] count = new int[m];
+
+                for (int i = 0; i < parent.length; i++) {
+                    cx[parent[i]] += fine[0][i];
+                    cy[parent[i]] += fine[1][i];
+                    count[parent[i]]++;
+                }
+
+                for (int c = 0; c < m; c++) {
+                    cx[c] /= count[c];
+                    cy[c] /= count[c];
+                }
+
+                positions.add(new double[][]{cx, cy});
+            }
+
+            double stretch = FastMath.sqrt(7.0 / 4.0);
+
+            for (int l = levels.size() - 1; l >= 0; l--) {
+                if (Thread.currentThread().isInterrupted()) {
+                    break;
+                }
+
+                double kl = k * FastMath.pow(stretch, l);
+                double[][] p = positions.get(l);
+
+                if (l == levels.size() - 1) {
+                    double t0 = FastMath.max(kl, FastMath.sqrt(p[0].length) * kl / 10.0);
+                    run(levels.get(l), p[0], p[1], kl, this.numIterations, t0, pool, l == 0 ? nodes : null, result);
+                } else {
+
+                    // Start each node at its parent's position, nudged apart so that matched pairs separate.
+                    double[][] coarse = positions.get(l + 1);
+                    int[] parent = parents.get(l);
+
+                    for (int i = 0; i < parent.length; i++) {
+                        p[0][i] = coarse[0][parent[i]] + 0.1 * kl * FastMath.cos(i);
+                        p[1][i] = coarse[1][parent[i]] + 0.1 * kl * FastMath.sin(i);
+                    }
+
+                    run(levels.get(l), p[0], p[1], kl, FastMath.max(1, this.numIterations / 4), 2 * kl, pool,
+                            l == 0 ? nodes : null, result);
+                }
+            }
+
+            place(nodes, x, y, result);
+        }
+
+        /**
+         * Uses the nodes' current centers, or a grid if any node has not been placed.
+         */
+        private void initialPositions(List<Node> nodes, double k, double[] x, double[] y) {
+            boolean placed = true;
+
+            for (Node node : nodes) {
+                if (node.getCenterX() == -1 || node.getCenterY() == -1) {
+                    placed = false;
+                    break;
+                }
+            }
+
+            int side = (int) FastMath.ceil(FastMath.sqrt(nodes.size()));
+
+            for (int i = 0; i < nodes.size(); i++) {
+                if (placed) {
+                    x[i] = nodes.get(i).getCenterX();
+                    y[i] = nodes.get(i).getCenterY();
+                } else {
+                    x[i] = k * (i % side);
+                    y[i] = k * (i / side);
+                }
+            }
+        }
+
+        /**
+         * Runs the force-directed iterations on one level, cooling linearly from t0.
+         *
+         * @param nodes the component's nodes if this is the finest level, for snapshots; otherwise null.
+         */
+        private void run(int[][] adjacency, double[] x, double[] y, double k, int iterations, double t0,
+                         ForkJoinPool pool, List<Node> nodes, Map<Node, PointXy> result) {
+            int n = x.length;
+            double[] dispX = new double[n];
+            double[] dispY = new double[n];
+            double k2 = k * k;
+
+            for (int iteration = 0; iteration < iterations; iteration++) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+
+                ForceTree tree = new ForceTree(x, y);
+
+                forEachNode(n, pool, v -> {
+                    double[] force = new double[2];
+                    tree.repulsion(v, k2, this.theta, force);
+
+                    for (int u : adjacency[v]) {
+                        double dx = x[u] - x[v];
+                        double dy = y[u] - y[v];
+                        double d = FastMath.sqrt(dx * dx + dy * dy);
+
+                        if (d > 0) {
+                            force[0] += dx * d / k;
+                            force[1] += dy * d / k;
+                        }
+                    }
+
+                    dispX[v] = force[0];
+                    dispY[v] = force[1];
+                });
+
+                double temperature = 1.0 + (t0 - 1.0) * (1.0 - iteration / (double) iterations);
+
+                for (int v = 0; v < n; v++) {
+                    double norm = FastMath.sqrt(dispX[v] * dispX[v] + dispY[v] * dispY[v]);
+
+                    if (norm > 0) {
+                        double step = FastMath.min(norm, temperature);
+                        x[v] += dispX[v] / norm * step;
+                        y[v] += dispY[v] / norm * step;
+                    }
+                }
+
+                if (nodes != null && this.positionListener != null && (iteration + 1) % this.updateInterval == 0) {
+                    Map<Node, PointXy> snapshot = new HashMap<>(result);
+                    shift(nodes, x, y, snapshot, false);
+                    this.positionListener.positionsUpdated(snapshot);
+                }
+            }
+        }
+
+        private void forEachNode(int n, ForkJoinPool pool, IntConsumer action) {
+            if (pool == null || n < 256) {
+                for (int v = 0; v < n; v++) {
+                    action.accept(v);
+                }
+
+                return;
+            }
+
+            try {
+                pool.submit(() -> IntStream.range(0, n).parallel().forEach(action)).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            }
+        }
+
+        /**
+         * Collapses a maximal matching of the given graph, visiting nodes in order of increasing degree and matching
+         * each with its unmatched neighbor of least degree.
+         *
+         * @param parent filled in with the coarse node for each fine node.
+         * @return the adjacency of the coarse graph.
+         */
+        private static int[][] coarsen(int[][] adjacency, int[] parent) {
+            int n = adjacency.length;
+            Integer[] order = new Integer[n];
+
+            for (int i = 0; i < n; i++) {
+                order[i] = i;
+            }
+
+            Arrays.sort(order, Comparator.comparingInt(i -> adjacency[i].length));
+            Arrays.fill(parent, -1);
+            int numCoarse = 0;
+
+            for (int v : order) {
+                if (parent[v] != -1) {
+                    continue;
+                }
+
+                int match = -1;
+
+                for (int u : adjacency[v]) {
+                    if (parent[u] == -1 && u != v && (match == -1 || adjacency[u].length < adjacency[match].length)) {
+                        match = u;
+                    }
+                }
+
+                parent[v] = numCoarse;
+
+                if (match != -1) {
+                    parent[match] = numCoarse;
+                }
+
+                numCoarse++;
+            }
+
+            List<Set<Integer>> neighbors = new ArrayList<>(numCoarse);
+
+            for (int c = 0; c < numCoarse; c++) {
+                neighbors.add(new LinkedHashSet<>());
+            }
+
+            for (int v = 0; v < n; v++) {
+                for (int u : adjacency[v]) {
+                    if (parent[u] != parent[v]) {
+                        neighbors.get(parent[v]).add(parent[u]);
+                    }
+                }
+            }
+
+            int[][] coarse = new int[numCoarse][];
+
+            for (int c = 0; c < numCoarse; c++) {
+                coarse[c] = neighbors.get(c).stream().mapToInt(Integer::intValue).toArray();
+            }
+
+            return coarse;
+        }
+
+        private void place(List<Node> nodes, double[] x, double[] y, Map<Node, PointXy> result) {
+            shift(nodes, x, y, result, true);
+
+            if (this.positionListener != null) {
+                this.positionListener.positionsUpdated(new HashMap<>(result));
+            }
+        }
+
+        /**
+         * Shifts the component to the right of those already placed and puts its positions into the given map. Only
+         * a final placement advances the leftmost x position.
+         */
+        private void shift(List<Node> nodes, double[] x, double[] y, Map<Node, PointXy> into, boolean advance) {
+            double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, maxX = -Double.MAX_VALUE;
+
+            for (int i = 0; i < nodes.size(); i++) {
+                minX = FastMath.min(minX, x[i]);
+                minY = FastMath.min(minY, y[i]);
+            }
+
+            double left = this.leftmostX + 100.;
+
+            for (int i = 0; i < nodes.size(); i++) {
+                double px = x[i] + left - minX;
+                double py = y[i] + 40.0 - minY;
+                maxX = FastMath.max(maxX, px);
+                into.put(nodes.get(i), new PointXy((int) px, (int) py));
+            }
+
+            if (advance) {
+                this.leftmostX = FastMath.max(left, maxX);
+            }
+        }
+
+        /**
+         * Receives snapshots of node positions while a layout runs. Snapshots are delivered on the thread running
+         * the layout and are not retained by it.
+         */
+        public interface PositionListener {
+
+            /**
+             * Called with the current positions of the nodes laid out so far.
+             *
+             * @param positions the center of each node laid out so far.
+             */
+            void positionsUpdated(Map<Node, PointXy> positions);
+        }
+
+        /**
+         * A quadtree over node positions holding the mass (node count) and position sum of each cell.
+         */
+        private static final class ForceTree {
+
+            /**
+             * Bodies that coincide to this depth share a leaf.
+             */
+            private static final int MAX_DEPTH = 48;
+            private static final int EMPTY = -1;
+            private static final int INTERNAL = -2;
+
+            private final double[] x;
+            private final double[] y;
+            private final int[] leafOf;
+            private double[] minX;
+            private double[] minY;
+            private double[] width;
+            private double[] mass;
+            private double[] sumX;
+            private double[] sumY;
+            private int[] body;
+            private int[] firstChild;
+            private int size;
+
+            ForceTree(double[] x, double[] y) {
+                this.x = x;
+                this.y = y;
+                this.leafOf = new int[x.length];
+
+                int capacity = 4 * x.length + 4;
+                this.minX = new double[capacity];
+                this.minY = new double[capacity];
+                this.width = new double[capacity];
+                this.mass = new double[capacity];
+                this.sumX = new double[capacity];
+                this.sumY = new double[capacity];
+                this.body = new int[capacity];
+                this.firstChild = new int[capacity];
+
+                double loX = Double.MAX_VALUE, loY = Double.MAX_VALUE;
+                double hiX = -Double.MAX_VALUE, hiY = -Double.MAX_VALUE;
+
+                for (int i = 0; i < x.length; i++) {
+                    loX = FastMath.min(loX, x[i]);
+                    loY = FastMath.min(loY, y[i]);
+                    hiX = FastMath.max(hiX, x[i]);
+                    hiY = FastMath.max(hiY, y[i]);
+                }
+
+                newCell(loX, loY, FastMath.max(hiX - loX, hiY - loY) + 1.0);
+
+                for (int i = 0; i < x.length; i++) {
+                    insert(i);
+                }
+            }
+
+            private int newCell(double minX, double minY, double width) {
+                if (this.size == this.body.length) {
+                    int capacity = 2 * this.size;
+                    this.minX = Arrays.copyOf(this.minX, capacity);
+                    this.minY = Arrays.copyOf(this.minY, capacity);
+                    this.width = Arrays.copyOf(this.width, capacity);
+                    this.mass = Arrays.copyOf(this.mass, capacity);
+                    this.sumX = Arrays.copyOf(this.sumX, capacity);
+                    this.sumY = Arrays.copyOf(this.sumY, capacity);
+                    this.body = Arrays.copyOf(this.body, capacity);
+                    this.firstChild = Arrays.copyOf(this.firstChild, capacity);
+                }
+
+                int cell = this.size++;
+                this.minX[cell] = minX;
+                this.minY[cell] = minY;
+                this.width[cell] = width;
+                this.mass[cell] = 0;
+                this.sumX[cell] = 0;
+                this.sumY[cell] = 0;
+                this.body[cell] = EMPTY;
+                this.firstChild[cell] = -1;
+                return cell;
+            }
+
+            private int child(int cell, double px, double py) {
+                double half = this.width[cell] / 2;
+                int quadrant = (px >= this.minX[cell] + half ? 1 : 0) + (py >= this.minY[cell] + half ? 2 : 0);
+                return this.firstChild[cell] + quadrant;
+            }
+
+            private void insert(int i) {
+                int cell = 0;
+                int depth = 0;
+
+                while (true) {
+                    this.mass[cell] += 1;
+                    this.sumX[cell] += this.x[i];
+                    this.sumY[cell] += this.y[i];
+
+                    if (this.body[cell] == EMPTY) {
+                        this.body[cell] = i;
+                        this.leafOf[i] = cell;
+                        return;
+                    }
+
+                    if (this.body[cell] >= 0) {
+                        if (depth >= MAX_DEPTH) {
+                            this.leafOf[i] = cell;
+                            return;
+                        }
+
+                        // Split the leaf and push its body down one level.
+                        int j = this.body[cell];
+                        this.body[cell] = INTERNAL;
+                        double half = this.width[cell] / 2;
+                        double cx = this.minX[cell];
+                        double cy = this.minY[cell];
+                        int first = newCell(cx, cy, half);
+                        newCell(cx + half, cy, half);
+                        newCell(cx, cy + half, half);
+                        newCell(cx + half, cy + half, half);
+                        this.firstChild[cell] = first;
+
+                        int c = child(cell, this.x[j], this.y[j]);
+                        this.mass[c] = 1;
+                        this.sumX[c] = this.x[j];
+                        this.sumY[c] = this.y[j];
+                        this.body[c] = j;
+                        this.leafOf[j] = c;
+                    }
+
+                    cell = child(cell, this.x[i], this.y[i]);
+                    depth++;
+                }
+            }
+
+            /**
+             * Adds the repulsive force on body v, k<sup>2</sup> / d per unit mass directed away from each cell, to
+             * force.
+             */
+            void repulsion(int v, double k2, double theta, double[] force) {
+                double px = this.x[v];
+                double py = this.y[v];
+                int[] stack = new int[3 * MAX_DEPTH + 4];
+                int top = 0;
+                stack[top++] = 0;
+
+                while (top > 0) {
+                    int cell = stack[--top];
+                    double m = this.mass[cell];
+
+                    if (m == 0) {
+                        continue;
+                    }
+
+                    double cx = this.sumX[cell];
+                    double cy = this.sumY[cell];
+
+                    if (this.body[cell] >= 0) {
+                        if (cell == this.leafOf[v]) {
+                            m -= 1;
+
+                            if (m == 0) {
+                                continue;
+                            }
+
+                            cx -= px;
+                            cy -= py;
+                        }
+
+                        add(v, px - cx / m, py - cy / m, m, k2, force);
+                        continue;
+                    }
+
+                    double dx = px - cx / m;
+                    double dy = py - cy / m;
+                    double d = FastMath.sqrt(dx * dx + dy * dy);
+                    double w = this.width[cell];
+                    boolean inside = px >= this.minX[cell] && px < this.minX[cell] + w
+                                     && py >= this.minY[cell] && py < this.minY[cell] + w;
+
+                    if (!inside && w < theta * d) {
+                        add(v, dx, dy, m, k2, force);
+                    } else {
+                        int first = this.firstChild[cell];
+                        stack[top++] = first;
+                        stack[top++] = first + 1;
+                        stack[top++] = first + 2;
+                        stack[top++] = first + 3;
+                    }
+                }
+            }
+
+            private static void add(int v, double dx, double dy, double m, double k2, double[] force) {
+                double d2 = dx * dx + dy * dy;
+
+                // Coincident bodies are pushed apart in a direction that depends only on the body.
+                if (d2 < 1e-4) {
+                    dx = 0.01 * FastMath.cos(v);
+                    dy = 0.01 * FastMath.sin(v);
+                    d2 = 1e-4;
+                }
+
+                double f = m * k2 / d2;
+                force[0] += dx * f;
+                force[1] += dy * f;
+            }
+        }
+    }
+}
@@ -24,12 +24,12 @@ import edu.cmu.tetrad.data.DataSet;
 import edu.cmu.tetrad.graph.EdgeListGraph;
 import edu.cmu.tetrad.graph.Graph;
 import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.search.utils.DagmaEngine;
 import edu.cmu.tetrad.search.utils.MeekRules;
 import org.ejml.data.DMatrixRMaj;
-import org.ejml.dense.row.factory.DecompositionFactory_DDRM;
-import org.ejml.interfaces.decomposition.LUDecomposition_F64;
 import org.ejml.simple.SimpleMatrix;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.apache.commons.math3.util.FastMath.*;
@@ -39,6 +39,8 @@ import static org.apache.commons.math3.util.FastMath.*;
  * <p>
  * Bello, K., Aragam, B., &amp; Ravikumar, P. (2022). Dagma: Learning dags via m-matrices and a log-determinant
  * acyclicity characterization. Advances in Neural Information Processing Systems, 35, 8226-8239.
+ * <p>
+ * The optimization itself is done by {@link DagmaEngine}.
  *
  * @author bryanandrews
  * @version $Id: $Id
@@ -94,10 +96,6 @@ public class Dagma {
      * Represents the list of Node variables.
      */
     private final List<Node> variables;
-    /**
-     * Identity.
-     */
-    private final SimpleMatrix I;
     /**
      * The variable 'd'.
      */
@@ -124,7 +122,6 @@ public class Dagma {
         this.variables = dataset.getVariables();
         this.cov = dataset.getCorrelationMatrix().getSimpleMatrix();
         this.d = cov.getNumRows();
-        this.I = SimpleMatrix.identity(this.d);
 
         // tunable parameters
         this.lambda1 = 0.05;
@@ -181,25 +178,26 @@ public class Dagma {
      * @return a Graph object representing the found graph
      */
     public Graph search() {
-        SimpleMatrix W = new SimpleMatrix(this.d, this.d);
-
-        double mu = this.muInit;
-        double lrAdam;
+        DagmaEngine engine = newEngine();
+        return toGraph(engine.fit(this.lambda1));
+    }
 
-        int outerIters = this.T.length;
-        int innerIters = this.warmIter;
+    /**
+     * Searches along a path of lambda1 values, warm starting each fit from the solution of the previous one. Giving the
+     * values in decreasing order, so that the solutions get denser along the path, is usually fastest.
+     *
+     * @param lambda1s The lambda1 values.
+     * @return The graphs found, one for each lambda1 value, in order.
+     */
+    public List<Graph> searchPath(double[] lambda1s) {
+        DagmaEngine engine = newEngine();
+        List<Graph> graphs = new ArrayList<>();
 
-        for (double s : this.T) {
-            lrAdam = this.lr;
-            if (outerIters-- == 1) innerIters = this.maxIter;
-            while (minimize(W, mu, innerIters, s, lrAdam)) {
-                lrAdam *= 0.5;
-                s += 0.1;
-            }
-            mu *= this.muFactor;
+        for (double lambda1 : lambda1s) {
+            graphs.add(toGraph(engine.fit(lambda1)));
         }
 
-        return toGraph(W);
+        return graphs;
     }
 
     /**
@@ -256,287 +254,14 @@ public class Dagma {
         this.cpdag = cpdag;
     }
 
-    /**
-     * Evaluate value and gradient of the score function.
-     *
-     * @param W The Matrix to calculate the score for.
-     * @return The calculated score.
-     */
-    private double _score(SimpleMatrix W) {
-        SimpleMatrix dif = this.I.minus(W);
-        SimpleMatrix rhs = this.cov.mult(dif);
-        return 0.5 * dif.transpose().mult(rhs).trace();
-    }
-
-    /**
-     * Evaluate value and gradient of the logdet acyclicity constraint.
-     *
-     * @param W the matrix to calculate the score for
-     * @param s the value of s
-     * @return the calculated value of `_h`
-     */
-    private double _h(SimpleMatrix W, double s) {
-        SimpleMatrix M = getMMatrix(W, s);
-        return this.d * log(s) - logDet(M);
-    }
-
-    /**
-     * Evaluate the value of the penalized objective function.
-     *
-     * @param W  The matrix representing the input matrix.
-     * @param mu The value of mu.
-     * @param s  The value of s.
-     * @return The calculated value of _func.
-     */
-    private double _func(SimpleMatrix W, double mu, double s) {
-        double score = _score(W);
-        double h = _h(W, s);
-        return mu * (score + this.lambda1 * absSum(W)) + h;
-    }
-
-    /**
-     * Update the optimizer parameters using the Adam algorithm.
-     *
-     * @param grad The gradient matrix.
-     * @param iter The current iteration count.
-     * @param optM The first moment estimate matrix.
-     * @param optV The second moment estimate matrix.
-     */
-    private void adamUpdate(SimpleMatrix grad, int iter, SimpleMatrix optM, SimpleMatrix optV) {
-
-        double b1_ = 1 - this.b1;
-        double b2_ = 1 - this.b2;
-
-        for (int i = 0; i < this.d; i++) {
-            for (int j = 0; j < this.d; j++) {
-                double g = grad.get(i, j);
-                double m = optM.get(i, j);
-                double v = optV.get(i, j);
-
-                double a = this.b1 * m + b1_ * g;
-                double b = this.b2 * v + b2_ * pow(g, 2);
-
-                optM.set(i, j, a);
-                optV.set(i, j, b);
-                a /= 1 - pow(this.b1, iter);
-                b /= 1 - pow(this.b2, iter);
-
-                grad.set(i, j, a / (sqrt(b) + 1e-8));
-            }
-        }
-    }
-
-    /**
-     * Minimizes the objective function using the specified parameters.
-     *
-     * @param W         The matrix representing the input matrix.
-     * @param mu        The value of mu.
-     * @param innerIter The number of inner iterations.
-     * @param s         The value of s.
-     * @param lrAdam    The learning rate for the Adam optimizer.
-     * @return true if the optimization is successful, false otherwise.
-     */
-    private boolean minimize(SimpleMatrix W, double mu, int innerIter, double s, double lrAdam) {
-        SimpleMatrix optM = new SimpleMatrix(this.d, this.d);
-        SimpleMatrix optV = new SimpleMatrix(this.d, this.d);
-
-        double objPrev = 1e16;
-        double objNew;
-
-        SimpleMatrix W_old = W.copy();
-        SimpleMatrix grad = null;
-
-        for (int iter = 1; iter <= innerIter; iter++) {
-            SimpleMatrix M = getMMatrix(W, s).invert();
-            addToEntries(M, 1e-16);
-
-            while (notMMatrix(M)) {
-                if ((iter == 1) || (s <= 0.9)) {
-                    setEntries(W, W_old);
-                    return true;
-                } else if (lrAdam <= 2e-16) {
-                    addToEntries(W, grad, lrAdam);
-                    return false;
-                } else {
-                    lrAdam *= 0.5;
-                    addToEntries(W, grad, lrAdam);
-                    M = getMMatrix(W, s).invert();
-                    addToEntries(M, 1e-16);
-                }
-            }
-
-            grad = this.cov.mult(W);
-            for (int i = 0; i < this.d; i++) {
-                for (int j = 0; j < this.d; j++) {
-                    double g = grad.get(i, j);
-                    double c = this.cov.get(i, j);
-                    double w = W.get(i, j);
-                    double mt = M.get(j, i);
-
-                    double sign = 0;
-                    if (w > 0) sign = 1;
-                    if (w < 0) sign = -1;
-
-                    grad.set(i, j, mu * (g - c + this.lambda1 * sign) + 2 * w * mt);
-                }
-            }
-
-            // Adam step
-            adamUpdate(grad, iter, optM, optV);
-            addToEntries(W, grad, -lrAdam);
-
-            // Check obj convergence
-            if (iter % this.checkpoint == 0) {
-                objNew = _func(W, mu, s);
-                if (abs((objPrev - objNew) / objPrev) <= this.tol) break;
-                objPrev = objNew;
-            }
-        }
-
-        return false;
-    }
-
-    /**
-     * Calculates the M matrix for a given matrix W and value of s.
-     *
-     * @param W The matrix representing the input matrix.
-     * @param s The value of s.
-     * @return The calculated M matrix.
-     */
-    private SimpleMatrix getMMatrix(SimpleMatrix W, double s) {
-        SimpleMatrix M = this.I.scale(s);
-
-        for (int i = 0; i < this.d; i++) {
-            for (int j = 0; j < this.d; j++) {
-                M.set(i, j, M.get(i, j) + -W.get(i, j) * W.get(i, j));
-            }
-        }
-
-        return M;
-    }
-
-    /**
-     * Sets the entries of the matrix A to the values of the matrix B.
-     *
-     * @param A The matrix to be updated.
-     * @param B The matrix containing the new values.
-     */
-    private void setEntries(SimpleMatrix A, SimpleMatrix B) {
-        for (int i = 0; i < this.d; i++) {
-            for (int j = 0; j < this.d; j++) {
-                A.set(i, j, B.get(i, j));
-            }
-        }
-    }
-
-    /**
-     * Adds a constant value to each entry of the provided matrix.
-     *
-     * @param A The matrix to be updated.
-     * @param c The constant value to be added.
-     */
-    private void addToEntries(SimpleMatrix A, double c) {
-        for (int i = 0; i < this.d; i++) {
-            for (int j = 0; j < this.d; j++) {
-                A.set(i, j, A.get(i, j) + c);
-            }
-        }
-    }
-
-    /**
-     * Adds each element of matrix B multiplied by constant c to the corresponding element in matrix A.
-     *
-     * @param A The matrix to be updated.
-     * @param B The matrix containing the elements to be added.
-     * @param c The constant value to multiply with the elements of B before adding to A.
-     */
-    private void addToEntries(SimpleMatrix A, SimpleMatrix B, double c) {
-        for (int i = 0; i < this.d; i++) {
-            for (int j = 0; j < this.d; j++) {
-                A.set(i, j, A.get(i, j) + c * B.get(i, j));
-            }
-        }
-    }
-
-    /**
-     * Calculates the log determinant of a square matrix.
-     *
-     * @param M The matrix for which to calculate the log determinant.
-     * @return The log determinant of the given matrix.
-     */
-    private double logDet(SimpleMatrix M) {
-        assert M.getNumRows() == M.getNumCols();
-        int d = M.getNumRows();
-
-        LUDecomposition_F64<DMatrixRMaj> lu = DecompositionFactory_DDRM.lu(M.getNumRows(), M.getNumCols());
-
-        DMatrixRMaj _M = M.getMatrix();
-
-        DMatrixRMaj L = new DMatrixRMaj(_M.getNumRows(), _M.getNumCols());
-        DMatrixRMaj U = new DMatrixRMaj(_M.getNumRows(), _M.getNumCols());
-        DMatrixRMaj P = new DMatrixRMaj(_M.getNumRows(), _M.getNumCols());
-        lu.decompose(_M);
-        lu.getLower(L);
-        lu.getUpper(U);
-        lu.getRowPivot(P);
-
-        if (!lu.decompose(_M)) {
-            throw new RuntimeException("LU Decomposition failed!");
-        }
-
-        double trace = 0.0;
-        for (int i = 0; i < Math.min(P.getNumRows(), P.getNumCols()); i++) {
-            trace += M.get(i, i); // Add diagonal elements
-        }
-
-        double logDet = log(abs(d - trace - 1));
-        for (int i = 0; i < d; i++) {
-            logDet += log(abs(L.get(i, i)));
-            logDet += log(abs(U.get(i, i)));
-        }
-
-        return logDet;
-    }
-
-    /**
-     * Checks whether the given matrix is not an M matrix.
-     *
-     * @param M The matrix to check.
-     * @return true if the matrix is not an M matrix, false otherwise.
-     */
-    private boolean notMMatrix(SimpleMatrix M) {
-        assert M.getNumRows() == M.getNumCols();
-        int d = M.getNumRows();
-
-        for (int i = 0; i < d; i++) {
-            for (int j = 0; j < d; j++) {
-                if (M.get(i, j) < 0) {
-                    return true;
-                }
-            }
-        }
-
-        return false;
-    }
-
-    /**
-     * Calculates the absolute sum of all elements in a given matrix.
-     *
-     * @param M The matrix for which to calculate the absolute sum.
-     * @return The absolute sum of all elements in the matrix.
-     */
-    private double absSum(SimpleMatrix M) {
-        assert M.getNumRows() == M.getNumCols();
-        int d = M.getNumRows();
-
-        double s = 0;
-        for (int i = 0; i < d; i++) {
-            for (int j = 0; j < d; j++) {
-                s += abs(M.get(i, j));
-            }
-        }
-
-        return s;
+    private DagmaEngine newEngine() {
+        DagmaEngine engine = new DagmaEngine(this.cov.getDDRM());
+        engine.setT(this.T);
+        engine.setMu(this.muInit, this.muFactor);
+        engine.setIterations(this.warmIter, this.maxIter);
+        engine.setAdam(this.lr, this.b1, this.b2);
+        engine.setEarlyStopping(this.checkpoint, this.tol);
+        return engine;
     }
 
     /**
@@ -545,11 +270,11 @@ public class Dagma {
      * @param W The matrix to convert to a Graph.
      * @return The Graph representation of the input matrix.
      */
-    private Graph toGraph(SimpleMatrix W) {
-        SimpleMatrix W_ = new SimpleMatrix(this.d, this.d);
+    private Graph toGraph(DMatrixRMaj W) {
+        double[][] W_ = new double[this.d][this.d];
         for (int i = 0; i < this.d; i++) {
             for (int j = 0; j < this.d; j++) {
-                W_.set(i, j, abs(W.get(i, j)));
+                W_[i][j] = abs(W.get(i, j));
             }
         }
 
@@ -560,21 +285,21 @@ public class Dagma {
             wMin = Double.MAX_VALUE;
             for (int i = 0; i < this.d; i++) {
                 for (int j = 0; j < this.d; j++) {
-                    double w_ = W_.get(i, j);
+                    double w_ = W_[i][j];
                     if (w_ < wThreshold) {
-                        W_.set(i, j, 0);
+                        W_[i][j] = 0;
                     } else if (w_ < wMin) {
                         wMin = w_;
                     }
                 }
             }
             wThreshold = wMin + 1e-6;
-        } while (power(W_, this.d).trace() > 0);
+        } while (!isAcyclic(W_));
 
         Graph graph = new EdgeListGraph(this.variables);
         for (int i = 0; i < this.d; i++) {
             for (int j = 0; j < this.d; j++) {
-                if (W_.get(i, j) == 0) continue;
+                if (W_[i][j] == 0) continue;
                 graph.addDirectedEdge(this.variables.get(i), this.variables.get(j));
             }
         }
@@ -587,5 +312,35 @@ public class Dagma {
 
         return graph;
     }
-}
 
+    /**
+     * Checks whether the support of W is acyclic by repeatedly removing nodes with no incoming edges. (This replaces
+     * checking trace(W^d) &gt; 0, which can underflow for small weights and large d.)
+     *
+     * @param W The thresholded weights; W[i][j] != 0 means i --&gt; j.
+     * @return True if acyclic.
+     */
+    private boolean isAcyclic(double[][] W) {
+        int[] inDegree = new int[this.d];
+        for (int i = 0; i < this.d; i++) {
+            for (int j = 0; j < this.d; j++) {
+                if (W[i][j] != 0) inDegree[j]++;
+            }
+        }
+
+        int[] queue = new int[this.d];
+        int head = 0, tail = 0;
+        for (int j = 0; j < this.d; j++) {
+            if (inDegree[j] == 0) queue[tail++] = j;
+        }
+
+        while (head < tail) {
+            int i = queue[head++];
+            for (int j = 0; j < this.d; j++) {
+                if (W[i][j] != 0 && --inDegree[j] == 0) queue[tail++] = j;
+            }
+        }
+
+        return tail == this.d;
+    }
+}
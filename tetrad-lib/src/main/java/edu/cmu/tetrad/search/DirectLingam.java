@@ -26,9 +26,12 @@ import edu.cmu.tetrad.graph.Graph;
 import edu.cmu.tetrad.graph.Node;
 import edu.cmu.tetrad.search.score.Score;
 import edu.cmu.tetrad.search.utils.GrowShrinkTree;
-import edu.cmu.tetrad.util.StatUtils;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 import static org.apache.commons.math3.util.FastMath.*;
 
@@ -41,6 +44,10 @@ import static org.apache.commons.math3.util.FastMath.*;
  * <p>
  * A. HyvÃ¤rinen and S. M. Smith. Pairwise likelihood ratios for estimation of non-Gaussian structural evaluation models.
  * Journal of Machine Learning Research 14:111-152, 2013.
+ * <p>
+ * The pairwise measures are computed once per pair per step (both directions together), in parallel over a fork-join
+ * pool, with residuals updated in place; entropy approximations of residuals that do not change between steps are
+ * reused.
  *
  * @author bryanandrews
  * @version $Id: $Id
@@ -58,6 +65,10 @@ public class DirectLingam {
      * the grow-shrink trees
      */
     private final Map<Node, GrowShrinkTree> gsts;
+    /**
+     * the number of threads used to compute the pairwise measures
+     */
+    private int numThreads = Runtime.getRuntime().availableProcessors();
 
     /**
      * Constructor.
@@ -85,96 +96,146 @@ public class DirectLingam {
      * @return the maximum entropy approximation
      */
     public static double maxEntApprox(double[] x) {
-        x = StatUtils.standardizeData(x);
+        return maxEntApproxInPlace(x.clone());
+    }
 
-        final double k1 = 79.047;
-        double k2 = 36 / (8 * sqrt(3) - 9);
-        final double gamma = 0.37457;
-        double gaussianEntropy = (log(2.0 * PI) / 2.0) + 1.0 / 2.0;
+    /**
+     * Performs the search. Returns a graph.
+     *
+     * @return a graph
+     */
+    public Graph search() {
+        int p = this.variables.size();
 
-        // This is negentropy
-        double b1 = 0.0;
+        // One contiguous array of residuals per variable, updated in place.
+        double[][] R = this.dataset.getDoubleData().transpose().toArray();
+        for (double[] r : R) {
+            standardize(r);
+        }
 
-        for (double aX1 : x) {
+        // Entropy approximations of the residuals and of the pairwise residuals, kept across steps for the
+        // residuals that do not change.
+        double[] ent = new double[p];
+        double[][] entRes = new double[p][p];
+        boolean[] changed = new boolean[p];
+        Arrays.fill(changed, true);
 
-            // First term for the Taylor expansion of logcosh.
-            b1 += aX1 * aX1 / 2.0;
-        }
+        List<Integer> U = new ArrayList<>();
+        for (int i = 0; i < p; i++) U.add(i);
 
-        b1 /= x.length;
+        Set<Node> K = new HashSet<>();
+        Graph g = new EdgeListGraph(this.variables);
 
-        double b2 = 0.0;
+        ForkJoinPool pool = this.numThreads > 1 ? new ForkJoinPool(this.numThreads) : null;
 
-        for (double aX : x) {
-            b2 += aX * exp(-(aX * aX) / 2);
-        }
+        try {
+            while (!U.isEmpty()) {
+                int[] u = U.stream().mapToInt(Integer::intValue).toArray();
+                updateEntropies(u, R, ent, entRes, changed, pool);
+                Arrays.fill(changed, false);
 
-        b2 /= x.length;
+                int m = getNext(u, ent, entRes);
+                U.remove((Integer) m);
 
-        double d = b1 - gamma;
-        double negentropy = k1 * (d * d) + k2 * (b2 * b2);
+                for (int x : U) {
+                    changed[x] = residualize(R[x], R[m]);
+                }
 
-        return gaussianEntropy - negentropy;
+                Node node = this.variables.get(m);
+                K.add(node);
+                Set<Node> parents = new HashSet<>();
+                this.gsts.get(node).trace(K, K, parents);
+                for (Node x : parents) {
+                    g.addDirectedEdge(x, node);
+                }
+            }
+        } finally {
+            if (pool != null) pool.shutdown();
+        }
+
+        return g;
     }
 
     /**
-     * Performs the search. Returns a graph.
+     * Sets the number of threads used to compute the pairwise measures. Results do not depend on this.
      *
-     * @return a graph
+     * @param numThreads the number of threads, at least 1
      */
-    public Graph search() {
-        List<Node> U = new ArrayList<>(this.variables);
-        Map<Node, double[]> R = new HashMap<>();
+    public void setNumThreads(int numThreads) {
+        if (numThreads < 1) throw new IllegalArgumentException("Number of threads must be at least 1: " + numThreads);
+        this.numThreads = numThreads;
+    }
 
-        double[][] X = this.dataset.getDoubleData().transpose().toArray();
-        for (int i = 0; i < X.length; i++) {
-            standardize(X[i]);
-            R.put(this.variables.get(i), X[i]);
-        }
+    /**
+     * Recomputes the entropy approximations that involve a changed residual, in parallel over the remaining
+     * variables if a pool is given.
+     *
+     * @param u       the indices of the remaining variables
+     * @param R       the residuals
+     * @param ent     the entropy approximations of the residuals
+     * @param entRes  entRes[x][y] is the entropy approximation of the residual of x regressed on y
+     * @param changed which residuals changed since the last step
+     * @param pool    the pool, or null to run sequentially
+     */
+    private void updateEntropies(int[] u, double[][] R, double[] ent, double[][] entRes, boolean[] changed,
+                                 ForkJoinPool pool) {
+        int n = R[u[0]].length;
+        ThreadLocal<double[]> buffers = ThreadLocal.withInitial(() -> new double[n]);
+
+        IntConsumer task = a -> {
+            double[] buf = buffers.get();
+            int x = u[a];
+
+            if (changed[x]) {
+                System.arraycopy(R[x], 0, buf, 0, n);
+                ent[x] = maxEntApproxInPlace(buf);
+            }
 
-        Set<Node> K = new HashSet<>();
-        Graph g = new EdgeListGraph(this.variables);
+            for (int b = a + 1; b < u.length; b++) {
+                int y = u[b];
+                if (!changed[x] && !changed[y]) continue;
 
-        while (!U.isEmpty()) {
-            Node m = getNext(U, R);
-            U.remove(m);
-            for (Node x : U) {
-                R.put(x, residuals(R.get(x), R.get(m)));
+                residuals(R[x], R[y], buf);
+                entRes[x][y] = maxEntApproxInPlace(buf);
+                residuals(R[y], R[x], buf);
+                entRes[y][x] = maxEntApproxInPlace(buf);
             }
-
-            K.add(m);
-            Set<Node> parents = new HashSet<>();
-            this.gsts.get(m).trace(K, K, parents);
-            for (Node x : parents) {
-                g.addDirectedEdge(x, m);
+        };
+
+        if (pool == null) {
+            for (int a = 0; a < u.length; a++) task.accept(a);
+        } else {
+            try {
+                pool.submit(() -> IntStream.range(0, u.length).parallel().forEach(task)).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
             }
         }
-
-        return g;
     }
 
     /**
-     * Returns the next node in the list U that minimizes the objective function.
+     * Returns the next variable among u that minimizes the objective function.
      *
-     * @param U the list of nodes
-     * @param R a map of nodes to residuals
-     * @return the next node in the list U that minimizes the objective function
+     * @param u      the indices of the remaining variables
+     * @param ent    the entropy approximations of the residuals
+     * @param entRes the entropy approximations of the pairwise residuals
+     * @return the next variable
      */
-    private Node getNext(List<Node> U, Map<Node, double[]> R) {
-        Node m = U.getFirst();
+    private int getNext(int[] u, double[] ent, double[][] entRes) {
+        int m = u[0];
         double best = Double.POSITIVE_INFINITY;
 
-        for (Node x : U) {
+        for (int x : u) {
             double curr = 0;
-            double entx = maxEntApprox(R.get(x));
-            for (Node y : U) {
+            double entx = ent[x];
+            for (int y : u) {
                 if (x == y) continue;
 
-                double[] rxy = residuals(R.get(x), R.get(y));
-                double[] ryx = residuals(R.get(y), R.get(x));
-
-                double lr = maxEntApprox(R.get(y)) - entx;
-                lr += maxEntApprox(rxy) - maxEntApprox(ryx);
+                double lr = ent[y] - entx;
+                lr += entRes[x][y] - entRes[y][x];
                 double min = min(0, lr);
                 curr += min * min;
             }
@@ -212,13 +273,13 @@ public class DirectLingam {
     }
 
     /**
-     * Calculates the residuals between two arrays.
+     * Returns the regression coefficient of x on y.
      *
      * @param x the first array
      * @param y the second array
-     * @return an array of residuals
+     * @return the coefficient
      */
-    private double[] residuals(double[] x, double[] y) {
+    private static double coefficient(double[] x, double[] y) {
         int n = x.length;
         double cov = 0;
         double var = 0;
@@ -227,14 +288,92 @@ public class DirectLingam {
             cov += x[i] * y[i];
             var += y[i] * y[i];
         }
-        double b = cov / var;
 
-        double[] r = new double[n];
-        for (int i = 0; i < n; i++) {
+        return cov / var;
+    }
+
+    /**
+     * Calculates the residuals of x regressed on y into r.
+     *
+     * @param x the first array
+     * @param y the second array
+     * @param r the array for the residuals
+     */
+    private static void residuals(double[] x, double[] y, double[] r) {
+        double b = coefficient(x, y);
+
+        for (int i = 0; i < x.length; i++) {
             r[i] = x[i] - b * y[i];
         }
+    }
 
-        return r;
+    /**
+     * Replaces x in place by its residuals regressed on y.
+     *
+     * @param x the first array
+     * @param y the second array
+     * @return false if x is unchanged, i.e., the coefficient is zero
+     */
+    private static boolean residualize(double[] x, double[] y) {
+        double b = coefficient(x, y);
+        if (b == 0) return false;
+
+        for (int i = 0; i < x.length; i++) {
+            x[i] = x[i] - b * y[i];
+        }
+
+        return true;
     }
-}
 
+    /**
+     * Calculates the maximum entropy approximation for the given array of values, standardizing x in place.
+     *
+     * @param x the array of values, which is overwritten
+     * @return the maximum entropy approximation
+     */
+    private static double maxEntApproxInPlace(double[] x) {
+        int n = x.length;
+        double sum = 0.0;
+
+        for (double v : x) {
+            sum += v;
+        }
+
+        double mean = sum / n;
+        double norm = 0.0;
+
+        for (int i = 0; i < n; i++) {
+            x[i] = x[i] - mean;
+            norm += x[i] * x[i];
+        }
+
+        norm = sqrt(norm / (n - 1));
+
+        final double k1 = 79.047;
+        double k2 = 36 / (8 * sqrt(3) - 9);
+        final double gamma = 0.37457;
+        double gaussianEntropy = (log(2.0 * PI) / 2.0) + 1.0 / 2.0;
+
+        // This is negentropy
+        double b1 = 0.0;
+        double b2 = 0.0;
+
+        for (int i = 0; i < n; i++) {
+            double v = x[i] / norm;
+            x[i] = v;
+            b1 += v * v / 2.0;
+        }
+
+        for (double v : x) {
+            b2 += v * exp(-(v * v) / 2);
+        }
+
+        b1 /= n;
+        b2 /= n;
+
+        double d = b1 - gamma;
+        double negentropy = k1 * (d * d) + k2 * (b2 * b2);
+
+        return gaussianEntropy - negentropy;
+    }
+}
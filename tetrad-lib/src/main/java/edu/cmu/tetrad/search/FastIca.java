@@ -20,6 +20,7 @@
 
 package edu.cmu.tetrad.search;
 
+import edu.cmu.tetrad.search.utils.IcaEstimator;
 import edu.cmu.tetrad.util.Matrix;
 import edu.cmu.tetrad.util.RandomUtil;
 import edu.cmu.tetrad.util.TetradLogger;
@@ -33,17 +34,21 @@ import static org.apache.commons.math3.util.FastMath.*;
 /**
  * FastICA (real-valued) translated for Tetrad.
  * <p>
- * Key stability fixes: - Correct derivative in symmetric (parallel) update: g'(u) = α(1 - g(u)^2) for logcosh. -
- * Whitening ridge (eps) to avoid exploding 1/sqrt(λ) on tiny eigenvalues. - Orthonormalize random wInit via SVD (helps
+ * Key stability fixes: - Exact derivative in both the symmetric (parallel) and deflation updates: g'(u) = α(1 -
+ * g(u)^2) for logcosh, (1 - u^2)e^{-u^2/2} for exp. - Whitening ridge (eps) to avoid exploding 1/sqrt(λ) on tiny
+ * eigenvalues. - Orthonormalize random wInit via SVD (helps
  * convergence). - Small deflation loop fix (row assignment index).
  * <p>
  * Reference: Hyvarinen &amp; Oja (2000) Independent Component Analysis: Algorithms and Applications. Neural Networks
  * 13(4–5):411–430.
+ * <p>
+ * For larger problems, see {@link edu.cmu.tetrad.search.utils.FastIcaCore}, which implements the same
+ * {@link IcaEstimator} interface.
  *
  * @author josephramsey
  * @version $Id: $Id
  */
-public class FastIca {
+public class FastIca implements IcaEstimator {
 
     /**
      * Extract components simultaneously (symmetric decorrelation).
@@ -370,8 +375,7 @@ public class FastIca {
 
                 Vector g_wx = new Vector(X.getNumColumns());
                 for (int k = 0; k < X.getNumColumns(); k++) {
-                    double t = g(alpha, wx.get(k));
-                    g_wx.set(k, (1.0 - t * t));
+                    g_wx.set(k, gPrime(alpha, wx.get(k)));
                 }
 
                 Vector v2 = w.copy().scalarMult(mean(g_wx));
@@ -422,7 +426,8 @@ public class FastIca {
         double _tolerance = Double.POSITIVE_INFINITY;
         int it = 0;
 
-        if (verbose) TetradLogger.getInstance().log("Symmetric FastICA (logcosh)");
+        if (verbose) TetradLogger.getInstance().log("Symmetric FastICA ("
+                                                    + (this.function == FastIca.LOGCOSH ? "logcosh" : "exp") + ")");
 
         while (_tolerance > tolerance && it < maxIterations) {
             Matrix wx = W.times(X); // (nComp x p)
@@ -436,12 +441,10 @@ public class FastIca {
             // E[ g(wx) x^T ] = gwx * X^T / p
             Matrix v1 = gwx.times(X.transpose().scalarMult(1.0 / p));
 
-            // g'(u) = alpha * (1 - g(u)^2) for logcosh with tanh(alpha u)
             Matrix g_wx = gwx.like();
             for (int i = 0; i < g_wx.getNumRows(); i++) {
                 for (int j = 0; j < g_wx.getNumColumns(); j++) {
-                    double v = gwx.get(i, j);                // FIX: read from gwx, not g_wx
-                    g_wx.set(i, j, alpha * (1.0 - v * v));   // derivative
+                    g_wx.set(i, j, gPrime(alpha, wx.get(i, j)));
                 }
             }
 
@@ -488,6 +491,18 @@ public class FastIca {
         }
     }
 
+    // The derivative of g: alpha * (1 - tanh(alpha y)^2) for LOGCOSH, (1 - y^2) exp(-y^2 / 2) for EXP.
+    private double gPrime(double alpha, double y) {
+        if (this.function == FastIca.LOGCOSH) {
+            double t = tanh(alpha * y);
+            return alpha * (1.0 - t * t);
+        } else if (this.function == FastIca.EXP) {
+            return (1.0 - y * y) * exp(-(y * y) / 2.);
+        } else {
+            throw new IllegalArgumentException("That function is not configured.");
+        }
+    }
+
     private double sumOfSquares(Vector v) {
         double sum = 0.0;
         for (int i = 0; i < v.size(); i++) sum += v.get(i) * v.get(i);
@@ -24,8 +24,7 @@ import edu.cmu.tetrad.data.CorrelationMatrix;
 import edu.cmu.tetrad.data.DataSet;
 import edu.cmu.tetrad.graph.Node;
 import edu.cmu.tetrad.search.utils.ClusterSignificance;
-import edu.cmu.tetrad.util.ChoiceGenerator;
-import edu.cmu.tetrad.util.RankTests;
+import edu.cmu.tetrad.search.utils.TadSearch;
 import edu.cmu.tetrad.util.TetradLogger;
 import org.ejml.simple.SimpleMatrix;
 
@@ -66,7 +65,6 @@ public class Fofc {
      * Sample size.
      */
     private final int n;
-    private final Map<List<Integer>, Boolean> vanishCache = new HashMap<>();
     private final Tsc tsc;
     private final int sampleSize;
     /**
@@ -74,13 +72,13 @@ public class Fofc {
      */
     private boolean verbose = false;
     /**
-     * A cache of pure tetrads.
+     * The number of threads used to test tads.
      */
-    private Set<Set<Integer>> pureTets;
+    private int numThreads = Runtime.getRuntime().availableProcessors();
     /**
-     * A cache of impure tetrads.
+     * The tad tests and their caches for the current search.
      */
-    private Set<Set<Integer>> impureTets;
+    private TadSearch tads;
     private int rMax = 2;
     private int ess;
 
@@ -128,18 +126,34 @@ public class Fofc {
      * @return This a map from discovered clusters to their ranks.
      */
     public Map<List<Integer>, Integer> findClusters() {
-        this.pureTets = new HashSet<>();
-        this.impureTets = new HashSet<>();
-
         Map<List<Integer>, Integer> clustersToRanks = new HashMap<>();
 
-        for (int rank = 1; rank <= 1; rank++) {
-            estimateClustersSag(rank, clustersToRanks);
+        try (TadSearch tads = new TadSearch(S, ess, alpha, numThreads)) {
+            this.tads = tads;
+
+            for (int rank = 1; rank <= 1; rank++) {
+                estimateClustersSag(rank, clustersToRanks);
+            }
+        } finally {
+            this.tads = null;
         }
 
         return clustersToRanks;
     }
 
+    /**
+     * Sets the number of threads used to test tads. Results do not depend on this.
+     *
+     * @param numThreads The number of threads, at least 1.
+     */
+    public void setNumThreads(int numThreads) {
+        if (numThreads < 1) {
+            throw new IllegalArgumentException("Number of threads must be at least 1: " + numThreads);
+        }
+
+        this.numThreads = numThreads;
+    }
+
     /**
      * <p>Setter for the field <code>verbose</code>.</p>
      *
@@ -206,6 +220,8 @@ public class Fofc {
         Set<List<Integer>> testedConcatenations = new HashSet<>();
 
         for (int i = 0; i < triples.size(); i++) {
+            if (tads.isCancelled()) return;
+
             final Set<Integer> A = triples.get(i);
             for (int j = i + 1; j < triples.size(); j++) {
                 final Set<Integer> B = triples.get(j);
@@ -228,7 +244,7 @@ public class Fofc {
                 if (!new HashSet<>(unclustered).containsAll(C)) continue;
 
                 // 5) purity w.r.t. ALL variables (your pure() already does this + substitution)
-                if (pure(C) == Purity.PURE) {
+                if (tads.isPure(C)) {
                     // 6) grow from the sextet
                     growCluster(C, rank, clustersToRanks);
 
@@ -252,86 +268,13 @@ public class Fofc {
         unclustered.removeAll(union(clustersToRanks.keySet()));
         unclustered.removeAll(cluster);
 
-        // Don't mutate 'cluster' while we're generating subsets from it
-        List<Integer> toAdd = new ArrayList<>();
-
-        // Choose subset size: if cluster is small, use the whole cluster; otherwise tadSize-1
-        final int k = Math.min(cluster.size(), tadSize - 1);
-
-        // Pre-enumerate all k-subsets of the current cluster once
-        List<List<Integer>> subsets = new ArrayList<>();
-        if (k > 0) {
-            ChoiceGenerator gen = new ChoiceGenerator(cluster.size(), k);
-            int[] choice;
-            while ((choice = gen.next()) != null) {
-                if (Thread.currentThread().isInterrupted()) return;
-                List<Integer> sub = new ArrayList<>(k);
-                for (int j : choice) sub.add(cluster.get(j));
-                subsets.add(sub);
-            }
-        } else {
-            // If k == 0, the only subset is empty; weâll just test {o} with nothing else (still handled below)
-            subsets.add(Collections.emptyList());
-        }
-
-        // For each candidate o, test all size-(k+1) tads = subset âª {o}
-        O:
-        for (int o : unclustered) {
-            if (Thread.currentThread().isInterrupted()) return;
-
-            for (List<Integer> sub : subsets) {
-
-                // Make tad = sub âª {o}
-                List<Integer> tad = new ArrayList<>(sub.size() + 1);
-                tad.addAll(sub);
-                tad.add(o);
-
-                if (pure(tad) != Purity.PURE) {
-                    continue O;
-                }
-            }
-
-            toAdd.add(o);
-        }
+        // Candidates are tested in parallel; toAdd keeps the order of unclustered. Don't mutate 'cluster' until done.
+        List<Integer> toAdd = tads.growthCandidates(cluster, unclustered, tadSize);
 
         // Now (and only now) mutate the cluster
         cluster.addAll(toAdd);
     }
 
-    private Purity pure(List<Integer> tad) {
-        Set<Integer> key = new HashSet<>(tad);
-        if (pureTets.contains(key)) return Purity.PURE;
-        if (impureTets.contains(key)) return Purity.IMPURE;
-
-        // Base vanishing check for the candidate tad
-        if (vanishes(tad)) {
-            // Substitution test: every single-position substitution by any other variable must also vanish
-            List<Integer> vars = allVariables();
-            for (int o : vars) {
-                if (tad.contains(o)) continue;
-
-                for (int j = 0; j < tad.size(); j++) {
-                    List<Integer> _tad = new ArrayList<>(tad);
-                    _tad.set(j, o);
-
-                    if (!vanishes(_tad)) {
-                        // Cache both the bad substitution and the original key as IMPURE
-                        impureTets.add(new HashSet<>(_tad));
-                        impureTets.add(key);
-                        return Purity.IMPURE;
-                    }
-                }
-            }
-            // Passed all substitutions -> PURE
-            pureTets.add(key);
-            return Purity.PURE;
-        } else {
-            // Cache the original as IMPURE
-            impureTets.add(key);
-            return Purity.IMPURE;
-        }
-    }
-
     /**
      * Finds mixed clusters for the SAG algorithm.
      */
@@ -347,97 +290,16 @@ public class Fofc {
         List<Integer> unclustered = new ArrayList<>(allVariables());
         unclustered.removeAll(new HashSet<>(unionClustered));
 
-        List<Integer> variables = new ArrayList<>(unclustered);
-
-        ChoiceGenerator gen = new ChoiceGenerator(variables.size(), tadSize - 1);
-        int[] choice;
-
-        CHOICE:
-        while ((choice = gen.next()) != null) {
-            if (Thread.currentThread().isInterrupted()) {
-                break;
-            }
-
-            for (int c : choice) {
-                if (!unclustered.contains(variables.get(c))) {
-                    continue CHOICE;
-                }
-            }
-
-            List<Integer> cluster = new ArrayList<>();
-
-            for (int c : choice) {
-                cluster.add(variables.get(c));
-            }
-
-            for (int o : unionClustered) {
-                if (Thread.currentThread().isInterrupted()) {
-                    break;
-                }
-
-                if (cluster.contains(o)) continue;
-
-                List<Integer> _cluster = new ArrayList<>(cluster);
-                _cluster.add(o);
-
-                if (!vanishes(_cluster)) {
-                    continue CHOICE;
-                }
-            }
-
+        // Candidate clusters are tested in parallel blocks and accepted in the same order as a sequential loop would;
+        // a candidate overlapping an accepted cluster is skipped before it is tested.
+        tads.forEachMixedCluster(unclustered, unionClustered, tadSize - 1, cluster -> {
             clustersToRanks.put(canonKey(cluster), rank);
-            unclustered.removeAll(cluster);
 
             if (this.verbose) {
                 log((2 * (rank + 1) - 1) + "-cluster found: " +
                     ClusterSignificance.variablesForIndices(cluster, this.variables));
             }
-        }
-    }
-
-    /**
-     * Determines if a given tad of variables "vanishes".
-     *
-     * @param tad The list of indices representing variables in the tad.
-     * @return True if the tad vanishes, false otherwise.
-     */
-    private boolean vanishes(List<Integer> tad) {
-        // canonical key
-        List<Integer> key = canonKey(tad);
-        Boolean cached = vanishCache.get(key);
-        if (cached != null) return cached;
-
-        int leftSize = tad.size() / 2;
-        ChoiceGenerator gen = new ChoiceGenerator(tad.size(), leftSize);
-        int[] choice;
-
-        while ((choice = gen.next()) != null) {
-            if (Thread.currentThread().isInterrupted()) break;
-
-            int[] x = new int[leftSize];
-            for (int i = 0; i < leftSize; i++) x[i] = tad.get(choice[i]);
-
-            int[] y = new int[tad.size() - leftSize];
-            int yIndex = 0;
-            for (int v : tad) {
-                boolean inX = false;
-                for (int xv : x)
-                    if (xv == v) {
-                        inX = true;
-                        break;
-                    }
-                if (!inX) y[yIndex++] = v;
-            }
-
-            int r = Math.min(x.length, y.length) - 1;
-            int rank = RankTests.estimateWilksRankFast(S, x, y, ess, alpha);
-            if (rank != r) {
-                vanishCache.put(key, false);
-                return false;
-            }
-        }
-        vanishCache.put(key, true);
-        return true;
+        });
     }
 
     /**
@@ -466,8 +328,6 @@ public class Fofc {
             TetradLogger.getInstance().log(s);
         }
     }
-
-    private enum Purity {PURE, IMPURE}
 }
 
 
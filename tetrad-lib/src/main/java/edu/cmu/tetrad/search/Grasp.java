@@ -25,6 +25,7 @@ import edu.cmu.tetrad.graph.*;
 import edu.cmu.tetrad.search.score.GraphScore;
 import edu.cmu.tetrad.search.score.Score;
 import edu.cmu.tetrad.search.test.IndependenceTest;
+import edu.cmu.tetrad.search.utils.GrowShrinkTree;
 import edu.cmu.tetrad.search.utils.MeekRules;
 import edu.cmu.tetrad.search.utils.TeyssierScorer;
 import edu.cmu.tetrad.util.MillisecondTimes;
@@ -33,6 +34,7 @@ import edu.cmu.tetrad.util.TetradLogger;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 import static java.lang.Double.NEGATIVE_INFINITY;
 import static java.util.Collections.shuffle;
@@ -95,10 +97,6 @@ public class Grasp {
      * The scorer to be used.
      */
     private TeyssierScorer scorer;
-    /**
-     * The time at which the algorithm started.
-     */
-    private long start;
     /**
      * Whether to use the score or the test.
      */
@@ -142,6 +140,22 @@ public class Grasp {
      */
     private long seed = -1;
     private boolean replicatingGraph = false;
+    /**
+     * The number of threads used to run restarts concurrently.
+     */
+    private int numThreads = 1;
+    /**
+     * The time limit for the restarts in milliseconds, or -1 for none.
+     */
+    private long timeout = -1;
+    /**
+     * The grow-shrink trees, shared by all restarts.
+     */
+    private Map<Node, GrowShrinkTree> trees;
+    /**
+     * The best permutation found so far.
+     */
+    private volatile BestOrder best;
 
     /**
      * Constructor for a score.
@@ -231,8 +245,11 @@ public class Grasp {
      * rearranging the variables in 'order.'
      *
      * @param order The initial permutation.
-     * @return The discovered permutation at the end of the procedure.
-     * @throws InterruptedException if any
+     * @return The discovered permutation at the end of the procedure. If a timeout is set, this is the best
+     * permutation found by the restarts when it expired.
+     * @throws InterruptedException  if interrupted before any restart finished
+     * @throws IllegalStateException if no restart finished within the timeout
+     * @throws RuntimeException      if a restart failed; the exception it threw is rethrown
      */
     public List<Node> bestOrder(@NotNull List<Node> order) throws InterruptedException {
         if (seed != -1) {
@@ -242,50 +259,54 @@ public class Grasp {
         long start = MillisecondTimes.timeMillis();
         order = new ArrayList<>(order);
 
-        this.scorer = new TeyssierScorer(this.test, this.score);
-        this.scorer.setUseRaskuttiUhler(this.useRaskuttiUhler);
-        this.scorer.setKnowledge(knowledge);
+        // One set of grow-shrink trees, shared by all restarts. Concurrent trees are used whatever the number of
+        // threads, so that the traces, and hence the result, are the same for any number of threads. They are only
+        // made if the scorers use the score; a GraphScore, for instance, cannot score a node with no parents.
+        boolean scored = this.score != null && this.useScore && !this.useRaskuttiUhler
+                         && !(this.score instanceof GraphScore);
+        this.trees = scored ? TeyssierScorer.newTrees(this.score, this.knowledge, true) : new HashMap<>();
+        this.best = null;
 
-        if (this.useRaskuttiUhler) {
-            this.scorer.setUseScore(false);
-            this.scorer.setUseRaskuttiUhler(true);
-        } else {
-            this.scorer.setUseScore(this.useScore && !(this.score instanceof GraphScore));
-        }
-
-        this.scorer.clearBookmarks();
-
-        List<Node> bestPerm = null;
-        double best = NEGATIVE_INFINITY;
-
-        this.scorer.score(order);
+        // The starting permutations, and the seeds for internal randomness, are drawn up front, so that they do not
+        // depend on the number of threads.
+        List<List<Node>> starts = new ArrayList<>();
+        long[] seeds = new long[this.numStarts];
 
         for (int r = 0; r < this.numStarts; r++) {
-            if (Thread.currentThread().isInterrupted()) break;
-
             if ((r == 0 && !this.useDataOrder) || r > 0) {
                 RandomUtil.shuffle(order);
             }
 
-            this.start = MillisecondTimes.timeMillis();
-
             makeValidKnowledgeOrder(order);
+            starts.add(new ArrayList<>(order));
+        }
 
-            this.scorer.score(order);
+        if (this.allowInternalRandomness) {
+            for (int r = 0; r < this.numStarts; r++) seeds[r] = RandomUtil.getInstance().nextLong();
+        }
 
-            List<Node> perm = grasp(this.scorer);
+        if (this.numThreads == 1 && this.timeout < 0) {
+            for (int r = 0; r < this.numStarts; r++) {
+                if (Thread.currentThread().isInterrupted()) break;
+                runStart(r, starts.get(r), seeds[r]);
+            }
+        } else {
+            runStartsConcurrently(starts, seeds);
+        }
 
-            this.scorer.score(perm);
+        BestOrder best = this.best;
 
-            if (this.scorer.score() > best) {
-                best = this.scorer.score();
-                bestPerm = perm;
+        if (best == null) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException("GRaSP was interrupted before any restart finished.");
             }
-        }
 
-        if (bestPerm == null) return null;
+            throw new IllegalStateException(this.timeout < 0 ? "No GRaSP restart finished."
+                    : "No GRaSP restart finished within the timeout of " + this.timeout + " ms.");
+        }
 
-        this.scorer.score(bestPerm);
+        this.scorer = newScorer();
+        this.scorer.score(best.order());
 
         long stop = MillisecondTimes.timeMillis();
 
@@ -294,7 +315,141 @@ public class Grasp {
             TetradLogger.getInstance().log("Elapsed time = " + (stop - start) / 1000.0 + " s");
         }
 
-        return new ArrayList<>(bestPerm);
+        return new ArrayList<>(best.order());
+    }
+
+    /**
+     * Returns the graph implied by the best permutation found so far. This may be called from another thread while
+     * {@link #bestOrder(List)} is running, or afterward if the restarts timed out (see {@link #setTimeout(long)}).
+     *
+     * @param cpDag True if a CPDAG should be returned, false if a DAG should be returned.
+     * @return This graph, or null if no restart has finished yet.
+     * @throws InterruptedException if any
+     */
+    public Graph getBestGraphSoFar(boolean cpDag) throws InterruptedException {
+        BestOrder best = this.best;
+        if (best == null) return null;
+
+        TeyssierScorer scorer = newScorer();
+        scorer.score(best.order());
+        return scorer.getGraph(cpDag);
+    }
+
+    /**
+     * Returns the score of the best permutation found so far.
+     *
+     * @return This score, or negative infinity if no restart has finished yet.
+     */
+    public double getBestScoreSoFar() {
+        BestOrder best = this.best;
+        return best == null ? NEGATIVE_INFINITY : best.score();
+    }
+
+    /**
+     * Sets the number of threads used to run restarts concurrently. The restarts share one set of grow-shrink trees,
+     * so local scores computed by one are available to all. Each restart has its own scorer and its own stream of
+     * internal randomness, so the result does not depend on the number of threads. If a test rather than a score is
+     * used, it is shared by the restarts and must be thread-safe.
+     *
+     * @param numThreads The number of threads, at least 1.
+     * @see #setNumStarts(int)
+     */
+    public void setNumThreads(int numThreads) {
+        if (numThreads < 1) throw new IllegalArgumentException("The number of threads must be at least 1.");
+        this.numThreads = numThreads;
+    }
+
+    /**
+     * Sets a time limit for the restarts. Restarts still running when it expires are interrupted, and the best
+     * permutation found by then is used.
+     *
+     * @param timeout The time limit in milliseconds, or -1 for none.
+     * @see #getBestGraphSoFar(boolean)
+     */
+    public void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
+
+    private void runStartsConcurrently(List<List<Node>> starts, long[] seeds) throws InterruptedException {
+        List<Callable<Void>> tasks = new ArrayList<>();
+
+        for (int r = 0; r < starts.size(); r++) {
+            int _r = r;
+            tasks.add(() -> {
+                runStart(_r, starts.get(_r), seeds[_r]);
+                return null;
+            });
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(this.numThreads);
+        List<Future<Void>> futures;
+
+        try {
+            if (this.timeout < 0) {
+                futures = pool.invokeAll(tasks);
+            } else {
+                futures = pool.invokeAll(tasks, this.timeout, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+
+            // Interrupted restarts still report their last permutation; the best is read only once all have.
+            while (!pool.awaitTermination(1, TimeUnit.SECONDS)) {
+                if (this.verbose) {
+                    TetradLogger.getInstance().log("Waiting for GRaSP restarts to stop.");
+                }
+            }
+        }
+
+        // Restarts cancelled at the timeout have already reported; any other failure is passed on.
+        for (Future<Void> future : futures) {
+            if (future.isCancelled()) continue;
+
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                if (cause instanceof Error) throw (Error) cause;
+                throw new RuntimeException(cause);
+            }
+        }
+    }
+
+    private void runStart(int r, List<Node> order, long seed) throws InterruptedException {
+        long start = MillisecondTimes.timeMillis();
+
+        TeyssierScorer scorer = newScorer();
+        scorer.score(order);
+
+        List<Node> perm = grasp(scorer, start, new Random(seed));
+        offer(new BestOrder(new ArrayList<>(perm), scorer.score(perm), r));
+    }
+
+    // Keeps the higher score; ties go to the earlier restart, so the result does not depend on timing.
+    private synchronized void offer(BestOrder candidate) {
+        BestOrder best = this.best;
+
+        if (best == null || candidate.score() > best.score()
+            || (candidate.score() == best.score() && candidate.start() < best.start())) {
+            this.best = candidate;
+        }
+    }
+
+    private TeyssierScorer newScorer() {
+        TeyssierScorer scorer = new TeyssierScorer(this.test, this.score, this.trees);
+        scorer.setUseRaskuttiUhler(this.useRaskuttiUhler);
+        scorer.setKnowledge(knowledge);
+
+        if (this.useRaskuttiUhler) {
+            scorer.setUseScore(false);
+            scorer.setUseRaskuttiUhler(true);
+        } else {
+            scorer.setUseScore(this.useScore && !(this.score instanceof GraphScore));
+        }
+
+        scorer.clearBookmarks();
+        return scorer;
     }
 
     /**
@@ -462,10 +617,12 @@ public class Grasp {
      * Implements the GRaSP algorithm to search for a best permutation of variables based on a scorer.
      *
      * @param scorer The scorer used to evaluate the permutations.
+     * @param start  The time at which the restart started.
+     * @param random The source of internal randomness for the restart.
      * @return A list of Node objects representing the discovered permutation at the end of the procedure.
      * @throws InterruptedException if any
      */
-    private List<Node> grasp(@NotNull TeyssierScorer scorer) throws InterruptedException {
+    private List<Node> grasp(@NotNull TeyssierScorer scorer, long start, Random random) throws InterruptedException {
         scorer.clearBookmarks();
         List<int[]> depths = new ArrayList<>();
 
@@ -491,7 +648,7 @@ public class Grasp {
         for (int[] depth : depths) {
             do {
                 sOld = sNew;
-                graspDfs(scorer, sOld, depth, 1, new HashSet<>(), new HashSet<>());
+                graspDfs(scorer, sOld, depth, 1, new HashSet<>(), new HashSet<>(), random);
                 sNew = scorer.score();
             } while (sNew > sOld);
         }
@@ -500,7 +657,7 @@ public class Grasp {
             TetradLogger.getInstance().log("# Edges = " + scorer.getNumEdges()
                                            + " Score = " + scorer.score()
                                            + " (GRaSP)"
-                                           + " Elapsed " + ((MillisecondTimes.timeMillis() - this.start) / 1000.0 + " s"));
+                                           + " Elapsed " + ((MillisecondTimes.timeMillis() - start) / 1000.0 + " s"));
         }
 
         return scorer.getPi();
@@ -557,14 +714,16 @@ public class Grasp {
      * @param currentDepth the current depth of the DFS traversal
      * @param tucks        a set of sets of nodes representing the tucks performed
      * @param dfsHistory   a set of sets of sets of nodes representing the DFS history
+     * @param random       the source of internal randomness
      * @throws InterruptedException if any
      */
     private void graspDfs(@NotNull TeyssierScorer scorer, double sOld, int[] depth, int currentDepth,
-                          Set<Set<Node>> tucks, Set<Set<Set<Node>>> dfsHistory) throws InterruptedException {
+                          Set<Set<Node>> tucks, Set<Set<Set<Node>>> dfsHistory, Random random)
+            throws InterruptedException {
         List<Node> vars = scorer.getPi();
 
         if (allowInternalRandomness) {
-            shuffle(vars);
+            shuffle(vars, random);
         }
 
         for (Node y : vars) {
@@ -572,7 +731,7 @@ public class Grasp {
             List<Node> parents = new ArrayList<>(scorer.getParents(y));
 
             if (allowInternalRandomness) {
-                shuffle(parents);
+                shuffle(parents, random);
             }
 
             for (Node x : parents) {
@@ -637,10 +796,10 @@ public class Grasp {
                     if (currentDepth > depth[1]) {
                         if (!dfsHistory.contains(tucks)) {
                             dfsHistory.add(new HashSet<>(tucks));
-                            graspDfs(scorer, sOld, depth, currentDepth + 1, tucks, dfsHistory);
+                            graspDfs(scorer, sOld, depth, currentDepth + 1, tucks, dfsHistory, random);
                         }
                     } else {
-                        graspDfs(scorer, sOld, depth, currentDepth + 1, tucks, dfsHistory);
+                        graspDfs(scorer, sOld, depth, currentDepth + 1, tucks, dfsHistory, random);
                     }
                     tucks.remove(tuck);
                 }
@@ -670,5 +829,14 @@ public class Grasp {
     public void setReplicatingGraph(boolean replicatingGraph) {
         this.replicatingGraph = replicatingGraph;
     }
-}
 
+    /**
+     * A permutation found by one restart, with its score and the index of the restart.
+     *
+     * @param order The permutation.
+     * @param score The score.
+     * @param start The index of the restart.
+     */
+    private record BestOrder(List<Node> order, double score, int start) {
+    }
+}
@@ -26,7 +26,9 @@ import edu.cmu.tetrad.data.DataTransforms;
 import edu.cmu.tetrad.graph.EdgeListGraph;
 import edu.cmu.tetrad.graph.Graph;
 import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.search.utils.FastIcaCore;
 import edu.cmu.tetrad.search.utils.HungarianAlgorithm;
+import edu.cmu.tetrad.search.utils.IcaEstimator;
 import edu.cmu.tetrad.search.utils.NRooks;
 import edu.cmu.tetrad.search.utils.PermutationMatrixPair;
 import edu.cmu.tetrad.util.Matrix;
@@ -137,7 +139,7 @@ public class IcaLingD {
         Matrix X = data.getDoubleData();
         X = DataTransforms.centerData(X).transpose();
 
-        FastIca fastIca = new FastIca(X, X.getNumRows());
+        IcaEstimator fastIca = new FastIcaCore(X, X.getNumRows());
         fastIca.setVerbose(false);
         fastIca.setMaxIterations(fastIcaMaxIter);
         fastIca.setAlgorithmType(FastIca.PARALLEL);
@@ -63,7 +63,7 @@ public class MarkovCheck implements EffectiveSampleSizeSettable {
     /**
      * The graph.
      */
-    private final Graph graph;
+    private Graph graph;
     /**
      * The results of the Markov check for the independent case.
      */
@@ -75,7 +75,7 @@ public class MarkovCheck implements EffectiveSampleSizeSettable {
     /**
      * True, just in case the given graph is a CPDAG (completed partially directed acyclic graph).
      */
-    private final boolean isPdag;
+    private boolean isPdag;
     /**
      * List of observers to be notified when changes are made to the model.
      */
@@ -189,6 +189,30 @@ public class MarkovCheck implements EffectiveSampleSizeSettable {
      * The most recent list of all independence facts used by the generate results method.
      */
     private Set<IndependenceFact> allIndependenceFacts = null;
+    /**
+     * True if results of independence tests should be kept between runs, so that only facts not tested before are
+     * tested when the results are generated again.
+     */
+    private boolean incremental = false;
+    /**
+     * In incremental mode, the results of all independence tests done so far, by fact, with X and Y in the order
+     * tested.
+     */
+    private final Map<FactKey, IndependenceResult> testedFacts = new ConcurrentHashMap<>();
+    /**
+     * In incremental mode, the p-values behind the summary statistics for the independent and dependent cases, updated
+     * from one run to the next by the results that changed.
+     */
+    private final PValueSummary summaryIndep = new PValueSummary();
+    private final PValueSummary summaryDep = new PValueSummary();
+    /**
+     * In incremental mode, the facts generated in the last run, by the node in their X position.
+     */
+    private Map<Node, Set<IndependenceFact>> factsByNode = new HashMap<>();
+    /**
+     * In incremental mode, the nodes whose facts changed in the last run.
+     */
+    private Set<Node> changedNodes = new HashSet<>();
 
     /**
      * Constructor. Takes a graph and an independence test over the variables of the graph.
@@ -1016,10 +1040,23 @@ public class MarkovCheck implements EffectiveSampleSizeSettable {
     public void generateResults(boolean indep, boolean clear) {
         if (clear) {
             clear();
+
+            // With a resampling fraction below 1, each test draws a new subsample, so results kept from the last run
+            // were taken on other rows.
+            if (incremental && fractionResample < 1.0) {
+                this.testedFacts.clear();
+            }
         }
 
         if (setType == ConditioningSetType.GLOBAL_MARKOV) {
             AllSubsetsIndependenceFacts result = getAllSubsetsIndependenceFacts();
+
+            if (incremental && clear) {
+                Set<IndependenceFact> facts = new HashSet<>(result.msep);
+                facts.addAll(result.mconn);
+                trackChangedNodes(facts);
+            }
+
             generateResultsAllSubsets(result.msep, result.mconn);
 //            generateResultsAllSubsets(result.msep, result.mconn);
         } else {
@@ -1146,6 +1183,10 @@ public class MarkovCheck implements EffectiveSampleSizeSettable {
             }
             this.allIndependenceFacts = allIndependenceFacts;
 
+            if (incremental && clear) {
+                trackChangedNodes(allIndependenceFacts);
+            }
+
             try {
                 generateMseps(new ArrayList<>(allIndependenceFacts), msep, mconn, new MsepTest(graph));
 
@@ -1397,6 +1438,10 @@ public class MarkovCheck implements EffectiveSampleSizeSettable {
             throw new IllegalArgumentException("Independence test cannot be null.");
         }
 
+        if (test != this.independenceTest) {
+            this.testedFacts.clear();
+        }
+
         this.independenceTest = test;
     }
 
@@ -1407,9 +1452,92 @@ public class MarkovCheck implements EffectiveSampleSizeSettable {
      *                         (0 to 1).
      */
     public void setFractionResample(double fractionResample) {
+        if (fractionResample != this.fractionResample) {
+            this.testedFacts.clear();
+        }
+
         this.fractionResample = fractionResample;
     }
 
+    /**
+     * Sets whether the Markov check should be incremental. If so, the result of each independence test is kept, keyed
+     * by its fact, and when the results are generated again, for instance after the graph has been changed using
+     * {@link #setGraph(Graph)}, only facts that haven't been tested before are tested. These are the facts whose
+     * conditioning sets have changed; the m-separation predictions are always redone, since they are cheap by
+     * comparison. The sorted p-values and counts behind the Anderson-Darling, KS and other summaries are likewise
+     * updated from the results that changed. Kept results are dropped when the independence test or the resampling
+     * fraction changes, or when incremental mode is turned off. With a resampling fraction below 1, each test draws a
+     * new subsample, so kept results are also dropped at the start of each run, and only the summaries are updated
+     * incrementally. Default false.
+     *
+     * @param incremental True, if so.
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+
+        if (!incremental) {
+            this.testedFacts.clear();
+            this.summaryIndep.clear();
+            this.summaryDep.clear();
+            this.factsByNode = new HashMap<>();
+            this.changedNodes = new HashSet<>();
+        }
+    }
+
+    /**
+     * Replaces the graph being checked. The graph must be over the variables of the independence test. The results
+     * are not regenerated; call one of the generate methods to do that.
+     *
+     * @param graph The new graph.
+     * @see #setIncremental(boolean)
+     */
+    public void setGraph(Graph graph) {
+        if (graph == null) {
+            throw new NullPointerException("Graph cannot be null.");
+        }
+
+        this.graph = GraphUtils.replaceNodes(graph, independenceTest.getVariables());
+        this.isPdag = graph.paths().isLegalPdag();
+    }
+
+    /**
+     * In incremental mode, returns the nodes whose facts--i.e., whose conditioning sets, for the conditioning set type
+     * in use--changed in the last run, compared to the run before it. For the first run, these are all nodes with
+     * facts. A run starts with a call to generate results that clears the previous results.
+     *
+     * @return These nodes.
+     */
+    public Set<Node> getChangedNodes() {
+        return new HashSet<>(this.changedNodes);
+    }
+
+    /**
+     * In incremental mode, records the facts generated in this run by the node in their X position and finds the nodes
+     * whose facts changed since the last run.
+     *
+     * @param facts The facts generated in this run.
+     */
+    private void trackChangedNodes(Collection<IndependenceFact> facts) {
+        Map<Node, Set<IndependenceFact>> factsByNode = new HashMap<>();
+
+        for (IndependenceFact fact : facts) {
+            factsByNode.computeIfAbsent(fact.getX(), k -> new HashSet<>()).add(fact);
+        }
+
+        Set<Node> changed = new HashSet<>();
+
+        for (Node node : factsByNode.keySet()) {
+            if (!factsByNode.get(node).equals(this.factsByNode.get(node))) changed.add(node);
+        }
+
+        for (Node node : this.factsByNode.keySet()) {
+            if (!factsByNode.containsKey(node)) changed.add(node);
+        }
+
+        this.factsByNode = factsByNode;
+        this.changedNodes = changed;
+    }
+
     /**
      * Returns the knowledge object for the Markov checker. This knowledge object should contain the tier knowledge for
      * the Markov checker. The last tier contains the possible X and Y for X _||_ Y | Z1,...,Zn, and the previous tiers
@@ -1656,9 +1784,22 @@ public class MarkovCheck implements EffectiveSampleSizeSettable {
                 Node y = fact.getY();
                 Set<Node> z = fact.getZ();
 
+                // Facts are equal up to the order of X and Y, but p-values may differ in their last digits with the
+                // order, so kept results are looked up by the ordered triple.
+                IndependenceResult tested = incremental ? testedFacts.get(new FactKey(fact)) : null;
+
+                if (tested != null) {
+                    addResult(resultsIndep, resultsDep, new IndependenceResult(fact, tested.isIndependent(), tested.getPValue(), Double.NaN));
+                    return new Pair<>(resultsIndep, resultsDep);
+                }
+
                 if (independenceTest instanceof RowsSettable) {
                     List<Integer> rows = getSubsampleRows(fractionResample);
 //                    List<Integer> rows = getBootstrapRows(1.0);
+
+                    // Kept results are compared with those of a fresh run, so a test over the same rows should sum
+                    // them in the same order and give the same p-value.
+                    if (incremental) Collections.sort(rows);
                     ((RowsSettable) independenceTest).setRows(rows); // FisherZ will only calc pvalues to those rows
 
 //                    if (independenceTest instanceof SampleSizeSettable) {xk
@@ -1691,12 +1832,22 @@ public class MarkovCheck implements EffectiveSampleSizeSettable {
 
                 boolean indep = result.isIndependent();
                 double pValue = result.getPValue();
+                IndependenceResult _result = new IndependenceResult(fact, indep, pValue, Double.NaN);
+
+                if (incremental) {
+                    testedFacts.put(new FactKey(fact), _result);
+                }
+
+                addResult(resultsIndep, resultsDep, _result);
+            }
 
-                if (pValue >= 0.0) {
+            private void addResult(Set<IndependenceResult> resultsIndep, Set<IndependenceResult> resultsDep,
+                                   IndependenceResult result) {
+                if (result.getPValue() >= 0.0) {
                     if (msep) {
-                        resultsIndep.add(new IndependenceResult(fact, indep, pValue, Double.NaN));
+                        resultsIndep.add(result);
                     } else {
-                        resultsDep.add(new IndependenceResult(fact, indep, pValue, Double.NaN));
+                        resultsDep.add(result);
                     }
                 }
             }
@@ -1775,6 +1926,11 @@ public class MarkovCheck implements EffectiveSampleSizeSettable {
      * @param indep True if for implied independencies, false if for implied dependencies.
      */
     private void calcStats(boolean indep) {
+        if (incremental) {
+            calcStatsIncremental(indep);
+            return;
+        }
+
         List<IndependenceResult> results = new ArrayList<>(getResultsLocal(indep));
 
         int dependent = 0;
@@ -1817,6 +1973,54 @@ public class MarkovCheck implements EffectiveSampleSizeSettable {
         }
     }
 
+    /**
+     * In incremental mode, calculates the statistics for the given list of results by updating the kept summary with
+     * the results that were added, dropped or retested since the last run. The p-values are kept in sorted order and
+     * the number of dependent judgments is kept as a count, so no sort is needed; the Anderson-Darling, KS and Fisher
+     * statistics, which depend on all the ranks, are then taken in one pass over the sorted p-values.
+     *
+     * @param indep True if for implied independencies, false if for implied dependencies.
+     */
+    private void calcStatsIncremental(boolean indep) {
+        PValueSummary summary = indep ? summaryIndep : summaryDep;
+        double alpha = independenceTest.getAlpha();
+        summary.update(getResultsLocal(indep), alpha);
+
+        List<Double> pValues = summary.sortedPValues();
+        int numTests = pValues.size();
+        int dependent = summary.numDependent();
+
+        GeneralAndersonDarlingTest _generalAndersonDarlingTest = new GeneralAndersonDarlingTest(pValues, new UniformRealDistribution(0, 1));
+
+        double _aSquared = _generalAndersonDarlingTest.getASquared();
+        double _aSquaredStar = _generalAndersonDarlingTest.getASquaredStar();
+        double adP = 1. - _generalAndersonDarlingTest.getProbTail(numTests, _aSquaredStar);
+        double ksP = UniformityTest.getKsPValue(pValues, 0, 1);
+        double fishP = getFisherCombinedPValue(pValues);
+        double binP = getBinomialPValue_(numTests, numTests - dependent);
+        double fracDep = dependent / (double) numTests;
+
+        if (indep) {
+            aSquaredIndep = _aSquared;
+            aSquaredStarIndep = _aSquaredStar;
+            andersonDarlingPIndep = adP;
+            ksPValueIndep = ksP;
+            fisherCombinedPIndep = fishP;
+            binomialPIndep = binP;
+            fractionDependentIndep = fracDep;
+            numTestsIndep = numTests;
+        } else {
+            aSquaredDep = _aSquared;
+            aSquaredStarDep = _aSquaredStar;
+            andersonDarlingPDep = adP;
+            ksPValueDep = ksP;
+            fisherCombinedPDep = fishP;
+            binomialPDep = binP;
+            fractionDependentDep = fracDep;
+            numTestsDep = numTests;
+        }
+    }
+
     /**
      * Returns a list of row indices for a subsample of the data set.
      *
@@ -1831,7 +2035,7 @@ public class MarkovCheck implements EffectiveSampleSizeSettable {
             rows.add(i);
         }
         Collections.shuffle(rows);
-        return rows.subList(0, subsampleSize);
+        return new ArrayList<>(rows.subList(0, subsampleSize));
     }
 
     private List<Integer> getBootstrapRows(double v) {
@@ -1881,8 +2085,17 @@ public class MarkovCheck implements EffectiveSampleSizeSettable {
             if (pValue > independenceTest.getAlpha()) independentJudgements++;
         }
 
-        int p = pValues.size();
+        return getBinomialPValue_(pValues.size(), independentJudgements);
+    }
 
+    /**
+     * Calculates the binomial p-value from the number of tests and the number of independent judgments among them.
+     *
+     * @param p                     The number of tests.
+     * @param independentJudgements The number of independent judgments.
+     * @return The binomial p-value.
+     */
+    private double getBinomialPValue_(int p, int independentJudgements) {
         // The left tail of this binomial distribution is a p-value for getting too few dependent judgments for
         // the distribution to count as uniform.
         BinomialDistribution bd = new BinomialDistribution(p, independenceTest.getAlpha());
@@ -1990,8 +2203,16 @@ public class MarkovCheck implements EffectiveSampleSizeSettable {
      * @return the combined p-value. If the inputs are invalid or computation fails, returns Double.NaN.
      */
     public double getFisherCombinedPValue(List<IndependenceResult> visiblePairs) {
-        List<Double> pValues = getPValues(visiblePairs);
+        return getFisherCombinedPValue(getPValues(visiblePairs));
+    }
 
+    /**
+     * Calculates the combined p-value using Fisher's method for the given p-values.
+     *
+     * @param pValues The p-values.
+     * @return the combined p-value, or Double.NaN if it cannot be computed.
+     */
+    private double getFisherCombinedPValue(Collection<Double> pValues) {
         double sum = 0.0;
 
         for (double pValue : pValues) {
@@ -2180,4 +2401,134 @@ public class MarkovCheck implements EffectiveSampleSizeSettable {
             return new ArrayList<>(mconn);
         }
     }
+
+    /**
+     * The key of a kept test result: the fact with X and Y in the order tested.
+     *
+     * @param x The first node.
+     * @param y The second node.
+     * @param z The conditioning set.
+     */
+    private record FactKey(Node x, Node y, Set<Node> z) {
+        private FactKey(IndependenceFact fact) {
+            this(fact.getX(), fact.getY(), new HashSet<>(fact.getZ()));
+        }
+    }
+
+    /**
+     * The p-values of one side of the check (implied independencies or dependencies), kept in sorted order together
+     * with the number of dependent judgments, and updated between runs by the results that changed. An update costs
+     * one hash lookup per result, plus O(log n) for each result that was added, dropped or retested.
+     */
+    private static final class PValueSummary {
+
+        /**
+         * The p-value of each result, by fact.
+         */
+        private Map<FactKey, Double> pValues = new HashMap<>();
+        /**
+         * The p-values, as a sorted multiset.
+         */
+        private final TreeMap<Double, Integer> sorted = new TreeMap<>();
+        /**
+         * The p-values in ascending order, or null if they have changed since the list was last made.
+         */
+        private List<Double> sortedList = null;
+        /**
+         * The number of p-values at or below alpha.
+         */
+        private int numDependent = 0;
+        /**
+         * The alpha the number of dependent judgments was counted for.
+         */
+        private double alpha = Double.NaN;
+
+        /**
+         * Updates the summary to the given results. Each result is looked up among the last run's; only those whose
+         * p-values are new or different are applied to the sorted multiset, and those of the last run that are left
+         * over were dropped.
+         *
+         * @param results The results of this run.
+         * @param alpha   The alpha for dependent judgments.
+         */
+        void update(List<IndependenceResult> results, double alpha) {
+            if (alpha != this.alpha) {
+                this.alpha = alpha;
+                this.numDependent = 0;
+                for (int count : this.sorted.headMap(alpha, true).values()) this.numDependent += count;
+            }
+
+            Map<FactKey, Double> previous = this.pValues;
+            Map<FactKey, Double> pValues = new HashMap<>(previous.size() + results.size() / 8 + 16);
+
+            for (IndependenceResult result : results) {
+                FactKey key = new FactKey(result.getFact());
+                double p = result.getPValue();
+                Double old = previous.remove(key);
+
+                if (old == null || Double.compare(old, p) != 0) {
+                    if (old != null) remove(old);
+                    add(p);
+                }
+
+                pValues.put(key, p);
+            }
+
+            for (double p : previous.values()) remove(p);
+
+            this.pValues = pValues;
+        }
+
+        /**
+         * Returns the p-values in ascending order. The list is kept until the p-values change, so callers must not
+         * reorder it; sorting it again is harmless.
+         *
+         * @return This list.
+         */
+        List<Double> sortedPValues() {
+            if (this.sortedList == null) {
+                List<Double> sorted = new ArrayList<>(this.pValues.size());
+
+                for (Map.Entry<Double, Integer> entry : this.sorted.entrySet()) {
+                    for (int i = 0; i < entry.getValue(); i++) sorted.add(entry.getKey());
+                }
+
+                this.sortedList = sorted;
+            }
+
+            return this.sortedList;
+        }
+
+        /**
+         * Returns the number of p-values at or below alpha.
+         *
+         * @return This number.
+         */
+        int numDependent() {
+            return this.numDependent;
+        }
+
+        /**
+         * Drops all p-values.
+         */
+        void clear() {
+            this.pValues = new HashMap<>();
+            this.sorted.clear();
+            this.sortedList = null;
+            this.numDependent = 0;
+            this.alpha = Double.NaN;
+        }
+
+        private void add(double p) {
+            this.sorted.merge(p, 1, Integer::sum);
+            this.sortedList = null;
+            if (p <= this.alpha) this.numDependent++;
+        }
+
+        private void remove(double p) {
+            this.sorted.computeIfPresent(p, (k, count) -> count == 1 ? null : count - 1);
+            this.sortedList = null;
+            if (p <= this.alpha) this.numDependent--;
+        }
+    }
 }
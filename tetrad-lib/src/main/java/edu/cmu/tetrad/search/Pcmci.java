@@ -11,6 +11,11 @@ import edu.cmu.tetrad.util.ChoiceGenerator;
 import edu.cmu.tetrad.util.TetradLogger;
 
 import java.util.*;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 /**
  * <p><strong>PCMCI</strong> (Runge et&nbsp;al.) &mdash; minimal, time-series implementation with
@@ -52,6 +57,7 @@ public final class Pcmci implements IGraphSearch {
         private int maxCondSize = 3;           // cap |S| in both phases
         private boolean verbose = false;
         private boolean collapseToLag0 = true; // collapse lagged graph back to base nodes
+        private int numThreads = 1;            // targets run one at a time unless raised
 
         /**
          * Constructs a Builder instance for configuring and creating a Pcmci object.
@@ -119,6 +125,21 @@ public final class Pcmci implements IGraphSearch {
          */
         public Builder collapseToLag0(boolean c){ this.collapseToLag0 = c; return this; }
 
+        /**
+         * Sets the number of threads used to process targets concurrently in both phases. Results do not depend on
+         * the number of threads. The default is 1; raise it only if the independence test is safe to call from several
+         * threads at once, as IndTestFisherZ is.
+         *
+         * @param n the number of threads; must be at least 1
+         * @return this builder instance, allowing for method chaining
+         * @throws IllegalArgumentException if n &lt; 1
+         */
+        public Builder numThreads(int n){
+            if (n < 1) throw new IllegalArgumentException("Number of threads must be at least 1: " + n);
+            this.numThreads = n;
+            return this;
+        }
+
         /**
          * Builds and returns a Pcmci object configured with the parameters set in the Builder instance.
          * The Pcmci object created will use the specified data, test, and various optional configurations,
@@ -138,6 +159,10 @@ public final class Pcmci implements IGraphSearch {
     private Knowledge knowledge;
     private final boolean verbose;
     private final boolean collapseToLag0;
+    private final int numThreads;
+    // Results of the tests done in the current search, keyed by (target, source, conditioning set), shared across
+    // targets and phases.
+    private Map<TestKey, IndependenceResult> cache;
 
     private Pcmci(Builder b) {
         this.raw = b.data;
@@ -147,6 +172,7 @@ public final class Pcmci implements IGraphSearch {
         this.maxCondSize = b.maxCondSize;
         this.verbose = b.verbose;
         this.collapseToLag0 = b.collapseToLag0;
+        this.numThreads = b.numThreads;
     }
 
     /**
@@ -159,12 +185,13 @@ public final class Pcmci implements IGraphSearch {
      * @return A directed graph where nodes represent time-lagged variables or base-time
      *         variables (depending on the value of `collapseToLag0`) and directed edges
      *         represent causal relationships derived using the PCMCI algorithm.
-     * @throws InterruptedException If the process is interrupted during computation.
+     * @throws InterruptedException If the process is interrupted during computation; the calling thread's interrupt
+     *                              flag is then set.
      */
     @Override
     public Graph search() throws InterruptedException {
         // 1) Create lagged data up to maxLag. Naming: e.g., "X:t-2" (TsUtils default).
-        DataSet lagged = TsUtils.createLagData(raw, maxLag);
+        DataSet lagged = TsUtils.createLagDataView(raw, maxLag);
         knowledge = lagged.getKnowledge();
 
         // Tie test to lagged variables:
@@ -174,18 +201,31 @@ public final class Pcmci implements IGraphSearch {
 
         // Build lag index helper
         TimeLagIndex TL = TimeLagIndex.from(lagged, maxLag);
+        cache = new ConcurrentHashMap<>();
+
+        try {
+            return search(lagged, TL);
+        } finally {
+            cache = null;
+        }
+    }
 
+    private Graph search(DataSet lagged, TimeLagIndex TL) throws InterruptedException {
         // 2) Parent preselection for ALL nodes using their strict past (so Pa(X_{t-τ}) is available)
-        Map<Node, LinkedHashSet<Node>> preParents = new LinkedHashMap<>();
-        for (Node v : lagged.getVariables()) {
+        List<Node> targets = lagged.getVariables();
+        List<LinkedHashSet<Node>> shrunk = forEachTarget(targets, v -> {
             LinkedHashSet<Node> cand = new LinkedHashSet<>(TL.strictPastOf(v));
             shrinkByPC1(v, cand);
-            preParents.put(v, cand);
+            return cand;
+        });
+
+        Map<Node, LinkedHashSet<Node>> preParents = new LinkedHashMap<>();
+        for (int i = 0; i < targets.size(); i++) {
+            preParents.put(targets.get(i), shrunk.get(i));
         }
 
         // 3) MCI confirmation only for lag-0 targets Y_t
-        Map<Node, LinkedHashSet<Node>> parents = new LinkedHashMap<>();
-        for (Node y_t : TL.lag0Nodes()) {
+        List<LinkedHashSet<Node>> confirmed = forEachTarget(TL.lag0Nodes(), y_t -> {
             LinkedHashSet<Node> kept = new LinkedHashSet<>();
             for (Node x_tau : preParents.get(y_t)) {
                 // Build Sy = Pa(Y)\{X}, Sx = Pa(X)
@@ -197,7 +237,7 @@ public final class Pcmci implements IGraphSearch {
 
                 Set<Node> Suse = limitSize(S, maxCondSize);
 
-                IndependenceResult r = test.checkIndependence(x_tau, y_t, Suse);
+                IndependenceResult r = checkIndependence(x_tau, y_t, Suse);
                 boolean dep = !r.isIndependent();
                 if (dep) kept.add(x_tau);
 
@@ -207,7 +247,12 @@ public final class Pcmci implements IGraphSearch {
                             x_tau.getName(), y_t.getName(), Suse.size(), r.getPValue(), dep));
                 }
             }
-            parents.put(y_t, kept);
+            return kept;
+        });
+
+        Map<Node, LinkedHashSet<Node>> parents = new LinkedHashMap<>();
+        for (int i = 0; i < TL.lag0Nodes().size(); i++) {
+            parents.put(TL.lag0Nodes().get(i), confirmed.get(i));
         }
 
         // 4) Build a directed graph over lagged nodes, arrows from past→present
@@ -289,7 +334,7 @@ public final class Pcmci implements IGraphSearch {
     /** Returns true if ∃ subset S ⊆ pool, |S|=k, s.t. x ⟂ y | S. */
     private boolean tryDsep(Node x, Node y, List<Node> pool, int k) throws InterruptedException {
         if (k == 0) {
-            IndependenceResult r = test.checkIndependence(x, y, Collections.emptySet());
+            IndependenceResult r = checkIndependence(x, y, Collections.emptySet());
             return r.isIndependent();
         }
         if (pool.size() < k) return false;
@@ -297,12 +342,72 @@ public final class Pcmci implements IGraphSearch {
         int[] choice;
         while ((choice = gen.next()) != null) {
             Set<Node> S = GraphUtils.asSet(choice, pool);
-            IndependenceResult r = test.checkIndependence(x, y, S);
+            IndependenceResult r = checkIndependence(x, y, S);
             if (r.isIndependent()) return true;
         }
         return false;
     }
 
+    /** Runs the test for source _||_ target | S, or returns its result if it has already been run in this search. */
+    private IndependenceResult checkIndependence(Node source, Node target, Set<Node> S) throws InterruptedException {
+        TestKey key = new TestKey(target, source, Set.copyOf(S));
+        IndependenceResult r = cache.get(key);
+        if (r == null) {
+            r = test.checkIndependence(source, target, S);
+            cache.putIfAbsent(key, r);
+        }
+        return r;
+    }
+
+    /**
+     * Applies the task to each target, concurrently if numThreads &gt; 1; results are in target order. If a task is
+     * interrupted, or the calling thread is interrupted while waiting, an InterruptedException is thrown with the
+     * calling thread's interrupt flag set, however many threads are used.
+     */
+    private <T> List<T> forEachTarget(List<Node> targets, TargetTask<T> task) throws InterruptedException {
+        List<T> results = new ArrayList<>(Collections.nCopies(targets.size(), null));
+
+        if (numThreads == 1) {
+            try {
+                for (int i = 0; i < targets.size(); i++) results.set(i, task.apply(targets.get(i)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw e;
+            }
+            return results;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(numThreads);
+        try {
+            pool.submit(() -> IntStream.range(0, targets.size()).parallel().forEach(i -> {
+                try {
+                    results.set(i, task.apply(targets.get(i)));
+                } catch (InterruptedException e) {
+                    throw new CompletionException(e);
+                }
+            })).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            for (Throwable t = cause; t != null; t = t.getCause()) {
+                if (t instanceof InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw interrupted;
+                }
+            }
+
+            if (cause instanceof RuntimeException runtimeException) throw runtimeException;
+            if (cause instanceof Error error) throw error;
+            throw new RuntimeException(cause);
+        } finally {
+            pool.shutdownNow();
+        }
+        return results;
+    }
+
     private boolean allowedArrow(Node from, Node to) {
         if (knowledge == null || knowledge.isEmpty()) return true;
         String f = baseName(from), t = baseName(to);
@@ -326,6 +431,13 @@ public final class Pcmci implements IGraphSearch {
     }
 
 
+    /** The work done for one target in a phase. */
+    private interface TargetTask<T> {
+        T apply(Node target) throws InterruptedException;
+    }
+
+    private record TestKey(Node target, Node source, Set<Node> conditioning) {}
+
     /** Helper to parse lag structure of TsUtils.createLagData output. */
     private static final class TimeLagIndex {
         private final Map<Node,Integer> lag = new LinkedHashMap<>();
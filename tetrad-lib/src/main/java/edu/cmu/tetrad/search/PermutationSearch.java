@@ -25,6 +25,7 @@ import edu.cmu.tetrad.graph.Graph;
 import edu.cmu.tetrad.graph.GraphFactoryUtil;
 import edu.cmu.tetrad.graph.Node;
 import edu.cmu.tetrad.search.score.Score;
+import edu.cmu.tetrad.search.utils.ConcurrentGrowShrinkTree;
 import edu.cmu.tetrad.search.utils.GrowShrinkTree;
 import edu.cmu.tetrad.search.utils.MeekRules;
 import edu.cmu.tetrad.util.RandomUtil;
@@ -296,6 +297,30 @@ public class PermutationSearch {
         return this.gsts.get(node);
     }
 
+    /**
+     * Sets whether the grow-shrink trees should be {@link ConcurrentGrowShrinkTree}s, which are built for sharing
+     * among threads (e.g., when the suborder search runs tasks in parallel). The trees are rebuilt, so this should be
+     * called before the search; knowledge already set is kept.
+     *
+     * @param concurrent True if so.
+     */
+    public void setUseConcurrentTrees(boolean concurrent) {
+        Score score = this.suborderSearch.getScore();
+        Map<Node, Integer> index = new HashMap<>();
+
+        int i = 0;
+        for (Node node : this.variables) index.put(node, i++);
+
+        // The index must be complete before any tree is built, since a concurrent tree sizes its bitsets from it.
+        for (Node node : this.variables) {
+            this.gsts.put(node, concurrent
+                    ? new ConcurrentGrowShrinkTree(score, index, node)
+                    : new GrowShrinkTree(score, index, node));
+        }
+
+        setKnowledge(this.knowledge);
+    }
+
     /**
      * Retrieves the list of variables.
      *
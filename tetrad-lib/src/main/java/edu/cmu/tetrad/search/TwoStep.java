@@ -5,6 +5,8 @@ import edu.cmu.tetrad.graph.Edge;
 import edu.cmu.tetrad.graph.EdgeListGraph;
 import edu.cmu.tetrad.graph.Graph;
 import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.search.utils.FastIcaCore;
+import edu.cmu.tetrad.search.utils.IcaEstimator;
 import edu.cmu.tetrad.util.Matrix;
 import org.ejml.simple.SimpleEVD;
 import org.ejml.simple.SimpleMatrix;
@@ -674,7 +676,7 @@ public final class TwoStep {
         Matrix X_pxn = new Matrix(p, X_nxp.numRows());
         for (int j = 0; j < p; j++) for (int i = 0; i < X_nxp.numRows(); i++) X_pxn.set(j, i, X_nxp.get(i, j));
 
-        FastIca ica = new FastIca(X_pxn, p);
+        IcaEstimator ica = new FastIcaCore(X_pxn, p);
         ica.setAlgorithmType(fastIcaAlgorithm);
         ica.setFunction(fastIcaFunction);
         ica.setAlpha(fastIcaAlpha);
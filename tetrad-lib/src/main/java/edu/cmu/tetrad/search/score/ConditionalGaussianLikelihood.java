@@ -24,12 +24,10 @@ import edu.cmu.tetrad.data.*;
 import edu.cmu.tetrad.data.Discretizer.Discretization;
 import edu.cmu.tetrad.graph.Node;
 import edu.cmu.tetrad.util.Matrix;
-import org.apache.commons.math3.stat.correlation.Covariance;
 import org.apache.commons.math3.util.FastMath;
 import org.jetbrains.annotations.Contract;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentSkipListMap;
@@ -84,9 +82,10 @@ public class ConditionalGaussianLikelihood {
      */
     private int numCategoriesToDiscretize = 3;
     /**
-     * "Cell" consisting of all rows.
+     * Index over the discrete codes and continuous columns for the rows currently in use. Partitions into cells and
+     * per-cell sufficient statistics are memoized here.
      */
-    private List<Integer> rows;
+    private MixedDataIndex index;
     /**
      * Discretize the parents
      */
@@ -133,9 +132,7 @@ public class ConditionalGaussianLikelihood {
         }
 
         this.dataSet = useErsatzVariables();
-
-        this.rows = new ArrayList<>();
-        for (int i = 0; i < dataSet.getNumRows(); i++) this.rows.add(i);
+        this.index = new MixedDataIndex(this.dataSet, this.continuousData);
     }
 
     /**
@@ -145,21 +142,25 @@ public class ConditionalGaussianLikelihood {
      * @param rows the rows to be used in the table.
      */
     public void setRows(List<Integer> rows) {
+        int[] _rows;
+
         if (rows == null) {
             // null means "all rows"
-            this.rows = new ArrayList<>();
-            for (int i = 0; i < mixedDataSet.getNumRows(); i++) this.rows.add(i);
-            return;
-        }
-
-        for (int i = 0; i < rows.size(); i++) {
-            if (rows.get(i) == null) throw new NullPointerException("Row " + i + " is null.");
-            if (rows.get(i) < 0) throw new IllegalArgumentException("Row " + i + " is negative.");
-            if (rows.get(i) >= mixedDataSet.getNumRows()) throw new IllegalArgumentException("Row " + i + " is out of bounds.");
+            _rows = new int[mixedDataSet.getNumRows()];
+            for (int i = 0; i < _rows.length; i++) _rows[i] = i;
+        } else {
+            _rows = new int[rows.size()];
+
+            for (int i = 0; i < rows.size(); i++) {
+                if (rows.get(i) == null) throw new NullPointerException("Row " + i + " is null.");
+                if (rows.get(i) < 0) throw new IllegalArgumentException("Row " + i + " is negative.");
+                if (rows.get(i) >= mixedDataSet.getNumRows()) throw new IllegalArgumentException("Row " + i + " is out of bounds.");
+                _rows[i] = rows.get(i);
+            }
         }
 
-        // defensive copy is a good idea
-        this.rows = new ArrayList<>(rows);
+        // Keeps the memoized cells if the rows have not changed.
+        this.index = this.index.withRows(_rows);
     }
 
     /**
@@ -195,8 +196,10 @@ public class ConditionalGaussianLikelihood {
             A1.add((DiscreteVariable) target);
         }
 
-        Ret ret0 = likelihoodJoint(X0, A0, target, this.rows);
-        Ret ret1 = likelihoodJoint(X1, A1, target, this.rows);
+        MixedDataIndex index = this.index;
+
+        Ret ret0 = likelihoodJoint(X0, A0, target, index);
+        Ret ret1 = likelihoodJoint(X1, A1, target, index);
 
         return new Ret(ret1.getLik() - ret0.getLik(), ret1.getDof() - ret0.getDof());
     }
@@ -218,8 +221,10 @@ public class ConditionalGaussianLikelihood {
      * @see #setDiscretize(boolean)
      */
     public void setNumCategoriesToDiscretize(int numCategoriesToDiscretize) {
+        if (numCategoriesToDiscretize == this.numCategoriesToDiscretize) return;
         this.numCategoriesToDiscretize = numCategoriesToDiscretize;
         this.dataSet = useErsatzVariables(); // rebuild ersatz + nodesHash
+        this.index = new MixedDataIndex(this.dataSet, this.continuousData).withRows(this.index.getRows());
     }
 
     private DataSet useErsatzVariables() {
@@ -272,7 +277,7 @@ public class ConditionalGaussianLikelihood {
 
     // The likelihood of the joint over all of these mixedVariables, assuming conditional Gaussian,
     // continuous and discrete.
-    private Ret likelihoodJoint(List<ContinuousVariable> X, List<DiscreteVariable> A, Node target, List<Integer> rows) {
+    private Ret likelihoodJoint(List<ContinuousVariable> X, List<DiscreteVariable> A, Node target, MixedDataIndex index) {
 
         A = new ArrayList<>(A);
         X = new ArrayList<>(X);
@@ -304,49 +309,51 @@ public class ConditionalGaussianLikelihood {
             continuousCols[j] = col;
         }
 
+        int[] discreteCols = new int[A.size()];
+        for (int j = 0; j < A.size(); j++) discreteCols[j] = this.dataSet.getColumn(A.get(j));
+
         double c1 = 0, c2 = 0;
 
-        List<List<Integer>> cells = partition(A, rows);
+        MixedDataIndex.Partition cells = index.partition(discreteCols);
 
         // choose eligible cells once
-        List<List<Integer>> eligible = new ArrayList<>();
+        int[] eligible = new int[cells.getNumCells()];
+        int numEligible = 0;
         int totalEligibleRows = 0;
 
-        for (List<Integer> cell : cells) {
-            int a = cell.size();
+        for (int cell = 0; cell < cells.getNumCells(); cell++) {
+            int a = cells.getCount(cell);
             if (a < minSampleSizePerCell) continue;
             if (!X.isEmpty() && a < k) continue; // need at least k rows to estimate k-dim covariance
-            eligible.add(cell);
+            eligible[numEligible++] = cell;
             totalEligibleRows += a;
         }
 
-        if (eligible.isEmpty()) {
+        if (numEligible == 0) {
             return new Ret(Double.NaN, dof(A, X));
         }
 
         // Discrete term over same support
         if (!A.isEmpty()) {
-            for (List<Integer> cell : eligible) {
-                int a = cell.size();
+            for (int e = 0; e < numEligible; e++) {
+                int a = cells.getCount(eligible[e]);
                 c1 += a * multinomialLikelihood(a, totalEligibleRows);
             }
         }
 
         // Continuous term over same support
         if (!X.isEmpty()) {
-            for (List<Integer> cell : eligible) {
-                Matrix subsample = getSubsample(continuousCols, cell);
+            for (int e = 0; e < numEligible; e++) {
+                int cell = eligible[e];
+                int nRows = cells.getCount(cell);
 
-                int nRows = subsample.getNumRows();
-                int nCols = subsample.getNumColumns();
+                if (nRows < minSampleSizePerCell || nRows < 2) continue;
 
-                if (nRows < minSampleSizePerCell || nCols < 1) continue;
-                if (nRows < nCols) continue;
-
-                double gl = gaussianLikelihood(k, cov(subsample));
+                // Assembled from memoized per-cell counts, sums and cross-products.
+                double gl = gaussianLikelihood(k, cells.getCovariance(cell, continuousCols));
                 if (Double.isNaN(gl)) return new Ret(Double.NaN, dof(A, X));
 
-                c2 += nRows * gl; // (nRows == cell.size())
+                c2 += nRows * gl;
             }
         }
 
@@ -387,23 +394,6 @@ public class ConditionalGaussianLikelihood {
         return -0.5 * log(abs(det)) - 0.5 * k * (1 + ConditionalGaussianLikelihood.LOG2PI);
     }
 
-    private Matrix cov(Matrix x) {
-        return new Matrix(new Covariance(x.toArray(), true).getCovarianceMatrix().getData());
-    }
-
-    // Subsample of the continuous mixedVariables conditioning on the given cell.
-    private Matrix getSubsample(int[] continuousCols, List<Integer> cell) {
-        Matrix subset = new Matrix(cell.size(), continuousCols.length);
-
-        for (int i = 0; i < cell.size(); i++) {
-            for (int j = 0; j < continuousCols.length; j++) {
-                subset.set(i, j, this.continuousData[continuousCols[j]][cell.get(i)]);
-            }
-        }
-
-        return subset;
-    }
-
     // Degrees of freedom for a discrete distribution is the product of the number of categories for each
     // variable.
     private int f(List<DiscreteVariable> A) {
@@ -423,28 +413,6 @@ public class ConditionalGaussianLikelihood {
 //        return p * (p + 1) / 2;
 //    }
 
-    private List<List<Integer>> partition(List<DiscreteVariable> discrete_parents, List<Integer> rows) {
-        List<List<Integer>> cells = new ArrayList<>();
-        HashMap<List<Integer>, Integer> keys = new HashMap<>();
-
-        for (int i : rows) {
-            List<Integer> key = new ArrayList<>();
-
-            for (DiscreteVariable discrete_parent : discrete_parents) {
-                key.add((this.dataSet.getInt(i, this.dataSet.getColumn(discrete_parent))));
-            }
-
-            if (!keys.containsKey(key)) {
-                keys.put(key, cells.size());
-                cells.add(keys.get(key), new ArrayList<>());
-            }
-
-            cells.get(keys.get(key)).add(i);
-        }
-
-        return cells;
-    }
-
     /**
      * Sets the minimum sample size per cell.
      *
@@ -20,6 +20,7 @@
 
 package edu.cmu.tetrad.search.score;
 
+import edu.cmu.tetrad.data.BlockCovarianceStore;
 import edu.cmu.tetrad.data.DataSet;
 import edu.cmu.tetrad.graph.Node;
 import edu.cmu.tetrad.search.utils.Embedding;
@@ -42,6 +43,11 @@ import java.util.Map;
  * mixed data-types. In The 2019 ACM SIGKDD Workshop on Causal Discovery (pp. 4-21). PMLR.
  * <p>
  * As for all scores in Tetrad, higher scores mean more dependence, and negative scores indicate independence.
+ * <p>
+ * If the data has no missing values, covariances over the embedded columns are kept in a {@link BlockCovarianceStore},
+ * with one block per original variable, so that each variable's indicator block is computed once and the cross
+ * covariances of blocks are computed lazily (or all up front, in parallel, if covariances are to be precomputed) and
+ * reused across local scores.
  *
  * @author Bryan Andrews
  * @version $Id: $Id
@@ -64,6 +70,20 @@ public class DegenerateGaussianScore implements Score, EffectiveSampleSizeSettab
      * @param lambda                Singularity lambda
      */
     public DegenerateGaussianScore(DataSet dataSet, boolean precomputeCovariances, double lambda) {
+        this(dataSet, precomputeCovariances, lambda, BlockCovarianceStore.DEFAULT_MAX_CACHED_ENTRIES);
+    }
+
+    /**
+     * Constructs the score using a dataset.
+     *
+     * @param dataSet               The dataset.
+     * @param precomputeCovariances True if covariances should be precomputed.
+     * @param lambda                Singularity lambda
+     * @param maxCachedCovariances  The maximum number of embedded covariances to cache; once this is reached, further
+     *                              covariance blocks are computed on the fly.
+     */
+    public DegenerateGaussianScore(DataSet dataSet, boolean precomputeCovariances, double lambda,
+                                   long maxCachedCovariances) {
         if (dataSet == null) {
             throw new NullPointerException();
         }
@@ -79,7 +99,18 @@ public class DegenerateGaussianScore implements Score, EffectiveSampleSizeSettab
         DataSet convertedData = embeddedData.embeddedData();
         this.embedding = embeddedData.embedding();
 
-        this.bic = new SemBicScore(convertedData, precomputeCovariances);
+        if (convertedData.existsMissingValue()) {
+            this.bic = new SemBicScore(convertedData, precomputeCovariances);
+        } else {
+            List<List<Integer>> blocks = new ArrayList<>();
+            for (int j = 0; j < this.variables.size(); j++) blocks.add(this.embedding.get(j));
+
+            BlockCovarianceStore covariances = new BlockCovarianceStore(convertedData, blocks, maxCachedCovariances);
+            if (precomputeCovariances) covariances.precomputeAll();
+
+            this.bic = new SemBicScore(covariances);
+        }
+
         this.bic.setEffectiveSampleSize(this.nEff);
         this.bic.setLambda(lambda);
         this.bic.setStructurePrior(0);
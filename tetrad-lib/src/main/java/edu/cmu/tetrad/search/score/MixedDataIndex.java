@@ -0,0 +1,485 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+//                                                                           //
+// Copyright (C) 2025 by Joseph Ramsey, Peter Spirtes, Clark Glymour,        //
+// and Richard Scheines.                                                     //
+//                                                                           //
+// This program is free software: you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation, either version 3 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.    //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.search.score;
+
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.data.DiscreteVariable;
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.util.Matrix;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Precomputed index over a mixed data set, used by {@link ConditionalGaussianLikelihood} to split rows into the cells
+ * of a set of discrete variables and to compute per-cell sufficient statistics for continuous variables.
+ * <p>
+ * Each discrete column is stored once as a compact {@code int[]} code array. Cell ids for a set of discrete columns are
+ * computed with integer arithmetic, one column at a time, renumbering the cells after each column in order of first
+ * appearance so that ids never exceed the number of rows. The resulting cells (and their order) are the same as those
+ * obtained by hashing the list of codes for each row. Scratch buffers for this are kept per thread and reused.
+ * <p>
+ * Partitions are memoized per (sorted) set of discrete columns, and each partition lazily memoizes per-cell counts,
+ * sums and cross-products of continuous columns, so that recurring discrete parent sets (which is the common case in
+ * FGES and related searches) are not re-partitioned and their continuous statistics are not recomputed. Continuous
+ * values are centered at their column means before accumulating to limit cancellation in the cross-products.
+ * <p>
+ * The index is safe to use from multiple threads.
+ *
+ * @author josephramsey
+ * @see ConditionalGaussianLikelihood
+ */
+public final class MixedDataIndex {
+
+    /**
+     * Default maximum number of memoized partitions.
+     */
+    private static final int DEFAULT_MAX_CACHED_PARTITIONS = 200;
+
+    /**
+     * Code arrays for discrete columns, indexed by column; null for columns without codes.
+     */
+    private final int[][] codes;
+    /**
+     * Number of categories for each discrete column, 0 for columns without codes.
+     */
+    private final int[] numCategories;
+    /**
+     * Centered continuous columns, indexed by column; null for non-continuous columns.
+     */
+    private final double[][] centered;
+    /**
+     * The number of rows in the data.
+     */
+    private final int numDataRows;
+    /**
+     * The rows that are indexed, in order.
+     */
+    private final int[] rows;
+    /**
+     * The maximum number of memoized partitions.
+     */
+    private final int maxCachedPartitions;
+    /**
+     * Memoized partitions, keyed by sorted discrete column indices. Access-ordered, so the least recently used
+     * partition is evicted first.
+     */
+    private final Map<PartitionKey, Partition> partitions;
+    /**
+     * Per-thread scratch buffers for computing cell ids.
+     */
+    private final ThreadLocal<Workspace> workspace = ThreadLocal.withInitial(Workspace::new);
+
+    /**
+     * Constructs an index over all rows of the given data.
+     *
+     * @param discreteData   A data set in which every column to be used as a discrete variable is discrete. Columns
+     *                       whose variables are not discrete are not coded.
+     * @param continuousData Continuous data by column; entries may be null for columns that are not continuous. Must
+     *                       have one entry per column of the discrete data.
+     */
+    public MixedDataIndex(DataSet discreteData, double[][] continuousData) {
+        this(discreteData, continuousData, DEFAULT_MAX_CACHED_PARTITIONS);
+    }
+
+    /**
+     * Constructs an index over all rows of the given data.
+     *
+     * @param discreteData        A data set in which every column to be used as a discrete variable is discrete.
+     * @param continuousData      Continuous data by column; entries may be null for columns that are not continuous.
+     * @param maxCachedPartitions The maximum number of partitions to memoize; must be positive.
+     */
+    public MixedDataIndex(DataSet discreteData, double[][] continuousData, int maxCachedPartitions) {
+        if (discreteData == null) throw new NullPointerException("Discrete data must not be null.");
+        if (continuousData == null) throw new NullPointerException("Continuous data must not be null.");
+        if (continuousData.length != discreteData.getNumColumns()) {
+            throw new IllegalArgumentException("Expecting one continuous column slot per data column.");
+        }
+
+        int n = discreteData.getNumRows();
+        int p = discreteData.getNumColumns();
+
+        this.codes = new int[p][];
+        this.numCategories = new int[p];
+        this.centered = new double[p][];
+
+        for (int j = 0; j < p; j++) {
+            Node v = discreteData.getVariable(j);
+
+            if (v instanceof DiscreteVariable) {
+                int[] col = new int[n];
+                for (int i = 0; i < n; i++) col[i] = discreteData.getInt(i, j);
+                this.codes[j] = col;
+                this.numCategories[j] = ((DiscreteVariable) v).getNumCategories();
+            }
+
+            double[] x = continuousData[j];
+
+            if (x != null) {
+                if (x.length != n) {
+                    throw new IllegalArgumentException("Continuous column " + j + " has the wrong number of rows.");
+                }
+
+                // Missing values are left as NaN; they are skipped when computing the mean.
+                double mean = 0.0;
+                int count = 0;
+
+                for (double v1 : x) {
+                    if (!Double.isNaN(v1)) {
+                        mean += v1;
+                        count++;
+                    }
+                }
+
+                if (count > 0) mean /= count;
+
+                double[] c = new double[n];
+                for (int i = 0; i < n; i++) c[i] = x[i] - mean;
+                this.centered[j] = c;
+            }
+        }
+
+        this.numDataRows = n;
+        this.rows = new int[n];
+        for (int i = 0; i < n; i++) this.rows[i] = i;
+
+        this.maxCachedPartitions = maxCachedPartitions;
+        this.partitions = newPartitionCache(maxCachedPartitions);
+    }
+
+    private MixedDataIndex(MixedDataIndex base, int[] rows) {
+        this.codes = base.codes;
+        this.numCategories = base.numCategories;
+        this.centered = base.centered;
+        this.numDataRows = base.numDataRows;
+        this.rows = rows;
+        this.maxCachedPartitions = base.maxCachedPartitions;
+        this.partitions = newPartitionCache(this.maxCachedPartitions);
+    }
+
+    private static Map<PartitionKey, Partition> newPartitionCache(int maxCachedPartitions) {
+        if (maxCachedPartitions < 1) {
+            throw new IllegalArgumentException("Max cached partitions must be positive: " + maxCachedPartitions);
+        }
+
+        return Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<PartitionKey, Partition> eldest) {
+                return size() > maxCachedPartitions;
+            }
+        });
+    }
+
+    /**
+     * Returns an index over the given rows that shares this index's code arrays and continuous columns. If the rows
+     * are the same as this index's rows, this index (with its memoized partitions) is returned.
+     *
+     * @param rows The rows to index, in order. Each must be a valid row of the data.
+     * @return The index over these rows.
+     */
+    public MixedDataIndex withRows(int[] rows) {
+        if (Arrays.equals(this.rows, rows)) return this;
+
+        for (int r : rows) {
+            if (r < 0 || r >= this.numDataRows) throw new IllegalArgumentException("Row out of bounds: " + r);
+        }
+
+        return new MixedDataIndex(this, rows.clone());
+    }
+
+    /**
+     * Returns the number of indexed rows.
+     *
+     * @return This number.
+     */
+    public int getNumRows() {
+        return this.rows.length;
+    }
+
+    /**
+     * Returns the indexed rows, in order.
+     *
+     * @return A copy of these rows.
+     */
+    public int[] getRows() {
+        return this.rows.clone();
+    }
+
+    /**
+     * Returns the partition of the indexed rows into cells of the given discrete columns, memoized for the set of
+     * columns.
+     *
+     * @param discreteCols The discrete columns; order does not matter.
+     * @return The partition.
+     * @throws IllegalArgumentException If one of the columns is not coded.
+     */
+    public Partition partition(int[] discreteCols) {
+        int[] sorted = discreteCols.clone();
+        Arrays.sort(sorted);
+
+        for (int c : sorted) {
+            if (this.codes[c] == null) throw new IllegalArgumentException("Column " + c + " is not discrete.");
+        }
+
+        PartitionKey key = new PartitionKey(sorted);
+        Partition partition = this.partitions.get(key);
+
+        if (partition == null) {
+            // Computed outside the lock; a concurrent duplicate computation yields an identical partition.
+            partition = computePartition(sorted);
+            this.partitions.put(key, partition);
+        }
+
+        return partition;
+    }
+
+    private Partition computePartition(int[] discreteCols) {
+        int m = this.rows.length;
+        Workspace w = this.workspace.get();
+        int[] cellIds = w.cellIds(m);
+        int numCells = 1;
+
+        Arrays.fill(cellIds, 0, m, 0);
+
+        for (int col : discreteCols) {
+            int[] code = this.codes[col];
+
+            // One extra code for missing or out-of-range values, which form their own cells.
+            int radix = this.numCategories[col] + 1;
+            int size = numCells * radix;
+            int[] remap = w.remap(size);
+            Arrays.fill(remap, 0, size, -1);
+
+            int next = 0;
+
+            for (int t = 0; t < m; t++) {
+                int c = code[this.rows[t]];
+                if (c < 0 || c >= radix - 1) c = radix - 1;
+                int id = cellIds[t] * radix + c;
+
+                if (remap[id] == -1) {
+                    remap[id] = next++;
+                }
+
+                cellIds[t] = remap[id];
+            }
+
+            numCells = next;
+        }
+
+        if (m == 0) numCells = 0;
+
+        // Counting sort of the rows by cell, stable, so rows within a cell stay in row order.
+        int[] starts = new int[numCells + 1];
+        for (int t = 0; t < m; t++) starts[cellIds[t] + 1]++;
+        for (int c = 0; c < numCells; c++) starts[c + 1] += starts[c];
+
+        int[] fill = w.remap(numCells);
+        System.arraycopy(starts, 0, fill, 0, numCells);
+
+        int[] cellRows = new int[m];
+        for (int t = 0; t < m; t++) cellRows[fill[cellIds[t]]++] = this.rows[t];
+
+        return new Partition(starts, cellRows);
+    }
+
+    /**
+     * A partition of the indexed rows into the nonempty cells of a set of discrete columns. Cells are numbered in order
+     * of first appearance in the indexed rows. Sufficient statistics of continuous columns are computed lazily and
+     * memoized.
+     */
+    public final class Partition {
+
+        /**
+         * Start offsets of each cell in {@code cellRows}; length is the number of cells plus one.
+         */
+        private final int[] starts;
+        /**
+         * Rows grouped by cell.
+         */
+        private final int[] cellRows;
+        /**
+         * Per-cell sums of centered continuous columns, keyed by column.
+         */
+        private final Map<Integer, double[]> sums = new ConcurrentHashMap<>();
+        /**
+         * Per-cell cross-products of centered continuous columns, keyed by the (ordered) column pair.
+         */
+        private final Map<Long, double[]> crossProducts = new ConcurrentHashMap<>();
+
+        private Partition(int[] starts, int[] cellRows) {
+            this.starts = starts;
+            this.cellRows = cellRows;
+        }
+
+        /**
+         * Returns the number of nonempty cells.
+         *
+         * @return This number.
+         */
+        public int getNumCells() {
+            return this.starts.length - 1;
+        }
+
+        /**
+         * Returns the number of rows in the given cell.
+         *
+         * @param cell The cell.
+         * @return This number.
+         */
+        public int getCount(int cell) {
+            return this.starts[cell + 1] - this.starts[cell];
+        }
+
+        /**
+         * Returns the rows of the given cell, in row order.
+         *
+         * @param cell The cell.
+         * @return A copy of these rows.
+         */
+        public int[] getRows(int cell) {
+            return Arrays.copyOfRange(this.cellRows, this.starts[cell], this.starts[cell + 1]);
+        }
+
+        /**
+         * Returns the per-cell sums of the given continuous column (centered at its mean).
+         *
+         * @param col The continuous column.
+         * @return The sums, indexed by cell. Not to be modified.
+         */
+        public double[] getSums(int col) {
+            return this.sums.computeIfAbsent(col, c -> {
+                double[] x = continuous(c);
+                double[] s = new double[getNumCells()];
+
+                for (int cell = 0; cell < s.length; cell++) {
+                    double sum = 0.0;
+                    for (int t = this.starts[cell]; t < this.starts[cell + 1]; t++) sum += x[this.cellRows[t]];
+                    s[cell] = sum;
+                }
+
+                return s;
+            });
+        }
+
+        /**
+         * Returns the per-cell cross-products of the given continuous columns (centered at their means).
+         *
+         * @param col1 The first continuous column.
+         * @param col2 The second continuous column.
+         * @return The cross-products, indexed by cell. Not to be modified.
+         */
+        public double[] getCrossProducts(int col1, int col2) {
+            int a = Math.min(col1, col2);
+            int b = Math.max(col1, col2);
+            long key = ((long) a << 32) | b;
+
+            return this.crossProducts.computeIfAbsent(key, k -> {
+                double[] x = continuous(a);
+                double[] y = continuous(b);
+                double[] s = new double[getNumCells()];
+
+                for (int cell = 0; cell < s.length; cell++) {
+                    double sum = 0.0;
+
+                    for (int t = this.starts[cell]; t < this.starts[cell + 1]; t++) {
+                        int r = this.cellRows[t];
+                        sum += x[r] * y[r];
+                    }
+
+                    s[cell] = sum;
+                }
+
+                return s;
+            });
+        }
+
+        /**
+         * Returns the unbiased sample covariance matrix of the given continuous columns within the given cell,
+         * assembled from the memoized sufficient statistics.
+         *
+         * @param cell           The cell; it should contain at least two rows.
+         * @param continuousCols The continuous columns.
+         * @return The covariance matrix.
+         */
+        public Matrix getCovariance(int cell, int[] continuousCols) {
+            int k = continuousCols.length;
+            int n = getCount(cell);
+            Matrix cov = new Matrix(k, k);
+
+            double[] means = new double[k];
+            for (int i = 0; i < k; i++) means[i] = getSums(continuousCols[i])[cell] / n;
+
+            for (int i = 0; i < k; i++) {
+                for (int j = i; j < k; j++) {
+                    double sxy = getCrossProducts(continuousCols[i], continuousCols[j])[cell];
+                    double c = (sxy - n * means[i] * means[j]) / (n - 1);
+                    cov.set(i, j, c);
+                    cov.set(j, i, c);
+                }
+            }
+
+            return cov;
+        }
+
+        private double[] continuous(int col) {
+            double[] x = centered[col];
+            if (x == null) throw new IllegalArgumentException("Column " + col + " is not continuous.");
+            return x;
+        }
+    }
+
+    /**
+     * Key for memoized partitions.
+     *
+     * @param cols Sorted discrete column indices.
+     */
+    private record PartitionKey(int[] cols) {
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof PartitionKey k && Arrays.equals(this.cols, k.cols);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(this.cols);
+        }
+    }
+
+    /**
+     * Reusable per-thread scratch buffers.
+     */
+    private static final class Workspace {
+        private int[] cellIds = new int[0];
+        private int[] remap = new int[0];
+
+        int[] cellIds(int size) {
+            if (this.cellIds.length < size) this.cellIds = new int[size];
+            return this.cellIds;
+        }
+
+        int[] remap(int size) {
+            if (this.remap.length < size) this.remap = new int[Math.max(size, 2 * this.remap.length)];
+            return this.remap;
+        }
+    }
+}
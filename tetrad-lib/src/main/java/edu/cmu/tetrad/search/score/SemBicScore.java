@@ -76,7 +76,7 @@ public class SemBicScore implements Score, EffectiveSampleSizeSettable {
     /**
      * The sample size of the covariance matrix.
      */
-    private final int sampleSize;
+    private int sampleSize;
     /**
      * A map from variable names to their indices.
      */
@@ -84,7 +84,7 @@ public class SemBicScore implements Score, EffectiveSampleSizeSettable {
     /**
      * The log of the sample size.
      */
-    private final double logN;
+    private double logN;
     /**
      * True if row subsets should be calculated.
      */
@@ -757,15 +757,38 @@ public class SemBicScore implements Score, EffectiveSampleSizeSettable {
         return this.covariances;
     }
 
+    /**
+     * Re-reads the sample size and covariances from the covariance matrix this score was constructed with, so that a
+     * score over a StreamingCovarianceMatrix picks up rows added since. An effective sample size left at its default
+     * follows the new sample size.
+     *
+     * @throws IllegalStateException if the score has no covariance matrix.
+     */
+    public void refresh() {
+        if (this.covariances == null) {
+            throw new IllegalStateException("This score was not constructed with a covariance matrix.");
+        }
+
+        boolean defaultNEff = this.nEff == this.sampleSize;
+        this.sampleSize = this.covariances.getSampleSize();
+        if (defaultNEff) this.nEff = this.sampleSize;
+        this.logN = log(this.nEff);
+        this.matrix = null;
+    }
+
     private void setCovariances(ICovarianceMatrix covariances) {
         this.covariances = covariances;
+        this.dataModel = covariances;
+    }
 
-        if (this.dataModel == null) {
+    // The full matrix is only needed for partial correlations; it is fetched lazily, since lazily computed
+    // covariance matrices would otherwise compute every entry up front.
+    private Matrix getMatrix() {
+        if (this.matrix == null && this.covariances != null) {
             this.matrix = this.covariances.getMatrix();
         }
 
-        this.dataModel = covariances;
-
+        return this.matrix;
     }
 
     /**
@@ -966,7 +989,7 @@ public class SemBicScore implements Score, EffectiveSampleSizeSettable {
             all[1] = this.indexMap.get(y);
             for (int i = 0; i < z.size(); i++) all[i + 2] = this.indexMap.get(z.get(i));
 
-            return StatUtils.partialCorrelation(convertCovToCorr(getCov(rows, indices(x, y, z), all, (DataSet) this.dataModel, this.matrix)), lambda);
+            return StatUtils.partialCorrelation(convertCovToCorr(getCov(rows, indices(x, y, z), all, (DataSet) this.dataModel, getMatrix())), lambda);
         } catch (Exception e) {
             return NaN;
         }
@@ -49,8 +49,12 @@ public final class IndTestFisherZ implements IndependenceTest, EffectiveSampleSi
     private final Map<String, Integer> indexMap;
     private final Map<String, Node> nameMap;
     private final NormalDistribution normal = new NormalDistribution(0, 1);
-    private final int sampleSize;
+    private int sampleSize;
     private ICovarianceMatrix cor = null;
+    /**
+     * The covariance matrix the test was constructed with, if any; re-read by refresh().
+     */
+    private ICovarianceMatrix covariances = null;
     private List<Node> variables;
     private double alpha;
     private DataSet dataSet;
@@ -170,6 +174,7 @@ public final class IndTestFisherZ implements IndependenceTest, EffectiveSampleSi
      * @param alpha the significance level for independence tests
      */
     public IndTestFisherZ(ICovarianceMatrix covMatrix, double alpha) {
+        this.covariances = covMatrix;
         this.cor = new CorrelationMatrix(covMatrix);
         this.variables = covMatrix.getVariables();
         this.indexMap = indexMap(this.variables);
@@ -612,6 +617,24 @@ public final class IndTestFisherZ implements IndependenceTest, EffectiveSampleSi
         return partialFromPrecision(Pinv);
     }
 
+    /**
+     * Re-reads the correlations and sample size from the covariance matrix this test was constructed with, so that a
+     * test over a StreamingCovarianceMatrix picks up rows added since. An effective sample size left at its default
+     * follows the new sample size.
+     *
+     * @throws IllegalStateException if the test was not constructed with a covariance matrix.
+     */
+    public void refresh() {
+        if (this.covariances == null) {
+            throw new IllegalStateException("This test was not constructed with a covariance matrix.");
+        }
+
+        boolean defaultNEff = this.nEff == this.sampleSize;
+        this.cor = new CorrelationMatrix(this.covariances);
+        this.sampleSize = this.covariances.getSampleSize();
+        if (defaultNEff) this.nEff = this.sampleSize;
+    }
+
     private ICovarianceMatrix covMatrix() {
         return this.cor;
     }
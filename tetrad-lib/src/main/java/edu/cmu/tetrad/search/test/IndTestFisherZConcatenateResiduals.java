@@ -246,7 +246,7 @@ public final class IndTestFisherZConcatenateResiduals implements IndependenceTes
      * @return This data
      */
     public DataSet getData() {
-        return DataTransforms.concatenate(this.dataSets);
+        return DataTransforms.concatenateView(this.dataSets);
     }
 
     /**
@@ -256,13 +256,7 @@ public final class IndTestFisherZConcatenateResiduals implements IndependenceTes
      */
     @Override
     public ICovarianceMatrix getCov() {
-        List<DataSet> _dataSets = new ArrayList<>();
-
-        for (DataSet d : this.dataSets) {
-            _dataSets.add(DataTransforms.standardizeData(d));
-        }
-
-        return new CovarianceMatrix(DataTransforms.concatenate(_dataSets));
+        return PooledCovariances.fromDataSets(this.dataSets, PooledCovariances.Pooling.STANDARDIZED).getCovarianceMatrix();
     }
 
     /**
@@ -24,6 +24,7 @@ import edu.cmu.tetrad.data.CovarianceMatrix;
 import edu.cmu.tetrad.data.DataSet;
 import edu.cmu.tetrad.data.DataTransforms;
 import edu.cmu.tetrad.data.ICovarianceMatrix;
+import edu.cmu.tetrad.data.PooledCovariances;
 import edu.cmu.tetrad.graph.IndependenceFact;
 import edu.cmu.tetrad.graph.Node;
 import edu.cmu.tetrad.search.utils.LogUtilsSearch;
@@ -255,7 +256,7 @@ public final class IndTestFisherZFisherPValue implements IndependenceTest {
      * @return This data
      */
     public DataSet getData() {
-        return DataTransforms.concatenate(this.dataSets);
+        return DataTransforms.concatenateView(this.dataSets);
     }
 
     /**
@@ -264,13 +265,7 @@ public final class IndTestFisherZFisherPValue implements IndependenceTest {
      * @return This covariance matrix.
      */
     public ICovarianceMatrix getCov() {
-        List<DataSet> _dataSets = new ArrayList<>();
-
-        for (DataSet d : this.dataSets) {
-            _dataSets.add(DataTransforms.standardizeData(d));
-        }
-
-        return new CovarianceMatrix(DataTransforms.concatenate(_dataSets));
+        return PooledCovariances.fromDataSets(this.dataSets, PooledCovariances.Pooling.STANDARDIZED).getCovarianceMatrix();
     }
 
     /**
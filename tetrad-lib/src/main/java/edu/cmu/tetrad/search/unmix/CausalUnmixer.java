@@ -118,6 +118,7 @@ public class CausalUnmixer {
         ec.covShrinkage = cfg.covShrinkage;
         ec.annealSteps = cfg.annealSteps;
         ec.annealStartT = cfg.annealStartT;
+        ec.numThreads = cfg.numThreads;
 
         return ec;
     }
@@ -222,6 +223,10 @@ public class CausalUnmixer {
          * Safety margin for full sigma estimation. Ensures that the estimated covariance matrix is positive definite.
          */
         public int fullSigmaSafetyMargin = 10;
+        /**
+         * Number of threads used by the EM passes over the rows. Defaults to the number of available processors.
+         */
+        public int numThreads = Runtime.getRuntime().availableProcessors();
         /**
          * A regularization parameter used in ridge regression to prevent overfitting by adding a penalty proportional
          * to the square of the coefficients' magnitude. Typically, higher values increase regularization, while lower
@@ -121,6 +121,7 @@ public final class EmUnmix {
         emc.covRidgeRel = cfg.covRidgeRel;
         emc.annealSteps = cfg.annealSteps;
         emc.annealStartT = cfg.annealStartT;
+        emc.numThreads = cfg.numThreads;
 
         GaussianMixtureEM.Model model = GaussianMixtureEM.fit(R, emc);
         int[] z = EmUtils.mapLabels(model.responsibilities);
@@ -185,6 +186,7 @@ public final class EmUnmix {
             emc.covRidgeRel = cfg.covRidgeRel;
             emc.annealSteps = cfg.annealSteps;
             emc.annealStartT = cfg.annealStartT;
+            emc.numThreads = cfg.numThreads;
 
             GaussianMixtureEM.Model m = GaussianMixtureEM.fit(R, emc);
             double bic = m.bic(R.length);
@@ -272,6 +274,7 @@ public final class EmUnmix {
         d.annealSteps = c.annealSteps;
         d.annealStartT = c.annealStartT;
         d.randomSeed = c.randomSeed;
+        d.numThreads = c.numThreads;
         return d;
     }
 
@@ -397,6 +400,10 @@ public final class EmUnmix {
          * consistent sequence of random numbers when the same seed is used.
          */
         public long randomSeed = 35L;
+        /**
+         * Number of threads used by the EM passes over the rows. Defaults to the number of available processors.
+         */
+        public int numThreads = Runtime.getRuntime().availableProcessors();
 
         /**
          * Creates a copy of this configuration object.
@@ -20,6 +20,7 @@
 
 package edu.cmu.tetrad.search.unmix;
 
+import edu.cmu.tetrad.util.ParallelEm;
 import edu.cmu.tetrad.util.TetradLogger;
 
 import java.util.Arrays;
@@ -74,39 +75,42 @@ public final class GaussianMixtureEM {
         double[][] R = new double[n][cfg.K];
         double prevLL = Double.NEGATIVE_INFINITY;
 
-        for (int it = 0; it < cfg.maxIters; it++) {
-            // --- annealing schedule: beta â (0,1], climbs to 1 across annealSteps
-            double beta = 1.0;
-            if (cfg.annealSteps > 0) {
-                double t = Math.min(1.0, (it + 1) / (double) cfg.annealSteps);
-                beta = cfg.annealStartT + t * (1.0 - cfg.annealStartT);
-                beta = Math.max(1e-6, Math.min(1.0, beta));
-            }
+        try (ParallelEm em = new ParallelEm(Math.max(1, cfg.numThreads))) {
+            for (int it = 0; it < cfg.maxIters; it++) {
+                // --- annealing schedule: beta ∈ (0,1], climbs to 1 across annealSteps
+                double beta = 1.0;
+                if (cfg.annealSteps > 0) {
+                    double t = Math.min(1.0, (it + 1) / (double) cfg.annealSteps);
+                    beta = cfg.annealStartT + t * (1.0 - cfg.annealStartT);
+                    beta = Math.max(1e-6, Math.min(1.0, beta));
+                }
 
-            // E-step (tempered)
-            double llTemp = eStep(X, w, mu, S, cfg.covType, R, beta);
+                // E-step (tempered); also collects soft counts and first moments for the M-step
+                EStats stats = eStep(em, X, w, mu, S, cfg.covType, R, beta);
+                double llTemp = stats.ll;
 
-            // M-step (with shrinkage / ridge knobs)
-            mStep(X, R, w, mu, S, cfg.covType, cfg.ridge, cfg.covShrinkage, cfg.covRidgeRel);
+                // M-step (with shrinkage / ridge knobs)
+                mStep(em, X, R, stats, w, mu, S, cfg.covType, cfg.ridge, cfg.covShrinkage, cfg.covRidgeRel);
 
-            // --- logging hook ---
-            if (cfg.isLogIntermediate()) {
-                logState(it, llTemp, w, mu, S, R);
-            }
+                // --- logging hook ---
+                if (cfg.isLogIntermediate()) {
+                    logState(it, llTemp, w, mu, S, R);
+                }
 
-            // convergence check uses the same objective we just optimized (tempered LL)
-            if (Math.abs(llTemp - prevLL) < cfg.tol * (1 + Math.abs(prevLL))) {
+                // convergence check uses the same objective we just optimized (tempered LL)
+                if (Math.abs(llTemp - prevLL) < cfg.tol * (1 + Math.abs(prevLL))) {
+                    prevLL = llTemp;
+                    break;
+                }
                 prevLL = llTemp;
-                break;
             }
-            prevLL = llTemp;
-        }
 
-        // --- Finalize: recompute TRUE (untempered) responsibilities & log-likelihood
-        double[][] Rfinal = new double[n][cfg.K];
-        double trueLL = eStep(X, w, mu, S, cfg.covType, Rfinal, 1.0);
+            // --- Finalize: recompute TRUE (untempered) responsibilities & log-likelihood
+            double[][] Rfinal = new double[n][cfg.K];
+            double trueLL = eStep(em, X, w, mu, S, cfg.covType, Rfinal, 1.0).ll;
 
-        return new Model(cfg.K, d, cfg.covType, w, mu, S, trueLL, Rfinal);
+            return new Model(cfg.K, d, cfg.covType, w, mu, S, trueLL, Rfinal);
+        }
     }
 
     private static void logState(int iter, double ll, double[] w, double[][] mu, double[][][] S, double[][] R) {
@@ -114,95 +118,115 @@ public final class GaussianMixtureEM {
         // You could also dump covariances or a small slice of R if desired
     }
 
-    private static double eStep(double[][] X, double[] w, double[][] mu, double[][][] S, CovarianceType covType, double[][] R, double beta) {
-        int n = X.length, d = X[0].length, K = w.length;
-        double ll = 0.0;
-        double[] logw = new double[K];
-        for (int k = 0; k < K; k++) logw[k] = Math.log(Math.max(w[k], 1e-12));
+    /**
+     * E-step over blocks of rows. The Cholesky factor (or inverse variances) and log normalizer of each component are
+     * computed once per call rather than once per row; each block then fills its rows of R and accumulates the soft
+     * counts and weighted sums the M-step needs for the means.
+     */
+    private static EStats eStep(ParallelEm em, double[][] X, double[] w, double[][] mu, double[][][] S, CovarianceType covType, double[][] R, double beta) {
+        final int d = X[0].length, K = w.length;
+        final boolean diagonal = covType == CovarianceType.DIAGONAL;
 
-        for (int i = 0; i < n; i++) {
-            double[] xi = X[i];
-            double[] logp = new double[K];
-            double max = Double.NEGATIVE_INFINITY;
-            for (int k = 0; k < K; k++) {
-                logp[k] = logGaussian(xi, mu[k], S[k], covType) + logw[k];
-                if (logp[k] > max) max = logp[k];
+        final double[] logConst = new double[K];
+        final double[][] invVar = diagonal ? new double[K][d] : null;
+        final double[][][] L = diagonal ? null : new double[K][][];
+
+        for (int k = 0; k < K; k++) {
+            double logdet;
+            if (diagonal) {
+                logdet = 0.0;
+                for (int j = 0; j < d; j++) {
+                    double v = Math.max(S[k][j][0], 1e-12);
+                    invVar[k][j] = 1.0 / v;
+                    logdet += Math.log(v);
+                }
+            } else {
+                Chol ch = Chol.decompose(S[k]);
+                L[k] = ch.L;
+                logdet = 2.0 * ch.logDiagSum;
             }
-            // temper the posteriors: scale log-likelihoods by beta â (0,1], betaâ1 recovers standard EM
-            for (int k = 0; k < K; k++) logp[k] = beta * logp[k];
-
-            // log-sum-exp
-            double maxT = Double.NEGATIVE_INFINITY;
-            for (int k = 0; k < K; k++) if (logp[k] > maxT) maxT = logp[k];
-            double sum = 0.0;
-            for (int k = 0; k < K; k++) sum += Math.exp(logp[k] - maxT);
-            double logsum = maxT + Math.log(sum);
-
-            for (int k = 0; k < K; k++) R[i][k] = Math.exp(logp[k] - logsum);
-            ll += logsum;
+            logConst[k] = -0.5 * (d * Math.log(2 * Math.PI) + logdet) + Math.log(Math.max(w[k], 1e-12));
         }
-        return ll;
-    }
 
-    private static double logGaussian(double[] x, double[] m, double[][] S, CovarianceType type) {
-        int d = x.length;
-        double quad, logdet;
-        if (type == CovarianceType.DIAGONAL) {
-            quad = 0.0;
-            logdet = 0.0;
-            for (int j = 0; j < d; j++) {
-                double v = Math.max(S[j][0], 1e-12);
-                double z = x[j] - m[j];
-                quad += (z * z) / v;
-                logdet += Math.log(v);
+        return em.run(X.length, new ParallelEm.Pass<EStats>() {
+            @Override
+            public EStats newStatistics() {
+                return new EStats(K, d);
             }
-        } else {
-            // FULL: use simple Cholesky
-            Chol ch = Chol.decompose(S);
-            double[] y = ch.solve(sub(x, m));
-            quad = dot(sub(x, m), y);
-            logdet = 2.0 * ch.logDiagSum;
-        }
-        return -0.5 * (d * Math.log(2 * Math.PI) + logdet + quad);
-    }
 
-    // ---------- M-step ----------
-    // Backward-compatible wrapper (uses only absolute ridge; no shrinkage / relative ridge)
-    private static void mStep(double[][] X, double[][] R, double[] w, double[][] mu, double[][][] S, CovarianceType covType, double ridgeAbs) {
-        mStep(X, R, w, mu, S, covType, ridgeAbs, /*shrinkage*/ 0.0, /*ridgeRel*/ 0.0);
+            @Override
+            public void accumulate(int from, int to, EStats s) {
+                double[] logp = new double[K];
+                double[] y = new double[d];
+
+                for (int i = from; i < to; i++) {
+                    double[] xi = X[i];
+                    for (int k = 0; k < K; k++) {
+                        double[] m = mu[k];
+                        double quad = 0.0;
+                        if (diagonal) {
+                            double[] iv = invVar[k];
+                            for (int j = 0; j < d; j++) {
+                                double z = xi[j] - m[j];
+                                quad += z * z * iv[j];
+                            }
+                        } else {
+                            // forward solve L y = x - m; quad = |y|^2
+                            double[][] Lk = L[k];
+                            for (int a = 0; a < d; a++) {
+                                double[] La = Lk[a];
+                                double v = xi[a] - m[a];
+                                for (int b = 0; b < a; b++) v -= La[b] * y[b];
+                                y[a] = v / La[a];
+                                quad += y[a] * y[a];
+                            }
+                        }
+                        // temper the posteriors: scale log-likelihoods by beta ∈ (0,1], beta→1 recovers standard EM
+                        logp[k] = beta * (logConst[k] - 0.5 * quad);
+                    }
+
+                    // log-sum-exp
+                    double maxT = Double.NEGATIVE_INFINITY;
+                    for (int k = 0; k < K; k++) if (logp[k] > maxT) maxT = logp[k];
+                    double sum = 0.0;
+                    for (int k = 0; k < K; k++) sum += Math.exp(logp[k] - maxT);
+                    double logsum = maxT + Math.log(sum);
+
+                    double[] Ri = R[i];
+                    for (int k = 0; k < K; k++) {
+                        double rik = Math.exp(logp[k] - logsum);
+                        Ri[k] = rik;
+                        s.rk[k] += rik;
+                        double[] sxk = s.sx[k];
+                        for (int j = 0; j < d; j++) sxk[j] += rik * xi[j];
+                    }
+                    s.ll += logsum;
+                }
+            }
+        });
     }
 
     /**
-     * Full M-step with covariance shrinkage and relative ridge. - shrinkage Î» in [0,1]: shrinks Î£_k toward spherical
-     * target (FULL) or mean variance (DIAGONAL) - ridgeAbs â¥ 0: absolute ridge added to diagonal - ridgeRel â¥ 0:
-     * relative ridge = ridgeRel * Ï (Ï = avg variance) added to diagonal
+     * Full M-step with covariance shrinkage and relative ridge. - shrinkage λ in [0,1]: shrinks Σ_k toward spherical
+     * target (FULL) or mean variance (DIAGONAL) - ridgeAbs ≥ 0: absolute ridge added to diagonal - ridgeRel ≥ 0:
+     * relative ridge = ridgeRel * τ (τ = avg variance) added to diagonal
+     * <p>
+     * Soft counts and first moments come from the E-step statistics; the centered scatter is accumulated in a second
+     * pass over blocks of rows, so the two-pass numerics of the covariance estimate are kept.
      */
-    private static void mStep(double[][] X, double[][] R, double[] w, double[][] mu, double[][][] S, CovarianceType covType, double ridgeAbs, double shrinkage, double ridgeRel) {
+    private static void mStep(ParallelEm em, double[][] X, double[][] R, EStats stats, double[] w, double[][] mu, double[][][] S, CovarianceType covType, double ridgeAbs, double shrinkage, double ridgeRel) {
         final int n = X.length;
         final int d = (n == 0) ? 0 : X[0].length;
         final int K = w.length;
+        final boolean diagonal = covType == CovarianceType.DIAGONAL;
 
         // --- soft counts and means ---
-        double[] rk = new double[K];
-        for (int k = 0; k < K; k++) {
-            rk[k] = 0.0;
-            Arrays.fill(mu[k], 0.0);
-        }
-
-        for (int i = 0; i < n; i++) {
-            double[] xi = X[i];
-            double[] Ri = R[i];
-            for (int k = 0; k < K; k++) {
-                double rik = Ri[k];
-                rk[k] += rik;
-                for (int j = 0; j < d; j++) mu[k][j] += rik * xi[j];
-            }
-        }
+        double[] rk = stats.rk;
 
         double sumw = 0.0;
         for (int k = 0; k < K; k++) {
             double denom = Math.max(rk[k], 1e-12);
-            for (int j = 0; j < d; j++) mu[k][j] /= denom;
+            for (int j = 0; j < d; j++) mu[k][j] = stats.sx[k][j] / denom;
 
             w[k] = denom / Math.max(n, 1);
             w[k] = Math.max(w[k], 1e-12);
@@ -210,35 +234,54 @@ public final class GaussianMixtureEM {
         }
         for (int k = 0; k < K; k++) w[k] /= sumw;
 
-        // --- covariances (raw ML) ---
-        if (covType == CovarianceType.DIAGONAL) {
-            for (int k = 0; k < K; k++)
-                for (int j = 0; j < d; j++)
-                    S[k][j][0] = 0.0;
+        // --- centered scatter (raw ML), lower triangle only for FULL ---
+        Scatter scatter = em.run(n, new ParallelEm.Pass<Scatter>() {
+            @Override
+            public Scatter newStatistics() {
+                return new Scatter(allocCov(K, d, covType));
+            }
 
-            for (int i = 0; i < n; i++) {
-                double[] xi = X[i];
-                double[] Ri = R[i];
-                for (int k = 0; k < K; k++) {
-                    double rik = Ri[k];
-                    if (rik == 0.0) continue;
-                    for (int j = 0; j < d; j++) {
-                        double z = xi[j] - mu[k][j];
-                        S[k][j][0] += rik * z * z;
+            @Override
+            public void accumulate(int from, int to, Scatter s) {
+                double[] z = new double[d];
+
+                for (int i = from; i < to; i++) {
+                    double[] xi = X[i];
+                    double[] Ri = R[i];
+                    for (int k = 0; k < K; k++) {
+                        double rik = Ri[k];
+                        if (rik == 0.0) continue;
+                        double[] m = mu[k];
+                        double[][] Sk = s.S[k];
+                        if (diagonal) {
+                            for (int j = 0; j < d; j++) {
+                                double zj = xi[j] - m[j];
+                                Sk[j][0] += rik * zj * zj;
+                            }
+                        } else {
+                            for (int a = 0; a < d; a++) z[a] = xi[a] - m[a];
+                            for (int a = 0; a < d; a++) {
+                                double rza = rik * z[a];
+                                double[] Ska = Sk[a];
+                                for (int b = 0; b <= a; b++) Ska[b] += rza * z[b];
+                            }
+                        }
                     }
                 }
             }
+        });
+
+        double lam = Math.min(Math.max(shrinkage, 0.0), 1.0);
+        double rel = Math.max(ridgeRel, 0.0);
 
-            // --- shrinkage + ridge ---
-            double lam = Math.min(Math.max(shrinkage, 0.0), 1.0);
-            double rel = Math.max(ridgeRel, 0.0);
+        if (diagonal) {
             for (int k = 0; k < K; k++) {
                 double denom = Math.max(rk[k], 1e-12);
 
                 // raw variances
                 double meanVar = 0.0;
                 for (int j = 0; j < d; j++) {
-                    S[k][j][0] = S[k][j][0] / denom;
+                    S[k][j][0] = scatter.S[k][j][0] / denom;
                     meanVar += S[k][j][0];
                 }
                 meanVar /= Math.max(1, d);
@@ -256,35 +299,17 @@ public final class GaussianMixtureEM {
             }
 
         } else { // FULL
-            for (int k = 0; k < K; k++)
-                for (int a = 0; a < d; a++)
-                    Arrays.fill(S[k][a], 0.0);
-
-            for (int i = 0; i < n; i++) {
-                double[] xi = X[i];
-                double[] Ri = R[i];
-                for (int k = 0; k < K; k++) {
-                    double rik = Ri[k];
-                    if (rik == 0.0) continue;
-                    for (int a = 0; a < d; a++) {
-                        double za = xi[a] - mu[k][a];
-                        for (int b = 0; b < d; b++) {
-                            double zb = xi[b] - mu[k][b];
-                            S[k][a][b] += rik * za * zb;
-                        }
-                    }
-                }
-            }
-
-            double lam = Math.min(Math.max(shrinkage, 0.0), 1.0);
-            double rel = Math.max(ridgeRel, 0.0);
             for (int k = 0; k < K; k++) {
                 double denom = Math.max(rk[k], 1e-12);
 
-                // raw ML covariance
+                // raw ML covariance, mirrored from the lower triangle
                 double trace = 0.0;
                 for (int a = 0; a < d; a++) {
-                    for (int b = 0; b < d; b++) S[k][a][b] /= denom;
+                    for (int b = 0; b <= a; b++) {
+                        double v = scatter.S[k][a][b] / denom;
+                        S[k][a][b] = v;
+                        S[k][b][a] = v;
+                    }
                     trace += S[k][a][a];
                 }
                 double tau = trace / Math.max(1, d); // avg variance
@@ -395,12 +420,6 @@ public final class GaussianMixtureEM {
 
     // ---------- M-step ----------
 
-    private static double[] sub(double[] a, double[] b) {
-        double[] r = new double[a.length];
-        for (int i = 0; i < a.length; i++) r[i] = a[i] - b[i];
-        return r;
-    }
-
     // ---------- init moments from hard labels ----------
 
     private static double dot(double[] a, double[] b) {
@@ -736,6 +755,12 @@ public final class GaussianMixtureEM {
          * typically used in optimization algorithms that utilize simulated annealing.
          */
         public double annealStartT;
+        /**
+         * The number of threads used for the E-step and the covariance pass of the M-step. Rows are split into blocks
+         * whose statistics are merged in a fixed order, so the result for a given thread count does not depend on
+         * scheduling. Defaults to the number of available processors.
+         */
+        public int numThreads = Runtime.getRuntime().availableProcessors();
         /**
          * Indicates whether intermediate steps of the computation should be logged.
          * <p>
@@ -769,6 +794,7 @@ public final class GaussianMixtureEM {
             copy.covShrinkage = covShrinkage;
             copy.annealSteps = annealSteps;
             copy.annealStartT = annealStartT;
+            copy.numThreads = numThreads;
             return copy;
 
         }
@@ -792,6 +818,51 @@ public final class GaussianMixtureEM {
         }
     }
 
+    /**
+     * Per-block E-step statistics: log-likelihood, soft counts and responsibility-weighted sums of the rows.
+     */
+    private static final class EStats implements ParallelEm.Statistics<EStats> {
+        final double[] rk;
+        final double[][] sx;
+        double ll;
+
+        EStats(int K, int d) {
+            this.rk = new double[K];
+            this.sx = new double[K][d];
+        }
+
+        @Override
+        public void merge(EStats other) {
+            ll += other.ll;
+            for (int k = 0; k < rk.length; k++) {
+                rk[k] += other.rk[k];
+                for (int j = 0; j < sx[k].length; j++) sx[k][j] += other.sx[k][j];
+            }
+        }
+    }
+
+    /**
+     * Per-block centered scatter, laid out like the covariances (lower triangle only for FULL).
+     */
+    private static final class Scatter implements ParallelEm.Statistics<Scatter> {
+        final double[][][] S;
+
+        Scatter(double[][][] S) {
+            this.S = S;
+        }
+
+        @Override
+        public void merge(Scatter other) {
+            for (int k = 0; k < S.length; k++) {
+                for (int a = 0; a < S[k].length; a++) {
+                    double[] row = S[k][a];
+                    double[] o = other.S[k][a];
+                    for (int b = 0; b < row.length; b++) row[b] += o[b];
+                }
+            }
+        }
+    }
+
     /**
      * tiny Cholesky with log|L| tracked; minimal checks, assume SPD with ridge.
      */
@@ -0,0 +1,453 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+//                                                                           //
+// Copyright (C) 2025 by Joseph Ramsey, Peter Spirtes, Clark Glymour,        //
+// and Richard Scheines.                                                     //
+//                                                                           //
+// This program is free software: you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation, either version 3 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.    //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.search.utils;
+
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.search.score.Score;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * A grow-shrink tree that can be shared by any number of threads, e.g., across the restarts of GRaSP or BOSS, or by the
+ * parallel tasks within one BOSS step. It caches the same traces as {@link GrowShrinkTree}, with these differences:
+ * <ul>
+ *     <li>Branches are inserted without locks: the children of a branch are computed and then published with a
+ *     compare-and-set on its child array, so concurrent growers at most duplicate work; the same holds for the
+ *     shrink result.</li>
+ *     <li>Parent, prefix and available sets are bitsets over variable indices rather than sets of nodes, with a
+ *     {@link #trace(long[], long[], long[])} entry point that avoids set copies altogether.</li>
+ *     <li>The number of cached branches can be capped. When the cap is exceeded, the children of the least recently
+ *     used half of the grown branches are dropped; they are regrown if needed. Since local scores are deterministic,
+ *     pruning affects running time but not results.</li>
+ * </ul>
+ * Branches with equal grow scores are ordered by variable index.
+ *
+ * @author bryanandrews
+ * @author josephramsey
+ * @see GrowShrinkTree
+ */
+public class ConcurrentGrowShrinkTree extends GrowShrinkTree {
+
+    private static final AtomicReferenceFieldUpdater<Branch, Branch[]> CHILDREN =
+            AtomicReferenceFieldUpdater.newUpdater(Branch.class, Branch[].class, "children");
+    private static final AtomicReferenceFieldUpdater<Branch, Shrink> SHRINK =
+            AtomicReferenceFieldUpdater.newUpdater(Branch.class, Shrink.class, "shrink");
+
+    /**
+     * The variables, by index.
+     */
+    private final Node[] variables;
+    /**
+     * The index of the node of this tree.
+     */
+    private final int target;
+    /**
+     * The number of words in a bitset.
+     */
+    private final int numWords;
+    /**
+     * The maximum number of cached branches, or -1 for no limit.
+     */
+    private final long maxBranches;
+    /**
+     * The number of cached branches.
+     */
+    private final AtomicLong numBranches = new AtomicLong();
+    /**
+     * A logical clock, advanced by each trace, for pruning.
+     */
+    private final AtomicLong clock = new AtomicLong();
+    /**
+     * Held while pruning.
+     */
+    private final AtomicBoolean pruning = new AtomicBoolean(false);
+    /**
+     * Required and forbidden parents.
+     */
+    private volatile long[] requiredMask;
+    private volatile long[] forbiddenMask;
+    /**
+     * The root.
+     */
+    private volatile Branch root;
+
+    /**
+     * Constructs a tree with no limit on the number of cached branches.
+     *
+     * @param score The score.
+     * @param index The index of each variable.
+     * @param node  The node whose parents are traced.
+     */
+    public ConcurrentGrowShrinkTree(Score score, Map<Node, Integer> index, Node node) {
+        this(score, index, node, -1);
+    }
+
+    /**
+     * Constructs a tree.
+     *
+     * @param score       The score.
+     * @param index       The index of each variable.
+     * @param node        The node whose parents are traced.
+     * @param maxBranches The maximum number of cached branches, at least 1, or -1 for no limit.
+     */
+    public ConcurrentGrowShrinkTree(Score score, Map<Node, Integer> index, Node node, long maxBranches) {
+        super(score, index, node);
+
+        if (maxBranches < 1 && maxBranches != -1) {
+            throw new IllegalArgumentException("Max branches must be at least 1, or -1 for no limit: " + maxBranches);
+        }
+
+        int size = 0;
+        for (int i : index.values()) size = Math.max(size, i + 1);
+
+        this.variables = new Node[size];
+        for (Map.Entry<Node, Integer> entry : index.entrySet()) this.variables[entry.getValue()] = entry.getKey();
+
+        this.target = index.get(node);
+        this.numWords = (size + 63) >>> 6;
+        this.maxBranches = maxBranches;
+        reset();
+    }
+
+    /**
+     * Traces the parents of the node given a prefix, as in {@link GrowShrinkTree#trace(Set, Set)}.
+     *
+     * @param prefix The prefix.
+     * @param all    The candidate parents.
+     * @return The local score of the node given the traced parents.
+     */
+    @Override
+    public double trace(Set<Node> prefix, Set<Node> all) {
+        return trace(toBits(prefix), toBits(all), new long[this.numWords]);
+    }
+
+    /**
+     * Traces the parents of the node given a prefix, as in {@link GrowShrinkTree#trace(Set, Set, Set)}.
+     *
+     * @param prefix  The prefix.
+     * @param all     The candidate parents.
+     * @param parents Initially the parents to start from (usually empty); on return, the traced parents.
+     * @return The local score of the node given the traced parents.
+     */
+    @Override
+    public double trace(Set<Node> prefix, Set<Node> all, Set<Node> parents) {
+        long[] _parents = toBits(parents);
+        double score = trace(toBits(prefix), toBits(all), _parents);
+
+        parents.clear();
+        for (int i = nextSetBit(_parents, 0); i >= 0; i = nextSetBit(_parents, i + 1)) {
+            parents.add(this.variables[i]);
+        }
+
+        return score;
+    }
+
+    /**
+     * Traces the parents of the node given a prefix, with sets given as bitsets over variable indices (bit i of word
+     * i / 64). The prefix and all are not modified.
+     *
+     * @param prefix  The prefix.
+     * @param all     The candidate parents.
+     * @param parents Initially the parents to start from (usually empty); on return, the traced parents.
+     * @return The local score of the node given the traced parents.
+     */
+    public double trace(long[] prefix, long[] all, long[] parents) {
+        long[] forbidden = this.forbiddenMask;
+        long[] available = new long[this.numWords];
+        for (int w = 0; w < this.numWords; w++) available[w] = all[w] & ~forbidden[w];
+        clear(available, this.target);
+
+        long now = this.clock.incrementAndGet();
+        Branch branch = this.root;
+
+        descend:
+        while (true) {
+            branch.lastAccess = now;
+            Branch[] children = branch.children;
+            if (children == null) children = grow(branch, available, parents);
+
+            for (Branch child : children) {
+                clear(available, child.add);
+                if (get(prefix, child.add)) {
+                    set(parents, child.add);
+                    branch = child;
+                    continue descend;
+                }
+            }
+
+            break;
+        }
+
+        Shrink shrink = branch.shrink;
+        if (shrink == null) shrink = shrink(branch, parents);
+
+        for (int w = 0; w < this.numWords; w++) parents[w] &= ~shrink.remove[w];
+        return shrink.score;
+    }
+
+    /**
+     * Returns the first layer of the tree, i.e., the candidate first parents in the order tried.
+     *
+     * @return This list.
+     */
+    @Override
+    public List<Node> getFirstLayer() {
+        List<Node> firstLayer = new ArrayList<>();
+        Branch[] children = this.root.children;
+        if (children != null) for (Branch branch : children) firstLayer.add(this.variables[branch.add]);
+        return firstLayer;
+    }
+
+    /**
+     * Returns whether the given node is a required parent.
+     *
+     * @param node The node.
+     * @return True if so.
+     */
+    @Override
+    public boolean isRequired(Node node) {
+        Integer i = getIndex(node);
+        return i != null && get(this.requiredMask, i);
+    }
+
+    /**
+     * Returns whether the given node is a forbidden parent.
+     *
+     * @param node The node.
+     * @return True if so.
+     */
+    @Override
+    public boolean isForbidden(Node node) {
+        Integer i = getIndex(node);
+        return i != null && get(this.forbiddenMask, i);
+    }
+
+    /**
+     * Clears the tree. Traces in progress in other threads complete against the old tree.
+     */
+    @Override
+    public void reset() {
+        this.requiredMask = toBits(getRequired());
+        this.forbiddenMask = toBits(getForbidden());
+        this.numBranches.set(1);
+        this.root = new Branch(-1, localScore());
+    }
+
+    /**
+     * Returns the number of cached branches.
+     *
+     * @return This number.
+     */
+    public long getNumBranches() {
+        return this.numBranches.get();
+    }
+
+    private Branch[] grow(Branch branch, long[] available, long[] parents) {
+        int numParents = cardinality(parents);
+        int[] Z = new int[numParents];
+        int k = 0;
+        for (int i = nextSetBit(parents, 0); i >= 0; i = nextSetBit(parents, i + 1)) Z[k++] = i;
+
+        List<Branch> required = new ArrayList<>();
+        List<Branch> grown = new ArrayList<>();
+
+        for (int i = nextSetBit(available, 0); i >= 0; i = nextSetBit(available, i + 1)) {
+            // A fresh array per call, since scores may reorder the parents they are given (SemBicScore sorts them).
+            int[] X = Arrays.copyOf(Z, numParents + 1);
+            X[numParents] = i;
+            Branch child = new Branch(i, localScore(X));
+            if (get(this.requiredMask, i)) required.add(child);
+            else if (child.growScore >= branch.growScore) grown.add(child);
+        }
+
+        // Descending by grow score; ties by index, since the list is in index order and the sort is stable.
+        grown.sort((a, b) -> Double.compare(b.growScore, a.growScore));
+        required.addAll(grown);
+        Branch[] children = required.toArray(new Branch[0]);
+
+        if (CHILDREN.compareAndSet(branch, null, children)) {
+            long count = this.numBranches.addAndGet(children.length);
+            if (this.maxBranches != -1 && count > this.maxBranches) prune();
+            return children;
+        }
+
+        Branch[] winner = branch.children;
+        return winner != null ? winner : children;
+    }
+
+    private Shrink shrink(Branch branch, long[] parents) {
+        long[] current = parents.clone();
+        long[] remove = new long[this.numWords];
+        double shrinkScore = branch.growScore;
+
+        int numParents = cardinality(current);
+        int best;
+
+        do {
+            if (numParents == 0) break;
+
+            best = -1;
+
+            for (int r = nextSetBit(current, 0); r >= 0; r = nextSetBit(current, r + 1)) {
+                if (get(this.requiredMask, r)) continue;
+
+                int[] X = new int[numParents - 1];
+                int i = 0;
+                for (int p = nextSetBit(current, 0); p >= 0; p = nextSetBit(current, p + 1)) {
+                    if (p != r) X[i++] = p;
+                }
+
+                double s = localScore(X);
+                if (s > shrinkScore) {
+                    shrinkScore = s;
+                    best = r;
+                }
+            }
+
+            if (best != -1) {
+                clear(current, best);
+                set(remove, best);
+                numParents--;
+            }
+        } while (best != -1);
+
+        Shrink shrink = new Shrink(shrinkScore, remove);
+        if (SHRINK.compareAndSet(branch, null, shrink)) return shrink;
+
+        Shrink winner = branch.shrink;
+        return winner != null ? winner : shrink;
+    }
+
+    // Drops the children of the least recently used half of the grown branches below the root.
+    private void prune() {
+        if (!this.pruning.compareAndSet(false, true)) return;
+
+        try {
+            List<Branch> grown = new ArrayList<>();
+            Deque<Branch> stack = new ArrayDeque<>();
+            stack.push(this.root);
+
+            while (!stack.isEmpty()) {
+                Branch branch = stack.pop();
+                Branch[] children = branch.children;
+                if (children == null) continue;
+                if (branch != this.root) grown.add(branch);
+                for (Branch child : children) stack.push(child);
+            }
+
+            if (grown.isEmpty()) return;
+
+            long[] times = new long[grown.size()];
+            for (int i = 0; i < times.length; i++) times[i] = grown.get(i).lastAccess;
+            Arrays.sort(times);
+            long cutoff = times[times.length / 2];
+
+            for (Branch branch : grown) {
+                if (branch.lastAccess <= cutoff) branch.children = null;
+            }
+
+            // Recount what is still reachable.
+            long count = 0;
+            stack.push(this.root);
+
+            while (!stack.isEmpty()) {
+                Branch branch = stack.pop();
+                count++;
+                Branch[] children = branch.children;
+                if (children != null) for (Branch child : children) stack.push(child);
+            }
+
+            this.numBranches.set(count);
+        } finally {
+            this.pruning.set(false);
+        }
+    }
+
+    private long[] toBits(Collection<Node> nodes) {
+        long[] bits = new long[this.numWords];
+
+        for (Node node : nodes) {
+            Integer i = getIndex(node);
+            if (i != null) set(bits, i);
+        }
+
+        return bits;
+    }
+
+    private static boolean get(long[] bits, int i) {
+        return (bits[i >>> 6] & (1L << i)) != 0;
+    }
+
+    private static void set(long[] bits, int i) {
+        bits[i >>> 6] |= 1L << i;
+    }
+
+    private static void clear(long[] bits, int i) {
+        bits[i >>> 6] &= ~(1L << i);
+    }
+
+    private static int cardinality(long[] bits) {
+        int count = 0;
+        for (long word : bits) count += Long.bitCount(word);
+        return count;
+    }
+
+    private static int nextSetBit(long[] bits, int from) {
+        int w = from >>> 6;
+        if (w >= bits.length) return -1;
+
+        long word = bits[w] & (-1L << from);
+
+        while (true) {
+            if (word != 0) return (w << 6) + Long.numberOfTrailingZeros(word);
+            if (++w == bits.length) return -1;
+            word = bits[w];
+        }
+    }
+
+    /**
+     * A branch of the tree: the variable added along the edge into it and the local score with it added.
+     */
+    private static final class Branch {
+        private final int add;
+        private final double growScore;
+        private volatile Branch[] children;
+        private volatile Shrink shrink;
+        private volatile long lastAccess;
+
+        private Branch(int add, double growScore) {
+            this.add = add;
+            this.growScore = growScore;
+        }
+    }
+
+    /**
+     * The result of shrinking at a branch: the local score and the parents removed.
+     *
+     * @param score  The score.
+     * @param remove The parents removed.
+     */
+    private record Shrink(double score, long[] remove) {
+    }
+}
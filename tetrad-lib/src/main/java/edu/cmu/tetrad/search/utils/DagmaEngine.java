@@ -0,0 +1,448 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+//                                                                           //
+// Copyright (C) 2025 by Joseph Ramsey, Peter Spirtes, Clark Glymour,        //
+// and Richard Scheines.                                                     //
+//                                                                           //
+// This program is free software: you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation, either version 3 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.    //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.search.utils;
+
+import org.ejml.data.DMatrixRMaj;
+import org.ejml.dense.row.factory.LinearSolverFactory_DDRM;
+import org.ejml.interfaces.decomposition.LUDecomposition_F64;
+import org.ejml.interfaces.linsol.LinearSolverDense;
+
+import java.util.stream.IntStream;
+
+import static org.apache.commons.math3.util.FastMath.*;
+
+/**
+ * The optimization engine for DAGMA (see {@link edu.cmu.tetrad.search.Dagma}). Runs the central path of log-det
+ * acyclicity-constrained problems with the Adam optimizer, as in the reference implementation, but on preallocated EJML
+ * {@link DMatrixRMaj} workspaces that are reused across iterations, central path steps and fits:
+ * <ul>
+ *     <li>The gradient, mu (Cov W - Cov + lambda sign(W)) + 2 W o M^-T, and the Adam update are computed in one fused
+ *     pass over row blocks of W, run in parallel for larger problems.</li>
+ *     <li>Each iteration does one LU decomposition of M = sI - W o W, which gives the inverse; at checkpoints, the log
+ *     determinant is read off the diagonal of the same kind of decomposition.</li>
+ *     <li>Inner loops stop early once the relative change of the objective at a checkpoint is within tolerance.</li>
+ *     <li>The solution of one fit is kept and used to warm start the next, so a path of lambda values can be fit
+ *     cheaply by calling {@link #fit(double)} for each value in turn.</li>
+ * </ul>
+ * Instances are not thread-safe; the parallelism is internal.
+ *
+ * @author bryanandrews
+ * @author josephramsey
+ */
+public final class DagmaEngine {
+
+    /**
+     * Below this dimension, the gradient is computed on one thread.
+     */
+    private static final int MIN_PARALLEL_DIMENSION = 64;
+
+    /**
+     * The covariance (or correlation) matrix.
+     */
+    private final DMatrixRMaj cov;
+    /**
+     * The dimension.
+     */
+    private final int d;
+    /**
+     * The current solution; kept between fits as a warm start.
+     */
+    private final DMatrixRMaj W;
+    /**
+     * The solution at the start of the current central path step.
+     */
+    private final DMatrixRMaj wOld;
+    /**
+     * M = sI - W o W, and its inverse.
+     */
+    private final DMatrixRMaj M;
+    private final DMatrixRMaj mInv;
+    /**
+     * The Adam step; the last one is kept to back off from infeasible points.
+     */
+    private final DMatrixRMaj step;
+    /**
+     * Adam moment estimates.
+     */
+    private final DMatrixRMaj optM;
+    private final DMatrixRMaj optV;
+    /**
+     * Scratch for Cov W and the upper triangular factor.
+     */
+    private final DMatrixRMaj covW;
+    private final DMatrixRMaj upper;
+    /**
+     * LU solver, reused across iterations.
+     */
+    private final LinearSolverDense<DMatrixRMaj> solver;
+    /**
+     * The trace of the covariance matrix.
+     */
+    private final double traceCov;
+    /**
+     * The row blocks for the parallel gradient.
+     */
+    private final int[] blockStarts;
+    // Parameters, defaulting to those of the reference implementation.
+    private double[] T = {1.0, .9, .8, .7};
+    private double muInit = 1.0;
+    private double muFactor = 0.1;
+    private int warmIter = 20000;
+    private int maxIter = 70000;
+    private double lr = 3e-4;
+    private int checkpoint = 1000;
+    private double b1 = 0.99;
+    private double b2 = 0.999;
+    private double tol = 1e-6;
+    private boolean parallel = true;
+
+    /**
+     * Constructs an engine for the given covariance (or correlation) matrix, starting from W = 0.
+     *
+     * @param cov The covariance matrix; it is not modified.
+     */
+    public DagmaEngine(DMatrixRMaj cov) {
+        if (cov.getNumRows() != cov.getNumCols()) throw new IllegalArgumentException("Covariance matrix must be square.");
+
+        this.d = cov.getNumRows();
+        this.cov = cov.copy();
+        this.W = new DMatrixRMaj(d, d);
+        this.wOld = new DMatrixRMaj(d, d);
+        this.M = new DMatrixRMaj(d, d);
+        this.mInv = new DMatrixRMaj(d, d);
+        this.step = new DMatrixRMaj(d, d);
+        this.optM = new DMatrixRMaj(d, d);
+        this.optV = new DMatrixRMaj(d, d);
+        this.covW = new DMatrixRMaj(d, d);
+        this.upper = new DMatrixRMaj(d, d);
+        this.solver = LinearSolverFactory_DDRM.lu(d);
+
+        double trace = 0.0;
+        for (int i = 0; i < d; i++) trace += cov.get(i, i);
+        this.traceCov = trace;
+
+        int numBlocks = max(1, min(d, 4 * Runtime.getRuntime().availableProcessors()));
+        this.blockStarts = new int[numBlocks + 1];
+        for (int b = 0; b <= numBlocks; b++) this.blockStarts[b] = (int) ((long) b * d / numBlocks);
+    }
+
+    /**
+     * Fits W for the given lambda, running the full central path starting from the current solution (W = 0 initially
+     * or after {@link #reset()}, otherwise the solution of the previous fit).
+     *
+     * @param lambda1 The L1 penalty.
+     * @return A copy of the fitted W.
+     */
+    public DMatrixRMaj fit(double lambda1) {
+        double mu = this.muInit;
+        int outerIters = this.T.length;
+        int innerIters = this.warmIter;
+
+        for (double s : this.T) {
+            double lrAdam = this.lr;
+            if (outerIters-- == 1) innerIters = this.maxIter;
+
+            while (minimize(mu, innerIters, s, lrAdam, lambda1)) {
+                lrAdam *= 0.5;
+                s += 0.1;
+            }
+
+            mu *= this.muFactor;
+        }
+
+        return this.W.copy();
+    }
+
+    /**
+     * Resets the solution to W = 0, so that the next fit is not warm started.
+     */
+    public void reset() {
+        this.W.zero();
+    }
+
+    /**
+     * Sets the solution used to warm start the next fit.
+     *
+     * @param W The starting W; must be d x d and should be feasible, i.e., I - W o W should be an M-matrix.
+     */
+    public void setWarmStart(DMatrixRMaj W) {
+        if (W.getNumRows() != d || W.getNumCols() != d) throw new IllegalArgumentException("W must be " + d + " x " + d);
+        this.W.setTo(W);
+    }
+
+    /**
+     * Returns the penalized objective, mu (score + lambda |W|_1) + h_s(W), at the current solution.
+     *
+     * @param mu      The central path coefficient.
+     * @param s       The log-det parameter.
+     * @param lambda1 The L1 penalty.
+     * @return The objective.
+     */
+    public double objective(double mu, double s, double lambda1) {
+        return mu * (score() + lambda1 * absSum()) + h(s);
+    }
+
+    // Returns true if the step should be retried with a larger s and a smaller learning rate.
+    private boolean minimize(double mu, int innerIter, double s, double lrAdam, double lambda1) {
+        this.optM.zero();
+        this.optV.zero();
+        this.wOld.setTo(this.W);
+
+        double objPrev = 1e16;
+        boolean haveStep = false;
+
+        for (int iter = 1; iter <= innerIter; iter++) {
+            invertM(s);
+
+            while (notMMatrix(this.mInv)) {
+                if ((iter == 1) || (s <= 0.9)) {
+                    this.W.setTo(this.wOld);
+                    return true;
+                } else if (lrAdam <= 2e-16) {
+                    if (haveStep) addScaled(this.W, this.step, lrAdam);
+                    return false;
+                } else {
+                    lrAdam *= 0.5;
+                    if (haveStep) addScaled(this.W, this.step, lrAdam);
+                    invertM(s);
+                }
+            }
+
+            gradientAndAdamStep(mu, lambda1, iter, lrAdam);
+            haveStep = true;
+
+            // Check obj convergence
+            if (iter % this.checkpoint == 0) {
+                double objNew = objective(mu, s, lambda1);
+                if (abs((objPrev - objNew) / objPrev) <= this.tol) break;
+                objPrev = objNew;
+            }
+        }
+
+        return false;
+    }
+
+    // M = sI - W o W; mInv = M^-1 + 1e-16.
+    private void invertM(double s) {
+        fillM(s);
+
+        if (!this.solver.setA(this.M)) {
+            this.mInv.fill(-1);
+            return;
+        }
+
+        this.solver.invert(this.mInv);
+        double[] m = this.mInv.data;
+        for (int k = 0; k < m.length; k++) m[k] += 1e-16;
+    }
+
+    private void fillM(double s) {
+        double[] w = this.W.data;
+        double[] m = this.M.data;
+
+        for (int k = 0; k < m.length; k++) m[k] = -w[k] * w[k];
+        for (int i = 0; i < d; i++) m[i * d + i] += s;
+    }
+
+    // Computes the gradient for each row block and applies the Adam update to W in the same pass.
+    private void gradientAndAdamStep(double mu, double lambda1, int iter, double lrAdam) {
+        double c1 = 1 - pow(this.b1, iter);
+        double c2 = 1 - pow(this.b2, iter);
+
+        IntStream blocks = IntStream.range(0, this.blockStarts.length - 1);
+        if (this.parallel && d >= MIN_PARALLEL_DIMENSION) blocks = blocks.parallel();
+
+        // Each block reads all of W, so the products are computed before any block updates W.
+        blocks.forEach(b -> multiplyRows(this.blockStarts[b], this.blockStarts[b + 1]));
+
+        blocks = IntStream.range(0, this.blockStarts.length - 1);
+        if (this.parallel && d >= MIN_PARALLEL_DIMENSION) blocks = blocks.parallel();
+
+        blocks.forEach(b -> {
+            double[] c = this.cov.data;
+            double[] cw = this.covW.data;
+            double[] w = this.W.data;
+            double[] mi = this.mInv.data;
+            double[] om = this.optM.data;
+            double[] ov = this.optV.data;
+            double[] st = this.step.data;
+            double b1_ = 1 - this.b1;
+            double b2_ = 1 - this.b2;
+
+            for (int i = this.blockStarts[b]; i < this.blockStarts[b + 1]; i++) {
+                for (int j = 0; j < d; j++) {
+                    int k = i * d + j;
+                    double wij = w[k];
+                    double sign = wij > 0 ? 1 : (wij < 0 ? -1 : 0);
+                    double g = mu * (cw[k] - c[k] + lambda1 * sign) + 2 * wij * mi[j * d + i];
+
+                    double a = this.b1 * om[k] + b1_ * g;
+                    double v = this.b2 * ov[k] + b2_ * g * g;
+                    om[k] = a;
+                    ov[k] = v;
+
+                    st[k] = (a / c1) / (sqrt(v / c2) + 1e-8);
+                    w[k] = wij - lrAdam * st[k];
+                }
+            }
+        });
+    }
+
+    // covW[rows] = cov[rows] W
+    private void multiplyRows(int from, int to) {
+        double[] c = this.cov.data;
+        double[] w = this.W.data;
+        double[] cw = this.covW.data;
+
+        for (int i = from; i < to; i++) {
+            int row = i * d;
+            for (int j = 0; j < d; j++) cw[row + j] = 0.0;
+
+            for (int k = 0; k < d; k++) {
+                double cik = c[row + k];
+                if (cik == 0.0) continue;
+                int wRow = k * d;
+                for (int j = 0; j < d; j++) cw[row + j] += cik * w[wRow + j];
+            }
+        }
+    }
+
+    // 0.5 tr((I - W)^T Cov (I - W)) = 0.5 (tr(Cov) - 2 tr(Cov W) + sum_ij W_ij (Cov W)_ij)
+    private double score() {
+        IntStream blocks = IntStream.range(0, this.blockStarts.length - 1);
+        if (this.parallel && d >= MIN_PARALLEL_DIMENSION) blocks = blocks.parallel();
+        blocks.forEach(b -> multiplyRows(this.blockStarts[b], this.blockStarts[b + 1]));
+
+        double[] w = this.W.data;
+        double[] cw = this.covW.data;
+        double traceCovW = 0.0;
+        double quad = 0.0;
+
+        for (int i = 0; i < d; i++) traceCovW += cw[i * d + i];
+        for (int k = 0; k < w.length; k++) quad += w[k] * cw[k];
+
+        return 0.5 * (this.traceCov - 2 * traceCovW + quad);
+    }
+
+    // d log s - log det(sI - W o W), with the log determinant read off the LU factors.
+    @SuppressWarnings("unchecked")
+    private double h(double s) {
+        fillM(s);
+
+        if (!this.solver.setA(this.M)) return Double.POSITIVE_INFINITY;
+
+        LUDecomposition_F64<DMatrixRMaj> lu = (LUDecomposition_F64<DMatrixRMaj>) this.solver.getDecomposition();
+        lu.getUpper(this.upper);
+
+        double logDet = 0.0;
+        for (int i = 0; i < d; i++) logDet += log(abs(this.upper.get(i, i)));
+
+        return d * log(s) - logDet;
+    }
+
+    private double absSum() {
+        double sum = 0.0;
+        for (double w : this.W.data) sum += abs(w);
+        return sum;
+    }
+
+    private static boolean notMMatrix(DMatrixRMaj M) {
+        for (double m : M.data) {
+            if (m < 0 || Double.isNaN(m)) return true;
+        }
+
+        return false;
+    }
+
+    private static void addScaled(DMatrixRMaj A, DMatrixRMaj B, double c) {
+        double[] a = A.data;
+        double[] b = B.data;
+        for (int k = 0; k < a.length; k++) a[k] += c * b[k];
+    }
+
+    /**
+     * Sets the values of s for the central path.
+     *
+     * @param T The values of s, in order.
+     */
+    public void setT(double[] T) {
+        if (T == null || T.length == 0) throw new IllegalArgumentException("T must be nonempty.");
+        this.T = T.clone();
+    }
+
+    /**
+     * Sets the initial central path coefficient and its decay factor.
+     *
+     * @param muInit   The initial coefficient.
+     * @param muFactor The decay factor.
+     */
+    public void setMu(double muInit, double muFactor) {
+        this.muInit = muInit;
+        this.muFactor = muFactor;
+    }
+
+    /**
+     * Sets the maximum numbers of Adam iterations for the warm-up steps and for the last step of the central path.
+     *
+     * @param warmIter The maximum for the warm-up steps.
+     * @param maxIter  The maximum for the last step.
+     */
+    public void setIterations(int warmIter, int maxIter) {
+        if (warmIter < 1 || maxIter < 1) throw new IllegalArgumentException("Iterations must be positive.");
+        this.warmIter = warmIter;
+        this.maxIter = maxIter;
+    }
+
+    /**
+     * Sets the Adam parameters.
+     *
+     * @param lr The learning rate.
+     * @param b1 The first moment decay.
+     * @param b2 The second moment decay.
+     */
+    public void setAdam(double lr, double b1, double b2) {
+        this.lr = lr;
+        this.b1 = b1;
+        this.b2 = b2;
+    }
+
+    /**
+     * Sets the early stopping rule: inner iterations stop once the relative change in the objective between
+     * checkpoints is at most the tolerance.
+     *
+     * @param checkpoint The number of iterations between checkpoints.
+     * @param tol        The tolerance.
+     */
+    public void setEarlyStopping(int checkpoint, double tol) {
+        if (checkpoint < 1) throw new IllegalArgumentException("Checkpoint must be positive.");
+        this.checkpoint = checkpoint;
+        this.tol = tol;
+    }
+
+    /**
+     * Sets whether the gradient may be computed in parallel.
+     *
+     * @param parallel True if so.
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+}
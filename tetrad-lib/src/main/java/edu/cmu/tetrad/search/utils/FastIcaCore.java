@@ -0,0 +1,576 @@
+/// ////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+//                                                                           //
+// Copyright (C) 2025 by Joseph Ramsey, Peter Spirtes, Clark Glymour,        //
+// and Richard Scheines.                                                     //
+//                                                                           //
+// This program is free software: you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation, either version 3 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.    //
+/// ////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.search.utils;
+
+import edu.cmu.tetrad.search.FastIca;
+import edu.cmu.tetrad.util.Matrix;
+import edu.cmu.tetrad.util.RandomUtil;
+import edu.cmu.tetrad.util.TetradLogger;
+import org.ejml.data.DMatrixRMaj;
+import org.ejml.dense.row.CommonOps_DDRM;
+import org.ejml.dense.row.factory.DecompositionFactory_DDRM;
+import org.ejml.interfaces.decomposition.SingularValueDecomposition_F64;
+import org.ejml.simple.SimpleMatrix;
+import org.ejml.simple.SimpleSVD;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+import static org.apache.commons.math3.util.FastMath.*;
+
+/**
+ * A multithreaded FastICA with the same preprocessing and fixed-point updates as {@link FastIca}, for larger problems.
+ * The whitened data are held in one primitive buffer, one sample after another, optionally in single precision to
+ * halve memory traffic; each iteration makes one pass over it in parallel column blocks, evaluating W x, the
+ * nonlinearity and its derivative, and accumulating E[g(W x) x^T] into per-block buffers that are allocated once. The
+ * small numComponents x numComponents steps (symmetric decorrelation, Gram-Schmidt) reuse preallocated workspaces.
+ * <p>
+ * The derivative of the nonlinearity is the exact one for both LOGCOSH and EXP, in both the parallel and deflation
+ * updates.
+ * <p>
+ * Reference: Hyvarinen &amp; Oja (2000) Independent Component Analysis: Algorithms and Applications. Neural Networks
+ * 13(4–5):411–430.
+ *
+ * @author josephramsey
+ * @see FastIca
+ */
+public final class FastIcaCore implements IcaEstimator {
+
+    /**
+     * Data (rows = variables, columns = cases), copied.
+     */
+    private final double[][] X;
+    /**
+     * Number of components.
+     */
+    private int numComponents;
+    /**
+     * Algorithm type (PARALLEL or DEFLATION).
+     */
+    private int algorithmType = FastIca.PARALLEL;
+    /**
+     * Nonlinearity (LOGCOSH or EXP).
+     */
+    private int function = FastIca.LOGCOSH;
+    /**
+     * Alpha in [1,2] for logcosh.
+     */
+    private double alpha = 1.1;
+    /**
+     * Whether to row-normalize X prior to whitening.
+     */
+    private boolean rowNorm;
+    /**
+     * Max iterations.
+     */
+    private int maxIterations = 200;
+    /**
+     * Convergence tolerance.
+     */
+    private double tolerance = 1e-04;
+    /**
+     * Verbose logging.
+     */
+    private boolean verbose;
+    /**
+     * Initial unmixing (numComponents x numComponents). If null, random and orthonormalized.
+     */
+    private Matrix wInit;
+    /**
+     * Whether the whitened data are stored in single precision.
+     */
+    private boolean singlePrecision;
+    /**
+     * Number of threads.
+     */
+    private int numThreads = Runtime.getRuntime().availableProcessors();
+
+    // Per-run state.
+    private int c;
+    private int n;
+    private double[] x1;
+    private float[] x1f;
+    private int[] blockStarts;
+    private double[][] partial;
+    private double[][] xj;
+    private double[][] gj;
+    private ForkJoinPool pool;
+
+    /**
+     * Constructs a FastIcaCore for the given data and number of components.
+     *
+     * @param X             The data, rows = variables, columns = cases. It is not modified.
+     * @param numComponents The number of independent components to extract.
+     */
+    public FastIcaCore(Matrix X, int numComponents) {
+        this.X = X.toArray();
+        this.numComponents = numComponents;
+    }
+
+    @Override
+    public void setAlgorithmType(int algorithmType) {
+        if (!(algorithmType == FastIca.DEFLATION || algorithmType == FastIca.PARALLEL)) {
+            throw new IllegalArgumentException("Value should be DEFLATION or PARALLEL.");
+        }
+        this.algorithmType = algorithmType;
+    }
+
+    @Override
+    public void setFunction(int function) {
+        if (!(function == FastIca.LOGCOSH || function == FastIca.EXP)) {
+            throw new IllegalArgumentException("Value should be LOGCOSH or EXP.");
+        }
+        this.function = function;
+    }
+
+    @Override
+    public void setAlpha(double alpha) {
+        if (!(alpha >= 1 && alpha <= 2)) {
+            throw new IllegalArgumentException("Alpha should be in range [1, 2].");
+        }
+        this.alpha = alpha;
+    }
+
+    @Override
+    public void setRowNorm(boolean rowNorm) {
+        this.rowNorm = rowNorm;
+    }
+
+    @Override
+    public void setMaxIterations(int maxIterations) {
+        if (maxIterations < 1) {
+            throw new IllegalArgumentException("maxIterations should be positive.");
+        }
+        this.maxIterations = maxIterations;
+    }
+
+    @Override
+    public void setTolerance(double tolerance) {
+        if (!(tolerance > 0)) {
+            throw new IllegalArgumentException("Tolerance should be positive.");
+        }
+        this.tolerance = tolerance;
+    }
+
+    @Override
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    @Override
+    public void setWInit(Matrix wInit) {
+        this.wInit = wInit;
+    }
+
+    /**
+     * Sets whether the whitened data are stored in single precision. Accumulation is always in double precision.
+     *
+     * @param singlePrecision true if so.
+     */
+    public void setSinglePrecision(boolean singlePrecision) {
+        this.singlePrecision = singlePrecision;
+    }
+
+    /**
+     * Sets the number of threads.
+     *
+     * @param numThreads the number of threads, at least 1.
+     */
+    public void setNumThreads(int numThreads) {
+        if (numThreads < 1) throw new IllegalArgumentException("Number of threads must be at least 1: " + numThreads);
+        this.numThreads = numThreads;
+    }
+
+    /**
+     * Run FastICA and return preprocessed X, whitening K, unmixing W, and sources S.
+     *
+     * @return IcaResult containing preprocessed X, whitening K, unmixing W, and sources S.
+     */
+    @Override
+    public FastIca.IcaResult findComponents() {
+        int p = this.X.length;
+        this.n = this.X[0].length;
+
+        if (this.numComponents > min(n, p)) {
+            TetradLogger.getInstance().log("Requested number of components is too large.");
+            TetradLogger.getInstance().log("Reset to " + min(n, p));
+            this.numComponents = min(n, p);
+        }
+
+        this.c = this.numComponents;
+
+        // Same random initialization as FastIca, so that seeds give the same start.
+        Matrix wInit = this.wInit;
+        if (wInit == null) {
+            wInit = new Matrix(c, c);
+            for (int i = 0; i < c; i++) {
+                for (int j = 0; j < c; j++) {
+                    wInit.set(i, j, RandomUtil.getInstance().nextGaussian(0, 1));
+                }
+            }
+            SimpleSVD<SimpleMatrix> sWi = wInit.getSimpleMatrix().svd();
+            wInit = new Matrix(sWi.getU());
+        } else if (wInit.getNumRows() != c || wInit.getNumColumns() != c) {
+            throw new IllegalArgumentException("wInit is the wrong size.");
+        }
+
+        this.pool = this.numThreads > 1 ? new ForkJoinPool(this.numThreads) : null;
+
+        try {
+            int numBlocks = max(1, min(n, 4 * this.numThreads));
+            this.blockStarts = new int[numBlocks + 1];
+            for (int b = 0; b <= numBlocks; b++) this.blockStarts[b] = (int) ((long) b * n / numBlocks);
+
+            this.partial = new double[numBlocks][c * c + c];
+            this.xj = new double[numBlocks][c];
+            this.gj = new double[numBlocks][c];
+
+            if (this.verbose) TetradLogger.getInstance().log("Centering");
+            double[][] x = new double[p][];
+            for (int a = 0; a < p; a++) x[a] = this.X[a].clone();
+            forEach(p, a -> center(x[a]));
+            if (this.rowNorm) forEach(p, a -> normalize(x[a]));
+
+            if (this.verbose) TetradLogger.getInstance().log("Whitening");
+            double[][] K = whitening(x, p);
+            whiten(x, K, p);
+
+            DMatrixRMaj W = new DMatrixRMaj(wInit.toArray());
+            DMatrixRMaj b;
+
+            if (this.algorithmType == FastIca.DEFLATION) {
+                b = icaDeflation(W);
+            } else if (this.algorithmType == FastIca.PARALLEL) {
+                b = icaParallel(W);
+            } else {
+                throw new IllegalStateException();
+            }
+
+            double[][] w = new double[c][p];
+            for (int i = 0; i < c; i++) {
+                for (int k = 0; k < c; k++) {
+                    double bik = b.get(i, k);
+                    for (int a = 0; a < p; a++) w[i][a] += bik * K[k][a];
+                }
+            }
+
+            double[][] S = new double[c][n];
+            forEach(c, i -> {
+                for (int a = 0; a < p; a++) {
+                    double wia = w[i][a];
+                    double[] xa = x[a];
+                    for (int j = 0; j < n; j++) S[i][j] += wia * xa[j];
+                }
+            });
+
+            return new FastIca.IcaResult(new Matrix(x), new Matrix(K), new Matrix(w), new Matrix(S));
+        } finally {
+            if (this.pool != null) this.pool.shutdown();
+            this.x1 = null;
+            this.x1f = null;
+            this.partial = null;
+        }
+    }
+
+    // Returns K = D^-1/2 U^T, first c rows, for cov = X X^T / n + eps I = U D U^T.
+    private double[][] whitening(double[][] x, int p) {
+        double eps = 1e-6;
+        double[][] cov = new double[p][p];
+
+        forEach(p, a -> {
+            for (int b = a; b < p; b++) {
+                double sum = 0.0;
+                double[] xa = x[a];
+                double[] xb = x[b];
+                for (int j = 0; j < n; j++) sum += xa[j] * xb[j];
+                cov[a][b] = sum / n;
+            }
+        });
+
+        for (int a = 0; a < p; a++) {
+            for (int b = 0; b < a; b++) cov[a][b] = cov[b][a];
+            cov[a][a] += eps;
+        }
+
+        SimpleSVD<SimpleMatrix> s = new SimpleMatrix(cov).svd();
+        SimpleMatrix D = s.getW();
+        SimpleMatrix U = s.getU();
+
+        double[][] K = new double[c][p];
+        for (int k = 0; k < c; k++) {
+            double d = 1.0 / sqrt(max(D.get(k, k), eps));
+            for (int a = 0; a < p; a++) K[k][a] = d * U.get(a, k);
+        }
+
+        return K;
+    }
+
+    // x1[j * c + k] = (K X)[k][j]
+    private void whiten(double[][] x, double[][] K, int p) {
+        if (this.singlePrecision) this.x1f = new float[n * c];
+        else this.x1 = new double[n * c];
+
+        forEachBlock(block -> {
+            double[] col = this.xj[block];
+            for (int j = this.blockStarts[block]; j < this.blockStarts[block + 1]; j++) {
+                for (int k = 0; k < c; k++) {
+                    double sum = 0.0;
+                    double[] Kk = K[k];
+                    for (int a = 0; a < p; a++) sum += Kk[a] * x[a][j];
+                    col[k] = sum;
+                }
+
+                int off = j * c;
+                if (this.singlePrecision) {
+                    for (int k = 0; k < c; k++) this.x1f[off + k] = (float) col[k];
+                } else {
+                    System.arraycopy(col, 0, this.x1, off, c);
+                }
+            }
+        });
+    }
+
+    private void loadSample(int j, double[] col) {
+        int off = j * c;
+        if (this.singlePrecision) {
+            for (int k = 0; k < c; k++) col[k] = this.x1f[off + k];
+        } else {
+            System.arraycopy(this.x1, off, col, 0, c);
+        }
+    }
+
+    private DMatrixRMaj icaParallel(DMatrixRMaj W) {
+        SingularValueDecomposition_F64<DMatrixRMaj> svd = DecompositionFactory_DDRM.svd(c, c, true, true, false);
+        DMatrixRMaj work = new DMatrixRMaj(c, c);
+        DMatrixRMaj U = new DMatrixRMaj(c, c);
+        DMatrixRMaj V = new DMatrixRMaj(c, c);
+        DMatrixRMaj W1 = new DMatrixRMaj(c, c);
+
+        // Symmetric decorrelation of the initial W.
+        decorrelate(W, svd, work, U, V);
+
+        boolean logcosh = this.function == FastIca.LOGCOSH;
+        double _tolerance = Double.POSITIVE_INFINITY;
+        int it = 0;
+
+        if (this.verbose) TetradLogger.getInstance().log("Symmetric FastICA");
+
+        while (_tolerance > this.tolerance && it < this.maxIterations) {
+            double[] w = W.data;
+
+            forEachBlock(block -> {
+                double[] acc = this.partial[block];
+                double[] col = this.xj[block];
+                double[] g = this.gj[block];
+                Arrays.fill(acc, 0.0);
+
+                for (int j = this.blockStarts[block]; j < this.blockStarts[block + 1]; j++) {
+                    loadSample(j, col);
+
+                    for (int i = 0; i < c; i++) {
+                        double u = 0.0;
+                        int row = i * c;
+                        for (int k = 0; k < c; k++) u += w[row + k] * col[k];
+
+                        if (logcosh) {
+                            g[i] = tanh(this.alpha * u);
+                            acc[c * c + i] += this.alpha * (1.0 - g[i] * g[i]);
+                        } else {
+                            double e = exp(-(u * u) / 2.);
+                            g[i] = u * e;
+                            acc[c * c + i] += (1.0 - u * u) * e;
+                        }
+                    }
+
+                    for (int i = 0; i < c; i++) {
+                        double gi = g[i];
+                        int row = i * c;
+                        for (int k = 0; k < c; k++) acc[row + k] += gi * col[k];
+                    }
+                }
+            });
+
+            // W1 = E[g(Wx) x^T] - diag(E[g'(Wx)]) W
+            double[] w1 = W1.data;
+            Arrays.fill(w1, 0.0);
+            double[] meanGp = new double[c];
+            for (double[] acc : this.partial) {
+                for (int k = 0; k < c * c; k++) w1[k] += acc[k];
+                for (int i = 0; i < c; i++) meanGp[i] += acc[c * c + i];
+            }
+            for (int i = 0; i < c; i++) {
+                int row = i * c;
+                for (int k = 0; k < c; k++) w1[row + k] = w1[row + k] / n - (meanGp[i] / n) * w[row + k];
+            }
+
+            decorrelate(W1, svd, work, U, V);
+
+            // Convergence via absolute cosines of principal angles between rows of W and W1
+            _tolerance = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < c; i++) {
+                double d = 0.0;
+                int row = i * c;
+                for (int k = 0; k < c; k++) d += w1[row + k] * w[row + k];
+                double m = abs(abs(d) - 1);
+                if (m > _tolerance) _tolerance = m;
+            }
+
+            W.setTo(W1);
+            if (this.verbose) TetradLogger.getInstance().log("Iteration " + (it + 1) + " tol = " + _tolerance);
+            it++;
+        }
+
+        return W;
+    }
+
+    // A <- (A A^T)^-1/2 A, which is U V^T for A = U S V^T.
+    private void decorrelate(DMatrixRMaj A, SingularValueDecomposition_F64<DMatrixRMaj> svd, DMatrixRMaj work,
+                             DMatrixRMaj U, DMatrixRMaj V) {
+        work.setTo(A);
+        if (!svd.decompose(work)) throw new IllegalStateException("SVD failed in symmetric decorrelation.");
+        svd.getU(U, false);
+        svd.getV(V, false);
+        CommonOps_DDRM.multTransB(U, V, A);
+    }
+
+    private DMatrixRMaj icaDeflation(DMatrixRMaj wInit) {
+        if (this.verbose && this.function == FastIca.LOGCOSH) {
+            TetradLogger.getInstance().log("Deflation FastICA using logcosh");
+        }
+        if (this.verbose && this.function == FastIca.EXP) {
+            TetradLogger.getInstance().log("Deflation FastICA using exp");
+        }
+
+        boolean logcosh = this.function == FastIca.LOGCOSH;
+        DMatrixRMaj W = new DMatrixRMaj(c, c);
+        double[] w = new double[c];
+        double[] w1 = new double[c];
+
+        for (int i = 0; i < c; i++) {
+            if (this.verbose) TetradLogger.getInstance().log("Component " + (i + 1));
+
+            for (int k = 0; k < c; k++) w[k] = wInit.get(i, k);
+            orthogonalize(w, W, i);
+            normalize(w);
+
+            int it = 0;
+            double _tolerance = Double.POSITIVE_INFINITY;
+
+            while (_tolerance > this.tolerance && ++it <= this.maxIterations) {
+                forEachBlock(block -> {
+                    double[] acc = this.partial[block];
+                    double[] col = this.xj[block];
+                    Arrays.fill(acc, 0, c + 1, 0.0);
+
+                    for (int j = this.blockStarts[block]; j < this.blockStarts[block + 1]; j++) {
+                        loadSample(j, col);
+
+                        double u = 0.0;
+                        for (int k = 0; k < c; k++) u += w[k] * col[k];
+                        double g;
+
+                        if (logcosh) {
+                            g = tanh(this.alpha * u);
+                            acc[c] += this.alpha * (1.0 - g * g);
+                        } else {
+                            double e = exp(-(u * u) / 2.);
+                            g = u * e;
+                            acc[c] += (1.0 - u * u) * e;
+                        }
+
+                        for (int k = 0; k < c; k++) acc[k] += g * col[k];
+                    }
+                });
+
+                // w1 = E[x g(w^T x)] - E[g'(w^T x)] w
+                Arrays.fill(w1, 0.0);
+                double meanGp = 0.0;
+                for (double[] acc : this.partial) {
+                    for (int k = 0; k < c; k++) w1[k] += acc[k];
+                    meanGp += acc[c];
+                }
+                for (int k = 0; k < c; k++) w1[k] = w1[k] / n - (meanGp / n) * w[k];
+
+                orthogonalize(w1, W, i);
+                normalize(w1);
+
+                double d = 0.0;
+                for (int k = 0; k < c; k++) d += w1[k] * w[k];
+                _tolerance = abs(abs(d) - 1.0);
+
+                if (this.verbose) TetradLogger.getInstance().log("Iteration " + it + " tol = " + _tolerance);
+                System.arraycopy(w1, 0, w, 0, c);
+            }
+
+            for (int k = 0; k < c; k++) W.set(i, k, w[k]);
+        }
+
+        return W;
+    }
+
+    // Removes from v its projections on the first i rows of W.
+    private void orthogonalize(double[] v, DMatrixRMaj W, int i) {
+        for (int u = 0; u < i; u++) {
+            double k = 0.0;
+            for (int j = 0; j < c; j++) k += v[j] * W.get(u, j);
+            for (int j = 0; j < c; j++) v[j] -= k * W.get(u, j);
+        }
+    }
+
+    private static void normalize(double[] v) {
+        double ssq = 0.0;
+        for (double _v : v) ssq += _v * _v;
+        double norm = sqrt(ssq);
+        for (int k = 0; k < v.length; k++) v[k] /= norm;
+    }
+
+    private static void center(double[] v) {
+        double sum = 0.0;
+        for (double _v : v) sum += _v;
+        double mean = sum / v.length;
+        for (int j = 0; j < v.length; j++) v[j] -= mean;
+    }
+
+    // ---------- parallelism ----------
+
+    private void forEachBlock(IntConsumer task) {
+        forEach(this.blockStarts.length - 1, task);
+    }
+
+    private void forEach(int count, IntConsumer task) {
+        if (this.pool == null || count == 1) {
+            for (int i = 0; i < count; i++) task.accept(i);
+            return;
+        }
+
+        try {
+            this.pool.submit(() -> IntStream.range(0, count).parallel().forEach(task)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+}
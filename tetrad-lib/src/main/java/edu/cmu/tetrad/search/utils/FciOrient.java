@@ -118,6 +118,16 @@ public class FciOrient {
      * Indicates whether to run R4 or not.
      */
     private boolean useR4 = true;
+    /**
+     * Indicates whether the final orientation rules should be driven by a worklist of the nodes touched by each
+     * endpoint change rather than by repeated sweeps over the whole graph.
+     */
+    private boolean useWorklist = false;
+    /**
+     * While the worklist is in use, the endpoint changes made since they were last collected, as consecutive node
+     * pairs; null otherwise.
+     */
+    private List<Node> touched = null;
 
     /**
      * Initializes a new instance of the FciOrient class with the specified R4Strategy.
@@ -475,6 +485,11 @@ public class FciOrient {
      * @param graph The graph containing the sprites.
      */
     private void spirtesFinalOrientation(Graph graph) {
+        if (this.useWorklist) {
+            worklistR1R4(graph);
+            return;
+        }
+
         this.changeFlag = true;
         boolean firstTime = true;
 
@@ -507,22 +522,26 @@ public class FciOrient {
      * @param excludeSelectionBias whether to exclude selection bias
      */
     private void zhangFinalOrientation(Graph graph, boolean excludeSelectionBias) {
-        this.changeFlag = true;
-        boolean firstTime = true;
+        if (this.useWorklist) {
+            worklistR1R4(graph);
+        } else {
+            this.changeFlag = true;
+            boolean firstTime = true;
 
-        while (this.changeFlag && !Thread.currentThread().isInterrupted()) {
-            this.changeFlag = false;
-            rulesR1R2cycle(graph);
-            ruleR3(graph);
+            while (this.changeFlag && !Thread.currentThread().isInterrupted()) {
+                this.changeFlag = false;
+                rulesR1R2cycle(graph);
+                ruleR3(graph);
 
-            // R4 requires an arrow orientation.
-            if (this.changeFlag || (firstTime && !this.knowledge.isEmpty())) {
-                ruleR4(graph);
-                firstTime = false;
-            }
+                // R4 requires an arrow orientation.
+                if (this.changeFlag || (firstTime && !this.knowledge.isEmpty())) {
+                    ruleR4(graph);
+                    firstTime = false;
+                }
 
-            if (this.verbose) {
-                logger.log("Epoch");
+                if (this.verbose) {
+                    logger.log("Epoch");
+                }
             }
         }
 
@@ -535,12 +554,16 @@ public class FciOrient {
 
                 // Now, by a further remark on page 102, we apply R6,R7 as many times
                 // as possible.
-                this.changeFlag = true;
+                if (this.useWorklist) {
+                    worklistR6R7(graph);
+                } else {
+                    this.changeFlag = true;
 
-                while (this.changeFlag && !Thread.currentThread().isInterrupted()) {
-                    this.changeFlag = false;
-                    ruleR6(graph);
-                    ruleR7(graph);
+                    while (this.changeFlag && !Thread.currentThread().isInterrupted()) {
+                        this.changeFlag = false;
+                        ruleR6(graph);
+                        ruleR7(graph);
+                    }
                 }
             }
 
@@ -567,25 +590,35 @@ public class FciOrient {
                 break;
             }
 
-            List<Node> adj = new ArrayList<>(graph.getAdjacentNodes(B));
+            rulesR1R2(B, graph);
+        }
+    }
 
-            if (adj.size() < 2) {
-                continue;
-            }
+    /**
+     * Applies rules R1 and R2 to every triple with the given middle node.
+     *
+     * @param B     The middle node.
+     * @param graph The graph to apply the rules on.
+     */
+    private void rulesR1R2(Node B, Graph graph) {
+        List<Node> adj = new ArrayList<>(graph.getAdjacentNodes(B));
 
-            ChoiceGenerator cg = new ChoiceGenerator(adj.size(), 2);
-            int[] combination;
+        if (adj.size() < 2) {
+            return;
+        }
 
-            while ((combination = cg.next()) != null && !Thread.currentThread().isInterrupted()) {
-                Node A = adj.get(combination[0]);
-                Node C = adj.get(combination[1]);
+        ChoiceGenerator cg = new ChoiceGenerator(adj.size(), 2);
+        int[] combination;
 
-                // choice generator doesn't do different orders, so we must switch A & C around
-                ruleR1(A, B, C, graph);
-                ruleR1(C, B, A, graph);
-                ruleR2(A, B, C, graph);
-                ruleR2(C, B, A, graph);
-            }
+        while ((combination = cg.next()) != null && !Thread.currentThread().isInterrupted()) {
+            Node A = adj.get(combination[0]);
+            Node C = adj.get(combination[1]);
+
+            // choice generator doesn't do different orders, so we must switch A & C around
+            ruleR1(A, B, C, graph);
+            ruleR1(C, B, A, graph);
+            ruleR2(A, B, C, graph);
+            ruleR2(C, B, A, graph);
         }
     }
 
@@ -655,7 +688,6 @@ public class FciOrient {
      */
     public void ruleR3(Graph graph) {
 
-        // a = Î±, b = Î², c = Î³, d = Î¸
         List<Node> nodes = graph.getNodes();
 
         for (Node b : nodes) {
@@ -663,52 +695,63 @@ public class FciOrient {
                 break;
             }
 
-            List<Node> adj = new ArrayList<>(graph.getAdjacentNodes(b));
+            ruleR3(b, graph);
+        }
+    }
 
-            ChoiceGenerator gen = new ChoiceGenerator(adj.size(), 3);
-            int[] choice;
+    /**
+     * Applies R3 with the given node as β, orienting at most one edge into it.
+     *
+     * @param b     β
+     * @param graph the graph in which the nodes exist
+     */
+    private void ruleR3(Node b, Graph graph) {
 
-            WH:
-            while ((choice = gen.next()) != null) {
-                List<Node> adjb = GraphUtils.asList(choice, adj);
+        // a = α, b = β, c = γ, d = θ
+        List<Node> adj = new ArrayList<>(graph.getAdjacentNodes(b));
 
-                PermutationGenerator pg = new PermutationGenerator(adjb.size());
-                int[] perm;
+        ChoiceGenerator gen = new ChoiceGenerator(adj.size(), 3);
+        int[] choice;
 
-                while ((perm = pg.next()) != null) {
-                    Node a = adjb.get(perm[0]);
-                    Node d = adjb.get(perm[1]);
-                    Node c = adjb.get(perm[2]);
+        while ((choice = gen.next()) != null) {
+            List<Node> adjb = GraphUtils.asList(choice, adj);
 
-                    if (!graph.isDefCollider(a, b, c)) {
-                        continue;
-                    }
+            PermutationGenerator pg = new PermutationGenerator(adjb.size());
+            int[] perm;
 
-                    if (!(graph.isAdjacentTo(a, b) && graph.isAdjacentTo(d, b) && graph.isAdjacentTo(c, b))) {
-                        continue;
-                    }
+            while ((perm = pg.next()) != null) {
+                Node a = adjb.get(perm[0]);
+                Node d = adjb.get(perm[1]);
+                Node c = adjb.get(perm[2]);
 
-                    if (!(graph.isAdjacentTo(a, d) && graph.isAdjacentTo(c, d))) {
-                        continue;
-                    }
+                if (!graph.isDefCollider(a, b, c)) {
+                    continue;
+                }
 
-                    if (!(graph.getEndpoint(d, b) == Endpoint.CIRCLE && graph.getEndpoint(a, d) == Endpoint.CIRCLE && graph.getEndpoint(c, d) == Endpoint.CIRCLE)) {
-                        continue;
-                    }
+                if (!(graph.isAdjacentTo(a, b) && graph.isAdjacentTo(d, b) && graph.isAdjacentTo(c, b))) {
+                    continue;
+                }
 
-                    if (!FciOrient.isArrowheadAllowed(d, b, graph, knowledge)) {
-                        continue;
-                    }
+                if (!(graph.isAdjacentTo(a, d) && graph.isAdjacentTo(c, d))) {
+                    continue;
+                }
 
-                    setEndpoint(graph, d, b, Endpoint.ARROW);
+                if (!(graph.getEndpoint(d, b) == Endpoint.CIRCLE && graph.getEndpoint(a, d) == Endpoint.CIRCLE && graph.getEndpoint(c, d) == Endpoint.CIRCLE)) {
+                    continue;
+                }
 
-                    if (this.verbose) {
-                        this.logger.log(LogUtilsSearch.edgeOrientedMsg("R3: Double triangle", graph.getEdge(d, b)));
-                    }
+                if (!FciOrient.isArrowheadAllowed(d, b, graph, knowledge)) {
+                    continue;
+                }
 
-                    this.changeFlag = true;
-                    break WH;
+                setEndpoint(graph, d, b, Endpoint.ARROW);
+
+                if (this.verbose) {
+                    this.logger.log(LogUtilsSearch.edgeOrientedMsg("R3: Double triangle", graph.getEdge(d, b)));
                 }
+
+                this.changeFlag = true;
+                return;
             }
         }
     }
@@ -797,6 +840,13 @@ public class FciOrient {
 
         for (Pair<DiscriminatingPath, Boolean> result : allResults) {
             if (result != null && result.getRight()) {
+
+                // The strategy sets these endpoints on the graph directly, so they're recorded here.
+                if (this.touched != null) {
+                    DiscriminatingPath path = result.getLeft();
+                    Collections.addAll(this.touched, path.getW(), path.getV(), path.getY(), path.getV());
+                }
+
 //                if (verbose) {
 //                    DiscriminatingPath left = result.getLeft();
 //                    TetradLogger.getInstance().log("R4: Discriminating path oriented: " + left);
@@ -1554,6 +1604,185 @@ public class FciOrient {
 
     private void setEndpoint(Graph graph, Node a, Node b, Endpoint endpoint) {
         endpointStrategy.setEndpoint(graph, a, b, endpoint);
+
+        if (this.touched != null) {
+            this.touched.add(a);
+            this.touched.add(b);
+        }
+    }
+
+    /**
+     * Applies R1-R4 to a fixpoint, the same one as the sweeps in the final orientation methods reach. R1-R3 are applied
+     * from a worklist: every node starts out on it, and after that a node is revisited only if an edge into it, or an
+     * edge between two of its neighbors, has had an endpoint changed, since only then can the premises of R1-R3 with
+     * that node in the middle have changed. R4, whose premises are paths, is run over the whole graph as before, after
+     * each round that changed something.
+     *
+     * @param graph The graph to orient.
+     */
+    private void worklistR1R4(Graph graph) {
+        List<Node> nodes = graph.getNodes();
+        Map<Node, Integer> index = indexOf(nodes);
+        BitSet dirtyR1R2 = new BitSet(nodes.size());
+        BitSet dirtyR3 = new BitSet(nodes.size());
+        dirtyR1R2.set(0, nodes.size());
+        dirtyR3.set(0, nodes.size());
+
+        this.touched = new ArrayList<>();
+        boolean firstTime = true;
+
+        try {
+            this.changeFlag = true;
+
+            while (this.changeFlag && !Thread.currentThread().isInterrupted()) {
+                this.changeFlag = false;
+
+                while (!(dirtyR1R2.isEmpty() && dirtyR3.isEmpty()) && !Thread.currentThread().isInterrupted()) {
+                    for (int i = dirtyR1R2.nextSetBit(0); i >= 0; i = dirtyR1R2.nextSetBit(i + 1)) {
+                        dirtyR1R2.clear(i);
+                        rulesR1R2(nodes.get(i), graph);
+                        markTouched(graph, index, dirtyR1R2, dirtyR3);
+                    }
+
+                    for (int i = dirtyR3.nextSetBit(0); i >= 0; i = dirtyR3.nextSetBit(i + 1)) {
+                        dirtyR3.clear(i);
+                        ruleR3(nodes.get(i), graph);
+                        markTouched(graph, index, dirtyR1R2, dirtyR3);
+                    }
+                }
+
+                // R4 requires an arrow orientation.
+                if (this.changeFlag || (firstTime && !this.knowledge.isEmpty())) {
+                    ruleR4(graph);
+                    markTouched(graph, index, dirtyR1R2, dirtyR3);
+                    firstTime = false;
+                }
+
+                if (this.verbose) {
+                    logger.log("Epoch");
+                }
+            }
+        } finally {
+            this.touched = null;
+        }
+    }
+
+    /**
+     * Applies R6 and R7 to a fixpoint from a worklist. The premises of both rules with β = b involve only the edges
+     * into b and adjacencies, which these rules don't change, so only nodes touched by an endpoint change are
+     * revisited.
+     *
+     * @param graph The graph to orient.
+     */
+    private void worklistR6R7(Graph graph) {
+        List<Node> nodes = graph.getNodes();
+        Map<Node, Integer> index = indexOf(nodes);
+        BitSet dirty = new BitSet(nodes.size());
+        dirty.set(0, nodes.size());
+
+        this.touched = new ArrayList<>();
+
+        try {
+            while (!dirty.isEmpty() && !Thread.currentThread().isInterrupted()) {
+                for (int i = dirty.nextSetBit(0); i >= 0; i = dirty.nextSetBit(i + 1)) {
+                    dirty.clear(i);
+                    ruleR6(nodes.get(i), graph);
+                    ruleR7(nodes.get(i), graph);
+                    markTouched(graph, index, dirty);
+                }
+            }
+        } finally {
+            this.touched = null;
+        }
+    }
+
+    /**
+     * R6 with β = b: if α — β o−∗ γ, then orient β o−∗ γ as β −∗ γ.
+     *
+     * @param b     β
+     * @param graph The graph being oriented.
+     */
+    private void ruleR6(Node b, Graph graph) {
+        List<Node> adj = graph.getAdjacentNodes(b);
+
+        for (Node a : adj) {
+            if (!(graph.getEndpoint(a, b) == Endpoint.TAIL && graph.getEndpoint(b, a) == Endpoint.TAIL)) {
+                continue;
+            }
+
+            for (Node c : adj) {
+                if (c != a && graph.getEndpoint(c, b) == Endpoint.CIRCLE) {
+                    setEndpoint(graph, c, b, Endpoint.TAIL);
+                    changeFlag = true;
+
+                    if (verbose) {
+                        this.logger.log(LogUtilsSearch.edgeOrientedMsg("R6: Single tails (tail)", graph.getEdge(c, b)));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * R7 with β = b: if α −∘ β o−∗ γ, and α and γ are not adjacent, then orient β o−∗ γ as β −∗ γ.
+     *
+     * @param b     β
+     * @param graph The graph being oriented.
+     */
+    private void ruleR7(Node b, Graph graph) {
+        List<Node> adj = graph.getAdjacentNodes(b);
+
+        for (Node a : adj) {
+            if (!(graph.getEndpoint(a, b) == Endpoint.CIRCLE && graph.getEndpoint(b, a) == Endpoint.TAIL)) {
+                continue;
+            }
+
+            for (Node c : adj) {
+                if (c != a && !graph.isAdjacentTo(a, c) && graph.getEndpoint(c, b) == Endpoint.CIRCLE) {
+                    setEndpoint(graph, c, b, Endpoint.TAIL);
+                    changeFlag = true;
+
+                    if (verbose) {
+                        TetradLogger.getInstance().log(LogUtilsSearch.edgeOrientedMsg("R7: Single tails (tail)", graph.getEdge(c, b)));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves the endpoint changes recorded since the last call onto the given worklists. For a change on the edge a *-*
+     * b, the nodes a and b and their common neighbors are marked, which are the middle nodes of all triples the edge
+     * belongs to.
+     */
+    private void markTouched(Graph graph, Map<Node, Integer> index, BitSet... dirty) {
+        for (int k = 0; k < this.touched.size(); k += 2) {
+            Node a = this.touched.get(k);
+            Node b = this.touched.get(k + 1);
+
+            mark(index, a, dirty);
+            mark(index, b, dirty);
+
+            for (Node c : graph.getAdjacentNodes(a)) {
+                if (graph.isAdjacentTo(c, b)) {
+                    mark(index, c, dirty);
+                }
+            }
+        }
+
+        this.touched.clear();
+    }
+
+    private static void mark(Map<Node, Integer> index, Node node, BitSet... dirty) {
+        Integer i = index.get(node);
+        if (i == null) return;
+        for (BitSet bits : dirty) bits.set(i);
+    }
+
+    private static Map<Node, Integer> indexOf(List<Node> nodes) {
+        Map<Node, Integer> index = new HashMap<>();
+        for (int i = 0; i < nodes.size(); i++) index.put(nodes.get(i), i);
+        return index;
     }
 
     /**
@@ -1565,6 +1794,23 @@ public class FciOrient {
         this.useR4 = useR4;
     }
 
+    /**
+     * Sets whether the final orientation rules R1-R3 and R6-R7 should be applied from a worklist of the nodes affected
+     * by each endpoint change instead of by sweeps over the whole graph. Both reach the same fixpoint; the worklist is
+     * much faster on large graphs, where most of a sweep revisits triples that haven't changed.
+     * <p>
+     * Only R1-R3 and R6-R7 use the worklist. R4, R5 and R8-R10 have path premises (discriminating paths, uncovered
+     * circle paths and potentially directed paths), which an endpoint change far from a node can complete, so they are
+     * still applied by sweeps over the whole graph in both modes: R4 after each round in which something changed, R5
+     * once, and R8-R10 to a fixpoint. When these rules dominate the running time, the worklist gains little. Default
+     * false.
+     *
+     * @param useWorklist True, if so.
+     */
+    public void setUseWorklist(boolean useWorklist) {
+        this.useWorklist = useWorklist;
+    }
+
     /**
      * Identity-based pair key for visited edges.
      */
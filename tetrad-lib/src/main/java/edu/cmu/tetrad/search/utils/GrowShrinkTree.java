@@ -32,6 +32,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
  *
  * @author bryanandrews
  * @version $Id: $Id
+ * @see ConcurrentGrowShrinkTree
  */
 public class GrowShrinkTree {
     private final Score score;
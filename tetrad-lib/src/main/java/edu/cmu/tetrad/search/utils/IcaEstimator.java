@@ -0,0 +1,98 @@
+/// ////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+//                                                                           //
+// Copyright (C) 2025 by Joseph Ramsey, Peter Spirtes, Clark Glymour,        //
+// and Richard Scheines.                                                     //
+//                                                                           //
+// This program is free software: you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation, either version 3 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.    //
+/// ////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.search.utils;
+
+import edu.cmu.tetrad.search.FastIca;
+import edu.cmu.tetrad.util.Matrix;
+
+/**
+ * The common interface of the FastICA implementations used by the LiNGAM family of algorithms, so that callers can
+ * configure and run either one. Constants for the algorithm type and nonlinearity are those of {@link FastIca}.
+ *
+ * @author josephramsey
+ * @see FastIca
+ * @see FastIcaCore
+ */
+public interface IcaEstimator {
+
+    /**
+     * Sets the algorithm type, FastIca.PARALLEL or FastIca.DEFLATION.
+     *
+     * @param algorithmType the algorithm type.
+     */
+    void setAlgorithmType(int algorithmType);
+
+    /**
+     * Sets the nonlinearity, FastIca.LOGCOSH or FastIca.EXP.
+     *
+     * @param function the nonlinearity.
+     */
+    void setFunction(int function);
+
+    /**
+     * Sets the alpha parameter of the logcosh nonlinearity, in [1, 2].
+     *
+     * @param alpha the alpha parameter.
+     */
+    void setAlpha(double alpha);
+
+    /**
+     * Sets whether the rows of the data are normalized before whitening.
+     *
+     * @param rowNorm true if so.
+     */
+    void setRowNorm(boolean rowNorm);
+
+    /**
+     * Sets the maximum number of fixed-point iterations.
+     *
+     * @param maxIterations the maximum number of iterations.
+     */
+    void setMaxIterations(int maxIterations);
+
+    /**
+     * Sets the convergence tolerance.
+     *
+     * @param tolerance the tolerance.
+     */
+    void setTolerance(double tolerance);
+
+    /**
+     * Sets whether progress is logged.
+     *
+     * @param verbose true if so.
+     */
+    void setVerbose(boolean verbose);
+
+    /**
+     * Sets the initial unmixing matrix (numComponents x numComponents); if not set, a random orthonormal one is used.
+     *
+     * @param wInit the initial unmixing matrix.
+     */
+    void setWInit(Matrix wInit);
+
+    /**
+     * Runs FastICA.
+     *
+     * @return the preprocessed data, whitening matrix, unmixing matrix, and sources.
+     */
+    FastIca.IcaResult findComponents();
+}
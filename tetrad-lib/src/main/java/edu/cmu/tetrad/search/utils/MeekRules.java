@@ -70,6 +70,16 @@ public class MeekRules {
      * True (default) iff the graph should be reverted to its unshielded colliders before orienting.
      */
     private boolean revertToUnshieldedColliders = true;
+    /**
+     * True iff the rules should be applied from a worklist of the nodes affected by each orientation rather than by
+     * repeated sweeps over all edges.
+     */
+    private boolean useWorklist = false;
+    /**
+     * While the worklist is in use, the edges directed since they were last collected, as consecutive node pairs; null
+     * otherwise.
+     */
+    private List<Node> touched = null;
 
     /**
      * Constructs the <code>MeekRules</code> with no logging.
@@ -118,6 +128,16 @@ public class MeekRules {
             revertToUnshieldedColliders(graph.getNodes(), graph, visited);
         }
 
+        if (this.useWorklist) {
+            orientFromWorklist(graph, visited);
+
+            if (verbose) {
+                TetradLogger.getInstance().log("Finishing Orientation Step D.");
+            }
+
+            return visited;
+        }
+
         boolean oriented = true;
 
         while (oriented) {
@@ -181,6 +201,17 @@ public class MeekRules {
         return this.changedEdges;
     }
 
+    /**
+     * Sets whether the rules should be applied from a worklist instead of by sweeps over all edges of the graph. Both
+     * reach the same orientation; with the worklist, an undirected edge is revisited only if an edge near it has been
+     * directed, which is much faster on large graphs. Default false.
+     *
+     * @param useWorklist True, if so.
+     */
+    public void setUseWorklist(boolean useWorklist) {
+        this.useWorklist = useWorklist;
+    }
+
     /**
      * Sets whether verbose output should be printed.
      *
@@ -200,6 +231,76 @@ public class MeekRules {
         this.revertToUnshieldedColliders = revertToUnshieldedColliders;
     }
 
+    /**
+     * Applies the rules to a fixpoint from a worklist of nodes. Every node starts out on the worklist; after that, when
+     * the edge a--c is directed, a and c and their common neighbors are put back on it, since every rule premise that
+     * mentions that edge is about an undirected edge into one of these. For each node taken off the worklist, the rules
+     * are tried on the undirected edges into it.
+     *
+     * @param graph   The graph.
+     * @param visited The set of nodes visited.
+     */
+    private void orientFromWorklist(Graph graph, Set<Node> visited) {
+        List<Node> nodes = graph.getNodes();
+        Map<Node, Integer> index = new HashMap<>();
+        for (int i = 0; i < nodes.size(); i++) index.put(nodes.get(i), i);
+
+        BitSet dirty = new BitSet(nodes.size());
+        dirty.set(0, nodes.size());
+
+        this.touched = new ArrayList<>();
+
+        try {
+
+            // Directing edges never makes new undirected edges, so one pass of this suffices.
+            orientByKnowledge(graph, visited);
+
+            while (!dirty.isEmpty()) {
+                for (int i = dirty.nextSetBit(0); i >= 0; i = dirty.nextSetBit(i + 1)) {
+                    dirty.clear(i);
+                    Node node = nodes.get(i);
+
+                    for (Node other : graph.getAdjacentNodes(node)) {
+                        Edge edge = graph.getEdge(node, other);
+                        if (!Edges.isUndirectedEdge(edge)) continue;
+
+                        Node x = edge.getNode1();
+                        Node y = edge.getNode2();
+
+                        if (!meekR1(x, y, graph, visited) && !meekR1(y, x, graph, visited)
+                            && !meekR2(x, y, graph, visited) && !meekR2(y, x, graph, visited)
+                            && !meekR3(x, y, graph, visited) && !meekR3(y, x, graph, visited)
+                            && !meekR4(x, y, graph, visited)) {
+                            meekR4(y, x, graph, visited);
+                        }
+
+                        markTouched(graph, index, dirty);
+                    }
+                }
+            }
+        } finally {
+            this.touched = null;
+        }
+    }
+
+    private void markTouched(Graph graph, Map<Node, Integer> index, BitSet dirty) {
+        for (int k = 0; k < this.touched.size(); k += 2) {
+            Node a = this.touched.get(k);
+            Node c = this.touched.get(k + 1);
+
+            dirty.set(index.get(a));
+            dirty.set(index.get(c));
+
+            for (Node b : graph.getAdjacentNodes(a)) {
+                if (graph.isAdjacentTo(b, c)) {
+                    dirty.set(index.get(b));
+                }
+            }
+        }
+
+        this.touched.clear();
+    }
+
     /**
      * Reverts the subgraph of the given graph over the given nodes to just its unshielded colliders.
      *
@@ -375,6 +476,8 @@ public class MeekRules {
             visited.add(a);
             visited.add(c);
 
+            if (this.touched != null) Collections.addAll(this.touched, a, c);
+
             return true;
         }
 
@@ -385,6 +488,8 @@ public class MeekRules {
 
         graph.addEdge(after);
 
+        if (this.touched != null) Collections.addAll(this.touched, a, c);
+
         return true;
     }
 
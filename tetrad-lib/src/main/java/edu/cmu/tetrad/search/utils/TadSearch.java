@@ -0,0 +1,344 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+//                                                                           //
+// Copyright (C) 2025 by Joseph Ramsey, Peter Spirtes, Clark Glymour,        //
+// and Richard Scheines.                                                     //
+//                                                                           //
+// This program is free software: you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation, either version 3 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.    //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.search.utils;
+
+import edu.cmu.tetrad.util.ChoiceGenerator;
+import edu.cmu.tetrad.util.RankTests;
+import org.ejml.simple.SimpleMatrix;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * The tad tests shared by the FOFC and FTFC cluster searches: whether a tad vanishes, whether it is pure, which
+ * indicators a cluster can grow by, and which mixed clusters can be formed from unclustered variables. Rank results
+ * are cached by tad, and the pure and impure tads are cached as sets, so the tests reuse each other's results across
+ * overlapping tads.
+ * <p>
+ * The tests run on a pool owned by this object with the given number of threads, so the thread that runs the search
+ * only waits for them. If that thread is interrupted, the search is cancelled: the workers stop at their next check,
+ * and every test returns false without caching anything. Results do not depend on the number of threads.
+ *
+ * @author josephramsey
+ * @see edu.cmu.tetrad.search.Fofc
+ * @see edu.cmu.tetrad.search.Ftfc
+ */
+public final class TadSearch implements AutoCloseable {
+
+    /**
+     * Number of candidate mixed clusters generated per block; large enough to keep the threads busy, small enough that
+     * few candidates are tested only to be ruled out by an earlier candidate of the same block.
+     */
+    private static final int BLOCK_SIZE = 2048;
+
+    /**
+     * The correlation matrix.
+     */
+    private final SimpleMatrix S;
+    /**
+     * The sample size used by the rank tests.
+     */
+    private final int sampleSize;
+    /**
+     * The significance level of the rank tests.
+     */
+    private final double alpha;
+    /**
+     * The number of variables.
+     */
+    private final int numVariables;
+    private final ForkJoinPool pool;
+    private final Map<List<Integer>, Boolean> vanishCache = new ConcurrentHashMap<>();
+    private final Set<Set<Integer>> pureTads = ConcurrentHashMap.newKeySet();
+    private final Set<Set<Integer>> impureTads = ConcurrentHashMap.newKeySet();
+    private volatile boolean cancelled = false;
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param S          The correlation matrix of the variables.
+     * @param sampleSize The sample size used by the rank tests.
+     * @param alpha      The significance level of the rank tests.
+     * @param numThreads The number of threads, at least 1.
+     */
+    public TadSearch(SimpleMatrix S, int sampleSize, double alpha, int numThreads) {
+        if (numThreads < 1) throw new IllegalArgumentException("Number of threads must be at least 1: " + numThreads);
+
+        this.S = S;
+        this.sampleSize = sampleSize;
+        this.alpha = alpha;
+        this.numVariables = S.getNumRows();
+        this.pool = new ForkJoinPool(numThreads);
+    }
+
+    /**
+     * Returns true if the search has been cancelled. Called on the thread that runs the search, this also cancels the
+     * search if that thread has been interrupted.
+     *
+     * @return True if so.
+     */
+    public boolean isCancelled() {
+        if (!this.cancelled && Thread.currentThread().isInterrupted()) {
+            this.cancelled = true;
+        }
+
+        return this.cancelled;
+    }
+
+    /**
+     * Determines whether a tad vanishes, i.e., whether every split of it into two halves has the rank of a one-factor
+     * (FOFC) or two-factor (FTFC) model.
+     *
+     * @param tad The indices of the variables in the tad.
+     * @return True if the tad vanishes; false if it does not or the search has been cancelled.
+     */
+    public boolean vanishes(List<Integer> tad) {
+        List<Integer> key = new ArrayList<>(tad);
+        Collections.sort(key);
+        Boolean cached = this.vanishCache.get(key);
+        if (cached != null) return cached;
+
+        int leftSize = tad.size() / 2;
+        ChoiceGenerator gen = new ChoiceGenerator(tad.size(), leftSize);
+        int[] choice;
+
+        while ((choice = gen.next()) != null) {
+            if (isCancelled()) return false;
+
+            // With equal halves each split comes up twice, as x|y and then y|x; the splits with the first element on
+            // the left come first, so stop there.
+            if (2 * leftSize == tad.size() && choice[0] != 0) break;
+
+            int[] x = new int[leftSize];
+            for (int i = 0; i < leftSize; i++) x[i] = tad.get(choice[i]);
+
+            int[] y = new int[tad.size() - leftSize];
+            int yIndex = 0;
+            for (int v : tad) {
+                boolean inX = false;
+                for (int xv : x)
+                    if (xv == v) {
+                        inX = true;
+                        break;
+                    }
+                if (!inX) y[yIndex++] = v;
+            }
+
+            int r = Math.min(x.length, y.length) - 1;
+            int rank = RankTests.estimateWilksRankFast(this.S, x, y, this.sampleSize, this.alpha);
+            if (rank != r) {
+                this.vanishCache.put(key, false);
+                return false;
+            }
+        }
+
+        this.vanishCache.put(key, true);
+        return true;
+    }
+
+    /**
+     * Determines whether a tad is pure: it vanishes, and so does every tad made by substituting any other variable
+     * for one of its variables. The substitutions are tested in parallel, stopping at the first that does not
+     * vanish.
+     *
+     * @param tad The indices of the variables in the tad.
+     * @return True if the tad is pure; false if it is not or the search has been cancelled.
+     */
+    public boolean isPure(List<Integer> tad) {
+        Set<Integer> key = new HashSet<>(tad);
+        if (this.pureTads.contains(key)) return true;
+        if (this.impureTads.contains(key)) return false;
+
+        if (!vanishes(tad)) {
+            if (!isCancelled()) this.impureTads.add(key);
+            return false;
+        }
+
+        Optional<List<Integer>> bad = invoke(() -> IntStream.range(0, this.numVariables).parallel().boxed()
+                .filter(o -> !tad.contains(o))
+                .flatMap(o -> IntStream.range(0, tad.size()).mapToObj(j -> {
+                    List<Integer> _tad = new ArrayList<>(tad);
+                    _tad.set(j, o);
+                    return _tad;
+                }))
+                .filter(_tad -> !vanishes(_tad))
+                .findAny(), Optional.empty());
+
+        if (isCancelled()) return false;
+
+        if (bad.isPresent()) {
+            // Cache both the bad substitution and the original key as impure
+            this.impureTads.add(new HashSet<>(bad.get()));
+            this.impureTads.add(key);
+            return false;
+        }
+
+        this.pureTads.add(key);
+        return true;
+    }
+
+    /**
+     * Returns the candidates by which a cluster can grow: those o for which every tad made of o and k variables of
+     * the cluster is pure, where k is the smaller of the cluster size and tadSize - 1. The candidates are tested in
+     * parallel.
+     *
+     * @param cluster    The cluster.
+     * @param candidates The candidate indicators, none of them in the cluster.
+     * @param tadSize    The tad size.
+     * @return The candidates that pass, in the order given; empty if the search has been cancelled.
+     */
+    public List<Integer> growthCandidates(List<Integer> cluster, List<Integer> candidates, int tadSize) {
+        final int k = Math.min(cluster.size(), tadSize - 1);
+
+        // Enumerate all k-subsets of the cluster once; if k == 0, the only subset is empty.
+        List<List<Integer>> subsets = new ArrayList<>();
+        if (k > 0) {
+            ChoiceGenerator gen = new ChoiceGenerator(cluster.size(), k);
+            int[] choice;
+            while ((choice = gen.next()) != null) {
+                List<Integer> sub = new ArrayList<>(k);
+                for (int j : choice) sub.add(cluster.get(j));
+                subsets.add(sub);
+            }
+        } else {
+            subsets.add(Collections.emptyList());
+        }
+
+        List<Integer> toAdd = invoke(() -> candidates.parallelStream()
+                .filter(o -> subsets.stream().allMatch(sub -> {
+                    List<Integer> tad = new ArrayList<>(sub.size() + 1);
+                    tad.addAll(sub);
+                    tad.add(o);
+                    return isPure(tad);
+                }))
+                .toList(), List.of());
+
+        return isCancelled() ? List.of() : toAdd;
+    }
+
+    /**
+     * Finds mixed clusters: sets of the given size of unclustered variables that form a vanishing tad with every
+     * clustered variable. Candidates are generated in lexicographic order and handled in blocks; the candidates of a
+     * block that do not overlap a cluster found so far are tested in parallel, and then those that pass are accepted
+     * one at a time, in order, each after re-checking that it does not overlap an accepted cluster. Since the test of
+     * a candidate does not depend on what has been accepted, the clusters found are exactly those a sequential loop
+     * would find.
+     *
+     * @param unclustered The unclustered variables.
+     * @param clustered   The clustered variables.
+     * @param size        The size of a mixed cluster.
+     * @param accept      Called on the calling thread, in order, with each cluster found.
+     */
+    public void forEachMixedCluster(List<Integer> unclustered, Collection<Integer> clustered, int size,
+                                    Consumer<List<Integer>> accept) {
+        int n = unclustered.size();
+        if (size < 0 || size > n) return;
+
+        Set<Integer> free = new HashSet<>(unclustered);
+        ChoiceGenerator gen = new ChoiceGenerator(n, size);
+        List<List<Integer>> block = new ArrayList<>(BLOCK_SIZE);
+        boolean exhausted = false;
+
+        while (!exhausted && !isCancelled()) {
+            block.clear();
+
+            while (block.size() < BLOCK_SIZE) {
+                int[] choice = gen.next();
+
+                if (choice == null) {
+                    exhausted = true;
+                    break;
+                }
+
+                List<Integer> cluster = new ArrayList<>(size);
+                for (int c : choice) cluster.add(unclustered.get(c));
+                if (free.containsAll(cluster)) block.add(cluster);
+            }
+
+            boolean[] passed = invoke(() -> {
+                boolean[] _passed = new boolean[block.size()];
+                IntStream.range(0, block.size()).parallel().forEach(i -> {
+                    List<Integer> cluster = block.get(i);
+                    _passed[i] = true;
+
+                    for (int o : clustered) {
+                        List<Integer> _cluster = new ArrayList<>(cluster);
+                        _cluster.add(o);
+
+                        if (!vanishes(_cluster)) {
+                            _passed[i] = false;
+                            break;
+                        }
+                    }
+                });
+                return _passed;
+            }, null);
+
+            if (isCancelled()) return;
+
+            for (int i = 0; i < block.size(); i++) {
+                if (passed[i] && free.containsAll(block.get(i))) {
+                    free.removeAll(block.get(i));
+                    accept.accept(block.get(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * Shuts down the pool.
+     */
+    @Override
+    public void close() {
+        this.pool.shutdownNow();
+    }
+
+    /**
+     * Runs a task on the pool and waits for it; a task started from a thread of the pool runs on that thread. If the
+     * calling thread is interrupted while waiting, the search is cancelled and the interrupt flag is restored.
+     */
+    private <T> T invoke(Callable<T> task, T ifCancelled) {
+        if (isCancelled()) return ifCancelled;
+
+        try {
+            if (ForkJoinTask.getPool() == this.pool) {
+                return task.call();
+            }
+
+            return this.pool.submit(task).get();
+        } catch (InterruptedException e) {
+            this.cancelled = true;
+            Thread.currentThread().interrupt();
+            return ifCancelled;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new RuntimeException(cause);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -54,7 +54,8 @@ public class TeyssierScorer {
     private final Map<Object, ArrayList<Pair>> bookmarkedScores = new HashMap<>();
     private final Map<Object, Map<Node, Integer>> bookmarkedOrderHashes = new HashMap<>();
     private final Map<Object, Double> bookmarkedRunningScores = new HashMap<>();
-    private final Map<Node, GrowShrinkTree> trees = new HashMap<>();
+    private final Map<Node, GrowShrinkTree> trees;
+    private final boolean sharedTrees;
     private ArrayList<Node> pi; // The current permutation.
     private Map<Node, Integer> orderHash = new HashMap<>();
     private ArrayList<Set<Node>> prefixes;
@@ -85,6 +86,8 @@ public class TeyssierScorer {
 
         this.test = test;
         this.score = score;
+        this.trees = new HashMap<>();
+        this.sharedTrees = false;
 
         setUseScore(true);
         if (this.useScore) {
@@ -94,6 +97,78 @@ public class TeyssierScorer {
         }
     }
 
+    /**
+     * Constructor that uses the given grow-shrink trees, which may be shared with other scorers, possibly running in
+     * other threads (see {@link #newTrees(Score, Knowledge)}). Knowledge of required and forbidden edges must already
+     * be set on the trees; {@link #setKnowledge(Knowledge)} does not reset shared trees.
+     *
+     * @param test  The test.
+     * @param score The score
+     * @param trees The grow-shrink trees, one for each variable.
+     */
+    public TeyssierScorer(IndependenceTest test, Score score, Map<Node, GrowShrinkTree> trees) {
+        if (test == null && score == null) throw new IllegalArgumentException("Required: test or score");
+        if (trees == null) throw new NullPointerException("Trees must not be null.");
+
+        this.variables = score.getVariables();
+        this.pi = new ArrayList<>(this.variables);
+        nodesHash(this.orderHash, this.pi);
+
+        this.test = test;
+        this.score = score;
+        this.trees = trees;
+        this.sharedTrees = true;
+
+        setUseScore(true);
+    }
+
+    /**
+     * Returns a new set of grow-shrink trees for the variables of the given score, with the given knowledge of
+     * required and forbidden edges set, for sharing among scorers.
+     *
+     * @param score     The score.
+     * @param knowledge The knowledge.
+     * @return A map from each variable to its tree.
+     */
+    public static Map<Node, GrowShrinkTree> newTrees(Score score, Knowledge knowledge) {
+        return newTrees(score, knowledge, false);
+    }
+
+    /**
+     * Returns a new set of grow-shrink trees for the variables of the given score, with the given knowledge of
+     * required and forbidden edges set, for sharing among scorers.
+     *
+     * @param score      The score.
+     * @param knowledge  The knowledge.
+     * @param concurrent True if the trees will be shared among threads; {@link ConcurrentGrowShrinkTree}s are used.
+     * @return A map from each variable to its tree.
+     */
+    public static Map<Node, GrowShrinkTree> newTrees(Score score, Knowledge knowledge, boolean concurrent) {
+        List<Node> variables = score.getVariables();
+        Map<Node, Integer> variablesHash = new HashMap<>();
+        for (int i = 0; i < variables.size(); i++) variablesHash.put(variables.get(i), i);
+
+        Map<Node, GrowShrinkTree> trees = new HashMap<>();
+
+        for (Node node : variables) {
+            GrowShrinkTree tree = concurrent
+                    ? new ConcurrentGrowShrinkTree(score, variablesHash, node)
+                    : new GrowShrinkTree(score, variablesHash, node);
+
+            List<Node> required = new ArrayList<>();
+            List<Node> forbidden = new ArrayList<>();
+            for (Node parent : variables) {
+                if (knowledge.isRequired(parent.getName(), node.getName())) required.add(parent);
+                if (knowledge.isForbidden(parent.getName(), node.getName())) forbidden.add(parent);
+            }
+            if (!required.isEmpty() || !forbidden.isEmpty()) tree.setKnowledge(required, forbidden);
+
+            trees.put(node, tree);
+        }
+
+        return trees;
+    }
+
     /**
      * <p>Setter for the field <code>useScore</code>.</p>
      *
@@ -111,6 +186,7 @@ public class TeyssierScorer {
      */
     public void setKnowledge(Knowledge knowledge) {
         this.knowledge = knowledge;
+        if (this.sharedTrees) return;
 
         for (Node node : this.variables) {
             List<Node> required = new ArrayList<>();
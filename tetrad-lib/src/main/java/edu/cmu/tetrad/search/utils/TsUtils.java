@@ -378,13 +378,69 @@ public class TsUtils {
      * @param data    a {@link edu.cmu.tetrad.data.DataSet} object
      * @param numLags a int
      * @return a {@link edu.cmu.tetrad.data.DataSet} object
+     * @see #createLagDataView(DataSet, int)
      */
     public static DataSet createLagData(DataSet data, int numLags) {
+        int dataSize = data.getNumColumns();
+        int laggedRows = data.getNumRows() - numLags;
+        List<Node> newVariables = createLaggedVariables(data, numLags);
+        Knowledge knowledge = createLaggedKnowledge(newVariables, numLags);
+
+        if (knowledge == null) {
+            return data;
+        }
+
+        DataSet laggedData = new BoxDataSet(new DoubleDataBox(laggedRows, newVariables.size()), newVariables);
+        for (int lag = 0; lag <= numLags; lag++) {
+            for (int col = 0; col < dataSize; col++) {
+                for (int row = 0; row < laggedRows; row++) {
+                    Node laggedNode = newVariables.get(col + lag * dataSize);
+                    if (laggedNode instanceof ContinuousVariable) {
+                        double value = data.getDouble(row + numLags - lag, col);
+                        laggedData.setDouble(row, col + lag * dataSize, value);
+                    } else {
+                        int value = data.getInt(row + numLags - lag, col);
+                        laggedData.setInt(row, col + lag * dataSize, value);
+                    }
+                }
+            }
+        }
+
+//        knowledge.setLagged(true);
+        laggedData.setKnowledge(knowledge);
+//        laggedData.setName(data.getNode());
+        return laggedData;
+    }
+
+    /**
+     * Returns the same lagged data set as createLagData, with the same variables and knowledge, but as a view over the
+     * given data rather than a copy; see LaggedDataBox. The view takes no memory beyond the original data however many
+     * lags are taken, and covariance matrices computed from it are assembled from lagged autocovariances of the
+     * original series. Setting values in the view writes through to the original data.
+     *
+     * @param data    the time series.
+     * @param numLags the number of lags.
+     * @return the lagged view.
+     */
+    public static DataSet createLagDataView(DataSet data, int numLags) {
+        List<Node> newVariables = createLaggedVariables(data, numLags);
+        Knowledge knowledge = createLaggedKnowledge(newVariables, numLags);
+
+        if (knowledge == null) {
+            return data;
+        }
+
+        DataSet laggedData = new BoxDataSet(new LaggedDataBox(data, numLags, newVariables), newVariables);
+        laggedData.setKnowledge(knowledge);
+        return laggedData;
+    }
+
+    /**
+     * Returns the lagged variables for the given data, lag by lag, named X, X:1, X:2, ...
+     */
+    private static List<Node> createLaggedVariables(DataSet data, int numLags) {
         List<Node> variables = data.getVariables();
         int dataSize = variables.size();
-        int laggedRows = data.getNumRows() - numLags;
-        Knowledge knowledge = new Knowledge();
-        Node[][] laggedNodes = new Node[numLags + 1][dataSize];
         List<Node> newVariables = new ArrayList<>((numLags + 1) * dataSize + 1);
 
         for (int lag = 0; lag <= numLags; lag++) {
@@ -408,11 +464,19 @@ public class TsUtils {
                 }
                 newVariables.add(laggedNode);
                 laggedNode.setCenter(80 * col + 50, 80 * (numLags - lag) + 50);
-                laggedNodes[lag][col] = laggedNode;
 //                knowledge.addToTier(numLags - lag, laggedNode.getName());
             }
         }
 
+        return newVariables;
+    }
+
+    /**
+     * Returns tiered knowledge for the given lagged variables, or null if their names do not parse.
+     */
+    private static Knowledge createLaggedKnowledge(List<Node> newVariables, int numLags) {
+        Knowledge knowledge = new Knowledge();
+
         try {
             for (Node node : newVariables) {
                 String varName = node.getName();
@@ -429,30 +493,11 @@ public class TsUtils {
                 knowledge.addToTier(numLags - lag, node.getName());
             }
         } catch (NumberFormatException e) {
-            return data;
-        }
-
-        DataSet laggedData = new BoxDataSet(new DoubleDataBox(laggedRows, newVariables.size()), newVariables);
-        for (int lag = 0; lag <= numLags; lag++) {
-            for (int col = 0; col < dataSize; col++) {
-                for (int row = 0; row < laggedRows; row++) {
-                    Node laggedNode = laggedNodes[lag][col];
-                    if (laggedNode instanceof ContinuousVariable) {
-                        double value = data.getDouble(row + numLags - lag, col);
-                        laggedData.setDouble(row, col + lag * dataSize, value);
-                    } else {
-                        int value = data.getInt(row + numLags - lag, col);
-                        laggedData.setInt(row, col + lag * dataSize, value);
-                    }
-                }
-            }
+            return null;
         }
 
         knowledge.setDefaultToKnowledgeLayout(true);
-//        knowledge.setLagged(true);
-        laggedData.setKnowledge(knowledge);
-//        laggedData.setName(data.getNode());
-        return laggedData;
+        return knowledge;
     }
 
     /**
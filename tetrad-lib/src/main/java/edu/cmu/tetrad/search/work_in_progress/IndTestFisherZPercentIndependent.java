@@ -20,10 +20,10 @@
 
 package edu.cmu.tetrad.search.work_in_progress;
 
-import edu.cmu.tetrad.data.CovarianceMatrix;
 import edu.cmu.tetrad.data.DataSet;
 import edu.cmu.tetrad.data.DataTransforms;
 import edu.cmu.tetrad.data.ICovarianceMatrix;
+import edu.cmu.tetrad.data.PooledCovariances;
 import edu.cmu.tetrad.graph.IndependenceFact;
 import edu.cmu.tetrad.graph.Node;
 import edu.cmu.tetrad.search.test.IndependenceResult;
@@ -265,12 +265,14 @@ public final class IndTestFisherZPercentIndependent implements IndependenceTest
     }
 
     /**
-     * Retrieves the data set from the method.
+     * Returns the data sets stacked vertically, as a view rather than a copy (see DataTransforms.concatenateView). The
+     * view writes through: setting a value in it sets the value in the underlying data set, which changes the results
+     * of later tests. Copy it first if it is to be modified.
      *
-     * @return The data set obtained.
+     * @return The concatenated view of the data sets.
      */
     public DataSet getData() {
-        return DataTransforms.concatenate(this.dataSets);
+        return DataTransforms.concatenateView(this.dataSets);
     }
 
     /**
@@ -279,13 +281,7 @@ public final class IndTestFisherZPercentIndependent implements IndependenceTest
      * @return The covariance matrix.
      */
     public ICovarianceMatrix getCov() {
-        List<DataSet> _dataSets = new ArrayList<>();
-
-        for (DataSet d : this.dataSets) {
-            _dataSets.add(DataTransforms.standardizeData(d));
-        }
-
-        return new CovarianceMatrix(DataTransforms.concatenate(_dataSets));
+        return PooledCovariances.fromDataSets(this.dataSets, PooledCovariances.Pooling.STANDARDIZED).getCovarianceMatrix();
     }
 
     /**
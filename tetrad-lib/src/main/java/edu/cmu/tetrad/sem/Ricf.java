@@ -1134,6 +1134,15 @@ public class Ricf {
         public int getIterations() {
             return this.iterations;
         }
+
+        /**
+         * Returns the covariance matrix that was fit.
+         *
+         * @return The covariance matrix.
+         */
+        public ICovarianceMatrix getCovMatrix() {
+            return this.covMatrix;
+        }
     }
 
     /**
@@ -0,0 +1,767 @@
+/// ////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+//                                                                           //
+// Copyright (C) 2025 by Joseph Ramsey, Peter Spirtes, Clark Glymour,        //
+// and Richard Scheines.                                                     //
+//                                                                           //
+// This program is free software: you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation, either version 3 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.    //
+/// ////////////////////////////////////////////////////////////////////////////
+
+
+package edu.cmu.tetrad.sem;
+
+import cern.colt.matrix.DoubleMatrix2D;
+import cern.colt.matrix.impl.DenseDoubleMatrix2D;
+import cern.colt.matrix.linalg.Algebra;
+import edu.cmu.tetrad.data.ICovarianceMatrix;
+import edu.cmu.tetrad.graph.Edge;
+import edu.cmu.tetrad.graph.Edges;
+import edu.cmu.tetrad.graph.Endpoint;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.graph.SemGraph;
+import org.apache.commons.math3.util.FastMath;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * An engine for fitting many ancestral graphs to the same covariance matrix by iterative conditional fitting (Drton,
+ * Eichler and Richardson, 2009), as in {@link Ricf}, but organized for repeated use, as in latent-variable searches
+ * that score many nearby candidate graphs.
+ * <ul>
+ *     <li>The sample covariance matrix is copied once, and the Cholesky factor of S[pa(v), pa(v)] is cached by parent
+ *     set, so it is computed once across all iterations and all graphs fit by this engine. Each update for a node v
+ *     solves its regression on parents and spouse pseudo-variables by a Schur complement against this factor.</li>
+ *     <li>The error covariance matrix is block diagonal over the districts (bidirected-connected components) of the
+ *     graph, and the update for v reads only the rows of its own district, so districts are fit independently and in
+ *     parallel, each to its own convergence.</li>
+ *     <li>{@link #fit(Graph, Ricf.RicfResult)} starts from the estimates of a previous fit, typically of a nearby graph.
+ *     Coefficients and error covariances for edges present in both graphs are carried over, matched by variable
+ *     name.</li>
+ * </ul>
+ * The result follows the conventions of {@link Ricf#ricf(SemGraph, ICovarianceMatrix, double)}: Bhat is I - B for edge
+ * coefficients B, Ohat holds the error covariances off the undirected part, and Lhat holds the covariance of the
+ * undirected part. Graphs with undirected edges are handed to {@link Ricf}, since the undirected part needs
+ * {@code fitConGraph}.
+ *
+ * @author josephramsey
+ * @version $Id: $Id
+ */
+public class RicfEngine {
+
+    /**
+     * The covariance matrix being fit.
+     */
+    private final ICovarianceMatrix covMatrix;
+
+    /**
+     * The variable names of the covariance matrix.
+     */
+    private final List<String> names;
+
+    /**
+     * The sample covariance matrix.
+     */
+    private final double[][] s;
+
+    /**
+     * The number of variables.
+     */
+    private final int p;
+
+    /**
+     * Cholesky factors of S[pa, pa], by parent set.
+     */
+    private final Map<ParentSet, double[][]> parentFactors = new ConcurrentHashMap<>();
+
+    /**
+     * The convergence tolerance, on the summed absolute change of a district's parameters in one sweep.
+     */
+    private double tolerance = 1e-6;
+
+    /**
+     * The maximum number of sweeps per district.
+     */
+    private int maxIterations = 10000;
+
+    /**
+     * The number of threads used to fit districts.
+     */
+    private int numThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Constructs an engine for the given covariance matrix.
+     *
+     * @param covMatrix The covariance matrix.
+     */
+    public RicfEngine(ICovarianceMatrix covMatrix) {
+        if (covMatrix == null) {
+            throw new NullPointerException("Covariance matrix must not be null.");
+        }
+
+        this.covMatrix = covMatrix;
+        this.names = covMatrix.getVariableNames();
+        this.s = covMatrix.getMatrix().toArray();
+        this.p = covMatrix.getDimension();
+    }
+
+    /**
+     * Fits the given graph from the usual cold start, with B = I and Omega = diag(S).
+     *
+     * @param mag The ancestral graph; it must contain a node for each variable of the covariance matrix.
+     * @return The fit.
+     */
+    public Ricf.RicfResult fit(Graph mag) {
+        return fit(mag, null);
+    }
+
+    /**
+     * Fits the given graph, starting from the estimates in a previous result where the two graphs agree.
+     *
+     * @param mag       The ancestral graph; it must contain a node for each variable of the covariance matrix.
+     * @param warmStart A previous result, for example of this engine on a nearby graph, or null for a cold start.
+     * @return The fit.
+     */
+    public Ricf.RicfResult fit(Graph mag, Ricf.RicfResult warmStart) {
+        if (mag instanceof SemGraph) {
+            ((SemGraph) mag).setShowErrorTerms(false);
+        }
+
+        int p = this.p;
+
+        if (p == 1) {
+            DoubleMatrix2D S = new DenseDoubleMatrix2D(this.s);
+            return new Ricf.RicfResult(S, S, null, null, 1, Double.NaN, this.covMatrix);
+        }
+
+        List<Node> nodes = new ArrayList<>(p);
+        List<String> missing = new ArrayList<>();
+
+        for (String name : this.names) {
+            Node v = mag.getNode(name);
+            if (v == null) missing.add(name);
+            nodes.add(v);
+        }
+
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException(
+                    "RICF: Graph is missing variables from covariance matrix: " + missing);
+        }
+
+        for (Edge edge : mag.getEdges()) {
+            if (Edges.isUndirectedEdge(edge) && nodes.contains(edge.getNode1()) && nodes.contains(edge.getNode2())) {
+                SemGraph semGraph = mag instanceof SemGraph ? (SemGraph) mag : new SemGraph(mag);
+                return new Ricf().ricf(semGraph, this.covMatrix, this.tolerance);
+            }
+        }
+
+        Map<Node, Integer> index = new HashMap<>();
+        for (int i = 0; i < p; i++) index.put(nodes.get(i), i);
+
+        int[][] pars = new int[p][];
+        int[][] spo = new int[p][];
+        boolean[] ug = new boolean[p];
+
+        for (int i = 0; i < p; i++) {
+            Node node = nodes.get(i);
+            pars[i] = indices(mag.getParents(node), index);
+
+            List<Node> spouses = mag.getNodesOutTo(node, Endpoint.ARROW);
+            spouses.retainAll(mag.getNodesInTo(node, Endpoint.ARROW));
+            spo[i] = indices(spouses, index);
+
+            ug[i] = mag.getNodesInTo(node, Endpoint.ARROW).isEmpty();
+        }
+
+        double[][] b = new double[p][p];
+        double[][] omega = new double[p][p];
+
+        for (int i = 0; i < p; i++) {
+            b[i][i] = 1.0;
+            omega[i][i] = this.s[i][i];
+        }
+
+        if (warmStart != null && warmStart.getBhat() != null) {
+            applyWarmStart(warmStart, pars, spo, ug, b, omega);
+        }
+
+        List<int[]> districts = districts(spo, ug);
+        int[] iterations = new int[districts.size()];
+        double[] diffs = new double[districts.size()];
+
+        if (this.numThreads > 1 && districts.size() > 1) {
+            ForkJoinPool pool = new ForkJoinPool(this.numThreads);
+
+            try {
+                pool.submit(() -> IntStream.range(0, districts.size()).parallel().forEach(d ->
+                        fitDistrict(districts.get(d), pars, spo, b, omega, iterations, diffs, d))).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            } finally {
+                pool.shutdown();
+            }
+        } else {
+            for (int d = 0; d < districts.size(); d++) {
+                fitDistrict(districts.get(d), pars, spo, b, omega, iterations, diffs, d);
+            }
+        }
+
+        int maxIterations = 1;
+        double maxDiff = 0.0;
+
+        for (int d = 0; d < districts.size(); d++) {
+            maxIterations = FastMath.max(maxIterations, iterations[d]);
+            maxDiff = FastMath.max(maxDiff, diffs[d]);
+        }
+
+        return result(b, omega, ug, maxIterations, maxDiff);
+    }
+
+    /**
+     * Sets the convergence tolerance, on the summed absolute change of a district's coefficients and error covariances
+     * in one sweep. The default is 1e-6.
+     *
+     * @param tolerance The tolerance, positive.
+     */
+    public void setTolerance(double tolerance) {
+        if (!(tolerance > 0)) {
+            throw new IllegalArgumentException("Tolerance must be positive: " + tolerance);
+        }
+
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Sets the maximum number of sweeps per district. The default is 10000.
+     *
+     * @param maxIterations The maximum, at least 1.
+     */
+    public void setMaxIterations(int maxIterations) {
+        if (maxIterations < 1) {
+            throw new IllegalArgumentException("Max iterations must be at least 1: " + maxIterations);
+        }
+
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * Sets the number of threads used to fit districts in parallel.
+     *
+     * @param numThreads The number of threads, at least 1.
+     */
+    public void setNumThreads(int numThreads) {
+        if (numThreads < 1) {
+            throw new IllegalArgumentException("Number of threads must be at least 1: " + numThreads);
+        }
+
+        this.numThreads = numThreads;
+    }
+
+    private int[] indices(List<Node> list, Map<Node, Integer> index) {
+        int[] indices = new int[list.size()];
+
+        for (int j = 0; j < list.size(); j++) {
+            Integer i = index.get(list.get(j));
+
+            if (i == null) {
+                throw new IllegalArgumentException("RICF: Node " + list.get(j) + " is not in the covariance matrix.");
+            }
+
+            indices[j] = i;
+        }
+
+        Arrays.sort(indices);
+        return indices;
+    }
+
+    /**
+     * Copies the coefficients and error covariances of edges shared with the warm start. A district whose copied error
+     * covariance block is not positive definite is reset to the cold start.
+     */
+    private void applyWarmStart(Ricf.RicfResult warmStart, int[][] pars, int[][] spo, boolean[] ug,
+                                double[][] b, double[][] omega) {
+        List<String> previousNames = warmStart.getCovMatrix().getVariableNames();
+        DoubleMatrix2D previousB = warmStart.getBhat();
+        DoubleMatrix2D previousOmega = warmStart.getOhat();
+
+        int[] map = new int[this.p];
+        for (int i = 0; i < this.p; i++) map[i] = previousNames.indexOf(this.names.get(i));
+
+        for (int v = 0; v < this.p; v++) {
+            int mv = map[v];
+            if (ug[v] || mv < 0) continue;
+
+            for (int k : pars[v]) {
+                if (map[k] >= 0) b[v][k] = previousB.get(mv, map[k]);
+            }
+
+            double variance = previousOmega.get(mv, mv);
+            if (variance > 0) omega[v][v] = variance;
+
+            for (int k : spo[v]) {
+                if (map[k] >= 0) omega[v][k] = previousOmega.get(mv, map[k]);
+            }
+        }
+
+        for (int[] district : districts(spo, ug)) {
+            if (district.length == 1) continue;
+
+            double[][] block = new double[district.length][district.length];
+
+            for (int i = 0; i < district.length; i++) {
+                for (int j = 0; j < district.length; j++) {
+                    block[i][j] = omega[district[i]][district[j]];
+                }
+            }
+
+            if (!cholesky(block, 0.0, new double[district.length][district.length])) {
+                for (int i : district) {
+                    for (int j : district) omega[i][j] = i == j ? this.s[i][i] : 0.0;
+                }
+            }
+        }
+    }
+
+    /**
+     * The districts of the non-undirected part of the graph, each sorted, in order of their first node.
+     */
+    private List<int[]> districts(int[][] spo, boolean[] ug) {
+        int[] district = new int[this.p];
+        Arrays.fill(district, -1);
+        List<int[]> districts = new ArrayList<>();
+
+        for (int start = 0; start < this.p; start++) {
+            if (ug[start] || district[start] != -1) continue;
+
+            List<Integer> members = new ArrayList<>();
+            Deque<Integer> queue = new ArrayDeque<>();
+            queue.add(start);
+            district[start] = districts.size();
+
+            while (!queue.isEmpty()) {
+                int v = queue.poll();
+                members.add(v);
+
+                for (int w : spo[v]) {
+                    if (district[w] == -1) {
+                        district[w] = districts.size();
+                        queue.add(w);
+                    }
+                }
+            }
+
+            int[] array = members.stream().mapToInt(Integer::intValue).sorted().toArray();
+            districts.add(array);
+        }
+
+        return districts;
+    }
+
+    /**
+     * Fits one district to convergence. Only the rows of b and the block of omega belonging to the district are
+     * written.
+     */
+    private void fitDistrict(int[] members, int[][] pars, int[][] spo, double[][] b, double[][] omega,
+                             int[] iterations, double[] diffs, int d) {
+        int m = members.length;
+
+        if (m == 1) {
+            diffs[d] = regress(members[0], pars[members[0]], b, omega);
+            iterations[d] = 1;
+            return;
+        }
+
+        DistrictWorkspace workspace = new DistrictWorkspace(m, this.p);
+        int iteration = 0;
+        double diff;
+
+        do {
+            iteration++;
+            diff = 0.0;
+
+            for (int i = 0; i < m; i++) {
+                diff += update(i, members, pars, spo, b, omega, workspace);
+            }
+        } while (diff >= this.tolerance && iteration < this.maxIterations);
+
+        iterations[d] = iteration;
+        diffs[d] = diff;
+    }
+
+    /**
+     * The closed-form fit for a node without spouses: its regression on its parents.
+     */
+    private double regress(int v, int[] par, double[][] b, double[][] omega) {
+        if (par.length == 0) return 0.0;
+
+        double[] y1 = new double[par.length];
+        for (int k = 0; k < par.length; k++) y1[k] = this.s[v][par[k]];
+
+        double[] a = new double[par.length];
+        solve(parentFactor(par), y1, a);
+
+        double diff = 0.0;
+        double dot = 0.0;
+
+        for (int k = 0; k < par.length; k++) {
+            diff += FastMath.abs(b[v][par[k]] + a[k]);
+            b[v][par[k]] = -a[k];
+            dot += a[k] * y1[k];
+        }
+
+        double variance = this.s[v][v] - dot;
+        diff += FastMath.abs(omega[v][v] - variance);
+        omega[v][v] = variance;
+        return diff;
+    }
+
+    /**
+     * One conditional update for members[i]: regresses it on its parents and on the residuals of its spouses (scaled by
+     * the inverse error covariance of the rest of its district) and sets its coefficients, its error covariances with
+     * its spouses, and its error variance.
+     */
+    private double update(int i, int[] members, int[][] pars, int[][] spo, double[][] b, double[][] omega,
+                          DistrictWorkspace w) {
+        int v = members[i];
+        int[] par = pars[v];
+        int[] sp = spo[v];
+        int m = members.length;
+        int lpa = par.length;
+        int lspo = sp.length;
+
+        // The rest of the district and the inverse of its error covariance block.
+        int[] rest = w.rest;
+        for (int j = 0, r = 0; j < m; j++) if (j != i) rest[r++] = members[j];
+
+        double[][] block = w.block;
+        for (int r1 = 0; r1 < m - 1; r1++) {
+            for (int r2 = 0; r2 < m - 1; r2++) block[r1][r2] = omega[rest[r1]][rest[r2]];
+        }
+
+        factor(block, m - 1, w.chol);
+        invert(w.chol, m - 1, w.oInv);
+
+        int[] spousePos = new int[lspo];
+        for (int t = 0; t < lspo; t++) spousePos[t] = Arrays.binarySearch(rest, 0, m - 1, sp[t]);
+
+        // Z = oInv[spo, rest] B[rest, all], which is supported on the rest of the district and their parents.
+        int numSupport = 0;
+        for (int r = 0; r < m - 1; r++) {
+            int j = rest[r];
+            if (!w.inSupport[j]) {
+                w.inSupport[j] = true;
+                w.support[numSupport++] = j;
+            }
+
+            for (int k : pars[j]) {
+                if (!w.inSupport[k]) {
+                    w.inSupport[k] = true;
+                    w.support[numSupport++] = k;
+                }
+            }
+        }
+
+        for (int t = 0; t < lspo; t++) {
+            double[] z = w.z[t];
+            for (int u = 0; u < numSupport; u++) z[w.support[u]] = 0.0;
+
+            for (int r = 0; r < m - 1; r++) {
+                double weight = w.oInv[spousePos[t]][r];
+                int j = rest[r];
+                z[j] += weight;
+                for (int k : pars[j]) z[k] += weight * b[j][k];
+            }
+        }
+
+        // ZS = Z S, needed on the columns of the support, the parents and v.
+        for (int t = 0; t < lspo; t++) {
+            double[] z = w.z[t];
+            double[] zs = w.zs[t];
+
+            for (int c = -1; c < numSupport + lpa; c++) {
+                int col = c < 0 ? v : c < numSupport ? w.support[c] : par[c - numSupport];
+                double sum = 0.0;
+                for (int u = 0; u < numSupport; u++) {
+                    int row = w.support[u];
+                    sum += z[row] * this.s[row][col];
+                }
+                zs[col] = sum;
+            }
+        }
+
+        // Z S Z'
+        double[][] zsz = w.zsz;
+        for (int t1 = 0; t1 < lspo; t1++) {
+            for (int t2 = 0; t2 <= t1; t2++) {
+                double sum = 0.0;
+                for (int u = 0; u < numSupport; u++) {
+                    int c = w.support[u];
+                    sum += w.zs[t1][c] * w.z[t2][c];
+                }
+                zsz[t1][t2] = sum;
+                zsz[t2][t1] = sum;
+            }
+        }
+
+        for (int u = 0; u < numSupport; u++) w.inSupport[w.support[u]] = false;
+
+        // Solve [[S_pp, (ZS)_p'], [(ZS)_p, ZSZ']] [t1; t2] = [S_vp; (ZS)_v] by a Schur complement on the cached S_pp.
+        double[] y1 = new double[lpa];
+        double[] y2 = new double[lspo];
+        double[] t1 = new double[lpa];
+        double[] t2 = new double[lspo];
+
+        for (int k = 0; k < lpa; k++) y1[k] = this.s[v][par[k]];
+        for (int t = 0; t < lspo; t++) y2[t] = w.zs[t][v];
+
+        double[][] schur = w.schur;
+
+        if (lpa > 0) {
+            double[][] factor = parentFactor(par);
+            double[] a = new double[lpa];
+            solve(factor, y1, a);
+
+            double[][] mCols = new double[lspo][lpa];
+            double[] col = new double[lpa];
+
+            for (int t = 0; t < lspo; t++) {
+                for (int k = 0; k < lpa; k++) col[k] = w.zs[t][par[k]];
+                solve(factor, col, mCols[t]);
+            }
+
+            double[] rhs = new double[lspo];
+
+            for (int ta = 0; ta < lspo; ta++) {
+                for (int tb = 0; tb < lspo; tb++) {
+                    double sum = 0.0;
+                    for (int k = 0; k < lpa; k++) sum += w.zs[ta][par[k]] * mCols[tb][k];
+                    schur[ta][tb] = zsz[ta][tb] - sum;
+                }
+
+                double sum = 0.0;
+                for (int k = 0; k < lpa; k++) sum += w.zs[ta][par[k]] * a[k];
+                rhs[ta] = y2[ta] - sum;
+            }
+
+            factor(schur, lspo, w.schurChol);
+            solve(w.schurChol, lspo, rhs, t2);
+
+            for (int k = 0; k < lpa; k++) {
+                double sum = a[k];
+                for (int t = 0; t < lspo; t++) sum -= mCols[t][k] * t2[t];
+                t1[k] = sum;
+            }
+        } else {
+            factor(zsz, lspo, w.schurChol);
+            solve(w.schurChol, lspo, y2, t2);
+        }
+
+        double diff = 0.0;
+        double dot = 0.0;
+
+        for (int k = 0; k < lpa; k++) {
+            diff += FastMath.abs(b[v][par[k]] + t1[k]);
+            b[v][par[k]] = -t1[k];
+            dot += t1[k] * y1[k];
+        }
+
+        for (int t = 0; t < lspo; t++) {
+            diff += FastMath.abs(omega[v][sp[t]] - t2[t]);
+            omega[v][sp[t]] = t2[t];
+            omega[sp[t]][v] = t2[t];
+            dot += t2[t] * y2[t];
+        }
+
+        double quad = 0.0;
+        for (int ta = 0; ta < lspo; ta++) {
+            for (int tb = 0; tb < lspo; tb++) {
+                quad += t2[ta] * w.oInv[spousePos[ta]][spousePos[tb]] * t2[tb];
+            }
+        }
+
+        double variance = this.s[v][v] - dot + quad;
+        diff += FastMath.abs(omega[v][v] - variance);
+        omega[v][v] = variance;
+        return diff;
+    }
+
+    private double[][] parentFactor(int[] par) {
+        return this.parentFactors.computeIfAbsent(new ParentSet(par), key -> {
+            int n = par.length;
+            double[][] a = new double[n][n];
+
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) a[i][j] = this.s[par[i]][par[j]];
+            }
+
+            double[][] l = new double[n][n];
+            factor(a, n, l);
+            return l;
+        });
+    }
+
+    private Ricf.RicfResult result(double[][] b, double[][] omega, boolean[] ug, int iterations, double diff) {
+        int p = this.p;
+        Algebra algebra = new Algebra();
+
+        DoubleMatrix2D bhat = new DenseDoubleMatrix2D(b);
+        DoubleMatrix2D omegaFull = new DenseDoubleMatrix2D(omega);
+        DoubleMatrix2D ohat = new DenseDoubleMatrix2D(p, p);
+        DoubleMatrix2D lhat = new DenseDoubleMatrix2D(p, p);
+
+        for (int i = 0; i < p; i++) {
+            for (int j = 0; j < p; j++) {
+                if (ug[i] && ug[j]) {
+                    lhat.set(i, j, omega[i][j]);
+                } else {
+                    ohat.set(i, j, omega[i][j]);
+                }
+            }
+        }
+
+        DoubleMatrix2D bInv = algebra.inverse(bhat);
+        DoubleMatrix2D sigmahat = algebra.mult(algebra.mult(bInv, omegaFull), bInv.viewDice());
+
+        return new Ricf.RicfResult(sigmahat, lhat, bhat, ohat, iterations, diff, this.covMatrix);
+    }
+
+    /**
+     * Cholesky factor of the leading n x n block of a, retrying with a small ridge if it is not positive definite.
+     */
+    private static void factor(double[][] a, int n, double[][] l) {
+        double scale = 0.0;
+        for (int i = 0; i < n; i++) scale = FastMath.max(scale, FastMath.abs(a[i][i]));
+        double ridge = 1e-10 * (scale > 0 ? scale : 1.0);
+        double jitter = 0.0;
+
+        while (!cholesky(a, n, jitter, l)) {
+            jitter = jitter == 0.0 ? ridge : jitter * 100;
+
+            if (jitter > scale + 1.0) {
+                throw new IllegalArgumentException("RICF: Matrix is not positive definite.");
+            }
+        }
+    }
+
+    private static boolean cholesky(double[][] a, double jitter, double[][] l) {
+        return cholesky(a, a.length, jitter, l);
+    }
+
+    private static boolean cholesky(double[][] a, int n, double jitter, double[][] l) {
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j <= i; j++) {
+                double sum = a[i][j] + (i == j ? jitter : 0.0);
+                for (int k = 0; k < j; k++) sum -= l[i][k] * l[j][k];
+
+                if (i == j) {
+                    if (!(sum > 0.0)) return false;
+                    l[i][i] = FastMath.sqrt(sum);
+                } else {
+                    l[i][j] = sum / l[j][j];
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private static void solve(double[][] l, double[] y, double[] x) {
+        solve(l, y.length, y, x);
+    }
+
+    /**
+     * Solves L L' x = y for the leading n x n block of L.
+     */
+    private static void solve(double[][] l, int n, double[] y, double[] x) {
+        for (int i = 0; i < n; i++) {
+            double sum = y[i];
+            for (int k = 0; k < i; k++) sum -= l[i][k] * x[k];
+            x[i] = sum / l[i][i];
+        }
+
+        for (int i = n - 1; i >= 0; i--) {
+            double sum = x[i];
+            for (int k = i + 1; k < n; k++) sum -= l[k][i] * x[k];
+            x[i] = sum / l[i][i];
+        }
+    }
+
+    /**
+     * The inverse of L L' for the leading n x n block of L.
+     */
+    private static void invert(double[][] l, int n, double[][] inv) {
+        double[] e = new double[n];
+        double[] x = new double[n];
+
+        for (int col = 0; col < n; col++) {
+            Arrays.fill(e, 0.0);
+            e[col] = 1.0;
+            solve(l, n, e, x);
+            for (int i = 0; i < n; i++) inv[i][col] = x[i];
+        }
+    }
+
+    /**
+     * A sorted parent set, as a cache key.
+     */
+    private record ParentSet(int[] indices) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ParentSet && Arrays.equals(this.indices, ((ParentSet) o).indices);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(this.indices);
+        }
+    }
+
+    /**
+     * Buffers reused across the updates of one district.
+     */
+    private static final class DistrictWorkspace {
+        private final int[] rest;
+        private final double[][] block;
+        private final double[][] chol;
+        private final double[][] oInv;
+        private final int[] support;
+        private final boolean[] inSupport;
+        private final double[][] z;
+        private final double[][] zs;
+        private final double[][] zsz;
+        private final double[][] schur;
+        private final double[][] schurChol;
+
+        DistrictWorkspace(int m, int p) {
+            this.rest = new int[m - 1];
+            this.block = new double[m - 1][m - 1];
+            this.chol = new double[m - 1][m - 1];
+            this.oInv = new double[m - 1][m - 1];
+            this.support = new int[p];
+            this.inSupport = new boolean[p];
+            this.z = new double[m - 1][p];
+            this.zs = new double[m - 1][p];
+            this.zsz = new double[m - 1][m - 1];
+            this.schur = new double[m - 1][m - 1];
+            this.schurChol = new double[m - 1][m - 1];
+        }
+    }
+}
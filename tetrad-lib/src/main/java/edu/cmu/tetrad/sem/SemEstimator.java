@@ -362,7 +362,7 @@ public final class SemEstimator implements TetradSerializable {
 
         if (containsFixedParam() || getSemPm().getGraph().paths().existsDirectedCycle() ||
             SemEstimator.containsCovarParam(getSemPm())) {
-            optimizer = new SemOptimizerPowell();
+            optimizer = new SemOptimizerLbfgs();
         } else if (containsLatent) {
             optimizer = new SemOptimizerEm();
         } else {
@@ -1565,6 +1565,15 @@ public final class SemIm implements Im, ISemIm {
         this.scoreType = scoreType;
     }
 
+    /**
+     * <p>Getter for the field <code>scoreType</code>.</p>
+     *
+     * @return the score type minimized by {@link #getScore()}.
+     */
+    public ScoreType getScoreType() {
+        return this.scoreType;
+    }
+
     private DataSet simulateTimeSeries(int sampleSize, boolean latentDataSaved) {
         SemGraph semGraph = new SemGraph(this.semPm.getGraph());
         semGraph.setShowErrorTerms(true);
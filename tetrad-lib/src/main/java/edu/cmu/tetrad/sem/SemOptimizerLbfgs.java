@@ -0,0 +1,722 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+//                                                                           //
+// Copyright (C) 2025 by Joseph Ramsey, Peter Spirtes, Clark Glymour,        //
+// and Richard Scheines.                                                     //
+//                                                                           //
+// This program is free software: you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation, either version 3 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.    //
+///////////////////////////////////////////////////////////////////////////////
+
+
+package edu.cmu.tetrad.sem;
+
+import edu.cmu.tetrad.data.DataUtils;
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.graph.SemGraph;
+import edu.cmu.tetrad.util.Matrix;
+import edu.cmu.tetrad.util.RandomUtil;
+import org.apache.commons.math3.util.FastMath;
+
+import java.io.Serial;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Optimizes a SEM using L-BFGS with analytic gradients of the fitting function. Both FML and FGLS (see
+ * {@link SemIm#getScoreType()}) are supported.
+ * <p>
+ * For edge coefficients B (B[i][j] the coefficient of i --&gt; j) and error covariances &Omega;, the implied covariance
+ * over all variables is C &Omega; C' with C = (I - B')<sup>-1</sup>, and &Sigma; is its submatrix over the measured
+ * variables. Writing dF = tr(D d&Sigma;), where D = &Sigma;<sup>-1</sup> - &Sigma;<sup>-1</sup> S &Sigma;<sup>-1</sup>
+ * for FML and D = S<sup>-1</sup> &Sigma; S<sup>-1</sup> - S<sup>-1</sup> for FGLS, the gradient is 2 (C &Omega; C' D C)[i][j]
+ * for the coefficient B[i][j] and (C' D C)[i][j] for &Omega;[i][j] (doubled for off-diagonal covariances). Here D is
+ * padded with zeros for latent variables. One evaluation of the objective and its gradient costs a few dense matrix
+ * products, and all of the matrices are allocated once per call to {@link #optimize(SemIm)} and reused between
+ * iterations.
+ * <p>
+ * Points at which a variance is non-positive, I - B' is singular or (for FML) &Sigma; is not positive definite are
+ * treated as having an infinite objective, so the line search backs away from them.
+ *
+ * @author josephramsey
+ * @version $Id: $Id
+ */
+public class SemOptimizerLbfgs implements SemOptimizer {
+    @Serial
+    private static final long serialVersionUID = 23L;
+
+    /**
+     * The most random starting points tried when no run has reached a point at which the fitting function is defined.
+     */
+    private static final int MAX_RANDOM_STARTS = 50;
+
+    /**
+     * The number of restarts, from random starting points, after the first run from the SEM's current values.
+     */
+    private int numRestarts;
+
+    /**
+     * The maximum number of L-BFGS iterations per run.
+     */
+    private int maxIterations = 1000;
+
+    /**
+     * The number of correction pairs kept to approximate the inverse Hessian.
+     */
+    private int historySize = 10;
+
+    /**
+     * The convergence tolerance, on the relative decrease of the objective and on the largest gradient entry.
+     */
+    private double tolerance = 1e-10;
+
+    /**
+     * Blank constructor.
+     */
+    public SemOptimizerLbfgs() {
+    }
+
+    /**
+     * Generates a simple exemplar of this class to test serialization.
+     *
+     * @return a {@link edu.cmu.tetrad.sem.SemOptimizerLbfgs} object
+     */
+    public static SemOptimizerLbfgs serializableInstance() {
+        return new SemOptimizerLbfgs();
+    }
+
+    private static double dot(double[] a, double[] b) {
+        double sum = 0.0;
+        for (int i = 0; i < a.length; i++) sum += a[i] * b[i];
+        return sum;
+    }
+
+    private static double maxAbs(double[] a) {
+        double max = 0.0;
+        for (double v : a) max = FastMath.max(max, FastMath.abs(v));
+        return max;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The first run starts from the current free parameter values of the SEM; each restart starts from a random point.
+     * If the fitting function is undefined at every starting point tried (for instance, the SEM's values give a
+     * singular I - B' or a non-positive definite implied covariance), further random starting points are tried. The
+     * best point found is written back to the SEM.
+     */
+    public void optimize(SemIm semIm) {
+        if (semIm.getSampleCovar() == null) {
+            throw new NullPointerException("Sample covar has not been set.");
+        }
+
+        if (DataUtils.containsMissingValue(semIm.getSampleCovar())) {
+            throw new IllegalArgumentException("Please remove or impute missing values.");
+        }
+
+        Workspace workspace = new Workspace(semIm);
+        List<Parameter> freeParameters = semIm.getFreeParameters();
+
+        double min = Double.POSITIVE_INFINITY;
+        double[] point = null;
+
+        // If no run has found a point at which the fitting function is defined, keep drawing random starting
+        // points, up to MAX_RANDOM_STARTS of them in all.
+        for (int count = 0; count < this.numRestarts + 1 || (point == null && count < MAX_RANDOM_STARTS + 1);
+             count++) {
+            double[] x = count == 0 ? semIm.getFreeParamValues() : randomStart(freeParameters);
+            double f = minimize(workspace, x);
+
+            if (f < min) {
+                min = f;
+                point = x;
+            }
+        }
+
+        if (point == null) {
+            throw new IllegalStateException("Could not find a starting point at which the fitting function is defined.");
+        }
+
+        semIm.setFreeParamValues(point);
+    }
+
+    /**
+     * Returns the gradient of the SEM's fitting function (FML or FGLS, per {@link SemIm#getScoreType()}) with respect to
+     * its free parameters, at their current values and in the order of {@link SemIm#getFreeParameters()}.
+     *
+     * @param semIm The SEM, with a sample covariance matrix set.
+     * @return The gradient.
+     * @throws IllegalArgumentException If the fitting function is undefined at the SEM's current values.
+     */
+    public double[] gradient(SemIm semIm) {
+        if (semIm.getSampleCovar() == null) {
+            throw new NullPointerException("Sample covar has not been set.");
+        }
+
+        double[] gradient = new double[semIm.getNumFreeParams()];
+
+        if (Double.isInfinite(new Workspace(semIm).value(semIm.getFreeParamValues(), gradient))) {
+            throw new IllegalArgumentException("The fitting function is undefined at the current parameter values.");
+        }
+
+        return gradient;
+    }
+
+    /**
+     * A random starting point: variances uniform in [0.5, 1.5], coefficients uniform in [-1, 1] and error covariances
+     * zero.
+     */
+    private static double[] randomStart(List<Parameter> freeParameters) {
+        double[] x = new double[freeParameters.size()];
+
+        for (int i = 0; i < freeParameters.size(); i++) {
+            ParamType type = freeParameters.get(i).getType();
+
+            if (type == ParamType.VAR) {
+                x[i] = RandomUtil.getInstance().nextUniform(0.5, 1.5);
+            } else if (type == ParamType.COEF) {
+                x[i] = RandomUtil.getInstance().nextUniform(-1, 1);
+            } else {
+                x[i] = 0.0;
+            }
+        }
+
+        return x;
+    }
+
+    /**
+     * Runs L-BFGS with a backtracking (Armijo) line search from x, leaving the best point found in x.
+     *
+     * @return the objective at x, or infinity if it is undefined at the starting point.
+     */
+    private double minimize(Workspace workspace, double[] x) {
+        int k = x.length;
+        int m = this.historySize;
+
+        double[] g = new double[k];
+        double[] xNew = new double[k];
+        double[] gNew = new double[k];
+        double[] dir = new double[k];
+        double[][] s = new double[m][k];
+        double[][] y = new double[m][k];
+        double[] rho = new double[m];
+        double[] alpha = new double[m];
+        int stored = 0;
+        int newest = -1;
+
+        double f = workspace.value(x, g);
+        if (Double.isInfinite(f)) return f;
+
+        for (int iter = 0; iter < this.maxIterations; iter++) {
+            if (maxAbs(g) < this.tolerance) break;
+
+            // Two-loop recursion: dir = -H g.
+            for (int i = 0; i < k; i++) dir[i] = -g[i];
+
+            for (int j = 0; j < stored; j++) {
+                int l = (newest - j + m) % m;
+                alpha[l] = rho[l] * dot(s[l], dir);
+                for (int i = 0; i < k; i++) dir[i] -= alpha[l] * y[l][i];
+            }
+
+            if (stored > 0) {
+                double gamma = dot(s[newest], y[newest]) / dot(y[newest], y[newest]);
+                for (int i = 0; i < k; i++) dir[i] *= gamma;
+            }
+
+            for (int j = stored - 1; j >= 0; j--) {
+                int l = (newest - j + m) % m;
+                double beta = rho[l] * dot(y[l], dir);
+                for (int i = 0; i < k; i++) dir[i] += (alpha[l] - beta) * s[l][i];
+            }
+
+            double slope = dot(g, dir);
+
+            if (!(slope < 0)) {
+                stored = 0;
+                for (int i = 0; i < k; i++) dir[i] = -g[i];
+                slope = -dot(g, g);
+            }
+
+            double step = stored == 0 ? FastMath.min(1.0, 1.0 / FastMath.sqrt(-slope)) : 1.0;
+            double fNew = Double.POSITIVE_INFINITY;
+            boolean accepted = false;
+
+            for (int tries = 0; tries < 60; tries++) {
+                for (int i = 0; i < k; i++) xNew[i] = x[i] + step * dir[i];
+                fNew = workspace.value(xNew, gNew);
+
+                if (fNew <= f + 1e-4 * step * slope) {
+                    accepted = true;
+                    break;
+                }
+
+                step *= 0.5;
+            }
+
+            if (!accepted) break;
+
+            int next = (newest + 1) % m;
+            double sy = 0.0;
+
+            for (int i = 0; i < k; i++) {
+                s[next][i] = xNew[i] - x[i];
+                y[next][i] = gNew[i] - g[i];
+                sy += s[next][i] * y[next][i];
+            }
+
+            if (sy > 1e-12 * FastMath.sqrt(dot(s[next], s[next]) * dot(y[next], y[next]))) {
+                rho[next] = 1.0 / sy;
+                newest = next;
+                stored = FastMath.min(stored + 1, m);
+            }
+
+            double decrease = f - fNew;
+
+            System.arraycopy(xNew, 0, x, 0, k);
+            System.arraycopy(gNew, 0, g, 0, k);
+            f = fNew;
+
+            if (decrease <= this.tolerance * FastMath.max(1.0, FastMath.abs(f))) break;
+        }
+
+        return f;
+    }
+
+    /**
+     * <p>toString.</p>
+     *
+     * @return a {@link java.lang.String} object
+     */
+    public String toString() {
+        return "Sem Optimizer L-BFGS";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getNumRestarts() {
+        return this.numRestarts;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setNumRestarts(int numRestarts) {
+        this.numRestarts = numRestarts;
+    }
+
+    /**
+     * Sets the maximum number of L-BFGS iterations per run.
+     *
+     * @param maxIterations The maximum number of iterations, at least 1.
+     */
+    public void setMaxIterations(int maxIterations) {
+        if (maxIterations < 1) {
+            throw new IllegalArgumentException("Max iterations must be at least 1: " + maxIterations);
+        }
+
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * Sets the number of correction pairs kept to approximate the inverse Hessian.
+     *
+     * @param historySize The history size, at least 1.
+     */
+    public void setHistorySize(int historySize) {
+        if (historySize < 1) {
+            throw new IllegalArgumentException("History size must be at least 1: " + historySize);
+        }
+
+        this.historySize = historySize;
+    }
+
+    /**
+     * Sets the convergence tolerance.
+     *
+     * @param tolerance The tolerance, positive.
+     */
+    public void setTolerance(double tolerance) {
+        if (!(tolerance > 0)) {
+            throw new IllegalArgumentException("Tolerance must be positive: " + tolerance);
+        }
+
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Evaluates the fitting function and its gradient with respect to the free parameters, reusing its matrices
+     * between calls.
+     */
+    private static final class Workspace {
+        private final boolean fml;
+        private final int n;
+        private final int p;
+        private final int[] measured;
+        private final int[] paramType;
+        private final int[] paramRow;
+        private final int[] paramCol;
+        private final double[][] edgeCoef;
+        private final double[][] errCovar;
+        private final double[][] lu;
+        private final int[] pivot;
+        private final double[][] inverse;
+        private final double[] column;
+        private final double[][] coefTimesErr;
+        private final double[][] sigmaMeasCols;
+        private final double[][] sigma;
+        private final double[][] chol;
+        private final double[][] sigmaInv;
+        private final double[][] w;
+        private final double[][] d;
+        private final double[][] e;
+        private final double[][] sampleCov;
+        private final double[][] sampleCovInv;
+        private final double constant;
+
+        Workspace(SemIm semIm) {
+            ScoreType scoreType = semIm.getScoreType();
+
+            if (scoreType != ScoreType.Fml && scoreType != ScoreType.Fgls) {
+                throw new IllegalArgumentException("Unsupported score type: " + scoreType);
+            }
+
+            this.fml = scoreType == ScoreType.Fml;
+
+            List<Node> variables = semIm.getVariableNodes();
+            List<Node> measuredNodes = semIm.getMeasuredNodes();
+            this.n = variables.size();
+            this.p = measuredNodes.size();
+
+            this.measured = new int[this.p];
+            for (int a = 0; a < this.p; a++) this.measured[a] = variables.indexOf(measuredNodes.get(a));
+
+            SemGraph graph = semIm.getSemPm().getGraph();
+            List<Parameter> freeParameters = semIm.getFreeParameters();
+            int k = freeParameters.size();
+            this.paramType = new int[k];
+            this.paramRow = new int[k];
+            this.paramCol = new int[k];
+
+            for (int i = 0; i < k; i++) {
+                Parameter parameter = freeParameters.get(i);
+                this.paramType[i] = parameter.getType() == ParamType.COEF ? 0
+                        : parameter.getType() == ParamType.VAR ? 1 : 2;
+                this.paramRow[i] = variables.indexOf(graph.getVarNode(parameter.getNodeA()));
+                this.paramCol[i] = variables.indexOf(graph.getVarNode(parameter.getNodeB()));
+            }
+
+            // Fixed parameters stay where the SEM has them.
+            this.edgeCoef = semIm.getEdgeCoef().toArray();
+            this.errCovar = semIm.getErrCovar().toArray();
+
+            this.lu = new double[this.n][this.n];
+            this.pivot = new int[this.n];
+            this.inverse = new double[this.n][this.n];
+            this.column = new double[this.n];
+            this.coefTimesErr = new double[this.n][this.n];
+            this.sigmaMeasCols = new double[this.n][this.p];
+            this.sigma = new double[this.p][this.p];
+            this.chol = new double[this.p][this.p];
+            this.sigmaInv = new double[this.p][this.p];
+            this.w = new double[this.p][this.p];
+            this.d = new double[this.p][this.p];
+            this.e = new double[this.p][this.n];
+
+            Matrix s = semIm.getSampleCovar();
+            this.sampleCov = new double[this.p][this.p];
+
+            for (int a = 0; a < this.p; a++) {
+                for (int b = 0; b < this.p; b++) {
+                    this.sampleCov[a][b] = 0.5 * (s.get(a, b) + s.get(b, a));
+                }
+            }
+
+            double[][] sChol = new double[this.p][this.p];
+            double jitter = 0.0;
+            double avgDiag = 0.0;
+            for (int a = 0; a < this.p; a++) avgDiag += FastMath.max(0.0, this.sampleCov[a][a]);
+            avgDiag = this.p > 0 ? avgDiag / this.p : 1.0;
+
+            while (!cholesky(this.sampleCov, jitter, sChol)) {
+                jitter = jitter == 0.0 ? 1e-8 * (avgDiag > 0 ? avgDiag : 1.0) : jitter * 10;
+
+                if (jitter > avgDiag) {
+                    throw new IllegalArgumentException("The sample covariance matrix is not positive definite.");
+                }
+            }
+
+            this.sampleCovInv = new double[this.p][this.p];
+            cholInverse(sChol, this.sampleCovInv);
+            this.constant = this.fml ? -logDet(sChol) - this.p : 0.0;
+        }
+
+        /**
+         * Returns the objective at x, filling in grad, or infinity if the objective is undefined at x.
+         */
+        double value(double[] x, double[] grad) {
+            int n = this.n;
+            int p = this.p;
+
+            for (int i = 0; i < x.length; i++) {
+                double v = x[i];
+                if (Double.isNaN(v) || Double.isInfinite(v)) return Double.POSITIVE_INFINITY;
+                int r = this.paramRow[i];
+                int c = this.paramCol[i];
+
+                if (this.paramType[i] == 0) {
+                    this.edgeCoef[r][c] = v;
+                } else if (this.paramType[i] == 1) {
+                    if (v <= 0.0) return Double.POSITIVE_INFINITY;
+                    this.errCovar[r][r] = v;
+                } else {
+                    this.errCovar[r][c] = v;
+                    this.errCovar[c][r] = v;
+                }
+            }
+
+            // inverse = (I - B')^-1
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    this.lu[i][j] = (i == j ? 1.0 : 0.0) - this.edgeCoef[j][i];
+                }
+            }
+
+            if (!invert()) return Double.POSITIVE_INFINITY;
+
+            // coefTimesErr = C Omega; sigmaMeasCols = C Omega C' restricted to measured columns.
+            multiply(this.inverse, this.errCovar, this.coefTimesErr, n, n, n);
+
+            for (int i = 0; i < n; i++) {
+                double[] row = this.coefTimesErr[i];
+
+                for (int a = 0; a < p; a++) {
+                    double[] cRow = this.inverse[this.measured[a]];
+                    double sum = 0.0;
+                    for (int l = 0; l < n; l++) sum += row[l] * cRow[l];
+                    this.sigmaMeasCols[i][a] = sum;
+                }
+            }
+
+            for (int a = 0; a < p; a++) {
+                for (int b = 0; b < p; b++) {
+                    this.sigma[a][b] = 0.5 * (this.sigmaMeasCols[this.measured[a]][b]
+                                              + this.sigmaMeasCols[this.measured[b]][a]);
+                }
+            }
+
+            double f;
+
+            if (this.fml) {
+                if (!cholesky(this.sigma, 0.0, this.chol)) return Double.POSITIVE_INFINITY;
+                cholInverse(this.chol, this.sigmaInv);
+
+                double trace = 0.0;
+                for (int a = 0; a < p; a++) {
+                    for (int b = 0; b < p; b++) trace += this.sigmaInv[a][b] * this.sampleCov[b][a];
+                }
+
+                f = logDet(this.chol) + trace + this.constant;
+
+                // D = Sigma^-1 - Sigma^-1 S Sigma^-1
+                multiply(this.sigmaInv, this.sampleCov, this.w, p, p, p);
+                multiply(this.w, this.sigmaInv, this.d, p, p, p);
+
+                for (int a = 0; a < p; a++) {
+                    for (int b = 0; b < p; b++) this.d[a][b] = this.sigmaInv[a][b] - this.d[a][b];
+                }
+            } else {
+                // R = I - Sigma S^-1; F = tr(R R) / 2; D = S^-1 Sigma S^-1 - S^-1
+                multiply(this.sigma, this.sampleCovInv, this.w, p, p, p);
+
+                double sum = 0.0;
+                for (int a = 0; a < p; a++) {
+                    for (int b = 0; b < p; b++) {
+                        double rab = (a == b ? 1.0 : 0.0) - this.w[a][b];
+                        double rba = (a == b ? 1.0 : 0.0) - this.w[b][a];
+                        sum += rab * rba;
+                    }
+                }
+
+                f = 0.5 * sum;
+
+                multiply(this.sampleCovInv, this.w, this.d, p, p, p);
+
+                for (int a = 0; a < p; a++) {
+                    for (int b = 0; b < p; b++) this.d[a][b] -= this.sampleCovInv[a][b];
+                }
+            }
+
+            if (Double.isNaN(f) || Double.isInfinite(f)) return Double.POSITIVE_INFINITY;
+
+            // e = D C[measured, :]
+            for (int a = 0; a < p; a++) {
+                double[] row = this.e[a];
+                Arrays.fill(row, 0.0);
+
+                for (int b = 0; b < p; b++) {
+                    double dab = this.d[a][b];
+                    if (dab == 0.0) continue;
+                    double[] cRow = this.inverse[this.measured[b]];
+                    for (int l = 0; l < n; l++) row[l] += dab * cRow[l];
+                }
+            }
+
+            for (int i = 0; i < x.length; i++) {
+                int r = this.paramRow[i];
+                int c = this.paramCol[i];
+                double sum = 0.0;
+
+                if (this.paramType[i] == 0) {
+                    // 2 (Sigma_full D_full C)[r][c]
+                    for (int a = 0; a < p; a++) sum += this.sigmaMeasCols[r][a] * this.e[a][c];
+                    grad[i] = 2.0 * sum;
+                } else {
+                    // (C' D_full C)[r][c]
+                    for (int a = 0; a < p; a++) sum += this.inverse[this.measured[a]][r] * this.e[a][c];
+                    grad[i] = this.paramType[i] == 1 ? sum : 2.0 * sum;
+                }
+            }
+
+            return f;
+        }
+
+        /**
+         * Inverts lu in place into inverse using Gaussian elimination with partial pivoting.
+         */
+        private boolean invert() {
+            int n = this.n;
+            double[][] a = this.lu;
+
+            for (int i = 0; i < n; i++) this.pivot[i] = i;
+
+            for (int col = 0; col < n; col++) {
+                int best = col;
+                for (int i = col + 1; i < n; i++) {
+                    if (FastMath.abs(a[i][col]) > FastMath.abs(a[best][col])) best = i;
+                }
+
+                if (FastMath.abs(a[best][col]) < 1e-12) return false;
+
+                if (best != col) {
+                    double[] tmp = a[best];
+                    a[best] = a[col];
+                    a[col] = tmp;
+                    int t = this.pivot[best];
+                    this.pivot[best] = this.pivot[col];
+                    this.pivot[col] = t;
+                }
+
+                double diag = a[col][col];
+
+                for (int i = col + 1; i < n; i++) {
+                    double factor = a[i][col] / diag;
+                    a[i][col] = factor;
+                    if (factor == 0.0) continue;
+                    for (int j = col + 1; j < n; j++) a[i][j] -= factor * a[col][j];
+                }
+            }
+
+            // Solve L U X = P for each column of the permutation.
+            for (int col = 0; col < n; col++) {
+                double[] z = this.column;
+
+                for (int i = 0; i < n; i++) {
+                    double sum = this.pivot[i] == col ? 1.0 : 0.0;
+                    for (int j = 0; j < i; j++) sum -= a[i][j] * z[j];
+                    z[i] = sum;
+                }
+
+                for (int i = n - 1; i >= 0; i--) {
+                    double sum = z[i];
+                    for (int j = i + 1; j < n; j++) sum -= a[i][j] * this.inverse[j][col];
+                    this.inverse[i][col] = sum / a[i][i];
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * c = a b, where a is rows x inner and b is inner x cols.
+         */
+        private static void multiply(double[][] a, double[][] b, double[][] c, int rows, int inner, int cols) {
+            for (int i = 0; i < rows; i++) {
+                double[] cRow = c[i];
+                Arrays.fill(cRow, 0, cols, 0.0);
+                double[] aRow = a[i];
+
+                for (int l = 0; l < inner; l++) {
+                    double ail = aRow[l];
+                    if (ail == 0.0) continue;
+                    double[] bRow = b[l];
+                    for (int j = 0; j < cols; j++) cRow[j] += ail * bRow[j];
+                }
+            }
+        }
+
+        /**
+         * Lower Cholesky factor of a + jitter I into l; false if not positive definite.
+         */
+        private static boolean cholesky(double[][] a, double jitter, double[][] l) {
+            int p = a.length;
+
+            for (int i = 0; i < p; i++) {
+                for (int j = 0; j <= i; j++) {
+                    double sum = a[i][j] + (i == j ? jitter : 0.0);
+                    for (int k = 0; k < j; k++) sum -= l[i][k] * l[j][k];
+
+                    if (i == j) {
+                        if (!(sum > 0.0)) return false;
+                        l[i][i] = FastMath.sqrt(sum);
+                    } else {
+                        l[i][j] = sum / l[j][j];
+                    }
+                }
+            }
+
+            return true;
+        }
+
+        private static double logDet(double[][] l) {
+            double sum = 0.0;
+            for (int i = 0; i < l.length; i++) sum += FastMath.log(l[i][i]);
+            return 2.0 * sum;
+        }
+
+        /**
+         * The inverse of L L' given its lower Cholesky factor L.
+         */
+        private static void cholInverse(double[][] l, double[][] inv) {
+            int p = l.length;
+
+            for (int col = 0; col < p; col++) {
+                // Forward solve L z = e_col, then back solve L' x = z; z is stored in inv's column.
+                for (int i = 0; i < p; i++) {
+                    double sum = i == col ? 1.0 : 0.0;
+                    for (int k = col; k < i; k++) sum -= l[i][k] * inv[k][col];
+                    inv[i][col] = i < col ? 0.0 : sum / l[i][i];
+                }
+
+                for (int i = p - 1; i >= 0; i--) {
+                    double sum = inv[i][col];
+                    for (int k = i + 1; k < p; k++) sum -= l[k][i] * inv[k][col];
+                    inv[i][col] = sum / l[i][i];
+                }
+            }
+        }
+    }
+}
@@ -92,7 +92,9 @@ public class SemOptimizerRicf implements SemOptimizer {
                 sampleCovar, semIm.getSampleSize());
 
         SemGraph graph = semIm.getSemPm().getGraph();
-        Ricf.RicfResult result = new Ricf().ricf(graph, cov, 0.001);
+        RicfEngine engine = new RicfEngine(cov);
+        engine.setTolerance(0.001);
+        Ricf.RicfResult result = engine.fit(graph);
 
         Matrix bHat = new Matrix(result.getBhat().toArray());
         Matrix lHat = new Matrix(result.getLhat().toArray());
@@ -0,0 +1,177 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+//                                                                           //
+// Copyright (C) 2025 by Joseph Ramsey, Peter Spirtes, Clark Glymour,        //
+// and Richard Scheines.                                                     //
+//                                                                           //
+// This program is free software: you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation, either version 3 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.    //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Runs a data pass, such as the E-step of an EM iteration, as a map-reduce over blocks of rows. Each block accumulates
+ * into its own sufficient statistics object, so no locking is needed during the pass; the block statistics are then
+ * merged in block order, which makes the merged result independent of thread scheduling. The block layout depends only on the
+ * number of rows and the number of threads, so repeated runs with the same settings give bit-identical results.
+ * <p>
+ * An instance holds on to its thread pool across iterations and should be closed when done.
+ *
+ * @author josephramsey
+ */
+public final class ParallelEm implements AutoCloseable {
+
+    /**
+     * Rows per block below which splitting the pass further does not pay for itself.
+     */
+    private static final int MIN_BLOCK_SIZE = 256;
+
+    /**
+     * Number of blocks per thread; a few blocks per thread smooths out uneven block costs.
+     */
+    private static final int BLOCKS_PER_THREAD = 4;
+
+    private final int numThreads;
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructs an instance using the given number of threads. With one thread the pass runs on the calling thread.
+     *
+     * @param numThreads the number of threads; must be at least 1.
+     * @throws IllegalArgumentException if numThreads &lt; 1.
+     */
+    public ParallelEm(int numThreads) {
+        if (numThreads < 1) {
+            throw new IllegalArgumentException("Number of threads must be at least 1: " + numThreads);
+        }
+
+        this.numThreads = numThreads;
+        this.pool = numThreads > 1 ? new ForkJoinPool(numThreads) : null;
+    }
+
+    /**
+     * Runs one pass over rows 0..numRows-1 and returns the merged statistics.
+     *
+     * @param numRows the number of rows.
+     * @param pass    the pass to run.
+     * @param <S>     the type of the sufficient statistics.
+     * @return the statistics for all rows.
+     */
+    public <S extends Statistics<S>> S run(int numRows, Pass<S> pass) {
+        if (numRows < 0) {
+            throw new IllegalArgumentException("Number of rows must be nonnegative: " + numRows);
+        }
+
+        int numBlocks = Math.max(1, Math.min(BLOCKS_PER_THREAD * numThreads,
+                (numRows + MIN_BLOCK_SIZE - 1) / MIN_BLOCK_SIZE));
+
+        if (pool == null || numBlocks == 1) {
+            S statistics = pass.newStatistics();
+            pass.accumulate(0, numRows, statistics);
+            return statistics;
+        }
+
+        List<S> blocks = new ArrayList<>(numBlocks);
+        for (int b = 0; b < numBlocks; b++) {
+            blocks.add(pass.newStatistics());
+        }
+
+        final int blocksFinal = numBlocks;
+
+        try {
+            pool.submit(() -> IntStream.range(0, blocksFinal).parallel().forEach(b -> {
+                int from = (int) ((long) numRows * b / blocksFinal);
+                int to = (int) ((long) numRows * (b + 1) / blocksFinal);
+                pass.accumulate(from, to, blocks.get(b));
+            })).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+
+        S total = blocks.get(0);
+        for (int b = 1; b < numBlocks; b++) {
+            total.merge(blocks.get(b));
+        }
+
+        return total;
+    }
+
+    /**
+     * Returns the number of threads.
+     *
+     * @return the number of threads.
+     */
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    /**
+     * Shuts down the thread pool.
+     */
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Sufficient statistics accumulated over a block of rows.
+     *
+     * @param <S> the implementing type.
+     */
+    public interface Statistics<S extends Statistics<S>> {
+
+        /**
+         * Adds the statistics of another block into this one.
+         *
+         * @param other the statistics to add; not modified.
+         */
+        void merge(S other);
+    }
+
+    /**
+     * One data pass. Implementations must only read shared state and write into the statistics object they are
+     * handed.
+     *
+     * @param <S> the type of the sufficient statistics.
+     */
+    public interface Pass<S extends Statistics<S>> {
+
+        /**
+         * Returns a fresh, zeroed statistics object.
+         *
+         * @return the statistics object.
+         */
+        S newStatistics();
+
+        /**
+         * Accumulates rows from (inclusive) to to (exclusive) into the given statistics.
+         *
+         * @param from       the first row.
+         * @param to         one past the last row.
+         * @param statistics the statistics for this block.
+         */
+        void accumulate(int from, int to, S statistics);
+    }
+}
@@ -30,8 +30,12 @@ import org.ejml.simple.SimpleEVD;
 import org.ejml.simple.SimpleMatrix;
 import org.ejml.simple.SimpleSVD;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static edu.cmu.tetrad.util.StatUtils.erf;
 
@@ -47,31 +51,36 @@ import static edu.cmu.tetrad.util.StatUtils.erf;
 public class RankTests {
 
     /**
-     * The maximum number of entries allowed in the RCCA cache. This is used to control memory usage and performance for
-     * caching results during Canonical Correlation Analysis (CCA) computations.
+     * The default weight budget of the RCCA cache, in approximate bytes.
      */
-    private static final int RCCA_CACHE_MAX = 10_000; // tune if needed
+    private static final long RCCA_CACHE_MAX_BYTES = 64L << 20; // tune if needed
     /**
-     * A static, thread-safe cache used to store and manage entries of Canonical Correlation Analysis (CCA) results,
-     * mapped by uniquely identified keys. The cache is implemented as a linked hash map with a size-sensitive eviction
-     * policy, where the least recently accessed entry is removed when the cache size exceeds the predefined maximum
-     * limit.
+     * A static, thread-safe cache of RCCA results. Entries are spread over lock-striped shards so that the parallel
+     * sections of BPC, TSC, FOFC/FTFC and RLCD do not all serialize on one lock, and eviction is least recently used
+     * within each shard by approximate size in bytes.
      * <p>
-     * Key characteristics: - Uses {@link RccaKey} objects as keys, which uniquely identify CCA computation
-     * configurations. - Stores {@link RccaEntry} objects as values, which contain computed results for corresponding
-     * keys. - Maintains an access-order to enable efficient eviction of the least recently used entries. - The maximum
-     * size of the cache is determined by the {@code RCCA_CACHE_MAX} constant.
-     * <p>
-     * Eviction behavior: When a new entry is added such that the size of the cache exceeds {@code RCCA_CACHE_MAX}, the
-     * eldest entry in the cache is removed automatically to maintain the maximum size constraint.
+     * Keys are scoped by the identity of the matrix the RCCA was computed on, so that concurrent searches over
+     * different matrices never share or confuse entries. Scopes are tracked with weak references; once a matrix is
+     * garbage collected its entries, which can no longer be looked up, are dropped.
+     */
+    private static volatile ShardedLruCache<RccaKey, RccaEntry> RCCA_CACHE = newRccaCache(RCCA_CACHE_MAX_BYTES);
+    /**
+     * The scope ids of the matrices seen by the RCCA cache, by identity.
+     */
+    private static final Map<MatrixRef, Long> RCCA_SCOPES = new ConcurrentHashMap<>();
+    /**
+     * Receives the references of matrices that have been garbage collected.
+     */
+    private static final ReferenceQueue<SimpleMatrix> RCCA_DEAD_SCOPES = new ReferenceQueue<>();
+    /**
+     * The next RCCA scope id.
      */
-    private static final Map<RccaKey, RccaEntry> RCCA_CACHE =
-            new LinkedHashMap<>(1024, 0.75f, true) {
-                @Override
-                protected boolean removeEldestEntry(Map.Entry<RccaKey, RccaEntry> e) {
-                    return size() > RCCA_CACHE_MAX;
-                }
-            };
+    private static final AtomicLong RCCA_NEXT_SCOPE = new AtomicLong();
+    /**
+     * The last matrix each thread looked up, with its scope id, so the common case of many lookups on the same matrix
+     * touches no shared state.
+     */
+    private static final ThreadLocal<Object[]> RCCA_LAST_SCOPE = new ThreadLocal<>();
     /**
      * ---- Eigen whitening path (from a previous message), packaged to return svals
      */
@@ -232,27 +241,85 @@ public class RankTests {
         }
     }
 
+    private static ShardedLruCache<RccaKey, RccaEntry> newRccaCache(long maxBytes) {
+        int shards = Math.max(16, Integer.highestOneBit(4 * Runtime.getRuntime().availableProcessors()));
+        return new ShardedLruCache<>(shards, maxBytes, e -> 64L + 8L * (e.svals.length + e.suffixLogs.length));
+    }
+
     /**
-     * Thread-safe cache access
+     * Returns the RCCA cache scope id of the given matrix, registering it if it is new.
      */
-    private static RccaEntry cacheGet(RccaKey k) {
-        synchronized (RCCA_CACHE) {
-            return RCCA_CACHE.get(k);
+    private static long scopeOf(SimpleMatrix S) {
+        Object[] last = RCCA_LAST_SCOPE.get();
+        if (last != null && ((WeakReference<?>) last[0]).get() == S) {
+            return (Long) last[1];
+        }
+
+        purgeDeadScopes();
+
+        Long scope = RCCA_SCOPES.get(new MatrixRef(S, null));
+        if (scope == null) {
+            Long fresh = RCCA_NEXT_SCOPE.incrementAndGet();
+            scope = RCCA_SCOPES.putIfAbsent(new MatrixRef(S, RCCA_DEAD_SCOPES), fresh);
+            if (scope == null) scope = fresh;
+        }
+
+        RCCA_LAST_SCOPE.set(new Object[]{new WeakReference<>(S), scope});
+        return scope;
+    }
+
+    /**
+     * Drops the scopes, and cached entries, of matrices that have been garbage collected.
+     */
+    private static void purgeDeadScopes() {
+        Reference<? extends SimpleMatrix> ref;
+        while ((ref = RCCA_DEAD_SCOPES.poll()) != null) {
+            Long scope = RCCA_SCOPES.remove((MatrixRef) ref);
+            if (scope != null) {
+                long id = scope;
+                RCCA_CACHE.removeIf(k -> k.scope == id);
+            }
         }
     }
 
     /**
-     * Adds a key-value pair to the RCCA_CACHE in a thread-safe manner.
+     * Returns hit, miss, eviction and size statistics for the RCCA cache since it was last cleared.
      *
-     * @param k the key to be added to the cache
-     * @param v the value associated with the key to be added to the cache
+     * @return the statistics.
+     */
+    public static ShardedLruCache.Stats getRccaCacheStats() {
+        return RCCA_CACHE.getStats();
+    }
+
+    /**
+     * Removes all entries from the RCCA cache and resets its statistics.
      */
-    private static void cachePut(RccaKey k, RccaEntry v) {
-        synchronized (RCCA_CACHE) {
-            RCCA_CACHE.put(k, v);
+    public static void clearRccaCache() {
+        RCCA_CACHE.clear();
+    }
+
+    /**
+     * Removes the RCCA cache entries computed on the given matrix, for instance when a search over it is done.
+     *
+     * @param S the matrix.
+     */
+    public static void clearRccaCache(SimpleMatrix S) {
+        Long scope = RCCA_SCOPES.get(new MatrixRef(S, null));
+        if (scope != null) {
+            long id = scope;
+            RCCA_CACHE.removeIf(k -> k.scope == id);
         }
     }
 
+    /**
+     * Replaces the RCCA cache with an empty one with the given weight budget.
+     *
+     * @param maxBytes the budget, in approximate bytes; must be at least 1.
+     */
+    public static void setRccaCacheMaxBytes(long maxBytes) {
+        RCCA_CACHE = newRccaCache(maxBytes);
+    }
+
     /**
      * Extracts a submatrix from the specified rows and columns of the input matrix.
      *
@@ -961,8 +1028,8 @@ public class RankTests {
     public static RccaEntry getRccaEntry(SimpleMatrix S,
                                          int[] xIdx, int[] yIdx,
                                          double regLambda) {
-        RccaKey key = new RccaKey(xIdx, yIdx, regLambda);
-        RccaEntry entry = cacheGet(key);
+        RccaKey key = new RccaKey(scopeOf(S), xIdx, yIdx, regLambda);
+        RccaEntry entry = RCCA_CACHE.get(key);
         if (entry != null) return entry;
 
         // compute via your existing hybrid path
@@ -979,7 +1046,7 @@ public class RankTests {
         }
 
         entry = new RccaEntry(svals, suffix);
-        cachePut(key, entry);
+        RCCA_CACHE.put(key, entry);
         return entry;
     }
 
@@ -1167,18 +1234,20 @@ public class RankTests {
     }
 
     /**
-     * A helper class used to encapsulate and uniquely identify specific configurations defined by two integer arrays
-     * and a regularization factor. This class is immutable and provides methods for equality checks and hash code
-     * generation.
+     * A helper class used to encapsulate and uniquely identify specific configurations defined by a matrix scope, two
+     * integer arrays and a regularization factor. This class is immutable and provides methods for equality checks and
+     * hash code generation.
      * <p>
      * The class is used for handling configurations where two sets of indices and a quantized regularization value are
      * required to determine equality and uniqueness.
      */
     private static final class RccaKey {
+        final long scope;
         final int[] x, y;
         final long regBits; // quantized reg to avoid fp equality headaches
 
-        RccaKey(int[] xIdx, int[] yIdx, double regLambda) {
+        RccaKey(long scope, int[] xIdx, int[] yIdx, double regLambda) {
+            this.scope = scope;
             this.x = xIdx.clone();
             Arrays.sort(this.x);
             this.y = yIdx.clone();
@@ -1190,18 +1259,43 @@ public class RankTests {
         @Override
         public boolean equals(Object o) {
             if (!(o instanceof RccaKey k)) return false;
-            return regBits == k.regBits && Arrays.equals(x, k.x) && Arrays.equals(y, k.y);
+            return scope == k.scope && regBits == k.regBits && Arrays.equals(x, k.x) && Arrays.equals(y, k.y);
         }
 
         @Override
         public int hashCode() {
-            int h = Long.hashCode(regBits);
+            int h = 31 * Long.hashCode(scope) + Long.hashCode(regBits);
             h = 31 * h + Arrays.hashCode(x);
             h = 31 * h + Arrays.hashCode(y);
             return h;
         }
     }
 
+    /**
+     * A weak reference to a matrix that compares by the identity of the matrix, used to scope the RCCA cache.
+     */
+    private static final class MatrixRef extends WeakReference<SimpleMatrix> {
+        final int hash;
+
+        MatrixRef(SimpleMatrix S, ReferenceQueue<SimpleMatrix> queue) {
+            super(S, queue);
+            this.hash = System.identityHashCode(S);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof MatrixRef r)) return false;
+            SimpleMatrix S = get();
+            return S != null && S == r.get();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
     /**
      * Represents an entry in the RCCA (Regularized Canonical Correlation Analysis) data structure. The entry contains
      * singular values in descending order and precomputed logarithmic suffix sums.
@@ -0,0 +1,228 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+//                                                                           //
+// Copyright (C) 2025 by Joseph Ramsey, Peter Spirtes, Clark Glymour,        //
+// and Richard Scheines.                                                     //
+//                                                                           //
+// This program is free software: you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation, either version 3 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.    //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * A thread-safe least-recently-used cache bounded by total weight rather than by number of entries. Keys are spread
+ * over a power-of-two number of shards by hash, and each shard is an access-ordered map behind its own lock, so
+ * threads working on different keys rarely contend. Each shard gets an equal share of the weight budget and evicts its
+ * own least recently used entries when over it. Hit, miss and eviction counts are kept in striped counters.
+ *
+ * @param <K> the key type.
+ * @param <V> the value type.
+ * @author josephramsey
+ */
+public final class ShardedLruCache<K, V> {
+
+    private final Shard<K, V>[] shards;
+    private final int mask;
+    private final long maxWeightPerShard;
+    private final ToLongFunction<? super V> weigher;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Constructs a cache.
+     *
+     * @param numShards the number of shards, rounded up to a power of two; must be at least 1.
+     * @param maxWeight the total weight budget, split evenly over the shards; must be at least 1.
+     * @param weigher   gives the weight of a value, for instance its approximate size in bytes.
+     * @throws IllegalArgumentException if numShards or maxWeight is less than 1.
+     */
+    @SuppressWarnings("unchecked")
+    public ShardedLruCache(int numShards, long maxWeight, ToLongFunction<? super V> weigher) {
+        if (numShards < 1 || numShards > (1 << 16)) {
+            throw new IllegalArgumentException("Number of shards must be in [1, 65536]: " + numShards);
+        }
+
+        if (maxWeight < 1) {
+            throw new IllegalArgumentException("Maximum weight must be at least 1: " + maxWeight);
+        }
+
+        if (weigher == null) {
+            throw new NullPointerException("Weigher must not be null.");
+        }
+
+        int n = Integer.highestOneBit(numShards);
+        if (n < numShards) n <<= 1;
+
+        this.shards = (Shard<K, V>[]) new Shard[n];
+        for (int i = 0; i < n; i++) this.shards[i] = new Shard<>();
+
+        this.mask = n - 1;
+        this.maxWeightPerShard = Math.max(1, maxWeight / n);
+        this.weigher = weigher;
+    }
+
+    /**
+     * Returns the value for the given key, or null if it is not cached, and records a hit or a miss.
+     *
+     * @param key the key.
+     * @return the value, or null.
+     */
+    public V get(K key) {
+        Shard<K, V> shard = shardFor(key);
+        Weighted<V> entry;
+
+        synchronized (shard) {
+            entry = shard.map.get(key);
+        }
+
+        if (entry == null) {
+            this.misses.increment();
+            return null;
+        }
+
+        this.hits.increment();
+        return entry.value;
+    }
+
+    /**
+     * Caches the given value for the given key, replacing any previous value, and evicts least recently used entries
+     * of the key's shard as needed. A value heavier than a shard's share of the budget is not kept.
+     *
+     * @param key   the key.
+     * @param value the value.
+     */
+    public void put(K key, V value) {
+        if (key == null || value == null) {
+            throw new NullPointerException("Key and value must not be null.");
+        }
+
+        long weight = Math.max(1, this.weigher.applyAsLong(value));
+        Shard<K, V> shard = shardFor(key);
+        int evicted = 0;
+
+        synchronized (shard) {
+            Weighted<V> previous = shard.map.put(key, new Weighted<>(value, weight));
+            if (previous != null) shard.weight -= previous.weight;
+            shard.weight += weight;
+
+            Iterator<Weighted<V>> it = shard.map.values().iterator();
+            while (shard.weight > this.maxWeightPerShard && it.hasNext()) {
+                shard.weight -= it.next().weight;
+                it.remove();
+                evicted++;
+            }
+        }
+
+        if (evicted > 0) this.evictions.add(evicted);
+    }
+
+    /**
+     * Removes all entries whose keys satisfy the given predicate. These removals are not counted as evictions.
+     *
+     * @param filter the predicate.
+     */
+    public void removeIf(Predicate<? super K> filter) {
+        for (Shard<K, V> shard : this.shards) {
+            synchronized (shard) {
+                Iterator<Map.Entry<K, Weighted<V>>> it = shard.map.entrySet().iterator();
+                while (it.hasNext()) {
+                    Map.Entry<K, Weighted<V>> e = it.next();
+                    if (filter.test(e.getKey())) {
+                        shard.weight -= e.getValue().weight;
+                        it.remove();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all entries and resets the statistics.
+     */
+    public void clear() {
+        for (Shard<K, V> shard : this.shards) {
+            synchronized (shard) {
+                shard.map.clear();
+                shard.weight = 0;
+            }
+        }
+
+        this.hits.reset();
+        this.misses.reset();
+        this.evictions.reset();
+    }
+
+    /**
+     * Returns a snapshot of the cache statistics. Counts taken while other threads are using the cache are
+     * approximate.
+     *
+     * @return the statistics.
+     */
+    public Stats getStats() {
+        int size = 0;
+        long weight = 0;
+
+        for (Shard<K, V> shard : this.shards) {
+            synchronized (shard) {
+                size += shard.map.size();
+                weight += shard.weight;
+            }
+        }
+
+        return new Stats(this.hits.sum(), this.misses.sum(), this.evictions.sum(), size, weight);
+    }
+
+    private Shard<K, V> shardFor(K key) {
+        int h = key.hashCode();
+        return this.shards[(h ^ (h >>> 16)) & this.mask];
+    }
+
+    /**
+     * Cache statistics.
+     *
+     * @param hits      the number of lookups that found a value.
+     * @param misses    the number of lookups that did not.
+     * @param evictions the number of entries evicted to stay within the weight budget.
+     * @param size      the number of entries.
+     * @param weight    the total weight of the entries.
+     */
+    public record Stats(long hits, long misses, long evictions, int size, long weight) {
+
+        /**
+         * Returns the fraction of lookups that found a value, or 0 if there have been none.
+         *
+         * @return the hit rate.
+         */
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0 : hits / (double) lookups;
+        }
+    }
+
+    private record Weighted<V>(V value, long weight) {
+    }
+
+    private static final class Shard<K, V> {
+        final LinkedHashMap<K, Weighted<V>> map = new LinkedHashMap<>(16, 0.75f, true);
+        long weight;
+    }
+}
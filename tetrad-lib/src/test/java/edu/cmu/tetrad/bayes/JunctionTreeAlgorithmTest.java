@@ -24,6 +24,7 @@ import edu.cmu.tetrad.data.DataModel;
 import edu.cmu.tetrad.data.DataSet;
 import edu.cmu.tetrad.graph.*;
 import edu.cmu.tetrad.util.DataConvertUtils;
+import edu.cmu.tetrad.util.RandomUtil;
 import edu.pitt.dbmi.data.reader.Data;
 import edu.pitt.dbmi.data.reader.Delimiter;
 import edu.pitt.dbmi.data.reader.tabular.VerticalDiscreteTabularDatasetFileReader;
@@ -185,6 +186,118 @@ public class JunctionTreeAlgorithmTest {
         }
     }
 
+    /**
+     * Checks the batch methods, with each triangulation, against probabilities found by summing over all states.
+     */
+    @Test
+    public void testBatchInference() {
+        RandomUtil.getInstance().setSeed(38472934L);
+        Graph dag = RandomGraph.randomGraph(10, 0, 14, 100, 100, 100, false);
+        BayesIm bayesIm = new MlBayesIm(new BayesPm(dag, 2, 3), MlBayesIm.InitializationMethod.RANDOM);
+
+        int target = 0;
+        int[] evidence = {3, 6, 9};
+        int[][] cases = new int[20][evidence.length];
+        for (int[] values : cases) {
+            for (int i = 0; i < evidence.length; i++) {
+                values[i] = RandomUtil.getInstance().nextInt(bayesIm.getNumColumns(evidence[i]));
+            }
+        }
+
+        for (JunctionTreeAlgorithm.Triangulation triangulation : JunctionTreeAlgorithm.Triangulation.values()) {
+            JunctionTreeAlgorithm jta = new JunctionTreeAlgorithm(bayesIm, triangulation);
+            jta.setNumThreads(4);
+
+            double[][] condProbs = jta.getConditionalProbabilities(target, evidence, cases);
+            double[] jointProbs = jta.getJointProbabilities(evidence, cases);
+
+            for (int c = 0; c < cases.length; c++) {
+                double[] expected = new double[bayesIm.getNumColumns(target)];
+                for (int value = 0; value < expected.length; value++) {
+                    int[] nodes = Arrays.copyOf(evidence, evidence.length + 1);
+                    int[] values = Arrays.copyOf(cases[c], evidence.length + 1);
+                    nodes[evidence.length] = target;
+                    values[evidence.length] = value;
+                    expected[value] = bruteForceProbability(bayesIm, nodes, values);
+                }
+                double joint = Arrays.stream(expected).sum();
+                for (int value = 0; value < expected.length; value++) {
+                    expected[value] /= joint;
+                }
+
+                Assert.assertArrayEquals(expected, condProbs[c], 1e-10);
+                Assert.assertEquals(joint, jointProbs[c], 1e-10);
+            }
+        }
+    }
+
+    /**
+     * Checks that evidence set on the tree before the first batch call does not affect the batch methods.
+     */
+    @Test
+    public void testBatchInferenceIgnoresEvidence() {
+        RandomUtil.getInstance().setSeed(38472934L);
+        Graph dag = RandomGraph.randomGraph(10, 0, 14, 100, 100, 100, false);
+        BayesIm bayesIm = new MlBayesIm(new BayesPm(dag, 2, 3), MlBayesIm.InitializationMethod.RANDOM);
+
+        int target = 0;
+        int[] evidence = {3, 6, 9};
+        int[][] cases = new int[20][evidence.length];
+        for (int[] values : cases) {
+            for (int i = 0; i < evidence.length; i++) {
+                values[i] = RandomUtil.getInstance().nextInt(bayesIm.getNumColumns(evidence[i]));
+            }
+        }
+
+        JunctionTreeAlgorithm expected = new JunctionTreeAlgorithm(bayesIm);
+        JunctionTreeAlgorithm jta = new JunctionTreeAlgorithm(bayesIm);
+        jta.setEvidence(5, 0);
+
+        double[][] expectedCondProbs = expected.getConditionalProbabilities(target, evidence, cases);
+        double[][] condProbs = jta.getConditionalProbabilities(target, evidence, cases);
+
+        for (int c = 0; c < cases.length; c++) {
+            Assert.assertArrayEquals(expectedCondProbs[c], condProbs[c], 0.0);
+        }
+
+        Assert.assertArrayEquals(expected.getJointProbabilities(evidence, cases),
+                jta.getJointProbabilities(evidence, cases), 0.0);
+    }
+
+    private static double bruteForceProbability(BayesIm bayesIm, int[] nodes, int[] values) {
+        int numNodes = bayesIm.getNumNodes();
+        int[] state = new int[numNodes];
+        double sum = 0;
+
+        while (true) {
+            boolean matches = true;
+            for (int i = 0; i < nodes.length; i++) {
+                matches &= state[nodes[i]] == values[i];
+            }
+
+            if (matches) {
+                double prob = 1;
+                for (int node = 0; node < numNodes; node++) {
+                    int[] parents = bayesIm.getParents(node);
+                    int[] parentValues = new int[parents.length];
+                    for (int j = 0; j < parents.length; j++) {
+                        parentValues[j] = state[parents[j]];
+                    }
+                    prob *= bayesIm.getProbability(node, bayesIm.getRowIndex(node, parentValues), state[node]);
+                }
+                sum += prob;
+            }
+
+            int j = numNodes - 1;
+            while (j >= 0 && ++state[j] == bayesIm.getNumColumns(j)) {
+                state[j--] = 0;
+            }
+            if (j < 0) {
+                return sum;
+            }
+        }
+    }
+
     private JunctionTreeAlgorithm getJunctionTreeAlgorithm(String graphFile, String dataFile) throws IOException {
         Graph graph = readInGraph(Paths.get(graphFile));
         DataModel dataModel = readInDiscreteData(Paths.get(dataFile));
@@ -0,0 +1,100 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+//                                                                           //
+// Copyright (C) 2025 by Joseph Ramsey, Peter Spirtes, Clark Glymour,        //
+// and Richard Scheines.                                                     //
+//                                                                           //
+// This program is free software: you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation, either version 3 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.    //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.data.*;
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.search.utils.Embedding;
+import edu.cmu.tetrad.util.Matrix;
+import edu.cmu.tetrad.util.RandomUtil;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that BlockCovarianceStore agrees with CovarianceMatrix on embedded mixed data.
+ *
+ * @author josephramsey
+ */
+public final class TestBlockCovarianceStore {
+
+    @Test
+    public void testAgreesWithCovarianceMatrix() {
+        RandomUtil.getInstance().setSeed(28383833L);
+        RandomUtil random = RandomUtil.getInstance();
+
+        List<Node> variables = new ArrayList<>();
+        variables.add(new DiscreteVariable("A", 4));
+        variables.add(new ContinuousVariable("X"));
+        variables.add(new DiscreteVariable("B", 3));
+        variables.add(new ContinuousVariable("Y"));
+
+        int n = 300;
+        DataSet data = new BoxDataSet(new MixedDataBox(variables, n), variables);
+
+        for (int i = 0; i < n; i++) {
+            int a = random.nextInt(4);
+            data.setInt(i, 0, a);
+            data.setDouble(i, 1, a + random.nextGaussian(0, 1));
+            data.setInt(i, 2, data.getDouble(i, 1) > 1 ? random.nextInt(3) : 0);
+            data.setDouble(i, 3, data.getInt(i, 2) - data.getDouble(i, 1) + random.nextGaussian(0, 1));
+        }
+
+        Embedding.EmbeddedData embedded = Embedding.getEmbeddedData(data, 1, 1, -1);
+        DataSet embeddedData = embedded.embeddedData();
+
+        List<List<Integer>> blocks = new ArrayList<>();
+        for (int j = 0; j < variables.size(); j++) blocks.add(embedded.embedding().get(j));
+
+        // A small cap, so that some blocks are computed on the fly.
+        BlockCovarianceStore store = new BlockCovarianceStore(embeddedData, blocks, 20);
+        CovarianceMatrix expected = new CovarianceMatrix(embeddedData);
+
+        int[] all = new int[embeddedData.getNumColumns()];
+        for (int j = 0; j < all.length; j++) all[j] = j;
+
+        Matrix selection = store.getSelection(all, all);
+
+        for (int i = 0; i < all.length; i++) {
+            for (int j = 0; j < all.length; j++) {
+                assertEquals(expected.getValue(i, j), selection.get(i, j), 1e-10);
+                assertEquals(expected.getValue(i, j), store.getValue(i, j), 1e-10);
+            }
+        }
+
+        // An effective sample size changes the reported sample size but not the covariances, and only in the copy.
+        BlockCovarianceStore copy = (BlockCovarianceStore) store.copy();
+        copy.setSampleSize(n / 3);
+        assertEquals(n / 3, copy.getSampleSize());
+        assertEquals(n, store.getSampleSize());
+
+        Matrix copySelection = copy.getSelection(all, all);
+
+        for (int i = 0; i < all.length; i++) {
+            for (int j = 0; j < all.length; j++) {
+                assertEquals(expected.getValue(i, j), copySelection.get(i, j), 1e-10);
+            }
+        }
+    }
+}
@@ -36,11 +36,14 @@ import edu.cmu.tetrad.sem.SemPm;
 import edu.cmu.tetrad.util.NumberFormatUtil;
 import edu.cmu.tetrad.util.Parameters;
 import edu.cmu.tetrad.util.Params;
+import edu.cmu.tetrad.util.RandomUtil;
+import edu.cmu.tetrad.util.UniformityTest;
 import org.junit.Test;
 
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.List;
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 
 public class TestCheckMarkov {
 
@@ -690,5 +693,82 @@ public class TestCheckMarkov {
         System.out.println("Accepts size: " + accepts.size());
         System.out.println("Rejects size: " + rejects.size());
     }
-}
 
+    /**
+     * Tests that an incremental Markov check gives the same results as a fresh one after an edge is removed, and that
+     * only the child of the removed edge has changed facts.
+     */
+    @Test
+    public void testIncremental() {
+        RandomUtil.getInstance().setSeed(28374622L);
+
+        Graph dag = RandomGraph.randomDag(15, 0, 20, 100, 100, 100, false);
+        DataSet data = new SemIm(new SemPm(dag)).simulateData(500, false);
+        IndependenceTest test = new IndTestFisherZ(data, 0.05);
+
+        MarkovCheck incremental = new MarkovCheck(dag, test, ConditioningSetType.LOCAL_MARKOV);
+        incremental.setIncremental(true);
+        incremental.generateAllResults();
+
+        Edge edge = dag.getEdges().iterator().next();
+        Graph revised = new EdgeListGraph(dag);
+        revised.removeEdge(edge);
+
+        incremental.setGraph(revised);
+        incremental.generateAllResults();
+
+        Node child = test.getVariable(Edges.getDirectedEdgeHead(edge).getName());
+        assertEquals(Collections.singleton(child), incremental.getChangedNodes());
+
+        // Incremental mode sorts the rows of each test, so compare with a fresh check in the same mode.
+        MarkovCheck fresh = new MarkovCheck(revised, test, ConditioningSetType.LOCAL_MARKOV);
+        fresh.setIncremental(true);
+        fresh.generateAllResults();
+
+        for (boolean indep : new boolean[]{true, false}) {
+            assertEquals(pValues(fresh.getResults(indep)), pValues(incremental.getResults(indep)));
+            assertEquals(fresh.getAndersonDarlingP(indep), incremental.getAndersonDarlingP(indep), 1e-12);
+            assertEquals(fresh.getKsPValue(indep), incremental.getKsPValue(indep), 1e-12);
+            assertEquals(fresh.getFisherCombinedP(indep), incremental.getFisherCombinedP(indep), 1e-12);
+            assertEquals(fresh.getFractionDependent(indep), incremental.getFractionDependent(indep), 0.0);
+        }
+    }
+
+    /**
+     * Tests that, with a resampling fraction below 1, an incremental Markov check doesn't reuse results taken on the
+     * last run's subsamples.
+     */
+    @Test
+    public void testIncrementalResamplesEachRun() {
+        RandomUtil.getInstance().setSeed(49382716L);
+
+        Graph dag = RandomGraph.randomDag(10, 0, 12, 100, 100, 100, false);
+        DataSet data = new SemIm(new SemPm(dag)).simulateData(500, false);
+        IndependenceTest test = new IndTestFisherZ(data, 0.05);
+
+        MarkovCheck incremental = new MarkovCheck(dag, test, ConditioningSetType.LOCAL_MARKOV);
+        incremental.setIncremental(true);
+        incremental.setFractionResample(0.5);
+        incremental.generateAllResults();
+        Map<IndependenceFact, Double> first = pValues(incremental.getResults(true));
+
+        incremental.generateAllResults();
+        Map<IndependenceFact, Double> second = pValues(incremental.getResults(true));
+
+        assertEquals(first.keySet(), second.keySet());
+
+        for (IndependenceFact fact : first.keySet()) {
+            assertNotEquals(first.get(fact), second.get(fact));
+        }
+
+        List<Double> sorted = new ArrayList<>(second.values());
+        Collections.sort(sorted);
+        assertEquals(UniformityTest.getKsPValue(sorted, 0, 1), incremental.getKsPValue(true), 1e-12);
+    }
+
+    private static Map<IndependenceFact, Double> pValues(List<IndependenceResult> results) {
+        Map<IndependenceFact, Double> pValues = new HashMap<>();
+        for (IndependenceResult result : results) pValues.put(result.getFact(), result.getPValue());
+        return pValues;
+    }
+}
@@ -0,0 +1,110 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+//                                                                           //
+// Copyright (C) 2025 by Joseph Ramsey, Peter Spirtes, Clark Glymour,        //
+// and Richard Scheines.                                                     //
+//                                                                           //
+// This program is free software: you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation, either version 3 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.    //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.graph.RandomGraph;
+import edu.cmu.tetrad.search.Boss;
+import edu.cmu.tetrad.search.PermutationSearch;
+import edu.cmu.tetrad.search.score.SemBicScore;
+import edu.cmu.tetrad.search.utils.ConcurrentGrowShrinkTree;
+import edu.cmu.tetrad.search.utils.GrowShrinkTree;
+import edu.cmu.tetrad.sem.SemIm;
+import edu.cmu.tetrad.sem.SemPm;
+import edu.cmu.tetrad.util.RandomUtil;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that ConcurrentGrowShrinkTree traces the same parents and scores as GrowShrinkTree, when shared by several
+ * threads and when its cache is pruned.
+ *
+ * @author josephramsey
+ */
+public final class TestConcurrentGrowShrinkTree {
+
+    @Test
+    public void testAgreesWithGrowShrinkTree() {
+        RandomUtil.getInstance().setSeed(49382734L);
+        Graph graph = RandomGraph.randomGraph(12, 0, 20, 100, 100, 100, false);
+        DataSet data = new SemIm(new SemPm(graph)).simulateData(1000, false);
+        SemBicScore score = new SemBicScore(data, true);
+
+        List<Node> variables = score.getVariables();
+        Map<Node, Integer> index = new HashMap<>();
+        for (int i = 0; i < variables.size(); i++) index.put(variables.get(i), i);
+        Set<Node> all = new HashSet<>(variables);
+
+        List<List<Node>> orders = new ArrayList<>();
+        for (int k = 0; k < 40; k++) {
+            List<Node> order = new ArrayList<>(variables);
+            RandomUtil.shuffle(order);
+            orders.add(order);
+        }
+
+        for (Node node : variables) {
+            GrowShrinkTree expected = new GrowShrinkTree(score, index, node);
+            ConcurrentGrowShrinkTree shared = new ConcurrentGrowShrinkTree(score, index, node);
+            ConcurrentGrowShrinkTree capped = new ConcurrentGrowShrinkTree(score, index, node, 5);
+
+            IntStream.range(0, orders.size()).parallel().forEach(k -> {
+                List<Node> order = orders.get(k);
+                Set<Node> prefix = new HashSet<>(order.subList(0, order.indexOf(node)));
+
+                Set<Node> parents = new HashSet<>();
+                double s;
+                synchronized (expected) {
+                    s = expected.trace(prefix, all, parents);
+                }
+
+                Set<Node> parents2 = new HashSet<>();
+                assertEquals(s, shared.trace(prefix, all, parents2), 1e-10);
+                assertEquals(parents, parents2);
+
+                Set<Node> parents3 = new HashSet<>();
+                assertEquals(s, capped.trace(prefix, all, parents3), 1e-10);
+                assertEquals(parents, parents3);
+            });
+
+            assertTrue(capped.getNumBranches() <= shared.getNumBranches());
+        }
+    }
+
+    @Test
+    public void testConcurrentTreesInPermutationSearch() throws InterruptedException {
+        RandomUtil.getInstance().setSeed(49382734L);
+        Graph graph = RandomGraph.randomGraph(12, 0, 20, 100, 100, 100, false);
+        DataSet data = new SemIm(new SemPm(graph)).simulateData(1000, false);
+
+        PermutationSearch expected = new PermutationSearch(new Boss(new SemBicScore(data, true)));
+        PermutationSearch concurrent = new PermutationSearch(new Boss(new SemBicScore(data, true)));
+        concurrent.setUseConcurrentTrees(true);
+
+        assertEquals(expected.search(), concurrent.search());
+    }
+}
@@ -0,0 +1,89 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+//                                                                           //
+// Copyright (C) 2025 by Joseph Ramsey, Peter Spirtes, Clark Glymour,        //
+// and Richard Scheines.                                                     //
+//                                                                           //
+// This program is free software: you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation, either version 3 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.    //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.RandomGraph;
+import edu.cmu.tetrad.search.Dagma;
+import edu.cmu.tetrad.search.utils.DagmaEngine;
+import edu.cmu.tetrad.sem.SemIm;
+import edu.cmu.tetrad.sem.SemPm;
+import edu.cmu.tetrad.util.RandomUtil;
+import org.ejml.data.DMatrixRMaj;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the DAGMA engine and its warm-started lambda path.
+ *
+ * @author josephramsey
+ */
+public final class TestDagma {
+
+    @Test
+    public void testFitDecreasesObjective() {
+        RandomUtil.getInstance().setSeed(49283948L);
+        DataSet data = simulate(6);
+
+        DagmaEngine engine = new DagmaEngine(data.getCorrelationMatrix().getSimpleMatrix().getDDRM());
+        engine.setIterations(2000, 5000);
+        double atZero = engine.objective(0.001, 0.7, 0.05);
+
+        DMatrixRMaj W = engine.fit(0.05);
+        assertTrue(engine.objective(0.001, 0.7, 0.05) < atZero);
+
+        for (int i = 0; i < W.getNumRows(); i++) {
+            assertEquals(0.0, W.get(i, i), 1e-3);
+        }
+
+        // Warm starting from the solution should not move far from it.
+        DMatrixRMaj W2 = engine.fit(0.05);
+        for (int k = 0; k < W.getNumElements(); k++) {
+            assertEquals(W.get(k), W2.get(k), 0.05);
+        }
+    }
+
+    @Test
+    public void testSearchPathIsAcyclic() {
+        RandomUtil.getInstance().setSeed(39482938L);
+        DataSet data = simulate(5);
+
+        Dagma dagma = new Dagma(data);
+        dagma.setCpdag(false);
+        List<Graph> graphs = dagma.searchPath(new double[]{0.2, 0.1, 0.05});
+
+        assertEquals(3, graphs.size());
+
+        for (Graph graph : graphs) {
+            assertFalse(graph.paths().existsDirectedCycle());
+        }
+    }
+
+    private static DataSet simulate(int numNodes) {
+        Graph graph = RandomGraph.randomGraph(numNodes, 0, numNodes, 100, 100, 100, false);
+        SemIm im = new SemIm(new SemPm(graph));
+        return im.simulateData(1000, false);
+    }
+}
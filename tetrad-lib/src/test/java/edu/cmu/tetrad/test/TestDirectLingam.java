@@ -0,0 +1,79 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+//                                                                           //
+// Copyright (C) 2025 by Joseph Ramsey, Peter Spirtes, Clark Glymour,        //
+// and Richard Scheines.                                                     //
+//                                                                           //
+// This program is free software: you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation, either version 3 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.    //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.RandomGraph;
+import edu.cmu.tetrad.search.DirectLingam;
+import edu.cmu.tetrad.search.score.SemBicScore;
+import edu.cmu.tetrad.sem.SemIm;
+import edu.cmu.tetrad.sem.SemPm;
+import edu.cmu.tetrad.util.RandomUtil;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that the parallel pairwise measures in DirectLingam do not change its output.
+ *
+ * @author josephramsey
+ */
+public final class TestDirectLingam {
+
+    @Test
+    public void testThreadsDoNotChangeResult() {
+        RandomUtil.getInstance().setSeed(38482934L);
+        DataSet data = simulate(12, 500);
+
+        DirectLingam sequential = new DirectLingam(data, new SemBicScore(data, true));
+        sequential.setNumThreads(1);
+
+        DirectLingam parallel = new DirectLingam(data, new SemBicScore(data, true));
+        parallel.setNumThreads(4);
+
+        assertEquals(sequential.search(), parallel.search());
+    }
+
+    @Test
+    @Ignore // Benchmark.
+    public void benchmark200() {
+        RandomUtil.getInstance().setSeed(28372834L);
+        DataSet data = simulate(200, 1000);
+
+        for (int numThreads : new int[]{1, Runtime.getRuntime().availableProcessors()}) {
+            DirectLingam lingam = new DirectLingam(data, new SemBicScore(data, true));
+            lingam.setNumThreads(numThreads);
+
+            long start = System.currentTimeMillis();
+            lingam.search();
+            System.out.println("Threads = " + numThreads + " elapsed = "
+                               + (System.currentTimeMillis() - start) + " ms");
+        }
+    }
+
+    private static DataSet simulate(int numNodes, int sampleSize) {
+        Graph graph = RandomGraph.randomGraph(numNodes, 0, numNodes, 100, 100, 100, false);
+        SemIm im = new SemIm(new SemPm(graph));
+        return im.simulateData(sampleSize, false);
+    }
+}
@@ -0,0 +1,136 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+//                                                                           //
+// Copyright (C) 2025 by Joseph Ramsey, Peter Spirtes, Clark Glymour,        //
+// and Richard Scheines.                                                     //
+//                                                                           //
+// This program is free software: you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation, either version 3 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.    //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.search.FastIca;
+import edu.cmu.tetrad.search.utils.FastIcaCore;
+import edu.cmu.tetrad.util.Matrix;
+import edu.cmu.tetrad.util.RandomUtil;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests FastIcaCore against FastIca on mixtures of uniform sources.
+ *
+ * @author josephramsey
+ */
+public final class TestFastIcaCore {
+
+    @Test
+    public void testAgreesWithFastIca() {
+        assertAgrees(29348234L, FastIca.PARALLEL, FastIca.LOGCOSH);
+    }
+
+    @Test
+    public void testAgreesWithFastIcaDeflationExp() {
+        assertAgrees(83726154L, FastIca.DEFLATION, FastIca.EXP);
+    }
+
+    private static void assertAgrees(long seed, int algorithmType, int function) {
+        RandomUtil.getInstance().setSeed(seed);
+        Matrix X = mixtures(4, 2000);
+        Matrix wInit = identity(4);
+
+        FastIca ica = new FastIca(X.copy(), 4);
+        ica.setWInit(wInit);
+        ica.setAlgorithmType(algorithmType);
+        ica.setFunction(function);
+        ica.setTolerance(1e-8);
+        ica.setMaxIterations(1000);
+        Matrix expected = ica.findComponents().W();
+
+        FastIcaCore core = new FastIcaCore(X, 4);
+        core.setWInit(wInit);
+        core.setAlgorithmType(algorithmType);
+        core.setFunction(function);
+        core.setTolerance(1e-8);
+        core.setMaxIterations(1000);
+        core.setNumThreads(3);
+        Matrix actual = core.findComponents().W();
+
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j < 4; j++) {
+                assertEquals(expected.get(i, j), actual.get(i, j), 1e-5);
+            }
+        }
+    }
+
+    @Test
+    public void testSinglePrecisionAndDeflation() {
+        RandomUtil.getInstance().setSeed(48234923L);
+        Matrix X = mixtures(3, 2000);
+
+        FastIcaCore parallel = new FastIcaCore(X, 3);
+        parallel.setWInit(identity(3));
+        Matrix S = parallel.findComponents().S();
+
+        FastIcaCore deflation = new FastIcaCore(X, 3);
+        deflation.setWInit(identity(3));
+        deflation.setAlgorithmType(FastIca.DEFLATION);
+        deflation.setSinglePrecision(true);
+        Matrix S2 = deflation.findComponents().S();
+
+        // Each recovered source should match one from the other run, up to sign and order.
+        for (int i = 0; i < 3; i++) {
+            double best = 0.0;
+            for (int j = 0; j < 3; j++) best = Math.max(best, Math.abs(correlation(S.row(i).toArray(), S2.row(j).toArray())));
+            assertTrue(best > 0.99);
+        }
+    }
+
+    private static Matrix mixtures(int p, int n) {
+        RandomUtil random = RandomUtil.getInstance();
+        Matrix sources = new Matrix(p, n);
+        for (int i = 0; i < p; i++) for (int j = 0; j < n; j++) sources.set(i, j, random.nextUniform(-1, 1));
+
+        Matrix A = new Matrix(p, p);
+        for (int i = 0; i < p; i++) for (int j = 0; j < p; j++) A.set(i, j, (i == j ? 1 : 0) + random.nextUniform(-0.5, 0.5));
+
+        return A.times(sources);
+    }
+
+    private static Matrix identity(int p) {
+        Matrix I = new Matrix(p, p);
+        for (int i = 0; i < p; i++) I.set(i, i, 1);
+        return I;
+    }
+
+    private static double correlation(double[] x, double[] y) {
+        double mx = 0, my = 0;
+        for (int j = 0; j < x.length; j++) {
+            mx += x[j];
+            my += y[j];
+        }
+        mx /= x.length;
+        my /= y.length;
+
+        double sxy = 0, sxx = 0, syy = 0;
+        for (int j = 0; j < x.length; j++) {
+            sxy += (x[j] - mx) * (y[j] - my);
+            sxx += (x[j] - mx) * (x[j] - mx);
+            syy += (y[j] - my) * (y[j] - my);
+        }
+
+        return sxy / Math.sqrt(sxx * syy);
+    }
+}
@@ -20,12 +20,15 @@
 
 package edu.cmu.tetrad.test;
 
-import edu.cmu.tetrad.graph.Dag;
-import edu.cmu.tetrad.graph.GraphNode;
-import edu.cmu.tetrad.graph.LayoutUtil;
+import edu.cmu.tetrad.graph.*;
+import edu.cmu.tetrad.util.PointXy;
 import org.junit.Test;
 
+import java.util.Map;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Tests to make sure the Fruchterman Reingold layout will run.
@@ -93,10 +96,52 @@ public final class TestFruchtermanReingoldLayout {
 
         assertEquals(dag, dag2);
     }
-}
 
+    @Test
+    public void testBarnesHutLayout() {
+        Graph graph = RandomGraph.randomGraph(300, 0, 400, 100, 100, 100, false);
+        Graph copy = new EdgeListGraph(graph);
+
+        for (boolean multilevel : new boolean[]{false, true}) {
+            LayoutUtil.BarnesHutLayout serial = new LayoutUtil.BarnesHutLayout(graph);
+            serial.setMultilevel(multilevel);
+            serial.setNumThreads(1);
+
+            LayoutUtil.BarnesHutLayout parallel = new LayoutUtil.BarnesHutLayout(graph);
+            parallel.setMultilevel(multilevel);
+            parallel.setNumThreads(4);
+
+            Map<Node, PointXy> positions = serial.computeLayout();
 
+            // Each node sums its own forces, so the thread count does not change the result.
+            assertEquals(positions, parallel.computeLayout());
+            assertEquals(graph.getNumNodes(), positions.size());
 
+            for (PointXy point : positions.values()) {
+                assertTrue(point.getX() >= 0 && point.getY() >= 0);
+            }
+        }
 
+        LayoutUtil.barnesHutLayout(graph, true);
+        assertEquals(copy, graph);
+    }
+
+    /**
+     * The Barnes-Hut layout works on a copy of the graph taken when it is constructed, so edits made while it runs on
+     * another thread don't reach it.
+     */
+    @Test
+    public void testBarnesHutLayoutCopiesGraph() {
+        Graph graph = RandomGraph.randomGraph(20, 0, 25, 100, 100, 100, false);
+        LayoutUtil.BarnesHutLayout layout = new LayoutUtil.BarnesHutLayout(graph);
 
+        Node added = new GraphNode("Added");
+        graph.addNode(added);
+        graph.removeNode(graph.getNodes().getFirst());
 
+        Map<Node, PointXy> positions = layout.computeLayout();
+
+        assertEquals(20, positions.size());
+        assertFalse(positions.containsKey(added));
+    }
+}
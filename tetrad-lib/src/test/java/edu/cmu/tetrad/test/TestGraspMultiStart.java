@@ -0,0 +1,137 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+//                                                                           //
+// Copyright (C) 2025 by Joseph Ramsey, Peter Spirtes, Clark Glymour,        //
+// and Richard Scheines.                                                     //
+//                                                                           //
+// This program is free software: you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation, either version 3 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.    //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.graph.RandomGraph;
+import edu.cmu.tetrad.search.Grasp;
+import edu.cmu.tetrad.search.score.SemBicScore;
+import edu.cmu.tetrad.sem.SemIm;
+import edu.cmu.tetrad.sem.SemPm;
+import edu.cmu.tetrad.util.RandomUtil;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that GRaSP restarts run concurrently give the same result as restarts run one after another.
+ *
+ * @author josephramsey
+ */
+public final class TestGraspMultiStart {
+
+    @Test
+    public void testThreadsDoNotChangeResult() throws InterruptedException {
+        RandomUtil.getInstance().setSeed(92838472L);
+        Graph graph = RandomGraph.randomGraph(15, 0, 25, 100, 100, 100, false);
+        DataSet data = new SemIm(new SemPm(graph)).simulateData(1000, false);
+        SemBicScore score = new SemBicScore(data, true);
+
+        List<Node> sequential = run(score, 1, false);
+        List<Node> concurrent = run(score, 4, false);
+
+        assertEquals(sequential, concurrent);
+    }
+
+    @Test
+    public void testThreadsDoNotChangeResultWithInternalRandomness() throws InterruptedException {
+        RandomUtil.getInstance().setSeed(28374651L);
+        Graph graph = RandomGraph.randomGraph(15, 0, 25, 100, 100, 100, false);
+        DataSet data = new SemIm(new SemPm(graph)).simulateData(1000, false);
+        SemBicScore score = new SemBicScore(data, true);
+
+        List<Node> sequential = run(score, 1, true);
+        List<Node> concurrent = run(score, 4, true);
+
+        assertEquals(sequential, concurrent);
+    }
+
+    @Test
+    public void testTimeoutReturnsBestSoFar() throws InterruptedException {
+        RandomUtil.getInstance().setSeed(39283743L);
+        Graph graph = RandomGraph.randomGraph(20, 0, 40, 100, 100, 100, false);
+        DataSet data = new SemIm(new SemPm(graph)).simulateData(1000, false);
+        SemBicScore score = new SemBicScore(data, true);
+
+        // Without a timeout, all starts run to the end.
+        long start = System.nanoTime();
+        newGrasp(score, -1).bestOrder(score.getVariables());
+        long untimed = System.nanoTime() - start;
+
+        Grasp grasp = newGrasp(score, 5);
+        start = System.nanoTime();
+        List<Node> order = grasp.bestOrder(score.getVariables());
+        long timed = System.nanoTime() - start;
+
+        assertNotNull(order);
+        assertEquals(new HashSet<>(score.getVariables()), new HashSet<>(order));
+        assertTrue("The timeout did not stop the restarts early", timed < untimed / 2);
+
+        Graph best = grasp.getBestGraphSoFar(true);
+        assertNotNull(best);
+        assertEquals(new HashSet<>(grasp.getGraph(true).getEdges()), new HashSet<>(best.getEdges()));
+    }
+
+    @Test
+    public void testFailedRestartIsReported() {
+        RandomUtil.getInstance().setSeed(48372615L);
+        Graph graph = RandomGraph.randomGraph(10, 0, 15, 100, 100, 100, false);
+        DataSet data = new SemIm(new SemPm(graph)).simulateData(1000, false);
+
+        // Scoring a node with parents fails, which only happens inside the restarts.
+        SemBicScore score = new SemBicScore(data, true) {
+            @Override
+            public double localScore(int i, int... parents) {
+                if (parents.length > 0) throw new IllegalArgumentException("Failed to score.");
+                return super.localScore(i, parents);
+            }
+        };
+
+        Grasp grasp = newGrasp(score, -1);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> grasp.bestOrder(score.getVariables()));
+        assertEquals("Failed to score.", e.getMessage());
+    }
+
+    private static Grasp newGrasp(SemBicScore score, long timeout) {
+        Grasp grasp = new Grasp(score);
+        grasp.setSeed(1234L);
+        grasp.setNumStarts(8);
+        grasp.setNumThreads(2);
+        grasp.setTimeout(timeout);
+        return grasp;
+    }
+
+    private static List<Node> run(SemBicScore score, int numThreads, boolean internalRandomness)
+            throws InterruptedException {
+        Grasp grasp = new Grasp(score);
+        grasp.setSeed(8472834L);
+        grasp.setAllowInternalRandomness(internalRandomness);
+        grasp.setNumStarts(6);
+        grasp.setNumThreads(numThreads);
+        return grasp.bestOrder(score.getVariables());
+    }
+}
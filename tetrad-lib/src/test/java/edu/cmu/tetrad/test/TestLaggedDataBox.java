@@ -0,0 +1,110 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+//                                                                           //
+// Copyright (C) 2025 by Joseph Ramsey, Peter Spirtes, Clark Glymour,        //
+// and Richard Scheines.                                                     //
+//                                                                           //
+// This program is free software: you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation, either version 3 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.    //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.data.*;
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.search.utils.TsUtils;
+import edu.cmu.tetrad.util.Matrix;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the lagged data view against the materialized lagged data.
+ *
+ * @author josephramsey
+ */
+public final class TestLaggedDataBox {
+
+    private static DataSet series(int n, long seed) {
+        List<Node> variables = new ArrayList<>();
+        for (int j = 0; j < 3; j++) variables.add(new ContinuousVariable("X" + (j + 1)));
+
+        Random random = new Random(seed);
+        double[][] data = new double[variables.size()][n];
+
+        for (int t = 0; t < n; t++) {
+            for (int j = 0; j < variables.size(); j++) {
+                double previous = t > 0 ? 0.6 * data[j][t - 1] : 0.0;
+                double parent = j > 0 ? 0.4 * data[j - 1][t] : 0.0;
+                data[j][t] = 3.0 + previous + parent + random.nextGaussian();
+            }
+        }
+
+        return new BoxDataSet(new VerticalDoubleDataBox(data), variables);
+    }
+
+    @Test
+    public void testViewMatchesCopy() {
+        DataSet series = series(200, 1);
+        DataSet copy = TsUtils.createLagData(series, 3);
+        DataSet view = TsUtils.createLagDataView(series, 3);
+
+        assertEquals(copy.getNumRows(), view.getNumRows());
+        assertEquals(copy.getNumColumns(), view.getNumColumns());
+
+        for (int j = 0; j < copy.getNumColumns(); j++) {
+            assertEquals(copy.getVariable(j).getName(), view.getVariable(j).getName());
+
+            for (int i = 0; i < copy.getNumRows(); i++) {
+                assertEquals(copy.getDouble(i, j), view.getDouble(i, j), 0.0);
+            }
+        }
+
+        assertEquals(copy.getKnowledge().getNumTiers(), view.getKnowledge().getNumTiers());
+    }
+
+    @Test
+    public void testCovariances() {
+        DataSet series = series(500, 2);
+        Matrix expected = new CovarianceMatrix(TsUtils.createLagData(series, 4)).getMatrix();
+        DataSet view = TsUtils.createLagDataView(series, 4);
+
+        assertTrue(((BoxDataSet) view).getDataBox() instanceof LaggedDataBox);
+
+        Matrix actual = new CovarianceMatrix(view).getMatrix();
+
+        for (int i = 0; i < expected.getNumRows(); i++) {
+            for (int j = 0; j < expected.getNumColumns(); j++) {
+                assertEquals(expected.get(i, j), actual.get(i, j), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void testWriteThrough() {
+        DataSet series = series(50, 3);
+        DataSet view = TsUtils.createLagDataView(series, 2);
+
+        // Row 1 of lag 1 is time 2, as are row 0 of lag 0 and row 2 of lag 2.
+        view.setDouble(1, 3, 42.0);
+
+        assertEquals(42.0, series.getDouble(2, 0), 0.0);
+        assertEquals(42.0, view.getDouble(0, 0), 0.0);
+        assertEquals(42.0, view.getDouble(2, 6), 0.0);
+    }
+}
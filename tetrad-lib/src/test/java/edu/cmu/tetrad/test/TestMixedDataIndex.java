@@ -0,0 +1,158 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+//                                                                           //
+// Copyright (C) 2025 by Joseph Ramsey, Peter Spirtes, Clark Glymour,        //
+// and Richard Scheines.                                                     //
+//                                                                           //
+// This program is free software: you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation, either version 3 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.    //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.data.*;
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.search.score.MixedDataIndex;
+import edu.cmu.tetrad.util.Matrix;
+import edu.cmu.tetrad.util.RandomUtil;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests MixedDataIndex against direct partitioning by hashed keys and direct covariance computation.
+ *
+ * @author josephramsey
+ */
+public final class TestMixedDataIndex {
+
+    @Test
+    public void testPartitionMatchesHashing() {
+        RandomUtil.getInstance().setSeed(3929293L);
+        DataSet data = mixedData(500);
+        MixedDataIndex index = new MixedDataIndex(data, continuousColumns(data));
+
+        int[] discreteCols = {0, 1};
+        MixedDataIndex.Partition partition = index.partition(discreteCols);
+        List<List<Integer>> expected = hashPartition(data, discreteCols, allRows(data));
+
+        assertEquals(expected.size(), partition.getNumCells());
+
+        for (int c = 0; c < expected.size(); c++) {
+            assertArrayEquals(toArray(expected.get(c)), partition.getRows(c));
+        }
+
+        // The same set of columns in another order gives the memoized partition.
+        assertEquals(partition, index.partition(new int[]{1, 0}));
+    }
+
+    @Test
+    public void testCovarianceMatchesSubsample() {
+        RandomUtil.getInstance().setSeed(3929294L);
+        DataSet data = mixedData(400);
+
+        int[] rows = new int[300];
+        for (int i = 0; i < rows.length; i++) rows[i] = i + 50;
+
+        MixedDataIndex index = new MixedDataIndex(data, continuousColumns(data)).withRows(rows);
+        MixedDataIndex.Partition partition = index.partition(new int[]{1});
+        int[] continuousCols = {2, 3};
+
+        for (int c = 0; c < partition.getNumCells(); c++) {
+            int[] cellRows = partition.getRows(c);
+            Matrix sub = new Matrix(cellRows.length, continuousCols.length);
+
+            for (int i = 0; i < cellRows.length; i++) {
+                for (int j = 0; j < continuousCols.length; j++) {
+                    sub.set(i, j, data.getDouble(cellRows[i], continuousCols[j]));
+                }
+            }
+
+            Matrix expected = DataUtils.cov(sub);
+            Matrix actual = partition.getCovariance(c, continuousCols);
+
+            for (int i = 0; i < continuousCols.length; i++) {
+                for (int j = 0; j < continuousCols.length; j++) {
+                    assertEquals(expected.get(i, j), actual.get(i, j), 1e-10);
+                }
+            }
+        }
+    }
+
+    private DataSet mixedData(int n) {
+        List<Node> variables = new ArrayList<>();
+        variables.add(new DiscreteVariable("A", 3));
+        variables.add(new DiscreteVariable("B", 4));
+        variables.add(new ContinuousVariable("X"));
+        variables.add(new ContinuousVariable("Y"));
+
+        DataSet data = new BoxDataSet(new MixedDataBox(variables, n), variables);
+        RandomUtil random = RandomUtil.getInstance();
+
+        for (int i = 0; i < n; i++) {
+            int a = random.nextInt(3);
+            int b = random.nextInt(4);
+            data.setInt(i, 0, a);
+            data.setInt(i, 1, b);
+            data.setDouble(i, 2, a + random.nextGaussian(0, 1));
+            data.setDouble(i, 3, b + 0.5 * data.getDouble(i, 2) + random.nextGaussian(0, 1));
+        }
+
+        return data;
+    }
+
+    private double[][] continuousColumns(DataSet data) {
+        double[][] columns = new double[data.getNumColumns()][];
+
+        for (int j = 0; j < data.getNumColumns(); j++) {
+            if (data.getVariable(j) instanceof ContinuousVariable) {
+                columns[j] = new double[data.getNumRows()];
+                for (int i = 0; i < data.getNumRows(); i++) columns[j][i] = data.getDouble(i, j);
+            }
+        }
+
+        return columns;
+    }
+
+    private List<Integer> allRows(DataSet data) {
+        List<Integer> rows = new ArrayList<>();
+        for (int i = 0; i < data.getNumRows(); i++) rows.add(i);
+        return rows;
+    }
+
+    private List<List<Integer>> hashPartition(DataSet data, int[] discreteCols, List<Integer> rows) {
+        List<List<Integer>> cells = new ArrayList<>();
+        Map<List<Integer>, Integer> keys = new HashMap<>();
+
+        for (int i : rows) {
+            List<Integer> key = new ArrayList<>();
+            for (int col : discreteCols) key.add(data.getInt(i, col));
+            keys.computeIfAbsent(key, k -> {
+                cells.add(new ArrayList<>());
+                return cells.size() - 1;
+            });
+            cells.get(keys.get(key)).add(i);
+        }
+
+        return cells;
+    }
+
+    private int[] toArray(List<Integer> list) {
+        int[] a = new int[list.size()];
+        for (int i = 0; i < a.length; i++) a[i] = list.get(i);
+        return a;
+    }
+}
@@ -0,0 +1,122 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+//                                                                           //
+// Copyright (C) 2025 by Joseph Ramsey, Peter Spirtes, Clark Glymour,        //
+// and Richard Scheines.                                                     //
+//                                                                           //
+// This program is free software: you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation, either version 3 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.    //
+///////////////////////////////////////////////////////////////////////////////
+
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.data.Knowledge;
+import edu.cmu.tetrad.graph.*;
+import edu.cmu.tetrad.search.Fci;
+import edu.cmu.tetrad.search.test.IndTestFisherZ;
+import edu.cmu.tetrad.search.test.IndependenceTest;
+import edu.cmu.tetrad.search.test.MsepTest;
+import edu.cmu.tetrad.search.utils.FciOrient;
+import edu.cmu.tetrad.search.utils.MeekRules;
+import edu.cmu.tetrad.search.utils.R0R4StrategyTestBased;
+import edu.cmu.tetrad.sem.SemIm;
+import edu.cmu.tetrad.sem.SemPm;
+import edu.cmu.tetrad.util.RandomUtil;
+import org.junit.Test;
+
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that applying the Meek and FCI orientation rules from a worklist gives the same graphs as applying them by
+ * sweeps over the whole graph.
+ *
+ * @author josephramsey
+ */
+public final class TestOrientationWorklist {
+
+    @Test
+    public void testMeekRules() {
+        RandomUtil.getInstance().setSeed(3829384L);
+
+        for (int run = 0; run < 10; run++) {
+            Graph dag = RandomGraph.randomGraph(40, 0, 60, 100, 100, 100, false);
+
+            Graph sweep = new EdgeListGraph(dag);
+            new MeekRules().orientImplied(sweep);
+
+            Graph worklist = new EdgeListGraph(dag);
+            MeekRules rules = new MeekRules();
+            rules.setUseWorklist(true);
+            rules.orientImplied(worklist);
+
+            assertEquals(new HashSet<>(sweep.getEdges()), new HashSet<>(worklist.getEdges()));
+            assertEquals(new HashSet<>(GraphTransforms.dagToCpdag(dag).getEdges()), new HashSet<>(worklist.getEdges()));
+        }
+    }
+
+    @Test
+    public void testFciOrient() {
+        RandomUtil.getInstance().setSeed(2938472L);
+
+        for (int run = 0; run < 10; run++) {
+            Graph dag = RandomGraph.randomGraph(25, 4, 40, 100, 100, 100, false);
+            Graph pag = GraphTransforms.dagToPag(dag, false);
+
+            Graph sweep = new EdgeListGraph(pag);
+            newFciOrient(dag, false).orient(sweep, new HashSet<>(), false);
+
+            Graph worklist = new EdgeListGraph(pag);
+            newFciOrient(dag, true).orient(worklist, new HashSet<>(), false);
+
+            assertEquals(new HashSet<>(sweep.getEdges()), new HashSet<>(worklist.getEdges()));
+        }
+    }
+
+    /**
+     * Orients the skeletons of PAGs estimated by FCI from simulated data, with a Fisher Z test on the same data, so
+     * that the rules see the unfaithful, possibly non-PAG patterns that sampling produces.
+     */
+    @Test
+    public void testFciOrientEstimated() throws InterruptedException {
+        RandomUtil.getInstance().setSeed(4827163L);
+
+        for (int run = 0; run < 5; run++) {
+            Graph dag = RandomGraph.randomGraph(20, 3, 30, 100, 100, 100, false);
+            DataSet data = new SemIm(new SemPm(dag)).simulateData(500, false);
+            IndependenceTest test = new IndTestFisherZ(data, 0.05);
+            Graph pag = new Fci(test).search();
+
+            Graph sweep = new EdgeListGraph(pag);
+            newFciOrient(test, false).orient(sweep, new HashSet<>(), false);
+
+            Graph worklist = new EdgeListGraph(pag);
+            newFciOrient(test, true).orient(worklist, new HashSet<>(), false);
+
+            assertEquals(new HashSet<>(sweep.getEdges()), new HashSet<>(worklist.getEdges()));
+        }
+    }
+
+    private static FciOrient newFciOrient(Graph dag, boolean useWorklist) {
+        return newFciOrient(new MsepTest(dag), useWorklist);
+    }
+
+    private static FciOrient newFciOrient(IndependenceTest test, boolean useWorklist) {
+        FciOrient fciOrient = new FciOrient(R0R4StrategyTestBased.defaultConfiguration(test, new Knowledge()));
+        fciOrient.setUseWorklist(useWorklist);
+        return fciOrient;
+    }
+}
@@ -0,0 +1,120 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+//                                                                           //
+// Copyright (C) 2025 by Joseph Ramsey, Peter Spirtes, Clark Glymour,        //
+// and Richard Scheines.                                                     //
+//                                                                           //
+// This program is free software: you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation, either version 3 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.    //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.bayes.BayesIm;
+import edu.cmu.tetrad.bayes.BayesPm;
+import edu.cmu.tetrad.bayes.EmBayesEstimator;
+import edu.cmu.tetrad.bayes.MlBayesIm;
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.graph.*;
+import edu.cmu.tetrad.search.unmix.GaussianMixtureEM;
+import edu.cmu.tetrad.util.RandomUtil;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the block-parallel EM passes in GaussianMixtureEM and EmBayesEstimator.
+ *
+ * @author josephramsey
+ */
+public final class TestParallelEm {
+
+    @Test
+    public void testGaussianMixtureThreads() {
+        Random random = new Random(42);
+        double[][] X = new double[5000][3];
+
+        for (int i = 0; i < X.length; i++) {
+            double shift = i % 2 == 0 ? -5 : 5;
+            for (int j = 0; j < 3; j++) X[i][j] = shift + random.nextGaussian();
+        }
+
+        for (GaussianMixtureEM.CovarianceType covType : GaussianMixtureEM.CovarianceType.values()) {
+            GaussianMixtureEM.Config cfg = new GaussianMixtureEM.Config();
+            cfg.K = 2;
+            cfg.covType = covType;
+            cfg.numThreads = 1;
+            GaussianMixtureEM.Model serial = GaussianMixtureEM.fit(X, cfg);
+
+            cfg.numThreads = 4;
+            GaussianMixtureEM.Model parallel = GaussianMixtureEM.fit(X, cfg);
+
+            assertEquals(serial.logLikelihood, parallel.logLikelihood, 1e-6 * Math.abs(serial.logLikelihood));
+            assertEquals(0.5, parallel.weights[0], 0.02);
+            assertEquals(10.0, Math.abs(parallel.means[0][0] - parallel.means[1][0]), 0.2);
+        }
+    }
+
+    @Test
+    public void testEmBayesEstimatorThreads() {
+        Node l = new GraphNode("L");
+        l.setNodeType(NodeType.LATENT);
+        Graph graph = new EdgeListGraph();
+        graph.addNode(l);
+
+        for (int i = 1; i <= 4; i++) {
+            Node x = new GraphNode("X" + i);
+            graph.addNode(x);
+            graph.addDirectedEdge(l, x);
+        }
+
+        BayesPm pm = new BayesPm(new Dag(graph), 2, 2);
+        RandomUtil.getInstance().setSeed(1234L);
+        BayesIm im = new MlBayesIm(pm, MlBayesIm.InitializationMethod.RANDOM);
+        DataSet data = im.simulateData(2000, false);
+
+        double[] logLikelihoods = new double[2];
+        int[] numThreads = {1, 4};
+        BayesIm start = null;
+
+        for (int t = 0; t < numThreads.length; t++) {
+            EmBayesEstimator estimator = new EmBayesEstimator(pm, data);
+
+            // The initial IM is partly random, so both runs start from the parameters of the first.
+            BayesIm estimatedIm = estimator.getEstimatedIm();
+            if (start == null) start = new MlBayesIm(estimatedIm);
+            for (int i = 0; i < estimatedIm.getNumNodes(); i++) {
+                for (int row = 0; row < estimatedIm.getNumRows(i); row++) {
+                    for (int col = 0; col < estimatedIm.getNumColumns(i); col++) {
+                        estimatedIm.setProbability(i, row, col, start.getProbability(i, row, col));
+                    }
+                }
+            }
+
+            estimator.setNumThreads(numThreads[t]);
+            estimator.setMaxIterations(1);
+            estimator.maximization(1e-6);
+            double initial = estimator.getLogLikelihood();
+
+            estimator.setMaxIterations(1000);
+            estimator.maximization(1e-6);
+            logLikelihoods[t] = estimator.getLogLikelihood();
+            assertTrue(logLikelihoods[t] > initial);
+        }
+
+        assertEquals(logLikelihoods[0], logLikelihoods[1], 1e-6 * Math.abs(logLikelihoods[0]));
+    }
+}
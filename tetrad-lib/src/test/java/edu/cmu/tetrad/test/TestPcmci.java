@@ -0,0 +1,145 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+//                                                                           //
+// Copyright (C) 2025 by Joseph Ramsey, Peter Spirtes, Clark Glymour,        //
+// and Richard Scheines.                                                     //
+//                                                                           //
+// This program is free software: you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation, either version 3 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.    //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.data.BoxDataSet;
+import edu.cmu.tetrad.data.ContinuousVariable;
+import edu.cmu.tetrad.data.DataModel;
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.data.VerticalDoubleDataBox;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.search.Pcmci;
+import edu.cmu.tetrad.search.test.IndTestFisherZ;
+import edu.cmu.tetrad.search.test.IndependenceResult;
+import edu.cmu.tetrad.search.test.IndependenceTest;
+import edu.cmu.tetrad.search.utils.TsUtils;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that PCMCI gives the same graph with one thread and with several, and that it reports an interrupted
+ * independence test the same way on both paths.
+ *
+ * @author josephramsey
+ */
+public final class TestPcmci {
+
+    /**
+     * A VAR(2) process over five variables: each depends on its own past and on lagged values of the one before it.
+     */
+    private static DataSet series(int n, long seed) {
+        List<Node> variables = new ArrayList<>();
+        for (int j = 0; j < 5; j++) variables.add(new ContinuousVariable("X" + (j + 1)));
+
+        Random random = new Random(seed);
+        double[][] data = new double[variables.size()][n];
+
+        for (int t = 0; t < n; t++) {
+            for (int j = 0; j < variables.size(); j++) {
+                double previous = t > 0 ? 0.5 * data[j][t - 1] : 0.0;
+                double parent = j > 0 && t > 1 ? 0.6 * data[j - 1][t - 1 - j % 2] : 0.0;
+                data[j][t] = previous + parent + random.nextGaussian();
+            }
+        }
+
+        return new BoxDataSet(new VerticalDoubleDataBox(data), variables);
+    }
+
+    private static Graph search(DataSet series, int maxLag, int numThreads, boolean collapseToLag0)
+            throws InterruptedException {
+        IndependenceTest test = new IndTestFisherZ(TsUtils.createLagDataView(series, maxLag), 0.01);
+        return new Pcmci.Builder(series, test).maxLag(maxLag).numThreads(numThreads)
+                .collapseToLag0(collapseToLag0).build().search();
+    }
+
+    @Test
+    public void testThreadsDoNotChangeGraph() throws InterruptedException {
+        DataSet series = series(1000, 8347261L);
+
+        for (boolean collapse : new boolean[]{false, true}) {
+            Graph sequential = search(series, 3, 1, collapse);
+            Graph parallel = search(series, 3, 4, collapse);
+
+            assertTrue(sequential.getNumEdges() > 0);
+            assertEquals(sequential, parallel);
+        }
+    }
+
+    @Test
+    public void testInterruptedTestIsRethrown() {
+        DataSet series = series(300, 2938475L);
+        DataSet lagged = TsUtils.createLagDataView(series, 2);
+
+        for (int numThreads : new int[]{1, 4}) {
+            IndependenceTest test = interruptedAfter(new IndTestFisherZ(lagged, 0.01), 20);
+            Pcmci pcmci = new Pcmci.Builder(series, test).maxLag(2).numThreads(numThreads).build();
+
+            try {
+                assertThrows(InterruptedException.class, pcmci::search);
+                assertTrue(Thread.currentThread().isInterrupted());
+            } finally {
+                Thread.interrupted();
+            }
+        }
+    }
+
+    /**
+     * Delegates to the given test, throwing an InterruptedException from the given call on.
+     */
+    private static IndependenceTest interruptedAfter(IndependenceTest test, int calls) {
+        AtomicInteger count = new AtomicInteger();
+
+        return new IndependenceTest() {
+            @Override
+            public IndependenceResult checkIndependence(Node x, Node y, Set<Node> z) throws InterruptedException {
+                if (count.incrementAndGet() >= calls) throw new InterruptedException();
+                return test.checkIndependence(x, y, z);
+            }
+
+            @Override
+            public List<Node> getVariables() {
+                return test.getVariables();
+            }
+
+            @Override
+            public DataModel getData() {
+                return test.getData();
+            }
+
+            @Override
+            public boolean isVerbose() {
+                return false;
+            }
+
+            @Override
+            public void setVerbose(boolean verbose) {
+            }
+        };
+    }
+}
@@ -0,0 +1,119 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+//                                                                           //
+// Copyright (C) 2025 by Joseph Ramsey, Peter Spirtes, Clark Glymour,        //
+// and Richard Scheines.                                                     //
+//                                                                           //
+// This program is free software: you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation, either version 3 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.    //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.data.*;
+import edu.cmu.tetrad.graph.Node;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests PooledCovariances and the concatenated data view against explicit concatenation.
+ *
+ * @author josephramsey
+ */
+public final class TestPooledCovariances {
+
+    private static List<DataSet> sites(List<Node> variables, long seed) {
+        Random random = new Random(seed);
+        List<DataSet> sites = new ArrayList<>();
+
+        for (int s = 0; s < 4; s++) {
+            int n = 50 + 30 * s;
+            double[][] data = new double[variables.size()][n];
+
+            for (int i = 0; i < n; i++) {
+                double common = random.nextGaussian();
+                for (int j = 0; j < variables.size(); j++) {
+                    data[j][i] = 10 * s + (j + 1) * common + (s + 1) * random.nextGaussian();
+                }
+            }
+
+            sites.add(new BoxDataSet(new VerticalDoubleDataBox(data), variables));
+        }
+
+        return sites;
+    }
+
+    private static void assertSameMatrix(ICovarianceMatrix expected, ICovarianceMatrix actual) {
+        assertEquals(expected.getSampleSize(), actual.getSampleSize());
+
+        for (int a = 0; a < expected.getDimension(); a++) {
+            for (int b = 0; b < expected.getDimension(); b++) {
+                assertEquals(expected.getValue(a, b), actual.getValue(a, b), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void testPooling() {
+        List<Node> variables = new ArrayList<>();
+        for (int j = 0; j < 4; j++) variables.add(new ContinuousVariable("X" + (j + 1)));
+        List<DataSet> sites = sites(variables, 17L);
+
+        assertSameMatrix(new CovarianceMatrix(DataTransforms.concatenate(sites)),
+                PooledCovariances.fromDataSets(sites, PooledCovariances.Pooling.CONCATENATED).getCovarianceMatrix());
+        assertSameMatrix(new CovarianceMatrix(DataTransforms.concatenate(DataTransforms.center(sites))),
+                PooledCovariances.fromDataSets(sites, PooledCovariances.Pooling.CENTERED).getCovarianceMatrix());
+        assertSameMatrix(new CovarianceMatrix(DataTransforms.concatenate(DataTransforms.standardizeData(sites))),
+                PooledCovariances.fromDataSets(sites, PooledCovariances.Pooling.STANDARDIZED).getCovarianceMatrix());
+    }
+
+    @Test
+    public void testAddRemove() {
+        List<Node> variables = new ArrayList<>();
+        for (int j = 0; j < 3; j++) variables.add(new ContinuousVariable("X" + (j + 1)));
+        List<DataSet> sites = sites(variables, 5L);
+
+        PooledCovariances pooled = new PooledCovariances(variables, PooledCovariances.Pooling.CONCATENATED);
+        for (DataSet site : sites) pooled.addDataSet(site);
+        assertTrue(pooled.removeDataSet(sites.get(1)));
+        assertEquals(3, pooled.getNumDataSets());
+
+        List<DataSet> remaining = new ArrayList<>(sites);
+        remaining.remove(1);
+        assertSameMatrix(new CovarianceMatrix(DataTransforms.concatenate(remaining)), pooled.getCovarianceMatrix());
+    }
+
+    @Test
+    public void testConcatenateView() {
+        List<Node> variables = new ArrayList<>();
+        for (int j = 0; j < 3; j++) variables.add(new ContinuousVariable("X" + (j + 1)));
+        List<DataSet> sites = sites(variables, 9L);
+
+        DataSet copy = DataTransforms.concatenate(sites);
+        DataSet view = DataTransforms.concatenateView(sites);
+
+        assertEquals(copy.getNumRows(), view.getNumRows());
+
+        for (int i = 0; i < copy.getNumRows(); i++) {
+            for (int j = 0; j < copy.getNumColumns(); j++) {
+                assertEquals(copy.getDouble(i, j), view.getDouble(i, j), 0.0);
+            }
+        }
+    }
+}
@@ -23,10 +23,12 @@ package edu.cmu.tetrad.test;
 import edu.cmu.tetrad.data.*;
 import edu.cmu.tetrad.graph.*;
 import edu.cmu.tetrad.sem.Ricf;
+import edu.cmu.tetrad.sem.RicfEngine;
 import edu.cmu.tetrad.sem.SemIm;
 import edu.cmu.tetrad.sem.SemPm;
 import edu.cmu.tetrad.util.Matrix;
 import edu.cmu.tetrad.util.NumberFormatUtil;
+import edu.cmu.tetrad.util.RandomUtil;
 import edu.pitt.dbmi.data.reader.Delimiter;
 import org.junit.Ignore;
 import org.junit.Test;
@@ -37,6 +39,9 @@ import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 /**
  * @author josephramsey
  */
@@ -332,8 +337,170 @@ public class TestRicf {
         new Ricf().ricf(new SemGraph(g1), cov, 0.001);
         new Ricf().ricf(new SemGraph(g2), cov, 0.001);
     }
-}
 
+    /**
+     * Checks RicfEngine against the fit from the ggm package in R documented for testRicf1, and checks that a warm
+     * start from the fit converges immediately to the same place.
+     */
+    @Test
+    public void testEngine() {
+        String[] varNames = {"y", "x", "z", "u"};
+        double[] values = {2.93, -1.7, 0.76, -0.06, -1.7, 1.64, -0.78, 0.1,
+                0.76, -0.78, 1.66, -0.78, -0.06, 0.1, -0.78, 0.81};
+        ICovarianceMatrix s = new CovarianceMatrix(DataUtils.createContinuousVariables(varNames),
+                matrix(values, 4, 4), 100);
+
+        Graph mag = new EdgeListGraph();
+        Node y = new ContinuousVariable("y");
+        Node x = new ContinuousVariable("x");
+        Node z = new ContinuousVariable("z");
+        Node u = new ContinuousVariable("u");
+        mag.addNode(y);
+        mag.addNode(x);
+        mag.addNode(z);
+        mag.addNode(u);
+        mag.addDirectedEdge(y, x);
+        mag.addBidirectedEdge(x, z);
+        mag.addDirectedEdge(u, z);
+
+        RicfEngine engine = new RicfEngine(s);
+        Ricf.RicfResult result = engine.fit(mag);
+
+        assertEquals(0.489565, result.getBhat().get(1, 0), 1e-5);
+        assertEquals(0.9188294, result.getBhat().get(2, 3), 1e-5);
+        assertEquals(0.6777235, result.getOhat().get(1, 1), 1e-5);
+        assertEquals(-0.3430373, result.getOhat().get(1, 2), 1e-5);
+        assertEquals(0.9104666, result.getOhat().get(2, 2), 1e-5);
+        assertEquals(2.93, result.getLhat().get(0, 0), 1e-5);
+        assertEquals(-1.434425, result.getShat().get(0, 1), 1e-5);
+        assertEquals(-0.7442518, result.getShat().get(2, 3), 1e-5);
+        assertEquals(4, result.getIterations());
+
+        Ricf.RicfResult warm = engine.fit(mag, result);
+        assertEquals(1, warm.getIterations());
+        assertEquals(result.getShat().get(1, 2), warm.getShat().get(1, 2), 1e-6);
+    }
+
+    /**
+     * Fitting districts in parallel, or from a warm start on a nearby graph, gives the cold sequential fit.
+     */
+    @Test
+    public void testEngineParallelAndWarmStart() {
+        RandomUtil.getInstance().setSeed(4938203L);
+        Graph truth = clusterModel(6, 4, true);
+        DataSet data = new SemIm(new SemPm(truth)).simulateData(1000, false);
+        ICovarianceMatrix cov = new CovarianceMatrix(data);
+        Graph mag = clusterModel(6, 4, false);
+
+        RicfEngine sequential = new RicfEngine(cov);
+        sequential.setNumThreads(1);
+        sequential.setTolerance(1e-10);
+        RicfEngine parallel = new RicfEngine(cov);
+        parallel.setNumThreads(4);
+        parallel.setTolerance(1e-10);
+
+        Ricf.RicfResult expected = sequential.fit(mag);
+        assertMatches(expected, parallel.fit(mag));
+
+        Graph nearby = new EdgeListGraph(mag);
+        nearby.removeEdge(nearby.getNode("X1_1"), nearby.getNode("X2_1"));
+        Ricf.RicfResult previous = sequential.fit(nearby);
+        assertMatches(expected, parallel.fit(mag, previous));
+    }
+
+    /**
+     * Compares cold RICF with the engine, cold and warm started, on a sequence of nearby measurement models of the
+     * kind scored by BPC and FOFC, where each candidate drops one more cross-cluster edge.
+     */
+    @Ignore
+    @Test
+    public void benchmarkEngine() {
+        int numClusters = 12;
+        int clusterSize = 5;
+
+        RandomUtil.getInstance().setSeed(4938203L);
+        Graph truth = clusterModel(numClusters, clusterSize, true);
+        DataSet data = new SemIm(new SemPm(truth)).simulateData(1000, false);
+        ICovarianceMatrix cov = new CovarianceMatrix(data);
+
+        List<Graph> candidates = new ArrayList<>();
+        Graph mag = clusterModel(numClusters, clusterSize, false);
+        candidates.add(new EdgeListGraph(mag));
+
+        for (int c = 1; c < numClusters; c++) {
+            mag.removeEdge(mag.getNode("X" + c + "_1"), mag.getNode("X" + (c + 1) + "_1"));
+            candidates.add(new EdgeListGraph(mag));
+        }
+
+        long start = System.currentTimeMillis();
+        for (Graph candidate : candidates) new Ricf().ricf(new SemGraph(candidate), cov, 1e-6);
+        long ricfTime = System.currentTimeMillis() - start;
+
+        RicfEngine engine = new RicfEngine(cov);
+        engine.setNumThreads(1);
+        start = System.currentTimeMillis();
+        for (Graph candidate : candidates) engine.fit(candidate);
+        long coldTime = System.currentTimeMillis() - start;
+
+        engine.setNumThreads(Runtime.getRuntime().availableProcessors());
+        start = System.currentTimeMillis();
+        Ricf.RicfResult previous = null;
+        for (Graph candidate : candidates) previous = engine.fit(candidate, previous);
+        long warmTime = System.currentTimeMillis() - start;
+
+        System.out.println(candidates.size() + " candidates over " + cov.getDimension() + " variables");
+        System.out.println("Ricf: " + ricfTime + " ms");
+        System.out.println("RicfEngine, cold, 1 thread: " + coldTime + " ms");
+        System.out.println("RicfEngine, warm, parallel: " + warmTime + " ms");
+    }
+
+    private void assertMatches(Ricf.RicfResult expected, Ricf.RicfResult actual) {
+        int p = expected.getShat().rows();
+
+        for (int i = 0; i < p; i++) {
+            for (int j = 0; j < p; j++) {
+                assertEquals(expected.getBhat().get(i, j), actual.getBhat().get(i, j), 1e-6);
+                assertEquals(expected.getOhat().get(i, j), actual.getOhat().get(i, j), 1e-6);
+            }
+        }
+
+        assertTrue(actual.getIterations() >= 1);
+    }
 
+    /**
+     * A measurement model with clusters of indicators and edges from the first two indicators of each cluster to those
+     * of the next. With latents, each cluster has its own latent parent; without, the latent is marginalized out as
+     * bidirected edges among the cluster's indicators.
+     */
+    private Graph clusterModel(int numClusters, int clusterSize, boolean withLatents) {
+        Graph graph = new EdgeListGraph();
+        Node[][] measures = new Node[numClusters][clusterSize];
 
+        for (int c = 0; c < numClusters; c++) {
+            for (int m = 0; m < clusterSize; m++) {
+                measures[c][m] = new ContinuousVariable("X" + (c + 1) + "_" + (m + 1));
+                graph.addNode(measures[c][m]);
+            }
 
+            if (withLatents) {
+                Node latent = new GraphNode("L" + (c + 1));
+                latent.setNodeType(NodeType.LATENT);
+                graph.addNode(latent);
+                for (int m = 0; m < clusterSize; m++) graph.addDirectedEdge(latent, measures[c][m]);
+            } else {
+                for (int m1 = 0; m1 < clusterSize; m1++) {
+                    for (int m2 = m1 + 1; m2 < clusterSize; m2++) {
+                        graph.addBidirectedEdge(measures[c][m1], measures[c][m2]);
+                    }
+                }
+            }
+
+            if (c > 0) {
+                graph.addDirectedEdge(measures[c - 1][0], measures[c][0]);
+                graph.addDirectedEdge(measures[c - 1][1], measures[c][1]);
+            }
+        }
+
+        return graph;
+    }
+}
@@ -25,11 +25,15 @@ import edu.cmu.tetrad.graph.*;
 import edu.cmu.tetrad.sem.*;
 import edu.cmu.tetrad.util.Matrix;
 import edu.cmu.tetrad.util.MatrixUtils;
+import edu.cmu.tetrad.util.RandomUtil;
 import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 /**
  * Tests the MeasurementSimulator class using diagnostics devised by Richard Scheines. The diagnostics are described in
  * the Javadocs, below.
@@ -75,6 +79,139 @@ public class TestSemEstimator {
         new SemEstimator(data, pm, new SemOptimizerPowell()).estimate();
     }
 
+    /**
+     * For a DAG, regression gives the maximum likelihood estimate, so L-BFGS on FML should reach the same score.
+     */
+    @Test
+    public void testLbfgs() {
+        Graph graph = constructGraph1();
+        SemPm semPm = new SemPm(graph);
+        ICovarianceMatrix covMatrix = constructCovMatrix1();
+
+        SemEstimator regression = new SemEstimator(covMatrix, semPm, new SemOptimizerRegression());
+        regression.setScoreType(ScoreType.Fml);
+        double expected = regression.estimate().getScore();
+
+        SemEstimator lbfgs = new SemEstimator(covMatrix, semPm, new SemOptimizerLbfgs());
+        lbfgs.setScoreType(ScoreType.Fml);
+        assertEquals(expected, lbfgs.estimate().getScore(), 1e-6);
+    }
+
+    /**
+     * A cyclic model is estimated with L-BFGS by default.
+     */
+    @Test
+    public void testLbfgsCyclic() {
+        checkLbfgsFit("X1-->X2,X2-->X3,X3-->X4,X4-->X2,X4-->X5", ScoreType.Fml, 3947291L);
+    }
+
+    /**
+     * A model with an error covariance is estimated with L-BFGS by default.
+     */
+    @Test
+    public void testLbfgsErrorCovariance() {
+        checkLbfgsFit("X1-->X2,X2-->X3,X3-->X4,X1-->X4,X2<->X4", ScoreType.Fml, 2938471L);
+    }
+
+    @Test
+    public void testLbfgsFgls() {
+        checkLbfgsFit("X1-->X2,X2-->X3,X3-->X4,X4-->X2,X1<->X3", ScoreType.Fgls, 8472615L);
+    }
+
+    /**
+     * The analytic gradient agrees with central differences of SemIm.getScore(), for both FML and FGLS, on a model
+     * with a latent, a cycle and an error covariance.
+     */
+    @Test
+    public void testLbfgsGradient() {
+        RandomUtil.getInstance().setSeed(5938173L);
+        SemPm pm = new SemPm(GraphUtils.convert(
+                "Latent(L),L-->X1,L-->X2,L-->X3,L-->X4,X4-->X5,X5-->X6,X6-->X4,X1<->X2"));
+        DataSet data = new SemIm(pm).simulateData(1000, false);
+
+        for (ScoreType scoreType : new ScoreType[]{ScoreType.Fml, ScoreType.Fgls}) {
+            SemIm im = new SemIm(pm);
+            im.setDataSet(data);
+            im.setScoreType(scoreType);
+
+            double[] x = im.getFreeParamValues();
+            double[] gradient = new SemOptimizerLbfgs().gradient(im);
+            double h = 1e-6;
+
+            for (int i = 0; i < x.length; i++) {
+                double[] y = x.clone();
+                y[i] = x[i] + h;
+                im.setFreeParamValues(y);
+                double up = im.getScore();
+                y[i] = x[i] - h;
+                im.setFreeParamValues(y);
+                double down = im.getScore();
+                im.setFreeParamValues(x);
+
+                assertEquals(scoreType + " " + im.getFreeParameters().get(i), (up - down) / (2 * h), gradient[i],
+                        1e-5 * Math.max(1.0, Math.abs(gradient[i])));
+            }
+        }
+    }
+
+    /**
+     * With no restarts, a starting point at which the fitting function is undefined (here I - B' is singular) falls
+     * back to random starting points instead of failing.
+     */
+    @Test
+    public void testLbfgsInfeasibleStart() {
+        RandomUtil.getInstance().setSeed(1029384L);
+        SemPm pm = new SemPm(GraphUtils.convert("X1-->X2,X2-->X3,X3-->X1,X3-->X4"));
+        SemIm truth = new SemIm(pm);
+        DataSet data = truth.simulateData(1000, false);
+
+        // The cycle's coefficients multiply to 1.
+        SemIm im = new SemIm(pm);
+        im.setDataSet(data);
+
+        for (Parameter parameter : im.getFreeParameters()) {
+            if (parameter.getType() == ParamType.COEF && !parameter.getNodeB().getName().equals("X4")) {
+                im.setParamValue(parameter, 1.0);
+            }
+        }
+
+        assertTrue(Double.isNaN(im.getScore()));
+
+        SemOptimizerLbfgs optimizer = new SemOptimizerLbfgs();
+        optimizer.setNumRestarts(0);
+        optimizer.optimize(im);
+
+        assertTrue(Double.isFinite(im.getScore()));
+    }
+
+    /**
+     * Fits the model with the default optimizer (L-BFGS for these models) and checks that the fit is at least as good
+     * as the true parameters and as Powell's, and that the gradient vanishes there.
+     */
+    private void checkLbfgsFit(String spec, ScoreType scoreType, long seed) {
+        RandomUtil.getInstance().setSeed(seed);
+        SemPm pm = new SemPm(GraphUtils.convert(spec));
+        SemIm truth = new SemIm(pm);
+        DataSet data = truth.simulateData(1000, false);
+
+        truth.setDataSet(data);
+        truth.setScoreType(scoreType);
+
+        SemEstimator lbfgs = new SemEstimator(data, pm);
+        lbfgs.setScoreType(scoreType);
+        SemIm fit = lbfgs.estimate();
+
+        SemEstimator powell = new SemEstimator(data, pm, new SemOptimizerPowell());
+        powell.setScoreType(scoreType);
+
+        assertTrue(fit.getScore() <= truth.getScore() + 1e-8);
+        assertTrue(fit.getScore() <= powell.estimate().getScore() + 1e-6);
+
+        for (double g : new SemOptimizerLbfgs().gradient(fit)) {
+            assertEquals(0.0, g, 1e-4);
+        }
+    }
+
     private Graph constructGraph1() {
         Graph graph = new EdgeListGraph();
 
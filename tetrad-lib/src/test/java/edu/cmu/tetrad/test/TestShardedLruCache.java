@@ -0,0 +1,121 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+//                                                                           //
+// Copyright (C) 2025 by Joseph Ramsey, Peter Spirtes, Clark Glymour,        //
+// and Richard Scheines.                                                     //
+//                                                                           //
+// This program is free software: you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation, either version 3 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.    //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.util.RankTests;
+import edu.cmu.tetrad.util.ShardedLruCache;
+import org.ejml.simple.SimpleMatrix;
+import org.junit.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests ShardedLruCache and the scoping of the RCCA cache in RankTests.
+ *
+ * @author josephramsey
+ */
+public final class TestShardedLruCache {
+
+    @Test
+    public void testWeightBoundAndStats() {
+        ShardedLruCache<Integer, double[]> cache = new ShardedLruCache<>(4, 4 * 100, v -> v.length);
+
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, new double[10]);
+        }
+
+        ShardedLruCache.Stats stats = cache.getStats();
+        assertTrue(stats.weight() <= 400);
+        assertEquals(100 - stats.size(), stats.evictions());
+
+        cache.clear();
+        cache.put(1, new double[1]);
+        assertNotNull(cache.get(1));
+        assertNull(cache.get(2));
+
+        stats = cache.getStats();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(0.5, stats.hitRate(), 0.0);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() {
+        ShardedLruCache<Integer, double[]> cache = new ShardedLruCache<>(1, 3, v -> 1);
+
+        cache.put(1, new double[1]);
+        cache.put(2, new double[1]);
+        cache.put(3, new double[1]);
+        cache.get(1);
+        cache.put(4, new double[1]);
+
+        assertNotNull(cache.get(1));
+        assertNull(cache.get(2));
+        assertNotNull(cache.get(3));
+        assertNotNull(cache.get(4));
+    }
+
+    @Test
+    public void testConcurrentUse() {
+        ShardedLruCache<Integer, Integer> cache = new ShardedLruCache<>(8, 1_000, v -> 1);
+
+        IntStream.range(0, 100_000).parallel().forEach(i -> {
+            int k = i % 500;
+            Integer v = cache.get(k);
+            if (v == null) cache.put(k, k);
+            else assertEquals(k, (int) v);
+        });
+
+        ShardedLruCache.Stats stats = cache.getStats();
+        assertEquals(100_000, stats.hits() + stats.misses());
+        assertTrue(stats.weight() <= 1_000);
+    }
+
+    @Test
+    public void testRccaScopedByMatrix() {
+        SimpleMatrix a = SimpleMatrix.identity(4);
+        SimpleMatrix b = SimpleMatrix.identity(4);
+        b.set(0, 2, 0.8);
+        b.set(2, 0, 0.8);
+
+        int[] x = {0, 1};
+        int[] y = {2, 3};
+
+        RankTests.clearRccaCache();
+
+        RankTests.RccaEntry ea = RankTests.getRccaEntry(a, x, y, 1e-6);
+        RankTests.RccaEntry eb = RankTests.getRccaEntry(b, x, y, 1e-6);
+
+        // Same indices on a different matrix must not hit a's entry.
+        assertEquals(0.0, ea.svals[0], 1e-6);
+        assertEquals(0.8, eb.svals[0], 1e-3);
+        assertSame(ea, RankTests.getRccaEntry(a, x, y, 1e-6));
+
+        ShardedLruCache.Stats stats = RankTests.getRccaCacheStats();
+        assertEquals(1, stats.hits());
+        assertEquals(2, stats.misses());
+
+        RankTests.clearRccaCache(a);
+        assertEquals(1, RankTests.getRccaCacheStats().size());
+    }
+}
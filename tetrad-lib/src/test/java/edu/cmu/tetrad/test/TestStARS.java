@@ -0,0 +1,127 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+//                                                                           //
+// Copyright (C) 2025 by Joseph Ramsey, Peter Spirtes, Clark Glymour,        //
+// and Richard Scheines.                                                     //
+//                                                                           //
+// This program is free software: you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation, either version 3 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.    //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.algcomparison.algorithm.StARS;
+import edu.cmu.tetrad.algcomparison.algorithm.oracle.cpdag.Fges;
+import edu.cmu.tetrad.algcomparison.score.SemBicScore;
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.RandomGraph;
+import edu.cmu.tetrad.sem.SemIm;
+import edu.cmu.tetrad.sem.SemPm;
+import edu.cmu.tetrad.util.Parameters;
+import edu.cmu.tetrad.util.Params;
+import edu.cmu.tetrad.util.RandomUtil;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests StARS path mode, its shared instability counters and the FGES warm start it relies on.
+ *
+ * @author josephramsey
+ */
+public final class TestStARS {
+
+    private static DataSet simulate(int numEdges, int sampleSize, long seed) {
+        RandomUtil.getInstance().setSeed(seed);
+        Graph graph = RandomGraph.randomGraph(12, 0, numEdges, 100, 100, 100, false);
+        return new SemIm(new SemPm(graph)).simulateData(sampleSize, false);
+    }
+
+    private static Parameters parameters() {
+        Parameters parameters = new Parameters();
+        parameters.set("percentSubsampleSize", 0.5);
+        parameters.set("StARS.cutoff", 0.1);
+        parameters.set("numSubsamples", 8);
+        parameters.set("logScale", false);
+        parameters.set(Params.NUM_THREADS, 1);
+        parameters.set(Params.VERBOSE, false);
+        return parameters;
+    }
+
+    /**
+     * Runs StARS over penalty discounts 1 to 5, with the subsamples drawn from the given seed.
+     */
+    private static StARS stars(DataSet data, boolean pathMode, int numThreads, long seed) throws InterruptedException {
+        StARS stars = new StARS(new Fges(new SemBicScore()), Params.PENALTY_DISCOUNT, 1, 5);
+        stars.setPathMode(pathMode);
+        stars.setNumThreads(numThreads);
+
+        RandomUtil.getInstance().setSeed(seed);
+        stars.search(data, parameters());
+        return stars;
+    }
+
+    @Test
+    public void testPathModeSelectsSameValue() throws InterruptedException {
+        DataSet data = simulate(18, 500, 4829301L);
+
+        StARS perValue = stars(data, false, 1, 9182736L);
+        StARS path = stars(data, true, 1, 9182736L);
+
+        assertFalse(Double.isNaN(perValue.getSelectedValue()));
+        assertEquals(perValue.getSelectedValue(), path.getSelectedValue(), 0.0);
+    }
+
+    @Test
+    public void testThreadsDoNotChangeInstability() throws InterruptedException {
+        DataSet data = simulate(18, 500, 3748291L);
+
+        for (boolean pathMode : new boolean[]{false, true}) {
+            StARS sequential = stars(data, pathMode, 1, 5647382L);
+            StARS parallel = stars(data, pathMode, 4, 5647382L);
+
+            Map<Double, Double> instabilities = sequential.getInstabilities();
+            assertEquals(9, instabilities.size());
+            assertEquals(instabilities, parallel.getInstabilities());
+            assertEquals(sequential.getSelectedValue(), parallel.getSelectedValue(), 0.0);
+        }
+    }
+
+    /**
+     * Starting FGES from the graph found at a smaller penalty discount gives the graph of a cold start. (Greedy searches
+     * from different starting graphs need not agree in general; this checks a fixed model where they should.)
+     */
+    @Test
+    public void testFgesWarmStartMatchesColdStart() throws InterruptedException {
+        DataSet data = simulate(12, 2000, 1928374L);
+        Fges fges = new Fges(new SemBicScore());
+
+        Parameters previous = parameters();
+        previous.set(Params.PENALTY_DISCOUNT, 1.0);
+        Graph previousGraph = fges.search(data, previous);
+
+        for (double penaltyDiscount : new double[]{1.5, 2.0, 4.0}) {
+            Parameters parameters = parameters();
+            parameters.set(Params.PENALTY_DISCOUNT, penaltyDiscount);
+
+            Graph cold = fges.search(data, parameters);
+            Graph warm = fges.searchFrom(data, parameters, previousGraph);
+
+            assertEquals(cold, warm);
+            previousGraph = warm;
+        }
+    }
+}
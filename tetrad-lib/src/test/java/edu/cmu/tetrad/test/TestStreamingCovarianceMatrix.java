@@ -0,0 +1,127 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+//                                                                           //
+// Copyright (C) 2025 by Joseph Ramsey, Peter Spirtes, Clark Glymour,        //
+// and Richard Scheines.                                                     //
+//                                                                           //
+// This program is free software: you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation, either version 3 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.    //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.data.*;
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.search.score.SemBicScore;
+import edu.cmu.tetrad.search.test.IndTestFisherZ;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests StreamingCovarianceMatrix against CovarianceMatrix computed from all rows at once.
+ *
+ * @author josephramsey
+ */
+public final class TestStreamingCovarianceMatrix {
+
+    private static DataSet batch(List<Node> variables, int n, double shift, Random random) {
+        double[][] data = new double[variables.size()][n];
+
+        for (int i = 0; i < n; i++) {
+            double common = random.nextGaussian();
+            for (int j = 0; j < variables.size(); j++) {
+                data[j][i] = shift + (j + 1) * common + random.nextGaussian();
+            }
+        }
+
+        return new BoxDataSet(new VerticalDoubleDataBox(data), variables);
+    }
+
+    private static void assertSameMatrix(ICovarianceMatrix expected, ICovarianceMatrix actual) {
+        assertEquals(expected.getSampleSize(), actual.getSampleSize());
+
+        for (int a = 0; a < expected.getDimension(); a++) {
+            for (int b = 0; b < expected.getDimension(); b++) {
+                assertEquals(expected.getValue(a, b), actual.getValue(a, b), 1e-9);
+            }
+        }
+    }
+
+    private static List<Node> variables(int p) {
+        List<Node> variables = new ArrayList<>();
+        for (int j = 0; j < p; j++) variables.add(new ContinuousVariable("X" + (j + 1)));
+        return variables;
+    }
+
+    @Test
+    public void testAddMergeRemove() {
+        List<Node> variables = variables(4);
+        Random random = new Random(11);
+        DataSet day1 = batch(variables, 700, 0.0, random);
+        DataSet day2 = batch(variables, 400, 100.0, random);
+        DataSet both = DataTransforms.concatenate(day1, day2);
+
+        StreamingCovarianceMatrix stats = new StreamingCovarianceMatrix(day1);
+        stats.addRows(day2);
+        assertSameMatrix(new CovarianceMatrix(both), stats);
+
+        StreamingCovarianceMatrix rowByRow = new StreamingCovarianceMatrix(variables);
+        for (int i = 0; i < both.getNumRows(); i++) {
+            double[] row = new double[variables.size()];
+            for (int j = 0; j < row.length; j++) row[j] = both.getDouble(i, j);
+            rowByRow.addRow(row);
+        }
+        assertSameMatrix(new CovarianceMatrix(both), rowByRow);
+
+        StreamingCovarianceMatrix merged = new StreamingCovarianceMatrix(day2);
+        merged.merge(new StreamingCovarianceMatrix(day1));
+        assertSameMatrix(new CovarianceMatrix(both), merged);
+
+        stats.removeRows(day1);
+        assertSameMatrix(new CovarianceMatrix(day2), stats);
+    }
+
+    @Test
+    public void testRefresh() {
+        List<Node> variables = variables(3);
+        Random random = new Random(23);
+        DataSet day1 = batch(variables, 300, 0.0, random);
+        DataSet day2 = batch(variables, 500, 0.0, random);
+        DataSet both = DataTransforms.concatenate(day1, day2);
+
+        StreamingCovarianceMatrix stats = new StreamingCovarianceMatrix(day1);
+        SemBicScore score = new SemBicScore(stats);
+        IndTestFisherZ test = new IndTestFisherZ(stats, 0.01);
+        score.localScore(2, 0, 1);
+
+        stats.addRows(day2);
+        score.refresh();
+        test.refresh();
+
+        SemBicScore expected = new SemBicScore(new CovarianceMatrix(both));
+        assertEquals(expected.localScore(2, 0, 1), score.localScore(2, 0, 1), 1e-6);
+        assertEquals(both.getNumRows(), test.getEffectiveSampleSize());
+
+        IndTestFisherZ expectedTest = new IndTestFisherZ(new CovarianceMatrix(both), 0.01);
+        assertEquals(expectedTest.checkIndependence(variables.get(0), variables.get(2),
+                        Collections.singleton(variables.get(1))).getPValue(),
+                test.checkIndependence(variables.get(0), variables.get(2),
+                        Collections.singleton(variables.get(1))).getPValue(), 1e-9);
+    }
+}
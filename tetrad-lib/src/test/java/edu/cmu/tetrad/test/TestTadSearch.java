@@ -0,0 +1,104 @@
+///////////////////////////////////////////////////////////////////////////////
+// For information as to what this class does, see the Javadoc, below.       //
+//                                                                           //
+// Copyright (C) 2025 by Joseph Ramsey, Peter Spirtes, Clark Glymour,        //
+// and Richard Scheines.                                                     //
+//                                                                           //
+// This program is free software: you can redistribute it and/or modify      //
+// it under the terms of the GNU General Public License as published by      //
+// the Free Software Foundation, either version 3 of the License, or         //
+// (at your option) any later version.                                       //
+//                                                                           //
+// This program is distributed in the hope that it will be useful,           //
+// but WITHOUT ANY WARRANTY; without even the implied warranty of            //
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the             //
+// GNU General Public License for more details.                              //
+//                                                                           //
+// You should have received a copy of the GNU General Public License         //
+// along with this program.  If not, see <https://www.gnu.org/licenses/>.    //
+///////////////////////////////////////////////////////////////////////////////
+
+package edu.cmu.tetrad.test;
+
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.RandomMim;
+import edu.cmu.tetrad.search.Fofc;
+import edu.cmu.tetrad.search.Ftfc;
+import edu.cmu.tetrad.search.blocks.SingleClusterPolicy;
+import edu.cmu.tetrad.sem.SemIm;
+import edu.cmu.tetrad.sem.SemPm;
+import edu.cmu.tetrad.util.RandomUtil;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests that FOFC and FTFC find the same clusters whatever the number of threads used to test tads, and that they stop
+ * when the thread running them is interrupted.
+ *
+ * @author josephramsey
+ */
+public final class TestTadSearch {
+
+    @Test
+    public void testFofcThreadsDoNotChangeClusters() {
+        DataSet data = simulate("4:5(1)", 38472938L);
+
+        Map<List<Integer>, Integer> sequential = fofc(data, 1).findClusters();
+        Map<List<Integer>, Integer> parallel = fofc(data, 4).findClusters();
+
+        assertFalse(sequential.isEmpty());
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    public void testFtfcThreadsDoNotChangeClusters() {
+        DataSet data = simulate("3:8(2)", 9283742L);
+
+        Map<List<Integer>, Integer> sequential = ftfc(data, 1).findClusters();
+        Map<List<Integer>, Integer> parallel = ftfc(data, 4).findClusters();
+
+        assertFalse(sequential.isEmpty());
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    public void testInterruptStopsSearch() {
+        DataSet data = simulate("4:5(1)", 38472938L);
+        Fofc fofc = fofc(data, 4);
+
+        Thread.currentThread().interrupt();
+
+        try {
+            assertTrue(fofc.findClusters().isEmpty());
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    private static DataSet simulate(String groups, long seed) {
+        RandomUtil.getInstance().setSeed(seed);
+        Graph graph = RandomMim.constructRandomMim(RandomMim.parseLatentGroupSpecs(groups), 1, 0, 0, 0,
+                RandomMim.LatentLinkMode.CARTESIAN_PRODUCT, new Random(seed));
+        return new SemIm(new SemPm(graph)).simulateData(5000, false);
+    }
+
+    private static Fofc fofc(DataSet data, int numThreads) {
+        Fofc fofc = new Fofc(data, 0.01, -1);
+        fofc.setNumThreads(numThreads);
+        return fofc;
+    }
+
+    private static Ftfc ftfc(DataSet data, int numThreads) {
+        Ftfc ftfc = new Ftfc(data, 0.01, -1, SingleClusterPolicy.EXCLUDE);
+        ftfc.setNumThreads(numThreads);
+        ftfc.setVerbose(false);
+        return ftfc;
+    }
+}